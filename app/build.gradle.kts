@@ -31,6 +31,10 @@ android {
         
     }
 
+    testOptions {
+        unitTests.isIncludeAndroidResources = true
+    }
+
     dependencies {
         coreLibraryDesugaring("com.android.tools:desugar_jdk_libs:2.0.4")
         implementation("androidx.core:core-ktx:1.12.0")
@@ -54,12 +58,21 @@ dependencies {
     implementation(libs.socket.io.client)
     implementation(libs.androidx.media3.exoplayer)
     implementation(libs.androidx.media3.ui)
+    implementation(libs.androidx.media3.datasource)
+    implementation(libs.androidx.media3.database)
     implementation(libs.gson)
     implementation(libs.okhttp)
 
     implementation(libs.androidx.media)
     implementation(libs.androidx.work.runtime)
 
+    testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
+    testImplementation(libs.androidx.test.core)
+    testImplementation(libs.androidx.arch.core.testing)
+    testImplementation(libs.androidx.room.testing)
+    testImplementation(libs.androidx.work.testing)
+
 //    implementation 'com.squareup.okhttp3:okhttp:4.12.0'
 
 }
\ No newline at end of file
@@ -27,7 +27,8 @@ public class BootInitWorker extends Worker {
     public Result doWork() {
         CustomLogger.d("BootInitWorker", "Boot init task running (one-time or periodic)");
 
-        // Your periodic or boot-time task logic here
+        // Resume a catalog sync that was interrupted by process death or a reboot
+        MediaSyncWorker.enqueueIfPending(getApplicationContext());
         return Result.success();
     }
 
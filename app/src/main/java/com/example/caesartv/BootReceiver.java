@@ -85,6 +85,10 @@ public class BootReceiver extends BroadcastReceiver {
 
             WorkManager.getInstance(context).enqueue(workRequest);
 
+            // WorkManager reschedules its own jobs after boot; this covers a catalog that was
+            // saved but never handed to the worker before the device went down
+            MediaSyncWorker.enqueueIfPending(appContext);
+
 
 
 //            new Handler(android.os.Looper.getMainLooper()).postDelayed(() -> {
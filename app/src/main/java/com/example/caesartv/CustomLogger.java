@@ -1,6 +1,9 @@
 package com.example.caesartv;
 
 import android.util.Log;
+
+import com.example.caesartv.data.remote.BandwidthBudget;
+
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -44,6 +47,12 @@ public class CustomLogger {
         String jsonBody = String.format("{\"text\": \"%s\"}", logMessage.replace("\"", "\\\""));
 
         executorService.execute(() -> {
+            try {
+                BandwidthBudget.getInstance().acquire(jsonBody.length());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
             RequestBody body = RequestBody.create(jsonBody, JSON);
             Request request = new Request.Builder()
                     .url(API_URL)
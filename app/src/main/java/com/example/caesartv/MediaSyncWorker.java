@@ -0,0 +1,117 @@
+package com.example.caesartv;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.caesartv.data.local.AppDatabase;
+import com.example.caesartv.data.local.PendingCatalogStore;
+import com.example.caesartv.data.remote.WebSocketDataSource;
+import com.example.caesartv.data.repository.MediaRepositoryImpl;
+import com.example.caesartv.domain.model.MediaItem;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Owns catalog downloads so they outlive MainActivity and its executors. Progress is
+// checkpointed per asset (cached files are fingerprinted and skipped on the next run),
+// so a stopped or killed sync resumes where it left off.
+public class MediaSyncWorker extends Worker {
+
+    private static final String TAG = "MediaSyncWorker";
+    public static final String UNIQUE_WORK_NAME = "media_sync";
+    public static final String KEY_COMPLETED = "completed";
+    public static final String KEY_TOTAL = "total";
+
+    public MediaSyncWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        PendingCatalogStore store = new PendingCatalogStore(context);
+        PendingCatalogStore.Pending pending = store.load();
+        if (pending == null) {
+            CustomLogger.d(TAG, "No pending catalog, nothing to sync");
+            return Result.success();
+        }
+        List<MediaItem> mediaItems = pending.mediaItems;
+        CustomLogger.d(TAG, "Syncing " + mediaItems.size() + " media items, attempt: " + (getRunAttemptCount() + 1));
+        // Owned by this run and released when it ends; the socket is never connected here
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        WebSocketDataSource webSocketDataSource = new WebSocketDataSource(context);
+        MediaRepositoryImpl repository = new MediaRepositoryImpl(webSocketDataSource,
+                AppDatabase.getDatabase(context).mediaDao(), context, executor);
+        try {
+            boolean completed = repository.syncCatalog(mediaItems, new MediaRepositoryImpl.SyncProgress() {
+                @Override
+                public boolean isStopped() {
+                    return MediaSyncWorker.this.isStopped();
+                }
+
+                @Override
+                public void onProgress(int completedItems, int totalItems) {
+                    setProgressAsync(new Data.Builder()
+                            .putInt(KEY_COMPLETED, completedItems)
+                            .putInt(KEY_TOTAL, totalItems)
+                            .build());
+                }
+            });
+            if (!completed) {
+                CustomLogger.w(TAG, "Sync stopped before completion, will resume");
+                return Result.retry();
+            }
+            // A catalog that arrived mid-run is kept; its REPLACE enqueue runs next
+            store.clearIfUnchanged(pending);
+            CustomLogger.d(TAG, "Sync completed");
+            return Result.success();
+        } catch (Exception e) {
+            CustomLogger.e(TAG, "Sync failed, will retry", e);
+            return Result.retry();
+        } finally {
+            executor.shutdown();
+            webSocketDataSource.release();
+        }
+    }
+
+    // A newer catalog replaces the one being synced; assets already fetched are kept
+    public static UUID enqueue(Context context) {
+        return enqueue(context, ExistingWorkPolicy.REPLACE);
+    }
+
+    // Used after boot: resume an unfinished sync without restarting a running one
+    public static void enqueueIfPending(Context context) {
+        if (new PendingCatalogStore(context).hasPending()) {
+            CustomLogger.d(TAG, "Pending catalog found, resuming sync");
+            enqueue(context, ExistingWorkPolicy.KEEP);
+        }
+    }
+
+    private static UUID enqueue(Context context, ExistingWorkPolicy policy) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .setRequiresStorageNotLow(true)
+                .build();
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(MediaSyncWorker.class)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 30, TimeUnit.SECONDS)
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(UNIQUE_WORK_NAME, policy, request);
+        CustomLogger.d(TAG, "Enqueued media sync work: " + request.getId());
+        return request.getId();
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.caesartv;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.provider.Settings;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.caesartv.data.local.AppDatabase;
+import com.example.caesartv.data.local.MediaDao;
+import com.example.caesartv.data.local.PlayEventEntity;
+import com.example.caesartv.data.remote.BandwidthBudget;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+// Uploads proof-of-play events in gzip-compressed batches and compacts the table once a day.
+// Rows are only deleted after the server has accepted them. The endpoint is pushed from the
+// dashboard; until it is, events are kept for the retention window and nothing is sent.
+public class PlayEventUploadWorker extends Worker {
+
+    private static final String TAG = "PlayEventUploadWorker";
+    private static final String UNIQUE_WORK_NAME = "play_event_upload";
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_BATCHES_PER_RUN = 20;
+    private static final long COMPACTION_INTERVAL_MS = TimeUnit.DAYS.toMillis(1);
+    private static final long RETENTION_MS = TimeUnit.DAYS.toMillis(14);
+    private static final String PREFS_NAME = "play_events";
+    private static final String KEY_LAST_COMPACTION = "last_compaction";
+    private static final String KEY_UPLOAD_URL = "upload_url";
+
+    private static final OkHttpClient client = new OkHttpClient.Builder()
+            .connectTimeout(15, TimeUnit.SECONDS)
+            .readTimeout(30, TimeUnit.SECONDS)
+            .build();
+
+    public PlayEventUploadWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        MediaDao mediaDao = AppDatabase.getDatabase(getApplicationContext()).mediaDao();
+        compactIfDue(mediaDao);
+        HttpUrl uploadUrl = HttpUrl.parse(getUploadUrl(getApplicationContext()));
+        if (uploadUrl == null) {
+            // Not a failure: a retry could not succeed before a usable endpoint is configured
+            CustomLogger.d(TAG, "No play event endpoint configured, keeping events");
+            return Result.success();
+        }
+        String deviceId = Settings.Secure.getString(getApplicationContext().getContentResolver(), Settings.Secure.ANDROID_ID);
+        int uploaded = 0;
+        try {
+            for (int i = 0; i < MAX_BATCHES_PER_RUN && !isStopped(); i++) {
+                List<PlayEventEntity> batch = mediaDao.getPlayEventBatch(BATCH_SIZE);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                byte[] body = gzip(toJson(deviceId, batch));
+                BandwidthBudget.getInstance().acquire(body.length);
+                Request request = new Request.Builder()
+                        .url(uploadUrl)
+                        .header("Content-Encoding", "gzip")
+                        .post(RequestBody.create(body, JSON))
+                        .build();
+                try (Response response = client.newCall(request).execute()) {
+                    if (!response.isSuccessful()) {
+                        CustomLogger.w(TAG, "Play event upload rejected: " + response.code());
+                        return Result.retry();
+                    }
+                }
+                mediaDao.deletePlayEventsUpTo(batch.get(batch.size() - 1).id);
+                uploaded += batch.size();
+            }
+            CustomLogger.d(TAG, "Uploaded " + uploaded + " play events");
+            return Result.success();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        } catch (Exception e) {
+            CustomLogger.e(TAG, "Play event upload failed after " + uploaded + " events, will retry", e);
+            return Result.retry();
+        }
+    }
+
+    public static String getUploadUrl(Context context) {
+        return prefs(context).getString(KEY_UPLOAD_URL, "");
+    }
+
+    // An empty or missing URL turns uploads off again
+    public static void setUploadUrl(Context context, String url) {
+        String uploadUrl = url != null ? url.trim() : "";
+        prefs(context).edit().putString(KEY_UPLOAD_URL, uploadUrl).apply();
+        CustomLogger.d(TAG, uploadUrl.isEmpty() ? "Play event upload disabled" : "Play events upload to " + uploadUrl);
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    // Events that could not be delivered within the retention window are dropped so the
+    // table cannot grow without bound on a screen that is offline for weeks
+    private void compactIfDue(MediaDao mediaDao) {
+        SharedPreferences prefs = prefs(getApplicationContext());
+        long now = System.currentTimeMillis();
+        if (now - prefs.getLong(KEY_LAST_COMPACTION, 0) < COMPACTION_INTERVAL_MS) {
+            return;
+        }
+        int dropped = mediaDao.deletePlayEventsEndedBefore(now - RETENTION_MS);
+        prefs.edit().putLong(KEY_LAST_COMPACTION, now).apply();
+        CustomLogger.d(TAG, "Compacted play events, dropped " + dropped + " older than retention");
+    }
+
+    private static String toJson(String deviceId, List<PlayEventEntity> batch) throws Exception {
+        JSONArray events = new JSONArray();
+        for (PlayEventEntity event : batch) {
+            events.put(new JSONObject()
+                    .put("itemId", event.itemId)
+                    .put("assetId", event.assetId)
+                    .put("zone", event.zone)
+                    .put("kind", event.kind)
+                    .put("startedAt", event.startedAt)
+                    .put("endedAt", event.endedAt)
+                    .put("outcome", event.outcome));
+        }
+        return new JSONObject()
+                .put("deviceId", deviceId)
+                .put("events", events)
+                .toString();
+    }
+
+    private static byte[] gzip(String json) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(PlayEventUploadWorker.class, 1, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(UNIQUE_WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.caesartv.data.cache;
+
+import android.content.Context;
+import android.util.DisplayMetrics;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.request.RequestOptions;
+import com.example.caesartv.CustomLogger;
+import com.example.caesartv.domain.model.ZoneLayout;
+
+import java.io.File;
+
+// Decodes cached images once, at download time, to the size of the zone they will fill:
+// a half screen, an L-bar side bar or ticker, a grid cell. The player requests the same
+// file with the same options, so it is served straight from Glide's resource cache
+// instead of decoding the full-size original.
+public final class ImagePreloader {
+
+    private static final String TAG = "ImagePreloader";
+
+    private ImagePreloader() {
+    }
+
+    public static RequestOptions zoneOptions(Context context, ZoneLayout.Slot slot) {
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        int width = Math.max(1, slot.widthOn(metrics.widthPixels));
+        int height = Math.max(1, slot.heightOn(metrics.heightPixels));
+        return new RequestOptions()
+                .override(width, height)
+                .centerCrop()
+                .diskCacheStrategy(DiskCacheStrategy.RESOURCE);
+    }
+
+    // Must not be called on the main thread
+    public static void preload(Context context, File file, ZoneLayout.Slot slot) {
+        Context appContext = context.getApplicationContext();
+        try {
+            Glide.with(appContext)
+                    .load(file)
+                    .apply(zoneOptions(appContext, slot))
+                    .submit()
+                    .get();
+            CustomLogger.d(TAG, "Pre-decoded image for " + slot + ": " + file.getAbsolutePath());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            CustomLogger.e(TAG, "Failed to pre-decode image: " + file.getAbsolutePath(), e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.caesartv.data.cache;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.annotation.OptIn;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.database.StandaloneDatabaseProvider;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.DefaultHttpDataSource;
+import androidx.media3.datasource.TransferListener;
+import androidx.media3.datasource.cache.CacheDataSource;
+import androidx.media3.datasource.cache.LeastRecentlyUsedCacheEvictor;
+import androidx.media3.datasource.cache.SimpleCache;
+
+import com.example.caesartv.CustomLogger;
+
+import java.io.File;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Write-through cache shared by the player and the repository downloader. Remote playback
+// fills it as it streams, so the downloader only has to fetch the byte ranges still missing.
+@OptIn(markerClass = UnstableApi.class)
+public final class MediaCache {
+
+    private static final String TAG = "MediaCache";
+    private static final String CACHE_DIR = "media_cache";
+    private static final long MAX_CACHE_BYTES = 1024L * 1024 * 1024; // 1GB, entries are dropped once the file is committed
+    private static final int CONNECT_TIMEOUT_MS = 30000;
+    private static final int READ_TIMEOUT_MS = 120000;
+    private static volatile SimpleCache cache;
+    private static final Map<String, CacheStats> stats = new ConcurrentHashMap<>();
+
+    private MediaCache() {
+    }
+
+    public static SimpleCache getCache(Context context) {
+        if (cache == null) {
+            synchronized (MediaCache.class) {
+                if (cache == null) {
+                    Context appContext = context.getApplicationContext();
+                    File dir = new File(appContext.getFilesDir(), CACHE_DIR);
+                    cache = new SimpleCache(dir, new LeastRecentlyUsedCacheEvictor(MAX_CACHE_BYTES),
+                            new StandaloneDatabaseProvider(appContext));
+                    CustomLogger.d(TAG, "Media cache opened: " + dir.getAbsolutePath() + ", Size: " + cache.getCacheSpace() + " bytes");
+                }
+            }
+        }
+        return cache;
+    }
+
+    // Used by the player: never waits for a span another reader is writing
+    public static DataSource.Factory playbackDataSourceFactory(Context context, String itemId) {
+        return dataSourceFactory(context, itemId, 0);
+    }
+
+    // Used by the downloader: blocks on spans the player is currently filling instead of
+    // fetching the same bytes a second time
+    public static CacheDataSource createDownloadDataSource(Context context, String itemId) {
+        return dataSourceFactory(context, itemId, CacheDataSource.FLAG_BLOCK_ON_CACHE).createDataSource();
+    }
+
+    private static CacheDataSource.Factory dataSourceFactory(Context context, String itemId, int flags) {
+        CacheStats itemStats = statsFor(itemId);
+        DefaultHttpDataSource.Factory upstream = new DefaultHttpDataSource.Factory()
+                .setConnectTimeoutMs(CONNECT_TIMEOUT_MS)
+                .setReadTimeoutMs(READ_TIMEOUT_MS)
+                .setAllowCrossProtocolRedirects(true)
+                .setTransferListener(itemStats);
+        return new CacheDataSource.Factory()
+                .setCache(getCache(context))
+                .setUpstreamDataSourceFactory(upstream)
+                .setEventListener(itemStats)
+                .setFlags(flags | CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR);
+    }
+
+    // The committed file replaces the cached copy, so free the space
+    public static void removeResource(Context context, String url) {
+        try {
+            getCache(context).removeResource(url);
+        } catch (Exception e) {
+            CustomLogger.e(TAG, "Failed to remove cached resource: " + url, e);
+        }
+    }
+
+    public static CacheStats statsFor(String itemId) {
+        String key = itemId != null ? itemId : "unknown";
+        return stats.computeIfAbsent(key, k -> new CacheStats());
+    }
+
+    public static void logStats(String itemId, String source) {
+        CacheStats itemStats = statsFor(itemId);
+        CustomLogger.d(TAG, "Cache stats for " + itemId + " after " + source
+                + ": cached=" + itemStats.getCachedBytes() + " bytes, network=" + itemStats.getNetworkBytes()
+                + " bytes, hit ratio=" + String.format(Locale.US, "%.1f", itemStats.getHitRatio() * 100) + "%");
+    }
+
+    public static class CacheStats implements TransferListener, CacheDataSource.EventListener {
+        private final AtomicLong cachedBytes = new AtomicLong();
+        private final AtomicLong networkBytes = new AtomicLong();
+
+        public long getCachedBytes() {
+            return cachedBytes.get();
+        }
+
+        public long getNetworkBytes() {
+            return networkBytes.get();
+        }
+
+        public double getHitRatio() {
+            long cached = cachedBytes.get();
+            long total = cached + networkBytes.get();
+            return total == 0 ? 0 : (double) cached / total;
+        }
+
+        @Override
+        public void onCachedBytesRead(long cacheSizeBytes, long cachedBytesRead) {
+            cachedBytes.addAndGet(cachedBytesRead);
+        }
+
+        @Override
+        public void onCacheIgnored(int reason) {
+            CustomLogger.d(TAG, "Cache ignored, reason: " + reason);
+        }
+
+        @Override
+        public void onTransferInitializing(@NonNull DataSource source, @NonNull DataSpec dataSpec, boolean isNetwork) {
+        }
+
+        @Override
+        public void onTransferStart(@NonNull DataSource source, @NonNull DataSpec dataSpec, boolean isNetwork) {
+        }
+
+        @Override
+        public void onBytesTransferred(@NonNull DataSource source, @NonNull DataSpec dataSpec, boolean isNetwork, int bytesTransferred) {
+            if (isNetwork) {
+                networkBytes.addAndGet(bytesTransferred);
+            }
+        }
+
+        @Override
+        public void onTransferEnd(@NonNull DataSource source, @NonNull DataSpec dataSpec, boolean isNetwork) {
+        }
+    }
+}
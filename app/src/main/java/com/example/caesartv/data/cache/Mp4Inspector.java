@@ -0,0 +1,335 @@
+package com.example.caesartv.data.cache;
+
+import com.example.caesartv.data.device.DeviceCapabilities;
+import com.example.caesartv.domain.model.VideoMetadata;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Walks the box structure of an MP4 (ISO-BMFF) file without a decoder. Top-level boxes are
+// checked with 16-byte header reads, so mdat is never touched; only moov is mapped and parsed
+// for the movie duration and the first video track's size, codec and frame rate.
+// Plain Java: the MIME constants it borrows are inlined at compile time, so it runs on a JVM.
+public final class Mp4Inspector {
+
+    public enum Status {
+        VALID,
+        INVALID,    // ISO-BMFF but truncated, corrupt or without playable content
+        UNSUPPORTED // Not ISO-BMFF, or a layout this walker cannot judge; use the platform instead
+    }
+
+    public static final class Result {
+        public final Status status;
+        public final String reason;
+        public final VideoMetadata metadata; // Null unless VALID with a video track
+
+        private Result(Status status, String reason, VideoMetadata metadata) {
+            this.status = status;
+            this.reason = reason;
+            this.metadata = metadata;
+        }
+
+        public boolean isValid() {
+            return status == Status.VALID;
+        }
+
+        @Override
+        public String toString() {
+            return status + (reason != null ? " (" + reason + ")" : "") + (metadata != null ? ": " + metadata : "");
+        }
+    }
+
+    private static final int MAX_MOOV_BYTES = 64 * 1024 * 1024;
+    private static final int MAX_DEPTH = 8;
+
+    private static final int FTYP = fourcc("ftyp");
+    private static final int MOOV = fourcc("moov");
+    private static final int MDAT = fourcc("mdat");
+    private static final int MOOF = fourcc("moof");
+    private static final int MVHD = fourcc("mvhd");
+    private static final int MVEX = fourcc("mvex");
+    private static final int MEHD = fourcc("mehd");
+    private static final int TRAK = fourcc("trak");
+    private static final int TKHD = fourcc("tkhd");
+    private static final int MDIA = fourcc("mdia");
+    private static final int MDHD = fourcc("mdhd");
+    private static final int HDLR = fourcc("hdlr");
+    private static final int MINF = fourcc("minf");
+    private static final int STBL = fourcc("stbl");
+    private static final int STSD = fourcc("stsd");
+    private static final int STTS = fourcc("stts");
+    private static final int VIDE = fourcc("vide");
+    // Top-level boxes that may open a file without ftyp (QuickTime and early MP4 writers)
+    private static final int[] LEADING_BOXES = {MOOV, MDAT, fourcc("free"), fourcc("skip"), fourcc("wide"), fourcc("pnot")};
+
+    private Mp4Inspector() {
+    }
+
+    public static Result inspect(File file) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            return inspect(raf.getChannel());
+        } catch (IOException e) {
+            return invalid("unreadable: " + e.getMessage());
+        }
+    }
+
+    static Result inspect(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(16);
+        long position = 0;
+        long moovOffset = -1;
+        long moovSize = 0;
+        boolean hasFtyp = false;
+        boolean hasMdat = false;
+        boolean fragmented = false;
+        while (position < fileSize) {
+            if (fileSize - position < 8) {
+                return invalid("trailing " + (fileSize - position) + " bytes at " + position);
+            }
+            header.clear();
+            readFully(channel, header, position);
+            header.flip();
+            long size = header.getInt() & 0xFFFFFFFFL;
+            int type = header.getInt();
+            int headerSize = 8;
+            if (size == 1) {
+                if (header.remaining() < 8) {
+                    return invalid("truncated large box header at " + position);
+                }
+                size = header.getLong();
+                headerSize = 16;
+            } else if (size == 0) {
+                size = fileSize - position; // Box runs to end of file
+            }
+            if (position == 0 && type != FTYP && !isLeadingBox(type)) {
+                return new Result(Status.UNSUPPORTED, "no ftyp, starts with " + fourccString(type), null);
+            }
+            if (size < headerSize) {
+                return invalid("box " + fourccString(type) + " with size " + size + " at " + position);
+            }
+            if (size > fileSize - position) {
+                return invalid("box " + fourccString(type) + " at " + position + " needs " + size + " bytes, "
+                        + (fileSize - position) + " left");
+            }
+            if (type == FTYP) {
+                hasFtyp = true;
+            } else if (type == MOOV) {
+                moovOffset = position + headerSize;
+                moovSize = size - headerSize;
+            } else if (type == MDAT) {
+                hasMdat = true;
+            } else if (type == MOOF) {
+                fragmented = true;
+            }
+            position += size;
+        }
+        if (moovOffset < 0) {
+            return invalid("no moov");
+        }
+        if (!hasMdat) {
+            return invalid("no mdat");
+        }
+        if (moovSize > MAX_MOOV_BYTES) {
+            return new Result(Status.UNSUPPORTED, "moov of " + moovSize + " bytes", null);
+        }
+        MappedByteBuffer moov = channel.map(FileChannel.MapMode.READ_ONLY, moovOffset, moovSize);
+        Movie movie = new Movie();
+        try {
+            parseContainer(moov, movie, null, 0);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return invalid("corrupt moov: " + e);
+        }
+        if (!movie.hasMvhd) {
+            return invalid("moov without mvhd");
+        }
+        long durationMs = movie.durationMs();
+        if (durationMs <= 0) {
+            // Fragment durations live in moof boxes this walker does not sum
+            return fragmented
+                    ? new Result(Status.UNSUPPORTED, "fragmented without mehd", null)
+                    : invalid("zero duration" + (hasFtyp ? "" : ", no ftyp"));
+        }
+        Track video = movie.video;
+        VideoMetadata metadata = null;
+        if (video != null) {
+            int bitrate = (int) Math.min(Integer.MAX_VALUE, fileSize * 8 * 1000 / durationMs);
+            metadata = new VideoMetadata(video.width, video.height, mimeFor(video.codec), video.frameRate(), bitrate, durationMs);
+        }
+        return new Result(Status.VALID, null, metadata);
+    }
+
+    private static final class Movie {
+        boolean hasMvhd;
+        long timescale;
+        long duration;
+        long fragmentDuration;
+        Track video;
+
+        long durationMs() {
+            long ticks = duration > 0 ? duration : fragmentDuration;
+            return timescale > 0 ? ticks * 1000 / timescale : 0;
+        }
+    }
+
+    private static final class Track {
+        int width;
+        int height;
+        boolean isVideo;
+        int codec;
+        long timescale;
+        long sampleCount;
+        long sampleTicks;
+
+        float frameRate() {
+            return sampleTicks > 0 && timescale > 0 ? (float) (sampleCount * (double) timescale / sampleTicks) : 0;
+        }
+    }
+
+    // Walks the children of the box whose payload is buffer[position, limit)
+    private static void parseContainer(ByteBuffer buffer, Movie movie, Track track, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("boxes nested deeper than " + MAX_DEPTH);
+        }
+        int end = buffer.limit();
+        while (buffer.position() < end) {
+            int start = buffer.position();
+            if (end - start < 8) {
+                throw new IllegalArgumentException("trailing bytes in container");
+            }
+            long size = buffer.getInt() & 0xFFFFFFFFL;
+            int type = buffer.getInt();
+            if (size == 1) {
+                size = buffer.getLong();
+            } else if (size == 0) {
+                size = end - start;
+            }
+            int payload = buffer.position();
+            if (size < payload - start || size > end - start) {
+                throw new IllegalArgumentException("box " + fourccString(type) + " overruns its parent");
+            }
+            int boxEnd = (int) (start + size);
+            ByteBuffer box = slice(buffer, payload, boxEnd);
+            if (type == MVHD) {
+                parseMvhd(box, movie);
+            } else if (type == MVEX || type == MDIA || type == MINF || type == STBL) {
+                parseContainer(box, movie, track, depth + 1);
+            } else if (type == MEHD) {
+                int version = box.get() & 0xFF;
+                box.position(box.position() + 3);
+                movie.fragmentDuration = version == 1 ? box.getLong() : box.getInt() & 0xFFFFFFFFL;
+            } else if (type == TRAK) {
+                Track child = new Track();
+                parseContainer(box, movie, child, depth + 1);
+                if (child.isVideo && movie.video == null) {
+                    movie.video = child;
+                }
+            } else if (track != null) {
+                parseTrackBox(type, box, track);
+            }
+            buffer.position(boxEnd);
+        }
+    }
+
+    private static void parseMvhd(ByteBuffer box, Movie movie) {
+        int version = box.get() & 0xFF;
+        box.position(box.position() + 3 + (version == 1 ? 16 : 8)); // Flags, creation and modification times
+        movie.timescale = box.getInt() & 0xFFFFFFFFL;
+        movie.duration = version == 1 ? box.getLong() : box.getInt() & 0xFFFFFFFFL;
+        movie.hasMvhd = true;
+    }
+
+    private static void parseTrackBox(int type, ByteBuffer box, Track track) {
+        if (type == TKHD) {
+            int version = box.get() & 0xFF;
+            // Flags, times, track ID, reserved, duration, reserved, layer, group, volume, reserved, matrix
+            box.position(box.position() + 3 + (version == 1 ? 32 : 20) + 52);
+            track.width = box.getInt() >>> 16; // 16.16 fixed point
+            track.height = box.getInt() >>> 16;
+        } else if (type == MDHD) {
+            int version = box.get() & 0xFF;
+            box.position(box.position() + 3 + (version == 1 ? 16 : 8));
+            track.timescale = box.getInt() & 0xFFFFFFFFL;
+        } else if (type == HDLR) {
+            box.position(box.position() + 8); // Version, flags and pre_defined
+            track.isVideo = box.getInt() == VIDE;
+        } else if (type == STSD) {
+            box.position(box.position() + 4);
+            if (box.getInt() > 0) {
+                box.getInt(); // First sample entry size
+                track.codec = box.getInt();
+            }
+        } else if (type == STTS) {
+            box.position(box.position() + 4);
+            long entries = box.getInt() & 0xFFFFFFFFL;
+            if (entries * 8 > box.remaining()) {
+                throw new IllegalArgumentException("stts with " + entries + " entries overruns its box");
+            }
+            for (long i = 0; i < entries; i++) {
+                long count = box.getInt() & 0xFFFFFFFFL;
+                long delta = box.getInt() & 0xFFFFFFFFL;
+                track.sampleCount += count;
+                track.sampleTicks += count * delta;
+            }
+        }
+    }
+
+    // Maps the sample entry type to the decoder MIME type; null when unknown or encrypted
+    private static String mimeFor(int codec) {
+        switch (fourccString(codec)) {
+            case "avc1":
+            case "avc3":
+                return DeviceCapabilities.MIME_AVC;
+            case "hvc1":
+            case "hev1":
+                return DeviceCapabilities.MIME_HEVC;
+            case "vp09":
+                return DeviceCapabilities.MIME_VP9;
+            case "av01":
+                return DeviceCapabilities.MIME_AV1;
+            case "mp4v":
+                return "video/mp4v-es";
+            default:
+                return null;
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int from, int to) {
+        ByteBuffer view = buffer.duplicate();
+        view.limit(to).position(from);
+        return view.slice();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                break; // Short header near EOF; the caller checks what it got
+            }
+        }
+    }
+
+    private static boolean isLeadingBox(int type) {
+        for (int leading : LEADING_BOXES) {
+            if (leading == type) return true;
+        }
+        return false;
+    }
+
+    private static Result invalid(String reason) {
+        return new Result(Status.INVALID, reason, null);
+    }
+
+    private static int fourcc(String type) {
+        return (type.charAt(0) << 24) | (type.charAt(1) << 16) | (type.charAt(2) << 8) | type.charAt(3);
+    }
+
+    private static String fourccString(int type) {
+        return new String(new char[]{(char) ((type >>> 24) & 0xFF), (char) ((type >>> 16) & 0xFF),
+                (char) ((type >>> 8) & 0xFF), (char) (type & 0xFF)});
+    }
+}
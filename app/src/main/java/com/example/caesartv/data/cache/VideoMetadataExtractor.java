@@ -0,0 +1,71 @@
+package com.example.caesartv.data.cache;
+
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+
+import com.example.caesartv.CustomLogger;
+import com.example.caesartv.domain.model.VideoMetadata;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+// Reads a committed file's stream properties. MP4 files come from Mp4Inspector's box walk;
+// anything it cannot judge gets one MediaExtractor pass over the container headers.
+public final class VideoMetadataExtractor {
+
+    private static final String TAG = "VideoMetadataExtractor";
+
+    private VideoMetadataExtractor() {
+    }
+
+    // Returns null when the file has no readable video track
+    public static VideoMetadata extract(File file) {
+        Mp4Inspector.Result inspected = Mp4Inspector.inspect(file);
+        if (inspected.metadata != null && inspected.metadata.getWidth() > 0) {
+            CustomLogger.d(TAG, "Inspected metadata for " + file.getName() + ": " + inspected.metadata);
+            return inspected.metadata;
+        }
+        return extractWithPlatform(file);
+    }
+
+    private static VideoMetadata extractWithPlatform(File file) {
+        MediaExtractor extractor = new MediaExtractor();
+        try {
+            extractor.setDataSource(file.getAbsolutePath());
+            for (int i = 0; i < extractor.getTrackCount(); i++) {
+                MediaFormat format = extractor.getTrackFormat(i);
+                String mime = format.getString(MediaFormat.KEY_MIME);
+                if (mime == null || !mime.toLowerCase(Locale.US).startsWith("video/")) continue;
+                int width = format.containsKey(MediaFormat.KEY_WIDTH) ? format.getInteger(MediaFormat.KEY_WIDTH) : 0;
+                int height = format.containsKey(MediaFormat.KEY_HEIGHT) ? format.getInteger(MediaFormat.KEY_HEIGHT) : 0;
+                long durationMs = format.containsKey(MediaFormat.KEY_DURATION) ? format.getLong(MediaFormat.KEY_DURATION) / 1000 : 0;
+                int bitrate = format.containsKey(MediaFormat.KEY_BIT_RATE) ? format.getInteger(MediaFormat.KEY_BIT_RATE) : 0;
+                if (bitrate <= 0 && durationMs > 0) {
+                    // Containers rarely carry it; the file average is close enough for routing
+                    bitrate = (int) Math.min(Integer.MAX_VALUE, file.length() * 8 * 1000 / durationMs);
+                }
+                VideoMetadata metadata = new VideoMetadata(width, height, mime.toLowerCase(Locale.US), frameRate(format), bitrate, durationMs);
+                CustomLogger.d(TAG, "Extracted metadata for " + file.getName() + ": " + metadata);
+                return metadata;
+            }
+            CustomLogger.w(TAG, "No video track in " + file.getAbsolutePath());
+            return null;
+        } catch (IOException | RuntimeException e) {
+            CustomLogger.e(TAG, "Failed to extract metadata from " + file.getAbsolutePath(), e);
+            return null;
+        } finally {
+            extractor.release();
+        }
+    }
+
+    // Stored as an int by most extractors and as a float by some
+    private static float frameRate(MediaFormat format) {
+        if (!format.containsKey(MediaFormat.KEY_FRAME_RATE)) return 0;
+        try {
+            return format.getInteger(MediaFormat.KEY_FRAME_RATE);
+        } catch (ClassCastException e) {
+            return format.getFloat(MediaFormat.KEY_FRAME_RATE);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.caesartv.data.device;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.example.caesartv.CustomLogger;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+// Player buffer sizes per playback scenario: local file vs remote stream, one full-screen
+// zone vs split screen, on a low-RAM vs high-RAM box. Local files need little buffer since
+// the disk never stalls; remote streams need enough to ride out a weak uplink, capped
+// harder when two zones or a small heap share the memory.
+// Operators can override any field per scenario from the dashboard; overrides are persisted
+// and apply to players created afterwards.
+public final class BufferProfiles {
+
+    private static final String TAG = "BufferProfiles";
+    private static final String PREFS_NAME = "buffer_profiles";
+    private static final String KEY_OVERRIDES = "overrides";
+    private static final int LOW_RAM_MEMORY_CLASS_MB = 128;
+    private static final int MB = 1024 * 1024;
+    private static volatile BufferProfiles instance;
+
+    public static final class BufferProfile {
+        public final String name;
+        public final int minBufferMs;
+        public final int maxBufferMs;
+        public final int bufferForPlaybackMs;
+        public final int bufferForPlaybackAfterRebufferMs;
+        public final int targetBufferBytes; // -1 lets the player size it from the selected tracks
+        public final boolean prioritizeTimeOverSize;
+
+        BufferProfile(String name, int minBufferMs, int maxBufferMs, int bufferForPlaybackMs,
+                      int bufferForPlaybackAfterRebufferMs, int targetBufferBytes, boolean prioritizeTimeOverSize) {
+            // Same ordering the player's load control asserts, so a bad override cannot crash it
+            this.maxBufferMs = Math.max(1, maxBufferMs);
+            this.minBufferMs = Math.max(1, Math.min(minBufferMs, this.maxBufferMs));
+            this.bufferForPlaybackMs = Math.max(0, Math.min(bufferForPlaybackMs, this.minBufferMs));
+            this.bufferForPlaybackAfterRebufferMs = Math.max(0, Math.min(bufferForPlaybackAfterRebufferMs, this.minBufferMs));
+            this.name = name;
+            this.targetBufferBytes = targetBufferBytes > 0 ? targetBufferBytes : -1;
+            this.prioritizeTimeOverSize = prioritizeTimeOverSize;
+        }
+
+        BufferProfile withOverrides(JSONObject json) {
+            if (json == null) {
+                return this;
+            }
+            return new BufferProfile(name,
+                    json.optInt("minBufferMs", minBufferMs),
+                    json.optInt("maxBufferMs", maxBufferMs),
+                    json.optInt("bufferForPlaybackMs", bufferForPlaybackMs),
+                    json.optInt("bufferForPlaybackAfterRebufferMs", bufferForPlaybackAfterRebufferMs),
+                    json.optInt("targetBufferBytes", targetBufferBytes),
+                    json.optBoolean("prioritizeTimeOverSize", prioritizeTimeOverSize));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof BufferProfile)) return false;
+            BufferProfile other = (BufferProfile) o;
+            return name.equals(other.name)
+                    && minBufferMs == other.minBufferMs
+                    && maxBufferMs == other.maxBufferMs
+                    && bufferForPlaybackMs == other.bufferForPlaybackMs
+                    && bufferForPlaybackAfterRebufferMs == other.bufferForPlaybackAfterRebufferMs
+                    && targetBufferBytes == other.targetBufferBytes
+                    && prioritizeTimeOverSize == other.prioritizeTimeOverSize;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = name.hashCode();
+            result = 31 * result + minBufferMs;
+            result = 31 * result + maxBufferMs;
+            result = 31 * result + bufferForPlaybackMs;
+            result = 31 * result + bufferForPlaybackAfterRebufferMs;
+            result = 31 * result + targetBufferBytes;
+            return 31 * result + (prioritizeTimeOverSize ? 1 : 0);
+        }
+
+        @Override
+        public String toString() {
+            return name + " [" + minBufferMs + "-" + maxBufferMs + "ms, start " + bufferForPlaybackMs
+                    + "/" + bufferForPlaybackAfterRebufferMs + "ms, "
+                    + (targetBufferBytes > 0 ? (targetBufferBytes / MB) + "MB" : "auto") + "]";
+        }
+    }
+
+    private final boolean lowRam;
+    private volatile JSONObject overrides;
+
+    // Package-private so tests can build one per device class; the app uses get()
+    BufferProfiles(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        this.lowRam = activityManager == null || activityManager.isLowRamDevice()
+                || activityManager.getMemoryClass() <= LOW_RAM_MEMORY_CLASS_MB;
+        this.overrides = readOverrides(prefs(context));
+        CustomLogger.d(TAG, "Device class " + deviceClass() + (activityManager != null
+                ? " (memory class " + activityManager.getMemoryClass() + "MB, low-RAM flag " + activityManager.isLowRamDevice() + ")" : ""));
+    }
+
+    public static BufferProfiles get(Context context) {
+        if (instance == null) {
+            synchronized (BufferProfiles.class) {
+                if (instance == null) {
+                    instance = new BufferProfiles(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Accepts {"remote_single": {"maxBufferMs": 90000}, "low_ram/remote_split": {...}}; a key
+    // with a device class prefix wins over the bare scenario. Null clears all overrides.
+    public static void setOverrides(Context context, JSONObject json) {
+        BufferProfiles profiles = get(context);
+        JSONObject value = json != null ? json : new JSONObject();
+        prefs(context).edit().putString(KEY_OVERRIDES, value.toString()).apply();
+        profiles.overrides = value;
+        CustomLogger.d(TAG, "Buffer profile overrides set: " + value);
+    }
+
+    public BufferProfile profileFor(boolean remote, boolean split) {
+        String scenario = (remote ? "remote" : "local") + (split ? "_split" : "_single");
+        BufferProfile profile = defaults(scenario).withOverrides(overrides.optJSONObject(scenario));
+        return profile.withOverrides(overrides.optJSONObject(deviceClass() + "/" + scenario));
+    }
+
+    private String deviceClass() {
+        return lowRam ? "low_ram" : "high_ram";
+    }
+
+    private BufferProfile defaults(String scenario) {
+        String name = scenario + "/" + deviceClass();
+        switch (scenario) {
+            case "local_single":
+                return new BufferProfile(name, 5000, lowRam ? 10000 : 15000, 1000, 2000, -1, false);
+            case "local_split":
+                return new BufferProfile(name, 3000, lowRam ? 5000 : 8000, 1000, 2000, -1, false);
+            case "remote_single":
+                return lowRam
+                        ? new BufferProfile(name, 15000, 40000, 2500, 5000, 24 * MB, false)
+                        : new BufferProfile(name, 30000, 120000, 2500, 8000, 64 * MB, true);
+            default: // remote_split
+                return lowRam
+                        ? new BufferProfile(name, 10000, 25000, 2500, 5000, 12 * MB, false)
+                        : new BufferProfile(name, 20000, 60000, 2500, 6000, 32 * MB, true);
+        }
+    }
+
+    private static JSONObject readOverrides(SharedPreferences prefs) {
+        try {
+            return new JSONObject(prefs.getString(KEY_OVERRIDES, "{}"));
+        } catch (JSONException e) {
+            CustomLogger.e(TAG, "Stored buffer profile overrides are unreadable, ignoring them", e);
+            return new JSONObject();
+        }
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.caesartv.data.device;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.hardware.display.DisplayManager;
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecList;
+import android.os.Build;
+import android.view.Display;
+
+import com.example.caesartv.CustomLogger;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+
+// Decoder profile of this box: per video codec the largest resolution it decodes at 30fps,
+// the frame rate it sustains at that size, how many decoder instances it allows and
+// whether it supports tunneled playback. Codec enumeration is binder-heavy, so the profile
+// is persisted and only re-probed when the firmware fingerprint changes. The display
+// height is read live since the panel can change.
+public class DeviceCapabilities {
+
+    private static final String TAG = "DeviceCapabilities";
+    public static final String MIME_AVC = "video/avc";
+    public static final String MIME_HEVC = "video/hevc";
+    public static final String MIME_VP9 = "video/x-vnd.on2.vp9";
+    public static final String MIME_AV1 = "video/av01";
+    private static final String[] PROBED_MIMES = {MIME_AVC, MIME_HEVC, MIME_VP9, MIME_AV1};
+    private static final int[][] PROBE_SIZES = {{7680, 4320}, {3840, 2160}, {2560, 1440}, {1920, 1080}, {1280, 720}, {854, 480}};
+    private static final int PROBE_FRAME_RATE = 30;
+    private static final String PREFS_NAME = "device_capabilities";
+    private static final String KEY_FINGERPRINT = "fingerprint";
+    private static final String KEY_PROFILE = "profile";
+    private static final String KEY_VERSION = "version";
+    static final int PROFILE_VERSION = 2; // Bump when the probe changes so stored profiles are redone
+    private static volatile DeviceCapabilities instance;
+
+    private static class CodecProfile {
+        final int maxWidth;
+        final int maxHeight;
+        final int maxFrameRate; // At maxWidth x maxHeight
+        final int maxInstances; // 0 when the platform does not report it
+        final boolean tunneling;
+
+        CodecProfile(int maxWidth, int maxHeight, int maxFrameRate, int maxInstances, boolean tunneling) {
+            this.maxWidth = maxWidth;
+            this.maxHeight = maxHeight;
+            this.maxFrameRate = maxFrameRate;
+            this.maxInstances = maxInstances;
+            this.tunneling = tunneling;
+        }
+
+        // Keeps the larger size (then frame rate) of two decoders for the same type, and the
+        // most permissive instance count and tunneling support
+        CodecProfile merge(CodecProfile other) {
+            boolean otherLarger = other.maxHeight > maxHeight
+                    || (other.maxHeight == maxHeight && other.maxFrameRate > maxFrameRate);
+            CodecProfile size = otherLarger ? other : this;
+            return new CodecProfile(size.maxWidth, size.maxHeight, size.maxFrameRate,
+                    Math.max(maxInstances, other.maxInstances), tunneling || other.tunneling);
+        }
+
+        JSONObject toJson() throws JSONException {
+            return new JSONObject()
+                    .put("width", maxWidth)
+                    .put("height", maxHeight)
+                    .put("fps", maxFrameRate)
+                    .put("instances", maxInstances)
+                    .put("tunneling", tunneling);
+        }
+
+        static CodecProfile fromJson(JSONObject json) {
+            return new CodecProfile(json.optInt("width"), json.optInt("height"), json.optInt("fps"),
+                    json.optInt("instances"), json.optBoolean("tunneling"));
+        }
+    }
+
+    private final Map<String, CodecProfile> codecs;
+    private final int displayHeight;
+
+    private DeviceCapabilities(Map<String, CodecProfile> codecs, int displayHeight) {
+        this.codecs = codecs;
+        this.displayHeight = displayHeight;
+    }
+
+    public static DeviceCapabilities get(Context context) {
+        if (instance == null) {
+            synchronized (DeviceCapabilities.class) {
+                if (instance == null) {
+                    instance = load(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Package-private so tests can load a stored profile without the process-wide instance
+    static DeviceCapabilities load(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        int displayHeight = probeDisplayHeight(context);
+        if (Build.FINGERPRINT.equals(prefs.getString(KEY_FINGERPRINT, null))
+                && prefs.getInt(KEY_VERSION, 0) == PROFILE_VERSION) {
+            try {
+                Map<String, CodecProfile> codecs = codecsFromJson(new JSONObject(prefs.getString(KEY_PROFILE, "{}")));
+                DeviceCapabilities capabilities = new DeviceCapabilities(codecs, displayHeight);
+                CustomLogger.d(TAG, "Loaded stored decoder profile: " + capabilities);
+                return capabilities;
+            } catch (JSONException e) {
+                CustomLogger.e(TAG, "Stored decoder profile is unreadable, probing again", e);
+            }
+        }
+        long started = System.currentTimeMillis();
+        DeviceCapabilities capabilities = new DeviceCapabilities(probeCodecs(), displayHeight);
+        CustomLogger.d(TAG, "Probed decoder profile in " + (System.currentTimeMillis() - started) + "ms: " + capabilities);
+        try {
+            prefs.edit()
+                    .putString(KEY_FINGERPRINT, Build.FINGERPRINT)
+                    .putInt(KEY_VERSION, PROFILE_VERSION)
+                    .putString(KEY_PROFILE, capabilities.codecsToJson().toString())
+                    .apply();
+        } catch (JSONException e) {
+            CustomLogger.e(TAG, "Failed to store decoder profile", e);
+        }
+        return capabilities;
+    }
+
+    private static Map<String, CodecProfile> probeCodecs() {
+        Map<String, CodecProfile> codecs = new HashMap<>();
+        MediaCodecList codecList = new MediaCodecList(MediaCodecList.ALL_CODECS);
+        for (MediaCodecInfo codecInfo : codecList.getCodecInfos()) {
+            if (codecInfo.isEncoder()) continue;
+            for (String type : codecInfo.getSupportedTypes()) {
+                String mime = type.toLowerCase(Locale.US);
+                if (!isProbed(mime)) continue;
+                try {
+                    CodecProfile profile = probeCodec(codecInfo.getCapabilitiesForType(type));
+                    if (profile == null) continue;
+                    CodecProfile current = codecs.get(mime);
+                    codecs.put(mime, current == null ? profile : current.merge(profile));
+                } catch (Exception e) {
+                    CustomLogger.e(TAG, "Failed to read capabilities of " + codecInfo.getName() + " for " + type, e);
+                }
+            }
+        }
+        return codecs;
+    }
+
+    private static CodecProfile probeCodec(MediaCodecInfo.CodecCapabilities caps) {
+        MediaCodecInfo.VideoCapabilities video = caps.getVideoCapabilities();
+        if (video == null) return null;
+        for (int[] size : PROBE_SIZES) {
+            if (!video.areSizeAndRateSupported(size[0], size[1], PROBE_FRAME_RATE)) continue;
+            int frameRate = PROBE_FRAME_RATE;
+            try {
+                frameRate = (int) Math.floor(video.getSupportedFrameRatesFor(size[0], size[1]).getUpper());
+            } catch (IllegalArgumentException e) {
+                // Size is supported at the probe rate; keep that as the floor
+            }
+            int instances = Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? caps.getMaxSupportedInstances() : 0;
+            boolean tunneling = caps.isFeatureSupported(MediaCodecInfo.CodecCapabilities.FEATURE_TunneledPlayback);
+            return new CodecProfile(size[0], size[1], frameRate, instances, tunneling);
+        }
+        return null;
+    }
+
+    public static boolean isProbed(String mime) {
+        for (String probed : PROBED_MIMES) {
+            if (probed.equals(mime)) return true;
+        }
+        return false;
+    }
+
+    private static int probeDisplayHeight(Context context) {
+        DisplayManager displayManager = (DisplayManager) context.getSystemService(Context.DISPLAY_SERVICE);
+        Display display = displayManager != null ? displayManager.getDisplay(Display.DEFAULT_DISPLAY) : null;
+        if (display != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            // Physical mode: TV UIs often render at 1080p on a 4K panel
+            Display.Mode mode = display.getMode();
+            return Math.min(mode.getPhysicalWidth(), mode.getPhysicalHeight());
+        }
+        return Math.min(context.getResources().getDisplayMetrics().widthPixels,
+                context.getResources().getDisplayMetrics().heightPixels);
+    }
+
+    // Maps server codec names (h264, avc1.640028, hevc, hvc1, vp09, av01, ...) to decoder MIME types
+    public static String mimeForCodec(String codec) {
+        if (codec == null) return null;
+        String value = codec.toLowerCase(Locale.US);
+        if (value.startsWith("video/")) return value;
+        if (value.startsWith("avc") || value.equals("h264") || value.equals("h.264")) return MIME_AVC;
+        if (value.startsWith("hvc") || value.startsWith("hev") || value.equals("h265") || value.equals("h.265")) return MIME_HEVC;
+        if (value.startsWith("vp9") || value.startsWith("vp09")) return MIME_VP9;
+        if (value.startsWith("av1") || value.startsWith("av01")) return MIME_AV1;
+        return null;
+    }
+
+    public boolean canDecode(String mime, int width, int height) {
+        CodecProfile profile = mime != null ? codecs.get(mime) : null;
+        if (profile == null) return false;
+        // Compare long and short edges so portrait renditions are handled too
+        return Math.max(width, height) <= Math.max(profile.maxWidth, profile.maxHeight)
+                && Math.min(width, height) <= Math.min(profile.maxWidth, profile.maxHeight);
+    }
+
+    // The frame rate limit is the one measured at the largest size, so this errs on the safe side
+    public boolean canDecode(String mime, int width, int height, float frameRate) {
+        if (!canDecode(mime, width, height)) return false;
+        return frameRate <= 0 || frameRate <= codecs.get(mime).maxFrameRate;
+    }
+
+    public int getMaxWidth(String mime) {
+        CodecProfile profile = codecs.get(mime);
+        return profile != null ? profile.maxWidth : 0;
+    }
+
+    public int getMaxHeight(String mime) {
+        CodecProfile profile = codecs.get(mime);
+        return profile != null ? profile.maxHeight : 0;
+    }
+
+    public int getMaxFrameRate(String mime) {
+        CodecProfile profile = codecs.get(mime);
+        return profile != null ? profile.maxFrameRate : 0;
+    }
+
+    // Concurrent decoder sessions for a type; 0 when unknown
+    public int getMaxInstances(String mime) {
+        CodecProfile profile = codecs.get(mime);
+        return profile != null ? profile.maxInstances : 0;
+    }
+
+    public boolean supportsTunneling(String mime) {
+        CodecProfile profile = codecs.get(mime);
+        return profile != null && profile.tunneling;
+    }
+
+    public int getDisplayHeight() {
+        return displayHeight;
+    }
+
+    // Sent to the server at registration so it can target renditions at this box
+    public JSONObject toJson() throws JSONException {
+        return new JSONObject()
+                .put("displayHeight", displayHeight)
+                .put("codecs", codecsToJson());
+    }
+
+    // Inverse of toJson: a profile recorded on another box, e.g. to size budgets for it in tests
+    public static DeviceCapabilities fromJson(JSONObject json) throws JSONException {
+        return new DeviceCapabilities(codecsFromJson(json.getJSONObject("codecs")), json.optInt("displayHeight"));
+    }
+
+    private JSONObject codecsToJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        for (Map.Entry<String, CodecProfile> entry : codecs.entrySet()) {
+            json.put(entry.getKey(), entry.getValue().toJson());
+        }
+        return json;
+    }
+
+    private static Map<String, CodecProfile> codecsFromJson(JSONObject json) throws JSONException {
+        Map<String, CodecProfile> codecs = new HashMap<>();
+        Iterator<String> mimes = json.keys();
+        while (mimes.hasNext()) {
+            String mime = mimes.next();
+            codecs.put(mime, CodecProfile.fromJson(json.getJSONObject(mime)));
+        }
+        return codecs;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("display=").append(displayHeight).append('p');
+        for (Map.Entry<String, CodecProfile> entry : codecs.entrySet()) {
+            CodecProfile profile = entry.getValue();
+            builder.append(", ").append(entry.getKey()).append('=')
+                    .append(profile.maxWidth).append('x').append(profile.maxHeight)
+                    .append('@').append(profile.maxFrameRate)
+                    .append(" x").append(profile.maxInstances)
+                    .append(profile.tunneling ? " tunneled" : "");
+        }
+        return builder.toString();
+    }
+}
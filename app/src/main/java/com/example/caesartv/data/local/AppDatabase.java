@@ -7,7 +7,7 @@ import androidx.room.RoomDatabase;
 import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
-@Database(entities = {MediaEntity.class, MediaUrlEntity.class}, version = 6, exportSchema = false)
+@Database(entities = {MediaEntity.class, MediaUrlEntity.class, CachedFileEntity.class, PlayEventEntity.class}, version = 11, exportSchema = false)
 public abstract class AppDatabase extends RoomDatabase {
     public abstract MediaDao mediaDao();
 
@@ -19,7 +19,7 @@ public abstract class AppDatabase extends RoomDatabase {
                 if (INSTANCE == null) {
                     INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
                                     AppDatabase.class, "caesartv_database")
-                            .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6)
+                            .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10, MIGRATION_10_11)
                             .build();
                 }
             }
@@ -90,4 +90,65 @@ public abstract class AppDatabase extends RoomDatabase {
             database.execSQL("ALTER TABLE media_url ADD COLUMN localFilePath TEXT");
         }
     };
-}
\ No newline at end of file
+
+    public static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS cached_file (" +
+                    "path TEXT NOT NULL, " +
+                    "ownerId TEXT, " +
+                    "contentHash TEXT, " +
+                    "expectedHash TEXT, " +
+                    "size INTEGER NOT NULL, " +
+                    "lastModified INTEGER NOT NULL, " +
+                    "PRIMARY KEY(path))");
+        }
+    };
+
+    public static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE cached_file ADD COLUMN verifiedAt INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE cached_file ADD COLUMN isValid INTEGER NOT NULL DEFAULT 1");
+        }
+    };
+
+    // Relation lookups by mediaId and the player's active/ordered scan were full table scans
+    public static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_media_url_mediaId ON media_url (mediaId)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_media_isActive_displayOrder ON media (isActive, displayOrder)");
+        }
+    };
+
+    public static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS play_event (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "itemId TEXT, " +
+                    "assetId TEXT, " +
+                    "zone TEXT, " +
+                    "kind TEXT, " +
+                    "startedAt INTEGER NOT NULL, " +
+                    "endedAt INTEGER NOT NULL, " +
+                    "outcome TEXT)");
+        }
+    };
+
+    // Video metadata extracted when a file is committed; 0 marks files not inspected yet
+    public static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            for (String table : new String[]{"media", "media_url"}) {
+                database.execSQL("ALTER TABLE " + table + " ADD COLUMN videoWidth INTEGER NOT NULL DEFAULT 0");
+                database.execSQL("ALTER TABLE " + table + " ADD COLUMN videoHeight INTEGER NOT NULL DEFAULT 0");
+                database.execSQL("ALTER TABLE " + table + " ADD COLUMN videoCodec TEXT");
+                database.execSQL("ALTER TABLE " + table + " ADD COLUMN videoFrameRate REAL NOT NULL DEFAULT 0");
+                database.execSQL("ALTER TABLE " + table + " ADD COLUMN videoBitrate INTEGER NOT NULL DEFAULT 0");
+                database.execSQL("ALTER TABLE " + table + " ADD COLUMN videoDurationMs INTEGER NOT NULL DEFAULT 0");
+            }
+        }
+    };
+}
@@ -0,0 +1,34 @@
+package com.example.caesartv.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+@Entity(tableName = "cached_file")
+public class CachedFileEntity {
+    @PrimaryKey
+    @NonNull
+    public String path;
+    public String ownerId;
+    public String contentHash; // SHA-256 computed while the bytes were written
+    public String expectedHash; // Hash announced by the server, if any
+    public long size;
+    public long lastModified;
+    @ColumnInfo(defaultValue = "0")
+    public long verifiedAt;
+    @ColumnInfo(defaultValue = "1")
+    public boolean isValid;
+
+    public CachedFileEntity(@NonNull String path, String ownerId, String contentHash, String expectedHash,
+                            long size, long lastModified, long verifiedAt, boolean isValid) {
+        this.path = path;
+        this.ownerId = ownerId;
+        this.contentHash = contentHash;
+        this.expectedHash = expectedHash;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.verifiedAt = verifiedAt;
+        this.isValid = isValid;
+    }
+}
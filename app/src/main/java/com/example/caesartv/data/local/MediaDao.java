@@ -1,10 +1,12 @@
 package com.example.caesartv.data.local;
 
+import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import androidx.room.Transaction;
+import androidx.room.Upsert;
 import java.util.List;
 
 @Dao
@@ -20,6 +22,46 @@ public interface MediaDao {
     @Query("SELECT * FROM media WHERE isActive = 1 ORDER BY displayOrder")
     List<MediaWithUrls> getAllMedia();
 
+    @Transaction
+    @Query("SELECT id, title, mediaType, url, localFilePath, duration, displayOrder, " +
+            "videoWidth, videoHeight, videoCodec, videoFrameRate, videoBitrate, videoDurationMs " +
+            "FROM media WHERE isActive = 1 ORDER BY displayOrder, id")
+    List<PlayerMediaRow> getPlayerMedia();
+
+    // Keyset page after (afterOrder, afterId); same order as getPlayerMedia
+    @Transaction
+    @Query("SELECT id, title, mediaType, url, localFilePath, duration, displayOrder, " +
+            "videoWidth, videoHeight, videoCodec, videoFrameRate, videoBitrate, videoDurationMs FROM media WHERE isActive = 1 " +
+            "AND (displayOrder > :afterOrder OR (displayOrder = :afterOrder AND id > :afterId)) " +
+            "ORDER BY displayOrder, id LIMIT :limit")
+    List<PlayerMediaRow> getPlayerMediaPage(int afterOrder, String afterId, int limit);
+
+    // Cheap change signal: Room's InvalidationTracker re-runs it whenever media is written
+    @Query("SELECT COUNT(*) FROM media WHERE isActive = 1")
+    LiveData<Integer> observeActiveMediaCount();
+
+    // Metadata already extracted for a committed file, from whichever row references it
+    @Query("SELECT videoWidth, videoHeight, videoCodec, videoFrameRate, videoBitrate, videoDurationMs FROM media " +
+            "WHERE localFilePath = :path AND videoWidth > 0 " +
+            "UNION ALL SELECT videoWidth, videoHeight, videoCodec, videoFrameRate, videoBitrate, videoDurationMs FROM media_url " +
+            "WHERE localFilePath = :path AND videoWidth > 0 LIMIT 1")
+    VideoColumns getVideoColumns(String path);
+
+    @Query("UPDATE media SET videoWidth = 0, videoHeight = 0, videoCodec = NULL, videoFrameRate = 0, videoBitrate = 0, " +
+            "videoDurationMs = 0 WHERE localFilePath = :path AND videoWidth > 0")
+    void clearMediaVideoColumns(String path);
+
+    @Query("UPDATE media_url SET videoWidth = 0, videoHeight = 0, videoCodec = NULL, videoFrameRate = 0, videoBitrate = 0, " +
+            "videoDurationMs = 0 WHERE localFilePath = :path AND videoWidth > 0")
+    void clearUrlVideoColumns(String path);
+
+    // New bytes at an existing path: rows still describing the old file must not be reused
+    @Transaction
+    default void clearVideoColumns(String path) {
+        clearMediaVideoColumns(path);
+        clearUrlVideoColumns(path);
+    }
+
     @Query("DELETE FROM media")
     void deleteAll();
 
@@ -28,4 +70,99 @@ public interface MediaDao {
 
     @Query("SELECT COUNT(*) FROM media WHERE isActive = 1")
     int countActiveMedia();
-}
\ No newline at end of file
+
+    @Query("SELECT * FROM media")
+    List<MediaEntity> getAllMediaEntities();
+
+    @Query("SELECT * FROM media_url ORDER BY dbId")
+    List<MediaUrlEntity> getAllUrlEntities();
+
+    // Upsert updates in place, so unlike REPLACE it does not cascade-delete the URL rows
+    @Upsert
+    void upsertMedia(List<MediaEntity> mediaEntities);
+
+    @Query("DELETE FROM media WHERE id IN (:mediaIds)")
+    void deleteMediaByIds(List<String> mediaIds);
+
+    @Query("DELETE FROM media_url WHERE mediaId IN (:mediaIds)")
+    void deleteUrlsForMedia(List<String> mediaIds);
+
+    // Removed items take their URL rows with them through the media_url cascade
+    @Transaction
+    default void applyPlaylist(PlaylistDiff diff) {
+        if (!diff.removedIds.isEmpty()) {
+            deleteMediaByIds(diff.removedIds);
+        }
+        if (!diff.changedMedia.isEmpty()) {
+            upsertMedia(diff.changedMedia);
+            deleteUrlsForMedia(diff.changedIds);
+            insertUrls(diff.changedUrls);
+        }
+    }
+
+    // Diffs against the rows as they are inside the transaction, so readers only ever see
+    // the old playlist or the new one
+    @Transaction
+    default PlaylistDiff replacePlaylist(List<MediaEntity> mediaEntities, List<MediaUrlEntity> urlEntities) {
+        PlaylistDiff diff = PlaylistDiff.compute(getAllMediaEntities(), getAllUrlEntities(), mediaEntities, urlEntities);
+        applyPlaylist(diff);
+        return diff;
+    }
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertCachedFile(CachedFileEntity cachedFile);
+
+    @Query("SELECT * FROM cached_file WHERE path = :path")
+    CachedFileEntity getCachedFile(String path);
+
+    @Query("DELETE FROM cached_file WHERE path = :path")
+    void deleteCachedFile(String path);
+
+    @Query("SELECT * FROM cached_file")
+    List<CachedFileEntity> getAllCachedFiles();
+
+    @Query("SELECT * FROM cached_file WHERE contentHash = :contentHash AND isValid = 1 LIMIT 1")
+    CachedFileEntity getValidCachedFileByHash(String contentHash);
+
+    @Query("SELECT DISTINCT contentHash FROM cached_file WHERE isValid = 1 AND contentHash IS NOT NULL")
+    List<String> getServableContentHashes();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertCachedFiles(List<CachedFileEntity> cachedFiles);
+
+    // Guarded on the path that was checked: a row the sync rewrote since it was read keeps
+    // its new path, and no other column is written
+    @Query("UPDATE media SET localFilePath = NULL WHERE id = :id AND localFilePath = :path")
+    int clearMediaPath(String id, String path);
+
+    @Query("UPDATE media_url SET localFilePath = NULL WHERE dbId = :dbId AND localFilePath = :path")
+    int clearUrlPath(long dbId, String path);
+
+    // The rows are as verifyCachedFiles read them, with the paths found invalid; returns how
+    // many paths were still in place to clear
+    @Transaction
+    default int applyVerificationResults(List<MediaEntity> invalidMedia, List<MediaUrlEntity> invalidUrls,
+                                         List<CachedFileEntity> fingerprints) {
+        int cleared = 0;
+        for (MediaEntity media : invalidMedia) {
+            cleared += clearMediaPath(media.id, media.localFilePath);
+        }
+        for (MediaUrlEntity url : invalidUrls) {
+            cleared += clearUrlPath(url.dbId, url.localFilePath);
+        }
+        upsertCachedFiles(fingerprints);
+        return cleared;
+    }
+
+    @Insert
+    void insertPlayEvents(List<PlayEventEntity> events);
+
+    @Query("SELECT * FROM play_event ORDER BY id LIMIT :limit")
+    List<PlayEventEntity> getPlayEventBatch(int limit);
+
+    @Query("DELETE FROM play_event WHERE id <= :maxId")
+    void deletePlayEventsUpTo(long maxId);
+
+    @Query("DELETE FROM play_event WHERE endedAt < :cutoff")
+    int deletePlayEventsEndedBefore(long cutoff);
+}
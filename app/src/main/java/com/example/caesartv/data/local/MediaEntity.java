@@ -1,10 +1,13 @@
 package com.example.caesartv.data.local;
 
 import androidx.annotation.NonNull;
+import androidx.room.Embedded;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
-@Entity(tableName = "media")
+// (isActive, displayOrder) serves the player's WHERE isActive = 1 ORDER BY displayOrder
+@Entity(tableName = "media", indices = {@Index({"isActive", "displayOrder"})})
 public class MediaEntity {
     @PrimaryKey
     @NonNull
@@ -20,6 +23,9 @@ public class MediaEntity {
     public boolean isActive;
     public String createdAt;
     public String updatedAt;
+    @Embedded
+    @NonNull
+    public VideoColumns video = new VideoColumns();
 
     public MediaEntity(@NonNull String id, String title, String description, String mediaType,
                        String url, String localFilePath, String thumbnailUrl, int duration,
@@ -1,14 +1,18 @@
 package com.example.caesartv.data.local;
 
+import androidx.annotation.NonNull;
+import androidx.room.Embedded;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 @Entity(tableName = "media_url",
         foreignKeys = @ForeignKey(entity = MediaEntity.class,
                 parentColumns = "id",
                 childColumns = "mediaId",
-                onDelete = ForeignKey.CASCADE))
+                onDelete = ForeignKey.CASCADE),
+        indices = {@Index("mediaId")})
 public class MediaUrlEntity {
     @PrimaryKey(autoGenerate = true)
     public long dbId;
@@ -17,6 +21,9 @@ public class MediaUrlEntity {
     public String url;
     public String id;
     public String localFilePath; // New field for local file path
+    @Embedded
+    @NonNull
+    public VideoColumns video = new VideoColumns();
 
     public MediaUrlEntity(String urlType, String url, String id, String mediaId, String localFilePath) {
         this.urlType = urlType;
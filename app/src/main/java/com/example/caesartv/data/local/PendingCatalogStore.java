@@ -0,0 +1,114 @@
+package com.example.caesartv.data.local;
+
+import android.content.Context;
+
+import com.example.caesartv.CustomLogger;
+import com.example.caesartv.data.cache.ContentHash;
+import com.example.caesartv.domain.model.MediaItem;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Catalog received from the server that the sync worker has not finished applying yet.
+// Kept on disk so the sync survives activity teardown, process death and reboots.
+// The repository and the worker each hold a store, so all of them share one lock.
+public class PendingCatalogStore {
+
+    private static final String TAG = "PendingCatalogStore";
+    private static final String FILE_NAME = "pending_catalog.json";
+    private static final Object LOCK = new Object();
+
+    // A catalog as it was loaded; version identifies that exact file content
+    public static final class Pending {
+        public final List<MediaItem> mediaItems;
+        final String version;
+
+        Pending(List<MediaItem> mediaItems, String version) {
+            this.mediaItems = mediaItems;
+            this.version = version;
+        }
+    }
+
+    private final File file;
+    private final Gson gson = new Gson();
+
+    public PendingCatalogStore(Context context) {
+        this.file = new File(new File(context.getApplicationContext().getFilesDir(), "sync"), FILE_NAME);
+    }
+
+    public void save(List<MediaItem> mediaItems) throws IOException {
+        synchronized (LOCK) {
+            File dir = file.getParentFile();
+            if (dir != null && !dir.exists() && !dir.mkdirs()) {
+                throw new IOException("Failed to create sync directory: " + dir.getAbsolutePath());
+            }
+            File tmp = new File(file.getAbsolutePath() + ".tmp");
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+                gson.toJson(mediaItems, writer);
+            }
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+                throw new IOException("Failed to move pending catalog into place: " + file.getAbsolutePath());
+            }
+            CustomLogger.d(TAG, "Saved pending catalog with " + mediaItems.size() + " items");
+        }
+    }
+
+    public Pending load() {
+        synchronized (LOCK) {
+            if (!file.exists()) {
+                return null;
+            }
+            Type listType = new TypeToken<List<MediaItem>>(){}.getType();
+            try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+                List<MediaItem> mediaItems = gson.fromJson(reader, listType);
+                return new Pending(mediaItems, ContentHash.ofFile(file));
+            } catch (Exception e) {
+                CustomLogger.e(TAG, "Failed to read pending catalog, discarding it", e);
+                file.delete();
+                return null;
+            }
+        }
+    }
+
+    public boolean hasPending() {
+        synchronized (LOCK) {
+            return file.exists();
+        }
+    }
+
+    // Compare-and-delete: a catalog saved after this one was loaded is kept for the next sync
+    public boolean clearIfUnchanged(Pending loaded) {
+        synchronized (LOCK) {
+            if (!file.exists()) {
+                return true;
+            }
+            try {
+                String version = ContentHash.ofFile(file);
+                if (!version.equals(loaded.version)) {
+                    CustomLogger.d(TAG, "Pending catalog replaced during sync, keeping the newer one");
+                    return false;
+                }
+            } catch (IOException e) {
+                CustomLogger.e(TAG, "Failed to read pending catalog, keeping it", e);
+                return false;
+            }
+            if (!file.delete()) {
+                CustomLogger.w(TAG, "Failed to delete pending catalog: " + file.getAbsolutePath());
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.caesartv.data.local;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+// One zone showing one asset, for proof-of-play. Rows are append-only and deleted once uploaded.
+@Entity(tableName = "play_event")
+public class PlayEventEntity {
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+    public String itemId; // Playlist item
+    public String assetId; // Asset shown in the zone (the item itself for SINGLE media)
+    public String zone;
+    public String kind; // video / image / poster (a video zone shown as a still over the decoder budget)
+    public long startedAt; // Wall clock, ms
+    public long endedAt;
+    public String outcome; // completed / error / interrupted
+
+    public PlayEventEntity(String itemId, String assetId, String zone, String kind,
+                           long startedAt, long endedAt, String outcome) {
+        this.itemId = itemId;
+        this.assetId = assetId;
+        this.zone = zone;
+        this.kind = kind;
+        this.startedAt = startedAt;
+        this.endedAt = endedAt;
+        this.outcome = outcome;
+    }
+}
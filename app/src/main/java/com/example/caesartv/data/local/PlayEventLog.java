@@ -0,0 +1,76 @@
+package com.example.caesartv.data.local;
+
+import android.content.Context;
+
+import com.example.caesartv.CustomLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Buffers play events in memory and writes them to Room in batches, so a busy split-screen
+// rotation costs one insert transaction per batch instead of one per event. record() never
+// blocks and is safe to call from the main thread.
+public class PlayEventLog {
+
+    private static final String TAG = "PlayEventLog";
+    private static final int BATCH_SIZE = 50;
+    private static final long FLUSH_INTERVAL_SECONDS = 30;
+
+    private static volatile PlayEventLog instance;
+
+    private final MediaDao mediaDao;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor();
+    private final Object lock = new Object();
+    private List<PlayEventEntity> buffer = new ArrayList<>();
+
+    private PlayEventLog(Context context) {
+        this.mediaDao = AppDatabase.getDatabase(context.getApplicationContext()).mediaDao();
+        writer.scheduleWithFixedDelay(this::flushNow, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public static PlayEventLog getInstance(Context context) {
+        if (instance == null) {
+            synchronized (PlayEventLog.class) {
+                if (instance == null) {
+                    instance = new PlayEventLog(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    public void record(String itemId, String assetId, String zone, String kind, long startedAt, long endedAt, String outcome) {
+        boolean full;
+        synchronized (lock) {
+            buffer.add(new PlayEventEntity(itemId, assetId, zone, kind, startedAt, endedAt, outcome));
+            full = buffer.size() >= BATCH_SIZE;
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    // Asynchronous; used when the player goes away so the tail of the log is not lost
+    public void flush() {
+        writer.execute(this::flushNow);
+    }
+
+    private void flushNow() {
+        List<PlayEventEntity> batch;
+        synchronized (lock) {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            batch = buffer;
+            buffer = new ArrayList<>();
+        }
+        try {
+            mediaDao.insertPlayEvents(batch);
+        } catch (Exception e) {
+            CustomLogger.e(TAG, "Failed to write " + batch.size() + " play events", e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.caesartv.data.local;
+
+import androidx.room.Embedded;
+import androidx.room.Relation;
+
+import java.util.List;
+
+// Lean read model for playback: only the columns the player touches, so the startup query
+// does not materialise descriptions, thumbnails and timestamps it never uses
+public class PlayerMediaRow {
+    public String id;
+    public String title; // Kept for log lines
+    public String mediaType;
+    public String url;
+    public String localFilePath;
+    public int duration;
+    public int displayOrder;
+    @Embedded
+    public VideoColumns video;
+    @Relation(
+            parentColumn = "id",
+            entityColumn = "mediaId",
+            entity = MediaUrlEntity.class
+    )
+    public List<PlayerUrlRow> urls;
+
+    public static class PlayerUrlRow {
+        public String mediaId;
+        public String urlType;
+        public String url;
+        public String id;
+        public String localFilePath;
+        @Embedded
+        public VideoColumns video;
+    }
+}
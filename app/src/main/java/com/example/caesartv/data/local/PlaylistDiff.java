@@ -0,0 +1,116 @@
+package com.example.caesartv.data.local;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Difference between the stored playlist and a freshly synced one. Unchanged rows are left
+// alone so their URL rows keep their ids and nothing the player is reading gets rewritten.
+public class PlaylistDiff {
+    public final List<MediaEntity> changedMedia;
+    public final List<String> changedIds;
+    public final List<MediaUrlEntity> changedUrls; // Full URL set for every changed item
+    public final List<String> removedIds;
+    public final int unchanged;
+
+    PlaylistDiff(List<MediaEntity> changedMedia, List<String> changedIds, List<MediaUrlEntity> changedUrls,
+                 List<String> removedIds, int unchanged) {
+        this.changedMedia = changedMedia;
+        this.changedIds = changedIds;
+        this.changedUrls = changedUrls;
+        this.removedIds = removedIds;
+        this.unchanged = unchanged;
+    }
+
+    public boolean isEmpty() {
+        return changedMedia.isEmpty() && removedIds.isEmpty();
+    }
+
+    public static PlaylistDiff compute(List<MediaEntity> storedMedia, List<MediaUrlEntity> storedUrls,
+                                       List<MediaEntity> newMedia, List<MediaUrlEntity> newUrls) {
+        Map<String, MediaEntity> storedById = new HashMap<>();
+        for (MediaEntity entity : storedMedia) {
+            storedById.put(entity.id, entity);
+        }
+        Map<String, List<MediaUrlEntity>> storedUrlsById = groupByMediaId(storedUrls);
+        Map<String, List<MediaUrlEntity>> newUrlsById = groupByMediaId(newUrls);
+
+        List<MediaEntity> changedMedia = new ArrayList<>();
+        List<String> changedIds = new ArrayList<>();
+        List<MediaUrlEntity> changedUrls = new ArrayList<>();
+        Set<String> keptIds = new HashSet<>();
+        int unchanged = 0;
+        for (MediaEntity entity : newMedia) {
+            keptIds.add(entity.id);
+            List<MediaUrlEntity> urls = newUrlsById.get(entity.id);
+            if (sameRow(storedById.get(entity.id), entity) && sameUrls(storedUrlsById.get(entity.id), urls)) {
+                unchanged++;
+                continue;
+            }
+            changedMedia.add(entity);
+            changedIds.add(entity.id);
+            if (urls != null) {
+                changedUrls.addAll(urls);
+            }
+        }
+        List<String> removedIds = new ArrayList<>();
+        for (String id : storedById.keySet()) {
+            if (!keptIds.contains(id)) {
+                removedIds.add(id);
+            }
+        }
+        return new PlaylistDiff(changedMedia, changedIds, changedUrls, removedIds, unchanged);
+    }
+
+    private static Map<String, List<MediaUrlEntity>> groupByMediaId(List<MediaUrlEntity> urls) {
+        Map<String, List<MediaUrlEntity>> byMediaId = new HashMap<>();
+        for (MediaUrlEntity url : urls) {
+            List<MediaUrlEntity> group = byMediaId.get(url.mediaId);
+            if (group == null) {
+                group = new ArrayList<>();
+                byMediaId.put(url.mediaId, group);
+            }
+            group.add(url);
+        }
+        return byMediaId;
+    }
+
+    private static boolean sameRow(MediaEntity a, MediaEntity b) {
+        return a != null
+                && Objects.equals(a.title, b.title)
+                && Objects.equals(a.description, b.description)
+                && Objects.equals(a.mediaType, b.mediaType)
+                && Objects.equals(a.url, b.url)
+                && Objects.equals(a.localFilePath, b.localFilePath)
+                && Objects.equals(a.thumbnailUrl, b.thumbnailUrl)
+                && a.duration == b.duration
+                && a.displayOrder == b.displayOrder
+                && a.isActive == b.isActive
+                && Objects.equals(a.createdAt, b.createdAt)
+                && Objects.equals(a.updatedAt, b.updatedAt)
+                && a.video.equals(b.video);
+    }
+
+    // Order matters: it is the on-screen zone order
+    private static boolean sameUrls(List<MediaUrlEntity> a, List<MediaUrlEntity> b) {
+        int sizeA = a != null ? a.size() : 0;
+        int sizeB = b != null ? b.size() : 0;
+        if (sizeA != sizeB) {
+            return false;
+        }
+        for (int i = 0; i < sizeA; i++) {
+            MediaUrlEntity x = a.get(i);
+            MediaUrlEntity y = b.get(i);
+            if (!Objects.equals(x.urlType, y.urlType) || !Objects.equals(x.url, y.url)
+                    || !Objects.equals(x.id, y.id) || !Objects.equals(x.localFilePath, y.localFilePath)
+                    || !x.video.equals(y.video)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
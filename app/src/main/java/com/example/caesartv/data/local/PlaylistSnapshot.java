@@ -0,0 +1,240 @@
+package com.example.caesartv.data.local;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import com.example.caesartv.CustomLogger;
+import com.example.caesartv.domain.model.MediaItem;
+import com.example.caesartv.domain.model.MediaUrl;
+import com.example.caesartv.domain.model.VideoMetadata;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Compact binary copy of the stored playlist, written after each sync. Cold start maps and
+// decodes it instead of waiting for Room to open and run the relation query.
+//
+// Layout: magic, version, payload length, CRC32 of payload, then the payload
+// (item count, items with their URLs). Strings are length-prefixed UTF-8, -1 for null.
+public class PlaylistSnapshot {
+
+    private static final String TAG = "PlaylistSnapshot";
+    private static final String FILE_NAME = "playlist.snapshot";
+    private static final int MAGIC = 0x4354504C; // "CTPL"
+    private static final int VERSION = 3; // 2: video metadata per item and URL, 3: origin URL per item
+    private static final int HEADER_SIZE = 16;
+    private final File file;
+
+    public PlaylistSnapshot(Context context) {
+        this.file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+    }
+
+    public synchronized void save(List<MediaItem> mediaItems) throws IOException {
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(4096);
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+        payload.writeInt(mediaItems.size());
+        for (MediaItem item : mediaItems) {
+            writeString(payload, item.getId());
+            writeString(payload, item.getTitle());
+            writeString(payload, item.getDescription());
+            writeString(payload, item.getMediaType());
+            writeString(payload, item.getUrl());
+            writeString(payload, item.getRemoteUrl());
+            writeString(payload, item.getLocalFilePath());
+            writeString(payload, item.getThumbnailUrl());
+            payload.writeInt(item.getDuration());
+            payload.writeInt(item.getDisplayOrder());
+            payload.writeBoolean(item.isActive());
+            writeString(payload, item.getCreatedAt());
+            writeString(payload, item.getUpdatedAt());
+            writeString(payload, item.getContentHash());
+            payload.writeLong(item.getFileSize());
+            writeMetadata(payload, item.getVideoMetadata());
+            List<MediaUrl> urls = item.getMultipleUrl() != null ? item.getMultipleUrl() : new ArrayList<>();
+            payload.writeInt(urls.size());
+            for (MediaUrl url : urls) {
+                writeString(payload, url.getUrlType());
+                writeString(payload, url.getUrl());
+                writeString(payload, url.getId());
+                writeString(payload, url.getLocalFilePath());
+                writeString(payload, url.getContentHash());
+                payload.writeLong(url.getFileSize());
+                writeMetadata(payload, url.getVideoMetadata());
+            }
+        }
+        payload.flush();
+        byte[] body = payloadBytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        File tmp = new File(file.getAbsolutePath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(body.length).putInt((int) crc.getValue());
+            out.write(header.array());
+            out.write(body);
+            // Must be on disk before the rename, or a power cut can leave an empty snapshot
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Failed to move playlist snapshot into place: " + file.getAbsolutePath());
+        }
+        CustomLogger.d(TAG, "Saved playlist snapshot with " + mediaItems.size() + " items, " + (HEADER_SIZE + body.length) + " bytes");
+    }
+
+    // Returns null when there is no usable snapshot; callers fall back to Room
+    public synchronized List<MediaItem> load() {
+        if (!file.exists()) {
+            return null;
+        }
+        long startedAt = SystemClock.elapsedRealtimeNanos();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Truncated snapshot header");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Unknown snapshot format");
+            }
+            int length = buffer.getInt();
+            int expectedCrc = buffer.getInt();
+            if (length < 0 || length != buffer.remaining()) {
+                throw new IOException("Snapshot length mismatch");
+            }
+            if ((int) checksum(buffer) != expectedCrc) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+
+            int count = buffer.getInt();
+            List<MediaItem> mediaItems = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String id = readString(buffer);
+                String title = readString(buffer);
+                String description = readString(buffer);
+                String mediaType = readString(buffer);
+                String url = readString(buffer);
+                String remoteUrl = readString(buffer);
+                String localFilePath = readString(buffer);
+                String thumbnailUrl = readString(buffer);
+                int duration = buffer.getInt();
+                int displayOrder = buffer.getInt();
+                boolean isActive = buffer.get() != 0;
+                String createdAt = readString(buffer);
+                String updatedAt = readString(buffer);
+                String contentHash = readString(buffer);
+                long fileSize = buffer.getLong();
+                VideoMetadata videoMetadata = readMetadata(buffer);
+                int urlCount = buffer.getInt();
+                List<MediaUrl> urls = new ArrayList<>(urlCount);
+                for (int j = 0; j < urlCount; j++) {
+                    String urlType = readString(buffer);
+                    String urlValue = readString(buffer);
+                    String urlId = readString(buffer);
+                    String urlLocalFilePath = readString(buffer);
+                    String urlContentHash = readString(buffer);
+                    long urlFileSize = buffer.getLong();
+                    VideoMetadata urlMetadata = readMetadata(buffer);
+                    urls.add(new MediaUrl(urlType, urlValue, urlId, urlLocalFilePath, urlContentHash, urlFileSize, null, urlMetadata));
+                }
+                MediaItem item = new MediaItem(id, title, description, mediaType, url, urls, thumbnailUrl,
+                        duration, displayOrder, isActive, createdAt, updatedAt);
+                item.setLocalFilePath(localFilePath);
+                item.setRemoteUrl(remoteUrl);
+                item.setContentHash(contentHash);
+                item.setFileSize(fileSize);
+                item.setVideoMetadata(videoMetadata);
+                mediaItems.add(item);
+            }
+            CustomLogger.d(TAG, "Decoded " + count + " items from playlist snapshot in "
+                    + (SystemClock.elapsedRealtimeNanos() - startedAt) / 1000 + "us");
+            return mediaItems;
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            CustomLogger.e(TAG, "Unusable playlist snapshot, discarding it", e);
+            file.delete();
+            return null;
+        }
+    }
+
+    public boolean exists() {
+        return file.exists();
+    }
+
+    public synchronized void clear() {
+        if (file.exists() && !file.delete()) {
+            CustomLogger.w(TAG, "Failed to delete playlist snapshot: " + file.getAbsolutePath());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeMetadata(DataOutputStream out, VideoMetadata metadata) throws IOException {
+        out.writeBoolean(metadata != null);
+        if (metadata == null) {
+            return;
+        }
+        out.writeInt(metadata.getWidth());
+        out.writeInt(metadata.getHeight());
+        writeString(out, metadata.getCodec());
+        out.writeFloat(metadata.getFrameRate());
+        out.writeInt(metadata.getBitrate());
+        out.writeLong(metadata.getDurationMs());
+    }
+
+    private static VideoMetadata readMetadata(ByteBuffer buffer) {
+        if (buffer.get() == 0) {
+            return null;
+        }
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        String codec = readString(buffer);
+        return new VideoMetadata(width, height, codec, buffer.getFloat(), buffer.getInt(), buffer.getLong());
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // CRC32.update(ByteBuffer) needs API 26, so feed the mapped bytes through a small array
+    private static long checksum(ByteBuffer buffer) {
+        ByteBuffer view = buffer.duplicate();
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[8192];
+        while (view.hasRemaining()) {
+            int n = Math.min(chunk.length, view.remaining());
+            view.get(chunk, 0, n);
+            crc.update(chunk, 0, n);
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.caesartv.data.local;
+
+import androidx.room.ColumnInfo;
+
+import java.util.Objects;
+
+// Video metadata columns shared by media and media_url, embedded in both entities.
+// A width of 0 means the file has not been inspected.
+public class VideoColumns {
+    @ColumnInfo(defaultValue = "0")
+    public int videoWidth;
+    @ColumnInfo(defaultValue = "0")
+    public int videoHeight;
+    public String videoCodec;
+    @ColumnInfo(defaultValue = "0")
+    public float videoFrameRate;
+    @ColumnInfo(defaultValue = "0")
+    public int videoBitrate;
+    @ColumnInfo(defaultValue = "0")
+    public long videoDurationMs;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof VideoColumns)) return false;
+        VideoColumns other = (VideoColumns) o;
+        return videoWidth == other.videoWidth
+                && videoHeight == other.videoHeight
+                && Objects.equals(videoCodec, other.videoCodec)
+                && Float.compare(videoFrameRate, other.videoFrameRate) == 0
+                && videoBitrate == other.videoBitrate
+                && videoDurationMs == other.videoDurationMs;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(videoWidth, videoHeight, videoCodec, videoFrameRate, videoBitrate, videoDurationMs);
+    }
+}
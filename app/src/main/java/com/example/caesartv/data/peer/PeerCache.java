@@ -0,0 +1,250 @@
+package com.example.caesartv.data.peer;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.wifi.WifiManager;
+import android.provider.Settings;
+
+import com.example.caesartv.CustomLogger;
+import com.example.caesartv.data.cache.ContentHash;
+import com.example.caesartv.data.local.AppDatabase;
+import com.example.caesartv.data.local.CachedFileEntity;
+import com.example.caesartv.data.local.MediaDao;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+
+// Lets screens in the same venue share downloaded assets over the LAN so each file
+// crosses the venue uplink once. Opt-in; everything fetched from a peer is checked
+// against the content hash the origin announced before it is used.
+public final class PeerCache {
+
+    private static final String TAG = "PeerCache";
+    private static final String PREFS_NAME = "peer_cache";
+    private static final String KEY_ENABLED = "enabled";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CONNECT_TIMEOUT_MS = 3000;
+    private static final int READ_TIMEOUT_MS = 10000;
+
+    private static volatile PeerCache instance;
+
+    private final Context context;
+    private final MediaDao mediaDao;
+    private PeerCacheServer server;
+    private PeerDiscovery discovery;
+    private WifiManager.MulticastLock multicastLock;
+    private volatile boolean running;
+
+    private PeerCache(Context context) {
+        this.context = context.getApplicationContext();
+        this.mediaDao = AppDatabase.getDatabase(this.context).mediaDao();
+    }
+
+    public static PeerCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (PeerCache.class) {
+                if (instance == null) {
+                    instance = new PeerCache(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    public static boolean isEnabled(Context context) {
+        return prefs(context).getBoolean(KEY_ENABLED, false);
+    }
+
+    public static void setEnabled(Context context, boolean enabled) {
+        prefs(context).edit().putBoolean(KEY_ENABLED, enabled).apply();
+        CustomLogger.d(TAG, "Peer cache " + (enabled ? "enabled" : "disabled"));
+        PeerCache peerCache = getInstance(context);
+        if (enabled) {
+            peerCache.ensureStarted();
+        } else {
+            peerCache.stop();
+        }
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    // Must be called off the main thread; no-op when disabled or already running
+    public synchronized void ensureStarted() {
+        if (running || !isEnabled(context)) {
+            return;
+        }
+        try {
+            server = new PeerCacheServer(this::findLocalFile);
+            int port = server.start(null, 0);
+
+            WifiManager wifiManager = (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
+            if (wifiManager != null) {
+                multicastLock = wifiManager.createMulticastLock(TAG);
+                multicastLock.setReferenceCounted(false);
+                multicastLock.acquire();
+            }
+
+            String deviceId = Settings.Secure.getString(context.getContentResolver(), Settings.Secure.ANDROID_ID);
+            discovery = new PeerDiscovery(deviceId, InetAddress.getByName(PeerDiscovery.DEFAULT_GROUP), PeerDiscovery.DEFAULT_PORT, null);
+            discovery.start(port, () -> new HashSet<>(mediaDao.getServableContentHashes()));
+            running = true;
+        } catch (Exception e) {
+            CustomLogger.e(TAG, "Failed to start peer cache", e);
+            stop();
+        }
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (discovery != null) {
+            discovery.stop();
+            discovery = null;
+        }
+        if (server != null) {
+            server.stop();
+            server = null;
+        }
+        if (multicastLock != null && multicastLock.isHeld()) {
+            multicastLock.release();
+        }
+        multicastLock = null;
+    }
+
+    // Tries every peer that announced the hash; true once target holds a verified copy
+    public boolean fetch(String contentHash, File target, long expectedSize) {
+        PeerDiscovery current = discovery;
+        if (!running || current == null || contentHash == null || contentHash.isEmpty()) {
+            return false;
+        }
+        String hash = contentHash.toLowerCase(Locale.US);
+        return fetchFrom(current.peersWith(hash), hash, target, expectedSize);
+    }
+
+    static boolean fetchFrom(List<InetSocketAddress> peers, String hash, File target, long expectedSize) {
+        for (InetSocketAddress peer : peers) {
+            try {
+                if (fetchFromPeer(peer, hash, target, expectedSize)) {
+                    CustomLogger.d(TAG, "Fetched " + hash + " from peer " + peer + ", Size: " + target.length() + " bytes");
+                    return true;
+                }
+            } catch (IOException e) {
+                CustomLogger.e(TAG, "Peer fetch failed from " + peer + " for " + hash, e);
+            }
+        }
+        return false;
+    }
+
+    // Plain socket rather than an HTTP client: cleartext HTTP is disallowed by default at
+    // this targetSdk and opening it up would also cover origin traffic
+    private static boolean fetchFromPeer(InetSocketAddress peer, String hash, File target, long expectedSize) throws IOException {
+        // Resume a partial copy from an earlier attempt with a range request
+        long existing = target.exists() ? target.length() : 0;
+        MessageDigest digest = ContentHash.newDigest();
+        if (existing > 0) {
+            updateDigest(digest, target);
+        }
+        try (Socket socket = new Socket()) {
+            socket.connect(peer, CONNECT_TIMEOUT_MS);
+            socket.setSoTimeout(READ_TIMEOUT_MS);
+            StringBuilder request = new StringBuilder()
+                    .append("GET /content/").append(hash).append(" HTTP/1.1\r\n")
+                    .append("Host: ").append(peer.getAddress().getHostAddress()).append("\r\n")
+                    .append("Connection: close\r\n");
+            if (existing > 0) {
+                request.append("Range: bytes=").append(existing).append("-\r\n");
+            }
+            request.append("\r\n");
+            OutputStream requestOut = socket.getOutputStream();
+            requestOut.write(request.toString().getBytes(StandardCharsets.ISO_8859_1));
+            requestOut.flush();
+
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            String statusLine = PeerCacheServer.readLine(in);
+            String[] status = statusLine != null ? statusLine.split(" ") : new String[0];
+            int code = status.length > 1 ? Integer.parseInt(status[1]) : -1;
+            long contentLength = -1;
+            String line;
+            while ((line = PeerCacheServer.readLine(in)) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Content-Length")) {
+                    contentLength = Long.parseLong(line.substring(colon + 1).trim());
+                }
+            }
+            if (code != 200 && code != 206) {
+                target.delete();
+                return false;
+            }
+            boolean append = existing > 0 && code == 206;
+            if (!append) {
+                digest.reset();
+            }
+            long written = append ? existing : 0;
+            long received = 0;
+            try (OutputStream out = new DigestOutputStream(new FileOutputStream(target, append), digest)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((contentLength < 0 || received < contentLength)
+                        && (read = in.read(buffer, 0, (int) (contentLength < 0 ? buffer.length : Math.min(buffer.length, contentLength - received)))) != -1) {
+                    out.write(buffer, 0, read);
+                    received += read;
+                }
+            }
+            written += received;
+            if (expectedSize > 0 && written != expectedSize) {
+                CustomLogger.w(TAG, "Peer copy size mismatch for " + hash + ", expected: " + expectedSize + ", got: " + written);
+                target.delete();
+                return false;
+            }
+            String actual = ContentHash.toHex(digest.digest());
+            if (!ContentHash.matches(hash, actual)) {
+                CustomLogger.w(TAG, "Peer copy hash mismatch for " + hash + " from " + peer + ", got: " + actual);
+                target.delete();
+                return false;
+            }
+            return true;
+        } catch (NumberFormatException e) {
+            CustomLogger.w(TAG, "Malformed response from peer " + peer);
+            target.delete();
+            return false;
+        }
+    }
+
+    private static void updateDigest(MessageDigest digest, File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    // Only serve files whose fingerprint still matches what is on disk
+    private File findLocalFile(String contentHash) {
+        CachedFileEntity cachedFile = mediaDao.getValidCachedFileByHash(contentHash);
+        if (cachedFile == null) {
+            return null;
+        }
+        File file = new File(cachedFile.path);
+        if (!file.exists() || file.length() != cachedFile.size || file.lastModified() != cachedFile.lastModified) {
+            return null;
+        }
+        return file;
+    }
+}
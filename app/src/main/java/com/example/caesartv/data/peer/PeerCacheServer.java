@@ -0,0 +1,239 @@
+package com.example.caesartv.data.peer;
+
+import com.example.caesartv.CustomLogger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Minimal HTTP/1.1 server that hands cached files to other screens on the LAN.
+// Only GET/HEAD /content/<sha256> is supported, with single byte ranges.
+public class PeerCacheServer {
+
+    private static final String TAG = "PeerCacheServer";
+    private static final int MAX_CONNECTIONS = 4;
+    private static final int SOCKET_TIMEOUT_MS = 15000;
+    private static final int MAX_LINE_LENGTH = 8192;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CONTENT_PREFIX = "/content/";
+
+    public interface ContentIndex {
+        // Returns the verified local file for a content hash, or null
+        File find(String contentHash);
+    }
+
+    private final ContentIndex index;
+    private ServerSocket serverSocket;
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    public PeerCacheServer(ContentIndex index) {
+        this.index = index;
+    }
+
+    // Binds to the given address (null for all interfaces) and returns the bound port
+    public synchronized int start(InetAddress bindAddress, int port) throws IOException {
+        serverSocket = new ServerSocket(port, MAX_CONNECTIONS * 4, bindAddress);
+        workers = Executors.newFixedThreadPool(MAX_CONNECTIONS);
+        running = true;
+        Thread acceptThread = new Thread(this::acceptLoop, TAG);
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        CustomLogger.d(TAG, "Serving cached content on port " + serverSocket.getLocalPort());
+        return serverSocket.getLocalPort();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            CustomLogger.e(TAG, "Error closing server socket", e);
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setSoTimeout(SOCKET_TIMEOUT_MS);
+                workers.execute(() -> handle(socket));
+            } catch (SocketException e) {
+                if (running) {
+                    CustomLogger.e(TAG, "Accept failed", e);
+                }
+            } catch (Exception e) {
+                CustomLogger.e(TAG, "Accept failed", e);
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket client = socket) {
+            InputStream in = new BufferedInputStream(client.getInputStream());
+            OutputStream out = client.getOutputStream();
+            String requestLine = readLine(in);
+            if (requestLine == null) {
+                return;
+            }
+            String rangeHeader = null;
+            String line;
+            while ((line = readLine(in)) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Range")) {
+                    rangeHeader = line.substring(colon + 1).trim();
+                }
+            }
+            String[] parts = requestLine.split(" ");
+            if (parts.length < 2) {
+                writeStatus(out, 400, "Bad Request", 0, null);
+                return;
+            }
+            String method = parts[0];
+            boolean isHead = "HEAD".equals(method);
+            if (!isHead && !"GET".equals(method)) {
+                writeStatus(out, 405, "Method Not Allowed", 0, null);
+                return;
+            }
+            String path = parts[1];
+            String hash = path.startsWith(CONTENT_PREFIX) ? path.substring(CONTENT_PREFIX.length()).toLowerCase(Locale.US) : "";
+            if (!hash.matches("[0-9a-f]{64}")) {
+                writeStatus(out, 404, "Not Found", 0, null);
+                return;
+            }
+            File file = index.find(hash);
+            if (file == null || !file.canRead()) {
+                writeStatus(out, 404, "Not Found", 0, null);
+                return;
+            }
+
+            long length = file.length();
+            long start = 0;
+            long end = length - 1;
+            boolean partial = false;
+            if (rangeHeader != null) {
+                long[] range = parseRange(rangeHeader, length);
+                if (range == null) {
+                    writeStatus(out, 416, "Range Not Satisfiable", 0, "Content-Range: bytes */" + length);
+                    return;
+                }
+                start = range[0];
+                end = range[1];
+                partial = true;
+            }
+            long count = end - start + 1;
+            if (partial) {
+                writeStatus(out, 206, "Partial Content", count, "Content-Range: bytes " + start + "-" + end + "/" + length);
+            } else {
+                writeStatus(out, 200, "OK", count, null);
+            }
+            if (!isHead) {
+                copyRange(file, start, count, out);
+            }
+            out.flush();
+            CustomLogger.d(TAG, "Served " + count + " bytes of " + hash + " to " + client.getInetAddress().getHostAddress());
+        } catch (IOException e) {
+            CustomLogger.e(TAG, "Error serving peer request", e);
+        }
+    }
+
+    // Single "bytes=a-b", "bytes=a-" or "bytes=-n" range; null when unsatisfiable
+    static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.contains(",") || length == 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) return null;
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            }
+            if (start < 0 || start > end || start >= length) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void copyRange(File file, long start, long count, OutputStream out) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(start);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long remaining = count;
+            while (remaining > 0) {
+                int read = raf.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read == -1) {
+                    throw new IOException("Unexpected end of file: " + file.getAbsolutePath());
+                }
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+    private static void writeStatus(OutputStream out, int code, String reason, long contentLength, String extraHeader) throws IOException {
+        StringBuilder headers = new StringBuilder()
+                .append("HTTP/1.1 ").append(code).append(' ').append(reason).append("\r\n")
+                .append("Content-Length: ").append(contentLength).append("\r\n")
+                .append("Accept-Ranges: bytes\r\n")
+                .append("Content-Type: application/octet-stream\r\n")
+                .append("Connection: close\r\n");
+        if (extraHeader != null) {
+            headers.append(extraHeader).append("\r\n");
+        }
+        headers.append("\r\n");
+        out.write(headers.toString().getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                break;
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+            if (line.size() > MAX_LINE_LENGTH) {
+                throw new IOException("Request line too long");
+            }
+        }
+        if (b == -1 && line.size() == 0) {
+            return null;
+        }
+        return line.toString("ISO-8859-1");
+    }
+}
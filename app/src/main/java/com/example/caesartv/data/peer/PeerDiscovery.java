@@ -0,0 +1,166 @@
+package com.example.caesartv.data.peer;
+
+import com.example.caesartv.CustomLogger;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Announces the content hashes this screen can serve over UDP multicast and keeps track
+// of what neighbours announce. Announcements expire if a peer goes quiet.
+public class PeerDiscovery {
+
+    private static final String TAG = "PeerDiscovery";
+    public static final String DEFAULT_GROUP = "239.255.77.77";
+    public static final int DEFAULT_PORT = 47777;
+    private static final long ANNOUNCE_INTERVAL_MS = 10000;
+    private static final long PEER_TTL_MS = 35000;
+    private static final int MAX_ANNOUNCED_HASHES = 512;
+    private static final int MAX_PACKET_SIZE = 65507;
+
+    public interface HashSource {
+        Set<String> currentHashes();
+    }
+
+    private static class Peer {
+        final InetSocketAddress address;
+        final Set<String> hashes;
+        final long lastSeenMs;
+
+        Peer(InetSocketAddress address, Set<String> hashes, long lastSeenMs) {
+            this.address = address;
+            this.hashes = hashes;
+            this.lastSeenMs = lastSeenMs;
+        }
+    }
+
+    private final String deviceId;
+    private final InetAddress group;
+    private final int port;
+    private final NetworkInterface networkInterface;
+    private final Map<String, Peer> peers = new ConcurrentHashMap<>(); // device id -> last announcement
+    private MulticastSocket socket;
+    private ScheduledExecutorService announcer;
+    private volatile boolean running;
+
+    // networkInterface may be null to let the system choose (the loopback interface in tests)
+    public PeerDiscovery(String deviceId, InetAddress group, int port, NetworkInterface networkInterface) {
+        this.deviceId = deviceId;
+        this.group = group;
+        this.port = port;
+        this.networkInterface = networkInterface;
+    }
+
+    public synchronized void start(int serverPort, HashSource hashSource) throws IOException {
+        socket = new MulticastSocket(port);
+        if (networkInterface != null) {
+            socket.setNetworkInterface(networkInterface);
+        }
+        socket.setTimeToLive(1); // venue LAN only
+        socket.setLoopbackMode(false); // false enables loopback, so instances on one host see each other
+        socket.joinGroup(group);
+        running = true;
+
+        Thread receiver = new Thread(this::receiveLoop, TAG);
+        receiver.setDaemon(true);
+        receiver.start();
+
+        announcer = Executors.newSingleThreadScheduledExecutor();
+        announcer.scheduleWithFixedDelay(() -> announce(serverPort, hashSource), 0, ANNOUNCE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        CustomLogger.d(TAG, "Peer discovery started on " + group.getHostAddress() + ":" + port);
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (announcer != null) {
+            announcer.shutdownNow();
+        }
+        if (socket != null) {
+            try {
+                socket.leaveGroup(group);
+            } catch (IOException e) {
+                CustomLogger.e(TAG, "Error leaving multicast group", e);
+            }
+            socket.close();
+        }
+        peers.clear();
+    }
+
+    public List<InetSocketAddress> peersWith(String contentHash) {
+        List<InetSocketAddress> result = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Peer peer : peers.values()) {
+            if (now - peer.lastSeenMs <= PEER_TTL_MS && peer.hashes.contains(contentHash)) {
+                result.add(peer.address);
+            }
+        }
+        return result;
+    }
+
+    private void announce(int serverPort, HashSource hashSource) {
+        try {
+            JSONArray hashes = new JSONArray();
+            for (String hash : hashSource.currentHashes()) {
+                if (hashes.length() >= MAX_ANNOUNCED_HASHES) break;
+                hashes.put(hash);
+            }
+            JSONObject message = new JSONObject();
+            message.put("deviceId", deviceId);
+            message.put("port", serverPort);
+            message.put("hashes", hashes);
+            byte[] payload = message.toString().getBytes(StandardCharsets.UTF_8);
+            socket.send(new DatagramPacket(payload, payload.length, group, port));
+        } catch (Exception e) {
+            if (running) {
+                CustomLogger.e(TAG, "Failed to announce cached content", e);
+            }
+        }
+    }
+
+    private void receiveLoop() {
+        byte[] buffer = new byte[MAX_PACKET_SIZE];
+        while (running) {
+            try {
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                socket.receive(packet);
+                JSONObject message = new JSONObject(new String(packet.getData(), packet.getOffset(), packet.getLength(), StandardCharsets.UTF_8));
+                String peerId = message.optString("deviceId", "");
+                if (peerId.isEmpty() || peerId.equals(deviceId)) {
+                    continue;
+                }
+                JSONArray hashArray = message.optJSONArray("hashes");
+                Set<String> hashes = new HashSet<>();
+                if (hashArray != null) {
+                    for (int i = 0; i < hashArray.length(); i++) {
+                        hashes.add(hashArray.optString(i));
+                    }
+                }
+                InetSocketAddress address = new InetSocketAddress(packet.getAddress(), message.optInt("port"));
+                peers.put(peerId, new Peer(address, hashes, System.currentTimeMillis()));
+            } catch (SocketException e) {
+                if (running) {
+                    CustomLogger.e(TAG, "Discovery socket error", e);
+                }
+            } catch (Exception e) {
+                CustomLogger.e(TAG, "Ignoring malformed peer announcement", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.caesartv.data.remote;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Token bucket shared by every background transfer (media downloads, log uploads).
+// The refill rate follows the health of remotely streaming players: it halves when a
+// remote player's buffer drains and grows back while buffers are healthy. With only
+// local playback on screen the bucket is effectively unlimited.
+public final class BandwidthBudget {
+
+    private static final String TAG = "BandwidthBudget";
+    private static final long UNLIMITED_RATE = 64L * 1024 * 1024; // bytes/s, local-only playback
+    private static final long REMOTE_START_RATE = 512L * 1024; // bytes/s when remote playback begins
+    private static final long MIN_RATE = 32L * 1024;
+    private static final long MAX_SHARED_RATE = 8L * 1024 * 1024; // ceiling while sharing the link with a player
+    private static final long RATE_STEP = 128L * 1024;
+    private static final long LOW_BUFFER_MS = 5000;
+    private static final long HEALTHY_BUFFER_MS = 15000;
+    private static final long BUFFER_DROP_MS = 2000;
+    private static final long MAX_WAIT_MS = 250; // re-check often, the rate may change while waiting
+
+    private static final BandwidthBudget INSTANCE = new BandwidthBudget();
+
+    private final Map<String, Long> remoteBufferedMs = new HashMap<>(); // player zone -> buffered duration
+    private long lowestBufferedMs = -1;
+    private long rate = UNLIMITED_RATE;
+    private double tokens = UNLIMITED_RATE;
+    private long lastRefillMs = SystemClock.elapsedRealtime();
+
+    private BandwidthBudget() {
+    }
+
+    public static BandwidthBudget getInstance() {
+        return INSTANCE;
+    }
+
+    // Blocks until the bucket holds enough tokens for the given number of bytes.
+    // Requests larger than one second of budget are allowed to go into debt.
+    public synchronized void acquire(long bytes) throws InterruptedException {
+        while (true) {
+            refill();
+            if (tokens >= Math.min(bytes, rate)) {
+                tokens -= bytes;
+                return;
+            }
+            long waitMs = (long) Math.ceil((Math.min(bytes, rate) - tokens) * 1000 / rate);
+            wait(Math.max(1, Math.min(waitMs, MAX_WAIT_MS)));
+        }
+    }
+
+    // Sampled by the player about once a second for each zone
+    public synchronized void reportPlayerBuffer(String zone, boolean isRemote, long bufferedMs) {
+        if (isRemote) {
+            remoteBufferedMs.put(zone, bufferedMs);
+        } else {
+            remoteBufferedMs.remove(zone);
+        }
+        adjustRate();
+    }
+
+    public synchronized void clearPlayers() {
+        remoteBufferedMs.clear();
+        adjustRate();
+    }
+
+    public synchronized long getRate() {
+        return rate;
+    }
+
+    private void adjustRate() {
+        refill();
+        long previousRate = rate;
+        if (remoteBufferedMs.isEmpty()) {
+            rate = UNLIMITED_RATE;
+            lowestBufferedMs = -1;
+        } else {
+            long lowest = Long.MAX_VALUE;
+            for (long bufferedMs : remoteBufferedMs.values()) {
+                lowest = Math.min(lowest, bufferedMs);
+            }
+            if (rate == UNLIMITED_RATE) {
+                rate = REMOTE_START_RATE;
+            } else if (lowest < LOW_BUFFER_MS || (lowestBufferedMs >= 0 && lowest < lowestBufferedMs - BUFFER_DROP_MS)) {
+                rate = Math.max(MIN_RATE, rate / 2);
+            } else if (lowest > HEALTHY_BUFFER_MS) {
+                rate = Math.min(MAX_SHARED_RATE, rate + RATE_STEP);
+            }
+            lowestBufferedMs = lowest;
+        }
+        tokens = Math.min(tokens, rate);
+        if (rate != previousRate) {
+            // android.util.Log on purpose: CustomLogger uploads go through this budget
+            Log.d(TAG, "Background rate " + previousRate / 1024 + " -> " + rate / 1024 + " KB/s, remote players: " + remoteBufferedMs);
+            notifyAll();
+        }
+    }
+
+    private void refill() {
+        long now = SystemClock.elapsedRealtime();
+        long elapsedMs = now - lastRefillMs;
+        if (elapsedMs > 0) {
+            tokens = Math.min(rate, tokens + (double) rate * elapsedMs / 1000);
+            lastRefillMs = now;
+        }
+    }
+}
@@ -8,7 +8,13 @@ import android.provider.Settings;
 import android.util.Log;
 
 import com.example.caesartv.CustomLogger;
+import com.example.caesartv.PlayEventUploadWorker;
+import com.example.caesartv.data.device.BufferProfiles;
+import com.example.caesartv.data.device.DeviceCapabilities;
+import com.example.caesartv.data.peer.PeerCache;
+import com.example.caesartv.data.sync.SyncGroup;
 import com.example.caesartv.domain.model.MediaItem;
+import com.example.caesartv.domain.model.MediaRendition;
 import com.example.caesartv.domain.model.MediaUrl;
 import io.socket.client.IO;
 import io.socket.client.Socket;
@@ -65,6 +71,7 @@ public class WebSocketDataSource {
                 try {
                     deviceInfo.put("deviceId", getDeviceId());
                     deviceInfo.put("deviceName", getDeviceName());
+                    deviceInfo.put("capabilities", DeviceCapabilities.get(context).toJson());
                     socket.emit("register_tv", deviceInfo);
                     CustomLogger.d(TAG, "Emitted register_tv with deviceInfo: " + deviceInfo);
                     // Schedule timeout for media fetch
@@ -111,6 +118,46 @@ public class WebSocketDataSource {
                 }
             });
 
+            // Venue operators opt screens into LAN cache sharing from the dashboard
+            socket.on("peer_cache_config", args -> {
+                try {
+                    JSONObject data = (JSONObject) args[0];
+                    PeerCache.setEnabled(context, data.optBoolean("enabled", false));
+                } catch (Exception e) {
+                    CustomLogger.e(TAG, "Error processing peer_cache_config", e);
+                }
+            });
+
+            // Per-scenario player buffer overrides, e.g. larger remote buffers for a venue on a weak uplink
+            socket.on("buffer_profiles", args -> {
+                try {
+                    JSONObject data = (JSONObject) args[0];
+                    BufferProfiles.setOverrides(context, data.optJSONObject("profiles"));
+                } catch (Exception e) {
+                    CustomLogger.e(TAG, "Error processing buffer_profiles", e);
+                }
+            });
+
+            // Screens of a video wall are grouped, and one made leader, from the dashboard
+            socket.on("sync_group", args -> {
+                try {
+                    JSONObject data = (JSONObject) args[0];
+                    SyncGroup.setConfig(context, data);
+                } catch (Exception e) {
+                    CustomLogger.e(TAG, "Error processing sync_group", e);
+                }
+            });
+
+            // Proof-of-play endpoint, e.g. {"url": "https://.../play-events"}; uploads stay off without one
+            socket.on("play_event_upload", args -> {
+                try {
+                    JSONObject data = (JSONObject) args[0];
+                    PlayEventUploadWorker.setUploadUrl(context, data.optString("url", ""));
+                } catch (Exception e) {
+                    CustomLogger.e(TAG, "Error processing play_event_upload", e);
+                }
+            });
+
             socket.on("blocked_device", args -> {
                 CustomLogger.w(TAG, "Device blocked: " + args[0]);
                 onBlocked.run();
@@ -222,7 +269,11 @@ public class WebSocketDataSource {
                         multipleUrl.add(new MediaUrl(
                                 urlItem.optString("urlType", ""),
                                 urlItem.optString("url", ""),
-                                urlItem.optString("_id", "")
+                                urlItem.optString("_id", ""),
+                                null,
+                                optNullableString(urlItem, "contentHash"),
+                                urlItem.optLong("fileSize", 0),
+                                parseRenditions(urlItem.optJSONArray("renditions"))
                         ));
                     }
                 }
@@ -240,6 +291,9 @@ public class WebSocketDataSource {
                         item.optString("createdAt", ""),
                         item.optString("updatedAt", "")
                 );
+                media.setContentHash(optNullableString(item, "contentHash"));
+                media.setFileSize(item.optLong("fileSize", 0));
+                media.setRenditions(parseRenditions(item.optJSONArray("renditions")));
                 if (media.isActive()) {
                     mediaList.add(media);
                     CustomLogger.d(TAG, "Added active media from API: " + media.getTitle() + ", URL: " + media.getUrl() + ", Duration: " + media.getDuration());
@@ -279,7 +333,11 @@ public class WebSocketDataSource {
                         multipleUrl.add(new MediaUrl(
                                 urlItem.optString("urlType", ""),
                                 urlItem.optString("url", ""),
-                                urlItem.optString("_id", "")
+                                urlItem.optString("_id", ""),
+                                null,
+                                optNullableString(urlItem, "contentHash"),
+                                urlItem.optLong("fileSize", 0),
+                                parseRenditions(urlItem.optJSONArray("renditions"))
                         ));
                     }
                 }
@@ -297,6 +355,9 @@ public class WebSocketDataSource {
                         item.optString("createdAt", ""),
                         item.optString("updatedAt", "")
                 );
+                media.setContentHash(optNullableString(item, "contentHash"));
+                media.setFileSize(item.optLong("fileSize", 0));
+                media.setRenditions(parseRenditions(item.optJSONArray("renditions")));
                 if (media.isActive()) {
                     mediaList.add(media);
                     CustomLogger.d(TAG, "Added active media from latest_all_media: " + media.getTitle() + ", URL: " + media.getUrl() + ", Duration: " + media.getDuration());
@@ -308,6 +369,34 @@ public class WebSocketDataSource {
         return mediaList;
     }
 
+    // optString returns the string "null" for an explicit JSON null, which would then be
+    // expected as a hash and fail every download
+    private static String optNullableString(JSONObject json, String key) {
+        return json.isNull(key) ? null : json.optString(key, null);
+    }
+
+    // Optional list of alternative encodings; the sync layer picks one the decoder supports
+    private List<MediaRendition> parseRenditions(JSONArray renditionArray) {
+        List<MediaRendition> renditions = new ArrayList<>();
+        if (renditionArray == null) {
+            return renditions;
+        }
+        for (int i = 0; i < renditionArray.length(); i++) {
+            JSONObject rendition = renditionArray.optJSONObject(i);
+            if (rendition == null) continue;
+            renditions.add(new MediaRendition(
+                    rendition.optString("url", ""),
+                    rendition.optInt("width", 0),
+                    rendition.optInt("height", 0),
+                    rendition.optString("codec", ""),
+                    rendition.optInt("bitrate", 0),
+                    optNullableString(rendition, "contentHash"),
+                    rendition.optLong("fileSize", 0)
+            ));
+        }
+        return renditions;
+    }
+
     private void retryConnection(OnMediaFetchedListener listener, Runnable onBlocked, Runnable onError) {
         if (retryCount < MAX_RETRIES && isNetworkAvailable()) {
             retryCount++;
@@ -337,6 +426,13 @@ public class WebSocketDataSource {
         }
     }
 
+    // Disconnects and stops the HTTP client's threads; the instance is not used afterwards
+    public void release() {
+        disconnect();
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+    }
+
     private String getDeviceId() {
         String deviceId = Settings.Secure.getString(context.getContentResolver(), Settings.Secure.ANDROID_ID);
         CustomLogger.d(TAG, "Device ID: " + deviceId);
@@ -0,0 +1,21 @@
+package com.example.caesartv.data.repository;
+
+import com.example.caesartv.domain.model.MediaItem;
+import com.example.caesartv.domain.repository.PlaylistCursor;
+
+import java.util.List;
+
+// Cursor over a playlist that is already in memory, e.g. the decoded startup snapshot
+class ListPlaylistCursor implements PlaylistCursor {
+    private final List<MediaItem> items;
+    private int position = 0;
+
+    ListPlaylistCursor(List<MediaItem> items) {
+        this.items = items;
+    }
+
+    @Override
+    public MediaItem next() {
+        return position < items.size() ? items.get(position++) : null;
+    }
+}
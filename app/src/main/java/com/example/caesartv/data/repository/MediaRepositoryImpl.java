@@ -1,29 +1,71 @@
 package com.example.caesartv.data.repository;
 
 import android.content.Context;
+import android.graphics.BitmapFactory;
 import android.media.MediaMetadataRetriever;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
+import androidx.annotation.OptIn;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.media3.common.C;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.cache.CacheDataSource;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
 
 import com.example.caesartv.CustomLogger;
+import com.example.caesartv.MediaSyncWorker;
+import com.example.caesartv.data.cache.ContentHash;
+import com.example.caesartv.data.cache.ImagePreloader;
+import com.example.caesartv.data.cache.MediaCache;
+import com.example.caesartv.data.cache.Mp4Inspector;
+import com.example.caesartv.data.cache.VideoMetadataExtractor;
+import com.example.caesartv.data.device.DeviceCapabilities;
+import com.example.caesartv.data.local.CachedFileEntity;
 import com.example.caesartv.data.local.MediaDao;
 import com.example.caesartv.data.local.MediaEntity;
 import com.example.caesartv.data.local.MediaUrlEntity;
 import com.example.caesartv.data.local.MediaWithUrls;
+import com.example.caesartv.data.local.PendingCatalogStore;
+import com.example.caesartv.data.local.PlayerMediaRow;
+import com.example.caesartv.data.local.PlaylistDiff;
+import com.example.caesartv.data.local.PlaylistSnapshot;
+import com.example.caesartv.data.local.VideoColumns;
+import com.example.caesartv.data.peer.PeerCache;
+import com.example.caesartv.data.remote.BandwidthBudget;
 import com.example.caesartv.data.remote.WebSocketDataSource;
 import com.example.caesartv.domain.model.MediaItem;
+import com.example.caesartv.domain.model.MediaKind;
+import com.example.caesartv.domain.model.MediaRendition;
 import com.example.caesartv.domain.model.MediaUrl;
+import com.example.caesartv.domain.model.VideoMetadata;
+import com.example.caesartv.domain.model.ZoneLayout;
 import com.example.caesartv.domain.repository.MediaRepository;
+import com.example.caesartv.domain.repository.PlaylistCursor;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class MediaRepositoryImpl implements MediaRepository {
 
@@ -31,23 +73,32 @@ public class MediaRepositoryImpl implements MediaRepository {
     private final WebSocketDataSource webSocketDataSource;
     private final MediaDao mediaDao;
     private final Context context;
-    private final OkHttpClient client;
     private final ExecutorService executor;
+    private final BandwidthBudget bandwidthBudget = BandwidthBudget.getInstance();
+    private final PendingCatalogStore pendingCatalogStore;
+    private final PlaylistSnapshot playlistSnapshot;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Metadata of video files committed during the current sync, by path. Sync worker thread only.
+    private final Map<String, VideoMetadata> committedMetadata = new HashMap<>();
     private static final int MAX_DOWNLOAD_RETRIES = 3;
     private static final long BASE_RETRY_DELAY_MS = 2000;
+    private static final int DOWNLOAD_BUFFER_SIZE = 64 * 1024;
+    private static final long MIN_VIDEO_BYTES = 1024;
+    private static final long MIN_IMAGE_BYTES = 64;
+    // Larger catalogs skip the snapshot and are paged from Room instead
+    private static final int SNAPSHOT_MAX_ITEMS = 500;
 
     public MediaRepositoryImpl(WebSocketDataSource webSocketDataSource, MediaDao mediaDao, Context context, ExecutorService executor) {
         this.webSocketDataSource = webSocketDataSource;
         this.mediaDao = mediaDao;
         this.context = context;
         this.executor = executor;
-        this.client = new OkHttpClient.Builder()
-                .connectTimeout(30, java.util.concurrent.TimeUnit.SECONDS)
-                .readTimeout(120, java.util.concurrent.TimeUnit.SECONDS)
-                .writeTimeout(120, java.util.concurrent.TimeUnit.SECONDS)
-                .build();
+        this.pendingCatalogStore = new PendingCatalogStore(context);
+        this.playlistSnapshot = new PlaylistSnapshot(context);
     }
 
+    // Downloads are handed to MediaSyncWorker so they survive the activity; the listener
+    // fires once the worker has stored the catalog
     @Override
     public void fetchMedia(OnMediaFetchedListener listener, Runnable onBlocked, Runnable onError) {
         webSocketDataSource.connect(
@@ -55,37 +106,11 @@ public class MediaRepositoryImpl implements MediaRepository {
                     executor.execute(() -> {
                         try {
                             CustomLogger.d(TAG, "Received " + mediaItems.size() + " media items from WebSocket");
-                            // Clear old data
-                            mediaDao.deleteAll();
-                            mediaDao.deleteAllUrls();
-                            CustomLogger.d(TAG, "Cleared all previous media and URLs from database");
-
-                            List<MediaEntity> entities = new ArrayList<>();
-                            List<MediaUrlEntity> urlEntities = new ArrayList<>();
-                            for (MediaItem item : mediaItems) {
-                                String localFilePath = downloadVideo(item.getUrl(), item.getId());
-                                CustomLogger.d(TAG, "Media ID: " + item.getId() + ", Local file path: " + localFilePath);
-                                // Use remote URL if download fails
-                                String finalFilePath = localFilePath != null ? localFilePath : item.getUrl();
-                                CustomLogger.d(TAG, "Saving media ID: " + item.getId() + " with final file path: " + finalFilePath);
-                                entities.add(toEntity(item, finalFilePath));
-
-                                // Download videos in multipleUrl for MULTIPLE media
-                                for (MediaUrl url : item.getMultipleUrl()) {
-                                    String urlLocalFilePath = null;
-                                    if ("video".equals(url.getUrlType())) {
-                                        urlLocalFilePath = downloadVideo(url.getUrl(), url.getId());
-                                        CustomLogger.d(TAG, "Downloaded multipleUrl video for ID: " + url.getId() + ", Local path: " + urlLocalFilePath);
-                                    }
-                                    urlEntities.add(new MediaUrlEntity(url.getUrlType(), url.getUrl(), url.getId(), item.getId(), urlLocalFilePath));
-                                }
-                            }
-                            mediaDao.insertAll(entities);
-                            mediaDao.insertUrls(urlEntities);
-                            CustomLogger.d(TAG, "Saved " + entities.size() + " media items and " + urlEntities.size() + " URLs to database");
-                            listener.onMediaFetched(mediaItems);
+                            pendingCatalogStore.save(mediaItems);
+                            UUID workId = MediaSyncWorker.enqueue(context);
+                            mainHandler.post(() -> observeSync(workId, mediaItems, listener, onError));
                         } catch (Exception e) {
-                            CustomLogger.e(TAG, "Error saving media to database", e);
+                            CustomLogger.e(TAG, "Error scheduling media sync", e);
                             onError.run();
                         }
                     });
@@ -95,19 +120,190 @@ public class MediaRepositoryImpl implements MediaRepository {
         );
     }
 
+    private void observeSync(UUID workId, List<MediaItem> mediaItems, OnMediaFetchedListener listener, Runnable onError) {
+        LiveData<WorkInfo> workInfo = WorkManager.getInstance(context).getWorkInfoByIdLiveData(workId);
+        workInfo.observeForever(new Observer<WorkInfo>() {
+            @Override
+            public void onChanged(WorkInfo info) {
+                if (info == null || !info.getState().isFinished()) {
+                    return;
+                }
+                workInfo.removeObserver(this);
+                if (info.getState() == WorkInfo.State.SUCCEEDED) {
+                    listener.onMediaFetched(mediaItems);
+                } else if (info.getState() == WorkInfo.State.FAILED) {
+                    CustomLogger.w(TAG, "Media sync failed: " + workId);
+                    onError.run();
+                } else {
+                    // Cancelled because a newer catalog replaced it
+                    CustomLogger.d(TAG, "Media sync superseded: " + workId);
+                }
+            }
+        });
+    }
+
+    public interface SyncProgress {
+        boolean isStopped();
+
+        void onProgress(int completedItems, int totalItems);
+    }
+
+    // Runs on the sync worker thread. Returns false if the worker was stopped; assets that
+    // were already committed are fingerprinted and skipped on the next run.
+    public boolean syncCatalog(List<MediaItem> mediaItems, SyncProgress progress) {
+        // Probed here, off the main thread
+        RenditionSelector renditionSelector = new RenditionSelector(DeviceCapabilities.get(context));
+        PeerCache.getInstance(context).ensureStarted();
+        List<MediaEntity> entities = new ArrayList<>();
+        List<MediaUrlEntity> urlEntities = new ArrayList<>();
+        int completed = 0;
+        for (MediaItem item : mediaItems) {
+            if (progress.isStopped()) {
+                CustomLogger.w(TAG, "Sync stopped after " + completed + " of " + mediaItems.size() + " items");
+                return false;
+            }
+            // Pick the rendition before downloading so nothing undecodable reaches the cache
+            MediaRendition rendition = renditionSelector.select(item.getId(), item.getRenditions());
+            if (rendition != null) {
+                item.setUrl(rendition.getUrl());
+                item.setContentHash(rendition.getContentHash());
+                item.setFileSize(rendition.getFileSize());
+            }
+            String localFilePath = downloadAsset(item.getUrl(), item.getId(), item.getContentHash(), item.getFileSize(), MediaKind.VIDEO);
+            CustomLogger.d(TAG, "Media ID: " + item.getId() + ", Local file path: " + localFilePath);
+            // Use remote URL if download fails
+            String finalFilePath = localFilePath != null ? localFilePath : item.getUrl();
+            CustomLogger.d(TAG, "Saving media ID: " + item.getId() + " with final file path: " + finalFilePath);
+            MediaEntity entity = toEntity(item, finalFilePath);
+            entity.video = videoColumnsFor(localFilePath);
+            entities.add(entity);
+
+            // Download videos and images in multipleUrl for MULTIPLE media; images are
+            // pre-decoded for the zone the layout gives them
+            List<MediaUrl> multipleUrls = item.getMultipleUrl();
+            ZoneLayout.Slot[] slots = ZoneLayout.forCount(multipleUrls.size());
+            for (int i = 0; i < multipleUrls.size(); i++) {
+                MediaUrl url = multipleUrls.get(i);
+                String urlLocalFilePath = null;
+                MediaKind kind = MediaKind.fromUrlType(url.getUrlType());
+                if (kind == MediaKind.VIDEO) {
+                    MediaRendition urlRendition = renditionSelector.select(url.getId(), url.getRenditions());
+                    if (urlRendition != null) {
+                        url = url.withRendition(urlRendition);
+                    }
+                }
+                if (kind != MediaKind.UNKNOWN) {
+                    urlLocalFilePath = downloadAsset(url.getUrl(), url.getId(), url.getContentHash(), url.getFileSize(), kind);
+                    CustomLogger.d(TAG, "Downloaded multipleUrl " + url.getUrlType() + " for ID: " + url.getId() + ", Local path: " + urlLocalFilePath);
+                    if (kind == MediaKind.IMAGE && urlLocalFilePath != null) {
+                        ImagePreloader.preload(context, new File(urlLocalFilePath), slots[i]);
+                    }
+                }
+                MediaUrlEntity urlEntity = new MediaUrlEntity(url.getUrlType(), url.getUrl(), url.getId(), item.getId(), urlLocalFilePath);
+                if (kind == MediaKind.VIDEO) {
+                    urlEntity.video = videoColumnsFor(urlLocalFilePath);
+                }
+                urlEntities.add(urlEntity);
+            }
+            completed++;
+            progress.onProgress(completed, mediaItems.size());
+        }
+        committedMetadata.clear();
+        // Old rows stay visible to the player until every asset is ready, then the
+        // new playlist lands in one transaction
+        PlaylistDiff diff = mediaDao.replacePlaylist(entities, urlEntities);
+        CustomLogger.d(TAG, "Applied playlist: " + diff.changedMedia.size() + " changed, " + diff.removedIds.size()
+                + " removed, " + diff.unchanged + " unchanged, " + diff.changedUrls.size() + " URLs rewritten");
+        writeSnapshot();
+        return true;
+    }
+
+    // Fresh from this run's commit, else the columns already stored for the file, else a
+    // one-off extraction for files cached before the columns existed
+    private VideoColumns videoColumnsFor(String localPath) {
+        if (localPath == null) {
+            return new VideoColumns();
+        }
+        VideoMetadata metadata;
+        if (committedMetadata.containsKey(localPath)) {
+            metadata = committedMetadata.remove(localPath);
+        } else {
+            VideoColumns stored = mediaDao.getVideoColumns(localPath);
+            if (stored != null) {
+                return stored;
+            }
+            metadata = VideoMetadataExtractor.extract(new File(localPath));
+        }
+        VideoColumns columns = new VideoColumns();
+        if (metadata != null) {
+            columns.videoWidth = metadata.getWidth();
+            columns.videoHeight = metadata.getHeight();
+            columns.videoCodec = metadata.getCodec();
+            columns.videoFrameRate = metadata.getFrameRate();
+            columns.videoBitrate = metadata.getBitrate();
+            columns.videoDurationMs = metadata.getDurationMs();
+        }
+        return columns;
+    }
+
+    private static VideoMetadata toDomain(VideoColumns columns) {
+        if (columns == null || columns.videoWidth <= 0) {
+            return null;
+        }
+        return new VideoMetadata(columns.videoWidth, columns.videoHeight, columns.videoCodec,
+                columns.videoFrameRate, columns.videoBitrate, columns.videoDurationMs);
+    }
+
+    // Runs once per committed video so playback never has to open the file to route it
+    private void onCommitted(File file, MediaKind kind) {
+        if (kind == MediaKind.VIDEO) {
+            mediaDao.clearVideoColumns(file.getAbsolutePath());
+            committedMetadata.put(file.getAbsolutePath(), VideoMetadataExtractor.extract(file));
+        }
+    }
+
+    // Mirrors the stored playlist for cold start; a stale snapshot is dropped rather than kept
+    private void writeSnapshot() {
+        if (countCachedMedia() > SNAPSHOT_MAX_ITEMS) {
+            playlistSnapshot.clear();
+            return;
+        }
+        try {
+            playlistSnapshot.save(getCachedMedia());
+        } catch (IOException e) {
+            CustomLogger.e(TAG, "Failed to write playlist snapshot", e);
+            playlistSnapshot.clear();
+        }
+    }
+
     @Override
     public List<MediaItem> getCachedMedia() {
-        List<MediaWithUrls> mediaWithUrls = mediaDao.getAllMedia();
-        List<MediaItem> mediaItems = new ArrayList<>();
-        for (MediaWithUrls item : mediaWithUrls) {
-            MediaItem mediaItem = toDomain(item);
-            CustomLogger.d(TAG, "Cached media ID: " + mediaItem.getId() + ", URL: " + mediaItem.getUrl() + ", Local file path: " + mediaItem.getLocalFilePath());
-            mediaItems.add(mediaItem);
-        }
+        List<MediaItem> mediaItems = toDomain(mediaDao.getPlayerMedia());
         CustomLogger.d(TAG, "Fetched db size" + mediaItems.size() + " cached media items");
         return mediaItems;
     }
 
+    @Override
+    public LiveData<Integer> observeCachedMediaCount() {
+        return mediaDao.observeActiveMediaCount();
+    }
+
+    @Override
+    public boolean hasPlaylistSnapshot() {
+        return playlistSnapshot.exists();
+    }
+
+    @Override
+    public PlaylistCursor openSnapshotCursor() {
+        List<MediaItem> snapshot = playlistSnapshot.load();
+        return snapshot != null ? new ListPlaylistCursor(snapshot) : null;
+    }
+
+    @Override
+    public PlaylistCursor openPlaylistCursor(MediaItem after) {
+        return new RoomPlaylistCursor(mediaDao, this::toDomain, after);
+    }
+
     @Override
     public int countCachedMedia() {
         int count = mediaDao.countActiveMedia();
@@ -143,95 +339,162 @@ public class MediaRepositoryImpl implements MediaRepository {
         );
     }
 
-    private MediaItem toDomain(MediaWithUrls mediaWithUrls) {
-        MediaEntity entity = mediaWithUrls.media;
+    private List<MediaItem> toDomain(List<PlayerMediaRow> rows) {
+        List<MediaItem> mediaItems = new ArrayList<>(rows.size());
+        for (PlayerMediaRow row : rows) {
+            MediaItem mediaItem = toDomain(row);
+            CustomLogger.d(TAG, "Cached media ID: " + mediaItem.getId() + ", URL: " + mediaItem.getUrl() + ", Local file path: " + mediaItem.getLocalFilePath());
+            mediaItems.add(mediaItem);
+        }
+        return mediaItems;
+    }
+
+    private MediaItem toDomain(PlayerMediaRow row) {
         List<MediaUrl> urls = new ArrayList<>();
-        if (mediaWithUrls.urls != null) {
-            for (MediaUrlEntity urlEntity : mediaWithUrls.urls) {
-                urls.add(new MediaUrl(urlEntity.urlType, urlEntity.url, urlEntity.id, urlEntity.localFilePath));
+        if (row.urls != null) {
+            for (PlayerMediaRow.PlayerUrlRow urlRow : row.urls) {
+                // Checked here once, like the item's own file, so the player does no file I/O per zone
+                String urlLocalFilePath = urlRow.localFilePath != null && new File(urlRow.localFilePath).exists() ? urlRow.localFilePath : null;
+                urls.add(new MediaUrl(urlRow.urlType, urlRow.url, urlRow.id, urlLocalFilePath, null, 0, null, toDomain(urlRow.video)));
             }
         }
         // For MULTIPLE media, url may be null; use localFilePath if available, otherwise null
-        String finalUrl = entity.localFilePath != null && !entity.localFilePath.isEmpty() && new File(entity.localFilePath).exists() ? entity.localFilePath : entity.url;
-        CustomLogger.d(TAG, "Mapping MediaEntity to MediaItem, ID: " + entity.id + ", Selected URL: " + (finalUrl != null ? finalUrl : "null") + ", Local file exists: " + (entity.localFilePath != null && new File(entity.localFilePath).exists() ? "yes" : "no"));
+        boolean localFileExists = row.localFilePath != null && !row.localFilePath.isEmpty() && new File(row.localFilePath).exists();
+        String finalUrl = localFileExists ? row.localFilePath : row.url;
+        CustomLogger.d(TAG, "Mapping PlayerMediaRow to MediaItem, ID: " + row.id + ", Selected URL: " + (finalUrl != null ? finalUrl : "null") + ", Local file exists: " + (localFileExists ? "yes" : "no"));
         MediaItem mediaItem = new MediaItem(
-                entity.id,
-                entity.title,
-                entity.description,
-                entity.mediaType,
+                row.id,
+                row.title,
+                null,
+                row.mediaType,
                 finalUrl,
                 urls,
-                entity.thumbnailUrl,
-                entity.duration,
-                entity.displayOrder,
-                entity.isActive,
-                entity.createdAt,
-                entity.updatedAt
+                null,
+                row.duration,
+                row.displayOrder,
+                true,
+                null,
+                null
         );
-        mediaItem.setLocalFilePath(entity.localFilePath);
+        mediaItem.setLocalFilePath(row.localFilePath);
+        mediaItem.setRemoteUrl(row.url);
+        mediaItem.setVideoMetadata(toDomain(row.video));
         return mediaItem;
     }
 
-    private String downloadVideo(String url, String mediaId) {
+    @OptIn(markerClass = UnstableApi.class)
+    private String downloadAsset(String url, String mediaId, String expectedHash, long expectedSize, MediaKind kind) {
         if (url == null || url.isEmpty()) {
             CustomLogger.w(TAG, "No URL provided for media ID: " + mediaId);
             return null;
         }
 
+        long minimumSize = kind == MediaKind.IMAGE ? MIN_IMAGE_BYTES : MIN_VIDEO_BYTES;
         for (int attempt = 0; attempt <= MAX_DOWNLOAD_RETRIES; attempt++) {
             try {
-                File dir = new File(context.getFilesDir(), "videos");
+                File dir = new File(context.getFilesDir(), kind == MediaKind.IMAGE ? "images" : "videos");
                 if (!dir.exists() && !dir.mkdirs()) {
-                    CustomLogger.d(TAG, "Failed to create videos directory: " + dir.getAbsolutePath());
+                    CustomLogger.d(TAG, "Failed to create cache directory: " + dir.getAbsolutePath());
                     return null;
                 }
-                File file = new File(dir, mediaId + ".mp4");
-                if (file.exists() && file.length() > 1024 && file.canRead()) {
-                    CustomLogger.d(TAG, "Video already cached: " + file.getAbsolutePath() + ", Size: " + file.length() + " bytes");
-                    if (isValidVideoFile(file)) {
+                File file = new File(dir, mediaId + fileExtension(url, kind));
+                if (file.exists() && file.length() > minimumSize && file.canRead()) {
+                    CustomLogger.d(TAG, "Asset already cached: " + file.getAbsolutePath() + ", Size: " + file.length() + " bytes");
+                    if (isCachedFileIntact(file, mediaId, expectedHash, kind)) {
                         return file.getAbsolutePath();
                     } else {
-                        CustomLogger.w(TAG, "Cached video is invalid, deleting and re-downloading: " + file.getAbsolutePath());
+                        CustomLogger.w(TAG, "Cached asset is invalid, deleting and re-downloading: " + file.getAbsolutePath());
                         file.delete();
+                        mediaDao.deleteCachedFile(file.getAbsolutePath());
+                    }
+                }
+
+                File partFile = new File(file.getAbsolutePath() + ".part");
+                // A neighbouring screen may already hold the exact bytes the origin announced
+                if (expectedHash != null && !expectedHash.isEmpty()
+                        && PeerCache.getInstance(context).fetch(expectedHash, partFile, expectedSize)) {
+                    if (partFile.renameTo(file)) {
+                        recordFingerprint(file, mediaId, expectedHash.toLowerCase(Locale.US), expectedHash);
+                        onCommitted(file, kind);
+                        CustomLogger.d(TAG, "Copied " + kind + " from LAN peer to: " + file.getAbsolutePath() + ", Size: " + file.length() + " bytes");
+                        return file.getAbsolutePath();
                     }
+                    partFile.delete();
                 }
 
                 if (!isNetworkAvailable()) {
-                    CustomLogger.w(TAG, "No network available, cannot download video for media ID: " + mediaId + ", URL: " + url);
+                    CustomLogger.w(TAG, "No network available, cannot download asset for media ID: " + mediaId + ", URL: " + url);
                     return null;
                 }
 
-                CustomLogger.d(TAG, "Downloading video from: " + url + " for media ID: " + mediaId + ", Attempt: " + (attempt + 1));
-                Request request = new Request.Builder().url(url).build();
-                Response response = client.newCall(request).execute();
-                if (!response.isSuccessful()) {
-                    CustomLogger.d(TAG, "Failed to download video, HTTP code: " + response.code() + ", Message: " + response.message() + ", URL: " + url);
-                    response.close();
-                    continue;
+                CustomLogger.d(TAG, "Downloading " + kind + " from: " + url + " for media ID: " + mediaId + ", Attempt: " + (attempt + 1));
+                MessageDigest digest = ContentHash.newDigest();
+                long written = 0;
+                long contentLength = -1;
+                // Read through the shared media cache: byte ranges the player already streamed
+                // come from disk and only the missing ranges go to the network
+                CacheDataSource dataSource = MediaCache.createDownloadDataSource(context, mediaId);
+                try (OutputStream out = new DigestOutputStream(new FileOutputStream(partFile), digest)) {
+                    contentLength = dataSource.open(new DataSpec(Uri.parse(url)));
+                    byte[] buffer = new byte[DOWNLOAD_BUFFER_SIZE];
+                    int read;
+                    // Hash while streaming to disk so the file never has to be re-read for validation
+                    while ((read = dataSource.read(buffer, 0, buffer.length)) != C.RESULT_END_OF_INPUT) {
+                        // Yields bandwidth to players streaming remote content on the same uplink
+                        bandwidthBudget.acquire(read);
+                        out.write(buffer, 0, read);
+                        written += read;
+                    }
+                } finally {
+                    dataSource.close();
                 }
+                MediaCache.logStats(mediaId, "download");
 
-                byte[] bytes = response.body().bytes();
-                if (bytes.length < 1024) {
-                    CustomLogger.d(TAG, "Downloaded video too small: " + bytes.length + " bytes for media ID: " + mediaId + ", URL: " + url);
-                    response.close();
+                if (written < minimumSize) {
+                    CustomLogger.d(TAG, "Downloaded asset too small: " + written + " bytes for media ID: " + mediaId + ", URL: " + url);
+                    partFile.delete();
                     continue;
                 }
-
-                FileOutputStream fos = new FileOutputStream(file);
-                fos.write(bytes);
-                fos.close();
-                response.close();
-                CustomLogger.d(TAG, "Downloaded video to: " + file.getAbsolutePath() + ", Size: " + file.length() + " bytes");
-
-                if (!file.canRead() || file.length() == 0 || !isValidVideoFile(file)) {
-                    CustomLogger.d(TAG, "Downloaded video is unreadable, empty, or invalid: " + file.getAbsolutePath());
-                    file.delete();
+                long announcedSize = expectedSize > 0 ? expectedSize : contentLength;
+                if (announcedSize > 0 && written != announcedSize) {
+                    CustomLogger.w(TAG, "Downloaded asset size mismatch for media ID: " + mediaId + ", expected: " + announcedSize + ", got: " + written);
+                    partFile.delete();
+                    MediaCache.removeResource(context, url);
+                    continue;
+                }
+                String contentHash = ContentHash.toHex(digest.digest());
+                if (expectedHash != null && !expectedHash.isEmpty() && !ContentHash.matches(expectedHash, contentHash)) {
+                    CustomLogger.w(TAG, "Downloaded asset hash mismatch for media ID: " + mediaId + ", expected: " + expectedHash + ", got: " + contentHash);
+                    partFile.delete();
+                    MediaCache.removeResource(context, url);
+                    continue;
+                }
+                if (kind == MediaKind.VIDEO && (expectedHash == null || expectedHash.isEmpty())) {
+                    // Without a hash only the structure can catch a body cut short by the origin
+                    Mp4Inspector.Result inspected = Mp4Inspector.inspect(partFile);
+                    if (inspected.status == Mp4Inspector.Status.INVALID) {
+                        CustomLogger.w(TAG, "Downloaded video is malformed for media ID: " + mediaId + ", " + inspected.reason);
+                        partFile.delete();
+                        MediaCache.removeResource(context, url);
+                        continue;
+                    }
+                }
+                if (!partFile.renameTo(file)) {
+                    CustomLogger.d(TAG, "Failed to move downloaded asset into place: " + file.getAbsolutePath());
+                    partFile.delete();
                     return null;
                 }
-
+                recordFingerprint(file, mediaId, contentHash, expectedHash);
+                onCommitted(file, kind);
+                MediaCache.removeResource(context, url);
+                CustomLogger.d(TAG, "Downloaded " + kind + " to: " + file.getAbsolutePath() + ", Size: " + file.length() + " bytes, SHA-256: " + contentHash);
                 return file.getAbsolutePath();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                CustomLogger.w(TAG, "Download interrupted for media ID: " + mediaId);
+                return null;
             } catch (IOException e) {
-                CustomLogger.e(TAG, "Error downloading video for media ID: " + mediaId + ", URL: " + url + ", Attempt: " + (attempt + 1), e);
+                CustomLogger.e(TAG, "Error downloading asset for media ID: " + mediaId + ", URL: " + url + ", Attempt: " + (attempt + 1), e);
                 if (attempt < MAX_DOWNLOAD_RETRIES) {
                     try {
                         Thread.sleep(BASE_RETRY_DELAY_MS * (1 << attempt));
@@ -242,18 +505,106 @@ public class MediaRepositoryImpl implements MediaRepository {
                 }
             }
         }
-        CustomLogger.d(TAG, "Failed to download video for media ID: " + mediaId + " after " + MAX_DOWNLOAD_RETRIES + " attempts");
+        CustomLogger.d(TAG, "Failed to download asset for media ID: " + mediaId + " after " + MAX_DOWNLOAD_RETRIES + " attempts");
         return null;
     }
 
+    // Cheap size/mtime comparison against the fingerprint stored at download time.
+    // The file is only re-hashed or decoded when the fingerprint no longer matches.
+    private boolean isCachedFileIntact(File file, String ownerId, String expectedHash, MediaKind kind) {
+        CachedFileEntity fingerprint = mediaDao.getCachedFile(file.getAbsolutePath());
+        if (fingerprint != null && matchesFingerprint(file, fingerprint, expectedHash)) {
+            return true;
+        }
+        CachedFileEntity result = inspectCachedFile(file, ownerId, expectedHash, fingerprint, kind);
+        mediaDao.upsertCachedFile(result);
+        return result.isValid;
+    }
+
+    private static boolean matchesFingerprint(File file, CachedFileEntity fingerprint, String expectedHash) {
+        if (expectedHash != null && !expectedHash.isEmpty() && !ContentHash.matches(expectedHash, fingerprint.contentHash)) {
+            return false;
+        }
+        return fingerprint.isValid
+                && fingerprint.size == file.length()
+                && fingerprint.lastModified == file.lastModified();
+    }
+
+    // Slow path: deep-validates files without a fingerprint and re-hashes files whose
+    // fingerprint changed. Does not touch the database so it can run on any thread.
+    private CachedFileEntity inspectCachedFile(File file, String ownerId, String expectedHash, CachedFileEntity fingerprint,
+                                               MediaKind kind) {
+        String path = file.getAbsolutePath();
+        long now = System.currentTimeMillis();
+        String previousHash = fingerprint != null ? fingerprint.contentHash : null;
+        CachedFileEntity invalid = new CachedFileEntity(path, ownerId, previousHash, expectedHash,
+                file.length(), file.lastModified(), now, false);
+        if (!file.exists() || !file.canRead()) {
+            CustomLogger.w(TAG, "Cached file missing or unreadable: " + path);
+            return invalid;
+        }
+        if (fingerprint == null) {
+            // File cached before fingerprints existed: validate once, then remember it
+            CustomLogger.d(TAG, "No fingerprint for cached file, running deep validation: " + path);
+            boolean isValid = kind == MediaKind.IMAGE ? isValidImageFile(file) : isValidVideoFile(file);
+            if (!isValid) {
+                return invalid;
+            }
+        } else {
+            if (expectedHash != null && !expectedHash.isEmpty() && !ContentHash.matches(expectedHash, fingerprint.contentHash)) {
+                CustomLogger.d(TAG, "Server announced new content for cached file: " + path);
+                return invalid;
+            }
+            CustomLogger.w(TAG, "Fingerprint changed for cached file, suspecting corruption: " + path
+                    + ", size: " + fingerprint.size + " -> " + file.length()
+                    + ", mtime: " + fingerprint.lastModified + " -> " + file.lastModified());
+            if (fingerprint.size != file.length()) {
+                return invalid;
+            }
+        }
+        try {
+            String contentHash = ContentHash.ofFile(file);
+            String reference = fingerprint != null ? fingerprint.contentHash : expectedHash;
+            if (reference != null && !reference.isEmpty() && !ContentHash.matches(reference, contentHash)) {
+                CustomLogger.w(TAG, "Cached file content hash changed: " + path);
+                return invalid;
+            }
+            // Either a legacy file that passed deep validation, or only the timestamp moved
+            return new CachedFileEntity(path, ownerId, contentHash, expectedHash,
+                    file.length(), file.lastModified(), now, true);
+        } catch (IOException e) {
+            CustomLogger.e(TAG, "Failed to hash cached file: " + path, e);
+            return invalid;
+        }
+    }
+
+    private void recordFingerprint(File file, String ownerId, String contentHash, String expectedHash) {
+        mediaDao.upsertCachedFile(new CachedFileEntity(
+                file.getAbsolutePath(),
+                ownerId,
+                contentHash,
+                expectedHash,
+                file.length(),
+                file.lastModified(),
+                System.currentTimeMillis(),
+                true
+        ));
+    }
+
+    // MP4 structure is checked in Java; only files the box walker cannot judge go to the platform
     private boolean isValidVideoFile(File file) {
+        Mp4Inspector.Result inspected = Mp4Inspector.inspect(file);
+        if (inspected.status != Mp4Inspector.Status.UNSUPPORTED) {
+            CustomLogger.d(TAG, "Video file validation: " + file.getAbsolutePath() + ", " + inspected);
+            return inspected.isValid();
+        }
         try {
             MediaMetadataRetriever retriever = new MediaMetadataRetriever();
             retriever.setDataSource(file.getAbsolutePath());
             String duration = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION);
             retriever.release();
             boolean isValid = duration != null && Long.parseLong(duration) > 0;
-            CustomLogger.d(TAG, "Video file validation: " + file.getAbsolutePath() + ", Valid: " + isValid);
+            CustomLogger.d(TAG, "Video file validation (platform, " + inspected.reason + "): " + file.getAbsolutePath() + ", Valid: " + isValid);
             return isValid;
         } catch (Exception e) {
             CustomLogger.e(TAG, "Invalid video file: " + file.getAbsolutePath(), e);
@@ -261,6 +612,27 @@ public class MediaRepositoryImpl implements MediaRepository {
         }
     }
 
+    private boolean isValidImageFile(File file) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+        boolean isValid = options.outWidth > 0 && options.outHeight > 0;
+        CustomLogger.d(TAG, "Image file validation: " + file.getAbsolutePath() + ", Valid: " + isValid);
+        return isValid;
+    }
+
+    private static String fileExtension(String url, MediaKind kind) {
+        if (kind == MediaKind.VIDEO) {
+            return ".mp4";
+        }
+        String path = Uri.parse(url).getLastPathSegment();
+        int dot = path != null ? path.lastIndexOf('.') : -1;
+        if (dot >= 0 && path.length() - dot <= 5) {
+            return path.substring(dot).toLowerCase(Locale.US);
+        }
+        return ".img";
+    }
+
     private boolean isNetworkAvailable() {
         ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
         NetworkInfo networkInfo = cm.getActiveNetworkInfo();
@@ -268,26 +640,116 @@ public class MediaRepositoryImpl implements MediaRepository {
         return networkInfo != null && networkInfo.isConnected();
     }
 
+    // Only files whose size/mtime changed since their last verification are inspected.
+    // Those run in parallel on a small pool and all fixes are written in one transaction.
     public void verifyCachedFiles() {
         executor.execute(() -> {
+            long startedAt = SystemClock.elapsedRealtime();
             List<MediaWithUrls> mediaWithUrls = mediaDao.getAllMedia();
+            Map<String, CachedFileEntity> fingerprints = new HashMap<>();
+            for (CachedFileEntity fingerprint : mediaDao.getAllCachedFiles()) {
+                fingerprints.put(fingerprint.path, fingerprint);
+            }
+
+            List<FileCheck> checks = new ArrayList<>();
+            int total = 0;
             for (MediaWithUrls item : mediaWithUrls) {
                 MediaEntity entity = item.media;
-                if (entity.localFilePath != null && !isValidVideoFile(new File(entity.localFilePath))) {
-                    CustomLogger.w(TAG, "Invalid or missing cached file for media ID: " + entity.id + ", Path: " + entity.localFilePath);
-                    entity.localFilePath = null;
-                    mediaDao.insertAll(List.of(entity));
-                    CustomLogger.d(TAG, "Cleared invalid localFilePath for media ID: " + entity.id);
+                if (entity.localFilePath != null) {
+                    total++;
+                    File file = new File(entity.localFilePath);
+                    CachedFileEntity fingerprint = fingerprints.get(file.getAbsolutePath());
+                    if (fingerprint == null || !matchesFingerprint(file, fingerprint, null)) {
+                        checks.add(new FileCheck(entity, null,
+                                () -> inspectCachedFile(file, entity.id, null, fingerprint, MediaKind.VIDEO)));
+                    }
                 }
                 for (MediaUrlEntity urlEntity : item.urls) {
-                    if (urlEntity.localFilePath != null && !isValidVideoFile(new File(urlEntity.localFilePath))) {
-                        CustomLogger.w(TAG, "Invalid or missing cached file for media URL ID: " + urlEntity.id + ", Path: " + urlEntity.localFilePath);
-                        urlEntity.localFilePath = null;
-                        mediaDao.insertUrls(List.of(urlEntity));
-                        CustomLogger.d(TAG, "Cleared invalid localFilePath for media URL ID: " + urlEntity.id);
+                    if (urlEntity.localFilePath != null) {
+                        total++;
+                        File file = new File(urlEntity.localFilePath);
+                        CachedFileEntity fingerprint = fingerprints.get(file.getAbsolutePath());
+                        if (fingerprint == null || !matchesFingerprint(file, fingerprint, null)) {
+                            checks.add(new FileCheck(null, urlEntity,
+                                    () -> inspectCachedFile(file, urlEntity.id, null, fingerprint, MediaKind.fromUrlType(urlEntity.urlType))));
+                        }
                     }
                 }
             }
+            if (checks.isEmpty()) {
+                CustomLogger.d(TAG, "All " + total + " cached files unchanged, verification skipped in "
+                        + (SystemClock.elapsedRealtime() - startedAt) + "ms");
+                return;
+            }
+
+            int threads = Math.min(checks.size(), Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+            ExecutorService verifier = Executors.newFixedThreadPool(threads);
+            List<Future<CachedFileEntity>> futures = new ArrayList<>(checks.size());
+            try {
+                for (FileCheck check : checks) {
+                    futures.add(verifier.submit(check.inspection));
+                }
+                List<MediaEntity> invalidMedia = new ArrayList<>();
+                List<MediaUrlEntity> invalidUrls = new ArrayList<>();
+                List<CachedFileEntity> updatedFingerprints = new ArrayList<>();
+                int failed = 0;
+                for (int i = 0; i < checks.size(); i++) {
+                    FileCheck check = checks.get(i);
+                    CachedFileEntity result;
+                    try {
+                        result = futures.get(i).get();
+                    } catch (ExecutionException e) {
+                        // The row keeps its path and is checked again on the next run
+                        CustomLogger.e(TAG, "Failed to verify cached file: " + check.path(), e);
+                        failed++;
+                        continue;
+                    }
+                    if (new File(result.path).exists()) {
+                        updatedFingerprints.add(result);
+                    }
+                    if (result.isValid) {
+                        continue;
+                    }
+                    if (check.media != null) {
+                        CustomLogger.w(TAG, "Invalid or missing cached file for media ID: " + check.media.id + ", Path: " + check.media.localFilePath);
+                        invalidMedia.add(check.media);
+                    } else {
+                        CustomLogger.w(TAG, "Invalid or missing cached file for media URL ID: " + check.url.id + ", Path: " + check.url.localFilePath);
+                        invalidUrls.add(check.url);
+                    }
+                }
+                // Rows the sync replaced while the files were hashed are left as it wrote them
+                int cleared = mediaDao.applyVerificationResults(invalidMedia, invalidUrls, updatedFingerprints);
+                if (cleared > 0) {
+                    writeSnapshot();
+                }
+                CustomLogger.d(TAG, "Verified " + checks.size() + " changed of " + total + " cached files on " + threads
+                        + " threads in " + (SystemClock.elapsedRealtime() - startedAt) + "ms, cleared " + cleared + " of "
+                        + (invalidMedia.size() + invalidUrls.size()) + " invalid paths"
+                        + (failed > 0 ? ", " + failed + " could not be checked" : ""));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                CustomLogger.w(TAG, "Cached file verification interrupted");
+            } finally {
+                verifier.shutdownNow();
+            }
         });
     }
+
+    // A changed file and the row pointing at it, so each result is applied to its own row
+    private static final class FileCheck {
+        final MediaEntity media; // Exactly one of media and url is set
+        final MediaUrlEntity url;
+        final Callable<CachedFileEntity> inspection;
+
+        FileCheck(MediaEntity media, MediaUrlEntity url, Callable<CachedFileEntity> inspection) {
+            this.media = media;
+            this.url = url;
+            this.inspection = inspection;
+        }
+
+        String path() {
+            return media != null ? media.localFilePath : url.localFilePath;
+        }
+    }
 }
\ No newline at end of file
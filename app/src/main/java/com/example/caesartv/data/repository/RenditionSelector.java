@@ -0,0 +1,63 @@
+package com.example.caesartv.data.repository;
+
+import com.example.caesartv.CustomLogger;
+import com.example.caesartv.data.device.DeviceCapabilities;
+import com.example.caesartv.domain.model.MediaRendition;
+
+import java.util.List;
+
+// Picks which of the server's renditions to download: the sharpest one the decoder can
+// handle without exceeding the display, and among equal resolutions the smallest
+// bitrate (typically HEVC when the box decodes it).
+public class RenditionSelector {
+
+    private static final String TAG = "RenditionSelector";
+    private static final int MIN_TARGET_HEIGHT = 1080;
+    private final DeviceCapabilities capabilities;
+
+    public RenditionSelector(DeviceCapabilities capabilities) {
+        this.capabilities = capabilities;
+    }
+
+    // Returns null when the server offered no renditions, so the default URL is used
+    public MediaRendition select(String mediaId, List<MediaRendition> renditions) {
+        if (renditions == null || renditions.isEmpty()) {
+            return null;
+        }
+        int targetHeight = Math.max(MIN_TARGET_HEIGHT, capabilities.getDisplayHeight());
+        MediaRendition best = null;
+        MediaRendition smallest = null;
+        for (MediaRendition rendition : renditions) {
+            if (rendition.getUrl() == null || rendition.getUrl().isEmpty()) continue;
+            if (smallest == null || shortEdge(rendition) < shortEdge(smallest)) {
+                smallest = rendition;
+            }
+            String mime = DeviceCapabilities.mimeForCodec(rendition.getCodec());
+            if (!capabilities.canDecode(mime, rendition.getWidth(), rendition.getHeight())) continue;
+            if (shortEdge(rendition) > targetHeight) continue;
+            if (best == null || isBetter(rendition, best)) {
+                best = rendition;
+            }
+        }
+        if (best == null) {
+            CustomLogger.w(TAG, "No decodable rendition for media ID: " + mediaId + ", falling back to the smallest one");
+            return smallest;
+        }
+        CustomLogger.d(TAG, "Selected rendition for media ID: " + mediaId + ": " + best.getWidth() + "x" + best.getHeight()
+                + " " + best.getCodec() + " @" + best.getBitrate() + "bps, " + best.getUrl());
+        return best;
+    }
+
+    private static boolean isBetter(MediaRendition candidate, MediaRendition current) {
+        if (shortEdge(candidate) != shortEdge(current)) {
+            return shortEdge(candidate) > shortEdge(current);
+        }
+        int candidateBitrate = candidate.getBitrate() > 0 ? candidate.getBitrate() : Integer.MAX_VALUE;
+        int currentBitrate = current.getBitrate() > 0 ? current.getBitrate() : Integer.MAX_VALUE;
+        return candidateBitrate < currentBitrate;
+    }
+
+    private static int shortEdge(MediaRendition rendition) {
+        return Math.min(rendition.getWidth(), rendition.getHeight());
+    }
+}
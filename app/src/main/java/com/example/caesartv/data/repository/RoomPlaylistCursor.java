@@ -0,0 +1,58 @@
+package com.example.caesartv.data.repository;
+
+import com.example.caesartv.CustomLogger;
+import com.example.caesartv.data.local.MediaDao;
+import com.example.caesartv.data.local.PlayerMediaRow;
+import com.example.caesartv.domain.model.MediaItem;
+import com.example.caesartv.domain.repository.PlaylistCursor;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+// Pages the playlist from Room by (displayOrder, id) keyset, so only a small look-ahead
+// window is ever materialised no matter how large the catalog is
+class RoomPlaylistCursor implements PlaylistCursor {
+
+    private static final String TAG = "RoomPlaylistCursor";
+    static final int WINDOW_SIZE = 4;
+
+    interface RowMapper {
+        MediaItem toDomain(PlayerMediaRow row);
+    }
+
+    private final MediaDao mediaDao;
+    private final RowMapper mapper;
+    private final ArrayDeque<MediaItem> window = new ArrayDeque<>(WINDOW_SIZE);
+    private int lastDisplayOrder;
+    private String lastId;
+    private boolean exhausted;
+
+    // Starts after the given item, or at the beginning when it is null
+    RoomPlaylistCursor(MediaDao mediaDao, RowMapper mapper, MediaItem after) {
+        this.mediaDao = mediaDao;
+        this.mapper = mapper;
+        this.lastDisplayOrder = after != null ? after.getDisplayOrder() : Integer.MIN_VALUE;
+        this.lastId = after != null ? after.getId() : "";
+    }
+
+    @Override
+    public MediaItem next() {
+        if (window.isEmpty() && !exhausted) {
+            fill();
+        }
+        return window.poll();
+    }
+
+    private void fill() {
+        List<PlayerMediaRow> rows = mediaDao.getPlayerMediaPage(lastDisplayOrder, lastId, WINDOW_SIZE);
+        if (rows.size() < WINDOW_SIZE) {
+            exhausted = true;
+        }
+        for (PlayerMediaRow row : rows) {
+            window.add(mapper.toDomain(row));
+            lastDisplayOrder = row.displayOrder;
+            lastId = row.id;
+        }
+        CustomLogger.d(TAG, "Paged " + rows.size() + " items after displayOrder " + lastDisplayOrder + (exhausted ? ", end of playlist" : ""));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.caesartv.data.sync;
+
+// Offset of the leader's clock from ours, from NTP-style exchanges: we send at t0, the
+// leader receives at t1 and replies at t2, we receive at t3. Each exchange gives
+// offset = ((t1 - t0) + (t2 - t3)) / 2 with an error of at most half its round trip, so of
+// the recent exchanges the one with the shortest round trip is trusted. A Wi-Fi hiccup then
+// only costs precision once it is the best sample left in the window. Thread-safe.
+final class ClockOffsetEstimator {
+
+    private static final int WINDOW = 16;
+    private static final long MAX_ROUND_TRIP_US = 100_000; // Slower exchanges say little about the offset
+
+    private final long[] offsets = new long[WINDOW];
+    private final long[] roundTrips = new long[WINDOW];
+    private int count;
+    private int next;
+
+    // Returns false when the exchange was discarded
+    synchronized boolean addSample(long t0, long t1, long t2, long t3) {
+        long roundTrip = (t3 - t0) - (t2 - t1);
+        if (roundTrip < 0 || roundTrip > MAX_ROUND_TRIP_US) {
+            return false;
+        }
+        offsets[next] = ((t1 - t0) + (t2 - t3)) / 2;
+        roundTrips[next] = roundTrip;
+        next = (next + 1) % WINDOW;
+        count = Math.min(count + 1, WINDOW);
+        return true;
+    }
+
+    synchronized boolean hasEstimate() {
+        return count > 0;
+    }
+
+    // Leader time = local time + offset; 0 before the first sample
+    synchronized long offsetUs() {
+        int best = bestSample();
+        return best >= 0 ? offsets[best] : 0;
+    }
+
+    // Upper bound on the error of offsetUs()
+    synchronized long errorBoundUs() {
+        int best = bestSample();
+        return best >= 0 ? roundTrips[best] / 2 : Long.MAX_VALUE;
+    }
+
+    synchronized void reset() {
+        count = 0;
+        next = 0;
+    }
+
+    private int bestSample() {
+        int best = -1;
+        for (int i = 0; i < count; i++) {
+            if (best < 0 || roundTrips[i] < roundTrips[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+}
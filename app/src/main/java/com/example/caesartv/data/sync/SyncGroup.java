@@ -0,0 +1,141 @@
+package com.example.caesartv.data.sync;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.wifi.WifiManager;
+import android.os.SystemClock;
+import android.provider.Settings;
+
+import com.example.caesartv.CustomLogger;
+
+import org.json.JSONObject;
+
+import java.net.InetAddress;
+
+// Membership of this screen in a video wall: screens in one group play the same playlist
+// on the leader's clock. Assigned from the dashboard and persisted; a screen in no group
+// keeps its own clock, which still lines up the zones of a split-screen item.
+public final class SyncGroup {
+
+    private static final String TAG = "SyncGroup";
+    private static final String PREFS_NAME = "sync_group";
+    private static final String KEY_NAME = "name";
+    private static final String KEY_LEADER = "leader";
+    private static final SyncLink.Clock LOCAL_CLOCK = () -> SystemClock.elapsedRealtimeNanos() / 1000;
+
+    private static volatile SyncGroup instance;
+
+    private final Context context;
+    private volatile SyncLink link;
+    private WifiManager.MulticastLock multicastLock;
+
+    private SyncGroup(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public static SyncGroup getInstance(Context context) {
+        if (instance == null) {
+            synchronized (SyncGroup.class) {
+                if (instance == null) {
+                    instance = new SyncGroup(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Accepts {"group": "lobby-wall", "leader": true}; an empty or missing group leaves the wall
+    public static void setConfig(Context context, JSONObject json) {
+        String name = json != null ? json.optString("group", "") : "";
+        boolean leader = json != null && json.optBoolean("leader", false);
+        prefs(context).edit().putString(KEY_NAME, name).putBoolean(KEY_LEADER, leader).apply();
+        CustomLogger.d(TAG, name.isEmpty() ? "Left sync group" : "Joined sync group " + name + (leader ? " as leader" : ""));
+        SyncGroup group = getInstance(context);
+        group.stop();
+        group.ensureStarted();
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    // Must be called off the main thread; no-op when in no group or already running
+    public synchronized void ensureStarted() {
+        String name = prefs(context).getString(KEY_NAME, "");
+        if (link != null || name.isEmpty()) {
+            return;
+        }
+        try {
+            WifiManager wifiManager = (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
+            if (wifiManager != null) {
+                multicastLock = wifiManager.createMulticastLock(TAG);
+                multicastLock.setReferenceCounted(false);
+                multicastLock.acquire();
+            }
+            String deviceId = Settings.Secure.getString(context.getContentResolver(), Settings.Secure.ANDROID_ID);
+            SyncLink started = new SyncLink(deviceId, name, prefs(context).getBoolean(KEY_LEADER, false),
+                    InetAddress.getByName(SyncLink.DEFAULT_GROUP), SyncLink.DEFAULT_PORT, null, LOCAL_CLOCK);
+            started.start();
+            link = started;
+        } catch (Exception e) {
+            CustomLogger.e(TAG, "Failed to start sync link", e);
+            stop();
+        }
+    }
+
+    public synchronized void stop() {
+        SyncLink current = link;
+        link = null;
+        if (current != null) {
+            current.stop();
+        }
+        if (multicastLock != null && multicastLock.isHeld()) {
+            multicastLock.release();
+        }
+        multicastLock = null;
+    }
+
+    public boolean isActive() {
+        return link != null;
+    }
+
+    public boolean isLeader() {
+        SyncLink current = link;
+        return current != null && current.isLeader();
+    }
+
+    // Group clock while synced to the leader, the local clock otherwise
+    public long nowUs() {
+        SyncLink current = link;
+        return current != null && current.isSynced() ? current.groupTimeUs() : LOCAL_CLOCK.nowUs();
+    }
+
+    public boolean isSynced() {
+        SyncLink current = link;
+        return current != null && current.isSynced();
+    }
+
+    public long offsetErrorBoundUs() {
+        SyncLink current = link;
+        return current != null ? current.offsetErrorBoundUs() : 0;
+    }
+
+    public void announceStart(String itemId, long startUs, boolean newPlay) {
+        SyncLink current = link;
+        if (current != null) {
+            current.announceStart(itemId, startUs, newPlay);
+        }
+    }
+
+    public Long announcedStartUs(String itemId) {
+        SyncLink current = link;
+        return current != null ? current.announcedStartUs(itemId) : null;
+    }
+
+    public void finishPlay(String itemId) {
+        SyncLink current = link;
+        if (current != null) {
+            current.finishPlay(itemId);
+        }
+    }
+}
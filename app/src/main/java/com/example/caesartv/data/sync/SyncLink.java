@@ -0,0 +1,319 @@
+package com.example.caesartv.data.sync;
+
+import com.example.caesartv.CustomLogger;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// UDP multicast link between the screens of one sync group. The leader's clock is the group
+// clock: followers ping it every second and feed the replies to a ClockOffsetEstimator, and
+// the leader announces when each item starts on that clock, repeating the announcement every
+// second while the item plays so a follower that lost the datagram still catches up. Each
+// play of an item is numbered, so a follower never takes the start of an earlier pass of a
+// looping playlist for the current one. Groups share the port and are told apart by name.
+public class SyncLink {
+
+    private static final String TAG = "SyncLink";
+    public static final String DEFAULT_GROUP = "239.255.77.78";
+    public static final int DEFAULT_PORT = 47778;
+    private static final long PING_INTERVAL_MS = 1000;
+    private static final long ANNOUNCEMENT_TTL_MS = 60000;
+    private static final int MAX_PACKET_SIZE = 1500;
+
+    // Local monotonic clock in microseconds; tests substitute skewed clocks
+    public interface Clock {
+        long nowUs();
+    }
+
+    private static class Announcement {
+        final String itemId;
+        final long play;
+        final long startUs;
+        final long receivedAtUs; // On the leader, when it was announced
+
+        Announcement(String itemId, long play, long startUs, long receivedAtUs) {
+            this.itemId = itemId;
+            this.play = play;
+            this.startUs = startUs;
+            this.receivedAtUs = receivedAtUs;
+        }
+    }
+
+    private final String deviceId;
+    private final String groupName;
+    private final boolean leader;
+    private final InetAddress multicastGroup;
+    private final int port;
+    private final NetworkInterface networkInterface;
+    private final Clock clock;
+    private final ClockOffsetEstimator estimator = new ClockOffsetEstimator();
+    private final Map<String, Announcement> announcements = new ConcurrentHashMap<>(); // item id + play -> start on the group clock
+    private final Map<String, Long> followedPlays = new ConcurrentHashMap<>(); // item id -> play this screen is on
+    private final Set<String> finishedPlays = Collections.newSetFromMap(new ConcurrentHashMap<>()); // item id + play this screen is done with
+    private MulticastSocket socket;
+    private ScheduledExecutorService sender;
+    private volatile boolean running;
+    private long pingSequence;
+    private long playSequence; // Leader only; main thread
+    private volatile Announcement currentPlay; // Leader only; repeated until finished
+
+    // networkInterface may be null to let the system choose (the loopback interface in tests)
+    public SyncLink(String deviceId, String groupName, boolean leader, InetAddress multicastGroup, int port,
+                    NetworkInterface networkInterface, Clock clock) {
+        this.deviceId = deviceId;
+        this.groupName = groupName;
+        this.leader = leader;
+        this.multicastGroup = multicastGroup;
+        this.port = port;
+        this.networkInterface = networkInterface;
+        this.clock = clock;
+    }
+
+    public synchronized void start() throws IOException {
+        socket = new MulticastSocket(port);
+        if (networkInterface != null) {
+            socket.setNetworkInterface(networkInterface);
+        }
+        socket.setTimeToLive(1); // venue LAN only
+        socket.setLoopbackMode(false); // false enables loopback, so instances on one host see each other
+        socket.joinGroup(multicastGroup);
+        running = true;
+        // Numbered from a random base, so plays of a restarted leader are not taken for old ones
+        playSequence = ThreadLocalRandom.current().nextLong(Long.MAX_VALUE / 2);
+
+        Thread receiver = new Thread(this::receiveLoop, TAG);
+        receiver.setDaemon(true);
+        receiver.setPriority(Thread.MAX_PRIORITY); // Receive timestamps go straight into the offset
+        receiver.start();
+
+        sender = Executors.newSingleThreadScheduledExecutor();
+        if (leader) {
+            sender.scheduleWithFixedDelay(this::repeatCurrentPlay, PING_INTERVAL_MS, PING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        } else {
+            sender.scheduleWithFixedDelay(this::ping, 0, PING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+        CustomLogger.d(TAG, "Sync link started for group " + groupName + " as " + (leader ? "leader" : "follower")
+                + " on " + multicastGroup.getHostAddress() + ":" + port);
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (sender != null) {
+            sender.shutdownNow();
+        }
+        if (socket != null) {
+            try {
+                socket.leaveGroup(multicastGroup);
+            } catch (IOException e) {
+                CustomLogger.e(TAG, "Error leaving multicast group", e);
+            }
+            socket.close();
+        }
+        currentPlay = null;
+        announcements.clear();
+        followedPlays.clear();
+        finishedPlays.clear();
+        estimator.reset();
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+
+    // The leader is its own reference; a follower is synced once a reply has come back
+    public boolean isSynced() {
+        return leader || estimator.hasEstimate();
+    }
+
+    public long groupTimeUs() {
+        return clock.nowUs() + (leader ? 0 : estimator.offsetUs());
+    }
+
+    public long offsetErrorBoundUs() {
+        return leader ? 0 : estimator.errorBoundUs();
+    }
+
+    // Leader only; newPlay is false when the current play's start is announced again. Sent from
+    // the link's own thread since callers may be on the main thread.
+    public void announceStart(String itemId, long startUs, boolean newPlay) {
+        if (!leader || !running) {
+            return;
+        }
+        long play = newPlay ? ++playSequence : playSequence;
+        Announcement announcement = new Announcement(itemId, play, startUs, clock.nowUs());
+        currentPlay = announcement;
+        sender.execute(() -> sendStart(announcement));
+    }
+
+    // A lost start datagram would leave a follower on its own clock for the whole item
+    private void repeatCurrentPlay() {
+        Announcement announcement = currentPlay;
+        if (announcement != null) {
+            sendStart(announcement);
+        }
+    }
+
+    private void sendStart(Announcement announcement) {
+        try {
+            send(new JSONObject()
+                    .put("type", "start")
+                    .put("item", announcement.itemId)
+                    .put("play", announcement.play)
+                    .put("at", announcement.startUs));
+        } catch (Exception e) {
+            if (running) {
+                CustomLogger.e(TAG, "Failed to announce start of " + announcement.itemId, e);
+            }
+        }
+    }
+
+    // Start of this screen's play of the item on the group clock, as announced by the leader;
+    // null if not heard. The first answer ties the screen to that play of the leader's until
+    // finishPlay, so a later play announced meanwhile (the leader is ahead) is kept for the next pass.
+    public Long announcedStartUs(String itemId) {
+        Long followed = followedPlays.get(itemId);
+        long nowUs = clock.nowUs();
+        Announcement match = null;
+        for (Announcement announcement : announcements.values()) {
+            if (!announcement.itemId.equals(itemId) || nowUs - announcement.receivedAtUs > ANNOUNCEMENT_TTL_MS * 1000) {
+                continue;
+            }
+            if (followed != null ? announcement.play == followed
+                    : !finishedPlays.contains(key(itemId, announcement.play))
+                    && (match == null || announcement.receivedAtUs > match.receivedAtUs)) {
+                match = announcement;
+            }
+        }
+        if (match == null) {
+            return null;
+        }
+        followedPlays.put(itemId, match.play);
+        return match.startUs;
+    }
+
+    // This screen is done with its play of the item; that play's start is not used again. A
+    // play that never followed the leader rules out everything heard for the item so far. On
+    // the leader it stops the repeats.
+    public void finishPlay(String itemId) {
+        Announcement playing = currentPlay;
+        if (playing != null && playing.itemId.equals(itemId)) {
+            currentPlay = null;
+        }
+        Long followed = followedPlays.remove(itemId);
+        if (followed != null) {
+            finishedPlays.add(key(itemId, followed));
+            return;
+        }
+        for (Announcement announcement : announcements.values()) {
+            if (announcement.itemId.equals(itemId)) {
+                finishedPlays.add(key(itemId, announcement.play));
+            }
+        }
+    }
+
+    private static String key(String itemId, long play) {
+        return itemId + "#" + play;
+    }
+
+    private void ping() {
+        try {
+            send(new JSONObject()
+                    .put("type", "ping")
+                    .put("seq", ++pingSequence)
+                    .put("t0", clock.nowUs()));
+        } catch (Exception e) {
+            if (running) {
+                CustomLogger.e(TAG, "Failed to ping group leader", e);
+            }
+        }
+    }
+
+    private void send(JSONObject message) throws Exception {
+        message.put("deviceId", deviceId);
+        message.put("group", groupName);
+        byte[] payload = message.toString().getBytes(StandardCharsets.UTF_8);
+        socket.send(new DatagramPacket(payload, payload.length, multicastGroup, port));
+    }
+
+    private void receiveLoop() {
+        byte[] buffer = new byte[MAX_PACKET_SIZE];
+        while (running) {
+            try {
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                socket.receive(packet);
+                long receivedAtUs = clock.nowUs();
+                JSONObject message = new JSONObject(new String(packet.getData(), packet.getOffset(), packet.getLength(), StandardCharsets.UTF_8));
+                String peerId = message.optString("deviceId", "");
+                if (peerId.isEmpty() || peerId.equals(deviceId) || !groupName.equals(message.optString("group"))) {
+                    continue;
+                }
+                onMessage(message, peerId, receivedAtUs);
+            } catch (SocketException e) {
+                if (running) {
+                    CustomLogger.e(TAG, "Sync socket error", e);
+                }
+            } catch (Exception e) {
+                CustomLogger.e(TAG, "Ignoring malformed sync message", e);
+            }
+        }
+    }
+
+    private void onMessage(JSONObject message, String peerId, long receivedAtUs) throws Exception {
+        switch (message.optString("type")) {
+            case "ping":
+                if (leader) {
+                    // Replied from the receive thread so t1 and t2 stay microseconds apart
+                    send(new JSONObject()
+                            .put("type", "pong")
+                            .put("to", peerId)
+                            .put("seq", message.optLong("seq"))
+                            .put("t0", message.optLong("t0"))
+                            .put("t1", receivedAtUs)
+                            .put("t2", clock.nowUs()));
+                }
+                break;
+            case "pong":
+                if (!leader && deviceId.equals(message.optString("to"))) {
+                    boolean used = estimator.addSample(message.optLong("t0"), message.optLong("t1"), message.optLong("t2"), receivedAtUs);
+                    if (!used) {
+                        CustomLogger.d(TAG, "Discarded slow clock exchange with " + peerId);
+                    }
+                }
+                break;
+            case "start":
+                if (!leader) {
+                    String itemId = message.optString("item");
+                    long play = message.optLong("play");
+                    // A repeat for the same play replaces its start, e.g. after the leader's rebase
+                    announcements.put(key(itemId, play), new Announcement(itemId, play, message.optLong("at"), receivedAtUs));
+                    pruneAnnouncements(receivedAtUs);
+                }
+                break;
+        }
+    }
+
+    private void pruneAnnouncements(long nowUs) {
+        for (Map.Entry<String, Announcement> entry : announcements.entrySet()) {
+            if (nowUs - entry.getValue().receivedAtUs > ANNOUNCEMENT_TTL_MS * 1000) {
+                announcements.remove(entry.getKey());
+            }
+        }
+        // A finished play only needs remembering while its announcement could still be picked
+        finishedPlays.retainAll(announcements.keySet());
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.caesartv.domain.model;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class MediaItem {
@@ -16,6 +17,11 @@ public class MediaItem {
     private boolean isActive;
     private String createdAt;
     private String updatedAt;
+    private String contentHash;
+    private long fileSize;
+    private List<MediaRendition> renditions = new ArrayList<>();
+    private VideoMetadata videoMetadata; // Null until the local file has been inspected
+    private String remoteUrl; // Origin URL, kept when url points at the local copy
 
     // Constructor
     public MediaItem(String id, String title, String description, String mediaType, String url,
@@ -51,4 +57,14 @@ public class MediaItem {
     public boolean isActive() { return isActive; }
     public String getCreatedAt() { return createdAt; }
     public String getUpdatedAt() { return updatedAt; }
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public long getFileSize() { return fileSize; }
+    public void setFileSize(long fileSize) { this.fileSize = fileSize; }
+    public List<MediaRendition> getRenditions() { return renditions; }
+    public void setRenditions(List<MediaRendition> renditions) { this.renditions = renditions; }
+    public VideoMetadata getVideoMetadata() { return videoMetadata; }
+    public void setVideoMetadata(VideoMetadata videoMetadata) { this.videoMetadata = videoMetadata; }
+    public String getRemoteUrl() { return remoteUrl; }
+    public void setRemoteUrl(String remoteUrl) { this.remoteUrl = remoteUrl; }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.example.caesartv.domain.model;
+
+public enum MediaKind {
+    VIDEO,
+    IMAGE,
+    UNKNOWN;
+
+    public static MediaKind fromUrlType(String urlType) {
+        if ("video".equals(urlType)) {
+            return VIDEO;
+        } else if ("image".equals(urlType)) {
+            return IMAGE;
+        }
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.caesartv.domain.model;
+
+public class MediaRendition {
+    private final String url;
+    private final int width;
+    private final int height;
+    private final String codec;
+    private final int bitrate;
+    private final String contentHash;
+    private final long fileSize;
+
+    public MediaRendition(String url, int width, int height, String codec, int bitrate, String contentHash, long fileSize) {
+        this.url = url;
+        this.width = width;
+        this.height = height;
+        this.codec = codec;
+        this.bitrate = bitrate;
+        this.contentHash = contentHash;
+        this.fileSize = fileSize;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public String getCodec() {
+        return codec;
+    }
+
+    public int getBitrate() {
+        return bitrate;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+}
@@ -1,16 +1,41 @@
 package com.example.caesartv.domain.model;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class MediaUrl {
     private final String urlType;
     private final String url;
     private final String id;
     private final String localFilePath;
+    private final String contentHash;
+    private final long fileSize;
+    private final List<MediaRendition> renditions;
+    private final VideoMetadata videoMetadata;
 
-    public MediaUrl(String urlType, String url, String id, String localFilePath) {
+    public MediaUrl(String urlType, String url, String id, String localFilePath, String contentHash, long fileSize,
+                    List<MediaRendition> renditions, VideoMetadata videoMetadata) {
         this.urlType = urlType;
         this.url = url;
         this.id = id;
         this.localFilePath = localFilePath;
+        this.contentHash = contentHash;
+        this.fileSize = fileSize;
+        this.renditions = renditions != null ? renditions : new ArrayList<>();
+        this.videoMetadata = videoMetadata;
+    }
+
+    public MediaUrl(String urlType, String url, String id, String localFilePath, String contentHash, long fileSize,
+                    List<MediaRendition> renditions) {
+        this(urlType, url, id, localFilePath, contentHash, fileSize, renditions, null);
+    }
+
+    public MediaUrl(String urlType, String url, String id, String localFilePath, String contentHash, long fileSize) {
+        this(urlType, url, id, localFilePath, contentHash, fileSize, null);
+    }
+
+    public MediaUrl(String urlType, String url, String id, String localFilePath) {
+        this(urlType, url, id, localFilePath, null, 0);
     }
 
     public MediaUrl(String urlType, String url, String id) {
@@ -32,4 +57,25 @@ public class MediaUrl {
     public String getLocalFilePath() {
         return localFilePath;
     }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public List<MediaRendition> getRenditions() {
+        return renditions;
+    }
+
+    public VideoMetadata getVideoMetadata() {
+        return videoMetadata;
+    }
+
+    public MediaUrl withRendition(MediaRendition rendition) {
+        return new MediaUrl(urlType, rendition.getUrl(), id, localFilePath, rendition.getContentHash(),
+                rendition.getFileSize(), renditions, videoMetadata);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.example.caesartv.domain.model;
+
+// Stream properties read from a committed video file, used to decide where it can play
+public class VideoMetadata {
+    private final int width;
+    private final int height;
+    private final String codec; // Decoder MIME type, e.g. video/avc
+    private final float frameRate;
+    private final int bitrate;
+    private final long durationMs;
+
+    public VideoMetadata(int width, int height, String codec, float frameRate, int bitrate, long durationMs) {
+        this.width = width;
+        this.height = height;
+        this.codec = codec;
+        this.frameRate = frameRate;
+        this.bitrate = bitrate;
+        this.durationMs = durationMs;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public String getCodec() {
+        return codec;
+    }
+
+    public float getFrameRate() {
+        return frameRate;
+    }
+
+    public int getBitrate() {
+        return bitrate;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    @Override
+    public String toString() {
+        return width + "x" + height + " " + codec + " @" + frameRate + "fps " + bitrate + "bps " + durationMs + "ms";
+    }
+}
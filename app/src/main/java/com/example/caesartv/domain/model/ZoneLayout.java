@@ -0,0 +1,90 @@
+package com.example.caesartv.domain.model;
+
+import java.util.Locale;
+
+// Screen templates for MULTIPLE items, picked by how many assets the item carries: two
+// side by side, an L-bar for three (main zone, side bar and a ticker along the bottom), a
+// 2x2 grid for four, and an even grid beyond that. Zone bounds are fractions of the screen,
+// so the same template fits any panel. Zones are listed largest first. The player lays its
+// cells out from these, and cached images are pre-decoded to the cell they will fill.
+public final class ZoneLayout {
+
+    public static final class Slot {
+        public final String name;
+        public final float left;
+        public final float top;
+        public final float right;
+        public final float bottom;
+
+        Slot(String name, float left, float top, float right, float bottom) {
+            this.name = name;
+            this.left = left;
+            this.top = top;
+            this.right = right;
+            this.bottom = bottom;
+        }
+
+        // Pixel size on a screen of the given size, as the player lays the zone out
+        public int widthOn(int screenWidth) {
+            return edge(right, screenWidth) - edge(left, screenWidth);
+        }
+
+        public int heightOn(int screenHeight) {
+            return edge(bottom, screenHeight) - edge(top, screenHeight);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s[%.2f,%.2f-%.2f,%.2f]", name, left, top, right, bottom);
+        }
+    }
+
+    public static final Slot FULL = new Slot("Full", 0f, 0f, 1f, 1f);
+    private static final float L_BAR_SIDE = 0.75f; // Where the side bar starts
+    private static final float L_BAR_TICKER = 0.85f; // Where the ticker starts
+
+    private ZoneLayout() {
+    }
+
+    public static Slot[] forCount(int count) {
+        switch (count) {
+            case 2:
+                // Names kept from the fixed split screen, so play events stay comparable
+                return new Slot[]{
+                        new Slot("Left", 0f, 0f, 0.5f, 1f),
+                        new Slot("Right", 0.5f, 0f, 1f, 1f)};
+            case 3:
+                return new Slot[]{
+                        new Slot("Main", 0f, 0f, L_BAR_SIDE, L_BAR_TICKER),
+                        new Slot("Side", L_BAR_SIDE, 0f, 1f, L_BAR_TICKER),
+                        new Slot("Ticker", 0f, L_BAR_TICKER, 1f, 1f)};
+            case 4:
+                return new Slot[]{
+                        new Slot("TopLeft", 0f, 0f, 0.5f, 0.5f),
+                        new Slot("TopRight", 0.5f, 0f, 1f, 0.5f),
+                        new Slot("BottomLeft", 0f, 0.5f, 0.5f, 1f),
+                        new Slot("BottomRight", 0.5f, 0.5f, 1f, 1f)};
+            default:
+                return grid(count);
+        }
+    }
+
+    // Edges are rounded rather than sizes, so neighbouring zones meet without a gap
+    public static int edge(float fraction, int size) {
+        return Math.round(fraction * size);
+    }
+
+    // Row-major grid as close to square as the count allows; the last row may be short
+    private static Slot[] grid(int count) {
+        int columns = (int) Math.ceil(Math.sqrt(count));
+        int rows = (int) Math.ceil(count / (double) columns);
+        Slot[] slots = new Slot[count];
+        for (int i = 0; i < count; i++) {
+            int row = i / columns;
+            int column = i % columns;
+            slots[i] = new Slot("Zone" + (i + 1), column / (float) columns, row / (float) rows,
+                    (column + 1) / (float) columns, (row + 1) / (float) rows);
+        }
+        return slots;
+    }
+}
@@ -1,11 +1,17 @@
 package com.example.caesartv.domain.repository;
 
+import androidx.lifecycle.LiveData;
+
 import com.example.caesartv.domain.model.MediaItem;
 import java.util.List;
 
 public interface MediaRepository {
     void fetchMedia(OnMediaFetchedListener listener, Runnable onBlocked, Runnable onError);
     List<MediaItem> getCachedMedia();
+    boolean hasPlaylistSnapshot();
+    PlaylistCursor openSnapshotCursor();
+    PlaylistCursor openPlaylistCursor(MediaItem after);
+    LiveData<Integer> observeCachedMediaCount();
     void disconnectWebSocket();
 
     void disconnect();
@@ -0,0 +1,10 @@
+package com.example.caesartv.domain.repository;
+
+import com.example.caesartv.domain.model.MediaItem;
+
+// Forward-only walk over the stored playlist. Implementations may read from disk,
+// so next() must be called off the main thread.
+public interface PlaylistCursor {
+    // Null once the playlist is exhausted
+    MediaItem next();
+}
@@ -1,7 +1,10 @@
 package com.example.caesartv.domain.usecase;
 
+import androidx.lifecycle.LiveData;
+
 import com.example.caesartv.domain.model.MediaItem;
 import com.example.caesartv.domain.repository.MediaRepository;
+import com.example.caesartv.domain.repository.PlaylistCursor;
 import java.util.List;
 
 public class GetCachedMediaUseCase {
@@ -15,6 +18,25 @@ public class GetCachedMediaUseCase {
         return repository.getCachedMedia();
     }
 
+    // Checked without loading the playlist itself
+    public boolean hasCachedMedia() {
+        return repository.hasPlaylistSnapshot() || repository.countCachedMedia() > 0;
+    }
+
+    // Startup path: the playlist snapshot if one is usable, otherwise a windowed Room cursor
+    public PlaylistCursor openCursor() {
+        PlaylistCursor snapshot = repository.openSnapshotCursor();
+        return snapshot != null ? snapshot : repository.openPlaylistCursor(null);
+    }
+
+    public PlaylistCursor openCursorAfter(MediaItem after) {
+        return repository.openPlaylistCursor(after);
+    }
+
+    public LiveData<Integer> observeCount() {
+        return repository.observeCachedMediaCount();
+    }
+
     public MediaRepository getRepository() {
         return repository;
     }
@@ -18,13 +18,15 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.caesartv.BootReceiver;
 import com.example.caesartv.CustomLogger;
+import com.example.caesartv.PlayEventUploadWorker;
 import com.example.caesartv.R;
+import com.example.caesartv.data.device.DeviceCapabilities;
+import com.example.caesartv.data.peer.PeerCache;
 import com.example.caesartv.data.repository.MediaRepositoryImpl;
+import com.example.caesartv.data.sync.SyncGroup;
 import com.example.caesartv.di.AppModule;
-import com.example.caesartv.domain.model.MediaItem;
 import com.example.caesartv.domain.usecase.GetCachedMediaUseCase;
 import com.example.caesartv.presentation.player.VideoPlayerFragment;
-import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -61,6 +63,13 @@ public class MainActivity extends AppCompatActivity {
 
         // Verify cached files
         ((MediaRepositoryImpl) appModule.provideMediaRepository(this)).verifyCachedFiles();
+        // Serve this screen's cache to neighbours when the venue has opted in
+        executorService.execute(() -> PeerCache.getInstance(this).ensureStarted());
+        // Join the video wall this screen was assigned to, if any
+        executorService.execute(() -> SyncGroup.getInstance(this).ensureStarted());
+        // Load (or on new firmware, probe) the decoder profile before the player needs it
+        executorService.execute(() -> DeviceCapabilities.get(this));
+        PlayEventUploadWorker.schedule(this);
 
 
 //        Intent intent = new Intent(this, BootReceiver.class);
@@ -157,11 +166,11 @@ public class MainActivity extends AppCompatActivity {
     private void checkCachedMediaAndStartVideoPlayer() {
         CustomLogger.d(TAG, "Checking cached media");
         executorService.execute(() -> {
-            List<MediaItem> cachedMedia = cachedMediaUseCase.execute();
+            // Only asks whether anything is stored; the player pages the playlist itself
+            boolean hasCachedMedia = cachedMediaUseCase.hasCachedMedia();
             mainHandler.post(() -> {
-                if (!cachedMedia.isEmpty()) {
-                    CustomLogger.d(TAG, "Cached media available: " + cachedMedia.size() + " items");
-                    viewModel.getMediaItems().postValue(cachedMedia);
+                if (hasCachedMedia) {
+                    CustomLogger.d(TAG, "Cached media available");
                     startVideoPlayer();
                 } else {
                     CustomLogger.d(TAG, "No cached media, waiting for API media");
@@ -181,7 +190,10 @@ public class MainActivity extends AppCompatActivity {
                     CustomLogger.d(TAG, "Device is blocked, skipping media check");
                     return;
                 }
-                if (viewModel.getMediaItems().getValue() != null && !viewModel.getMediaItems().getValue().isEmpty()) {
+                if (Boolean.TRUE.equals(viewModel.getHasCachedMedia().getValue())) {
+                    CustomLogger.d(TAG, "Cached media available");
+                    startVideoPlayer();
+                } else if (viewModel.getMediaItems().getValue() != null && !viewModel.getMediaItems().getValue().isEmpty()) {
                     CustomLogger.d(TAG, "Media items available: " + viewModel.getMediaItems().getValue().size());
                     startVideoPlayer();
                 } else if (System.currentTimeMillis() - startTime < MEDIA_CHECK_TIMEOUT_MS) {
@@ -207,6 +219,14 @@ public class MainActivity extends AppCompatActivity {
             }
         });
 
+        // Emits on changes only, so true here means media just became available
+        viewModel.getHasCachedMedia().observe(this, hasCachedMedia -> {
+            if (Boolean.TRUE.equals(hasCachedMedia) && !isSplashDisplayed && !isDeviceBlocked) {
+                CustomLogger.d(TAG, "Cached media stored, starting VideoPlayerFragment");
+                startVideoPlayer();
+            }
+        });
+
         viewModel.getIsDeviceBlocked().observe(this, isBlocked -> {
             CustomLogger.d(TAG, "isDeviceBlocked: " + isBlocked);
             boolean newBlockStatus = isBlocked != null && isBlocked;
@@ -305,6 +325,8 @@ public class MainActivity extends AppCompatActivity {
 
         // Shutdown AppModule's executor
         if (isFinishing()) {
+            PeerCache.getInstance(this).stop();
+            SyncGroup.getInstance(this).stop();
             CustomLogger.d(TAG, "Activity is finishing, shutting down AppModule's executor");
             appModule.shutdownExecutorService();
         }
@@ -9,6 +9,8 @@ import android.os.Build;
 import android.util.Log;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+import androidx.lifecycle.Transformations;
 import androidx.lifecycle.ViewModel;
 import androidx.lifecycle.ViewModelProvider;
 
@@ -16,7 +18,6 @@ import com.example.caesartv.CustomLogger;
 import com.example.caesartv.domain.model.MediaItem;
 import com.example.caesartv.domain.usecase.FetchMediaUseCase;
 import com.example.caesartv.domain.usecase.GetCachedMediaUseCase;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -30,6 +31,11 @@ public class MainViewmodel extends ViewModel {
     private final MutableLiveData<List<MediaItem>> mediaItems = new MutableLiveData<>();
     private final MutableLiveData<Boolean> isDeviceBlocked = new MutableLiveData<>();
     private ConnectivityManager.NetworkCallback networkCallback;
+    private final MutableLiveData<Boolean> hasCachedMedia = new MutableLiveData<>();
+    // Every media write invalidates the count; observers only hear when availability flips
+    private final LiveData<Boolean> cachedMediaAvailable = Transformations.distinctUntilChanged(hasCachedMedia);
+    private final LiveData<Integer> cachedMediaCount;
+    private final Observer<Integer> cachedMediaObserver = this::onCachedMediaChanged;
     private boolean isWebSocketConnected = false;
     private static final int MAX_RETRIES = 3;
     private static final long RETRY_DELAY_MS = 2000;
@@ -42,6 +48,18 @@ public class MainViewmodel extends ViewModel {
         setupNetworkCallback();
         checkCachedMedia();
         connectWebSocket(0);
+        cachedMediaCount = getCachedMediaUseCase.observeCount();
+        cachedMediaCount.observeForever(cachedMediaObserver);
+    }
+
+    // Fresh devices start playing as soon as the first sync lands, without waiting for a poll.
+    // Only the count is tracked here; the player pages the playlist itself.
+    private void onCachedMediaChanged(Integer count) {
+        hasCachedMedia.setValue(count != null && count > 0);
+    }
+
+    public LiveData<Boolean> getHasCachedMedia() {
+        return cachedMediaAvailable;
     }
 
     public MutableLiveData<List<MediaItem>> getMediaItems() {
@@ -120,29 +138,17 @@ public class MainViewmodel extends ViewModel {
         CustomLogger.d(TAG, "Checking cached media");
         if (executorService.isShutdown()) {
             CustomLogger.w(TAG, "ExecutorService is shutdown, cannot check cached media");
-            mediaItems.postValue(new ArrayList<>());
+            hasCachedMedia.postValue(false);
             return;
         }
         executorService.execute(() -> {
             try {
-                List<MediaItem> cachedMedia = getCachedMediaUseCase.execute();
-                if (!executorService.isShutdown()) {
-                    executorService.execute(() -> {
-                        if (cachedMedia != null && !cachedMedia.isEmpty()) {
-                            mediaItems.postValue(cachedMedia);
-                            CustomLogger.d(TAG, "Found " + cachedMedia.size() + " cached media items");
-                        } else {
-                            CustomLogger.w(TAG, "No cached media found");
-                            mediaItems.postValue(new ArrayList<>());
-                        }
-                    });
-                }
+                boolean available = getCachedMediaUseCase.hasCachedMedia();
+                CustomLogger.d(TAG, available ? "Found cached media" : "No cached media found");
+                hasCachedMedia.postValue(available);
             } catch (Exception e) {
-                CustomLogger.e(TAG, "Error loading cached media: " + e.getMessage(), e);
-                if (!executorService.isShutdown()) {
-                    CustomLogger.d(TAG, "Clearing cached media");
-                    executorService.execute(() -> mediaItems.postValue(new ArrayList<>()));
-                }
+                CustomLogger.e(TAG, "Error checking cached media: " + e.getMessage(), e);
+                hasCachedMedia.postValue(false);
             }
         });
     }
@@ -198,6 +204,7 @@ public class MainViewmodel extends ViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
+        cachedMediaCount.removeObserver(cachedMediaObserver);
         disconnectWebSocket();
         if (networkCallback != null) {
             ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
@@ -0,0 +1,84 @@
+package com.example.caesartv.presentation.player;
+
+import com.example.caesartv.data.device.DeviceCapabilities;
+import com.example.caesartv.domain.model.VideoMetadata;
+
+import java.util.Locale;
+
+// Hands out hardware decodes to the video zones of one layout. A box's decode throughput is
+// taken as pixels per second at the largest size it decodes, at the frame rate it sustains
+// there; each zone uses its share of that, and the shares of all codecs add up since they
+// run on the same video block. The codec's instance limit caps the count on top. Zones that
+// do not fit are downgraded when the entry is compiled, instead of failing codec init
+// mid-transition. One budget per compiled entry; not thread-safe.
+final class DecoderBudget {
+
+    private static final int MAX_CONCURRENT_DECODES = 4; // Many boxes report a generic 16 or 32 instances
+    // Files not inspected yet are assumed to be the common rendition
+    private static final int DEFAULT_WIDTH = 1920;
+    private static final int DEFAULT_HEIGHT = 1080;
+    private static final float DEFAULT_FRAME_RATE = 30f;
+
+    private final DeviceCapabilities capabilities;
+    private int decodes;
+    private double load; // Sum of the granted zones' shares of decoder throughput
+
+    DecoderBudget(DeviceCapabilities capabilities) {
+        this.capabilities = capabilities;
+    }
+
+    // Grants a decode for the video if it still fits; null when granted, otherwise the reason
+    String reserve(VideoMetadata metadata) {
+        String mime = metadata != null ? DeviceCapabilities.mimeForCodec(metadata.getCodec()) : null;
+        if (mime == null || capabilities.getMaxHeight(mime) == 0) {
+            mime = DeviceCapabilities.MIME_AVC; // Judge unknown codecs against the baseline decoder
+        }
+        int maxDecodes = maxDecodes(capabilities, mime);
+        if (decodes >= maxDecodes) {
+            return decodes + " decodes already running, limit " + maxDecodes;
+        }
+        double share = shareOf(mime, metadata);
+        if (decodes > 0 && load + share > 1.0) {
+            // The first zone always gets its decoder; whether it can play at all is the decodability check's call
+            return String.format(Locale.US, "needs %.0f%% of decoder throughput, %.0f%% left", share * 100, (1.0 - load) * 100);
+        }
+        decodes++;
+        load += share;
+        return null;
+    }
+
+    // Most decodes a layout of this codec is granted. The instance limit can only lower it
+    static int maxDecodes(DeviceCapabilities capabilities, String mime) {
+        int instances = capabilities.getMaxInstances(mime);
+        return instances > 0 ? Math.min(instances, MAX_CONCURRENT_DECODES) : MAX_CONCURRENT_DECODES;
+    }
+
+    // Most decodes any layout is granted on this box; the player pool is capped at the same
+    // number, so every zone granted here also gets a player
+    static int maxDecodes(DeviceCapabilities capabilities) {
+        int max = maxDecodes(capabilities, DeviceCapabilities.MIME_AVC);
+        for (String mime : new String[]{DeviceCapabilities.MIME_HEVC, DeviceCapabilities.MIME_VP9, DeviceCapabilities.MIME_AV1}) {
+            if (capabilities.getMaxHeight(mime) > 0) {
+                max = Math.max(max, maxDecodes(capabilities, mime)); // Unprobed codecs are judged as AVC
+            }
+        }
+        return max;
+    }
+
+    private double shareOf(String mime, VideoMetadata metadata) {
+        double capacity = (double) capabilities.getMaxWidth(mime) * capabilities.getMaxHeight(mime)
+                * Math.max(1, capabilities.getMaxFrameRate(mime));
+        if (capacity <= 0) {
+            return 0; // Not probed on this box; only the instance limit applies
+        }
+        int width = metadata != null && metadata.getWidth() > 0 ? metadata.getWidth() : DEFAULT_WIDTH;
+        int height = metadata != null && metadata.getHeight() > 0 ? metadata.getHeight() : DEFAULT_HEIGHT;
+        float frameRate = metadata != null && metadata.getFrameRate() > 0 ? metadata.getFrameRate() : DEFAULT_FRAME_RATE;
+        return (double) width * height * frameRate / capacity;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%d decodes, %.0f%% of decoder throughput", decodes, load * 100);
+    }
+}
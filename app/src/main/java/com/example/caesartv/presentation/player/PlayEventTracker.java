@@ -0,0 +1,61 @@
+package com.example.caesartv.presentation.player;
+
+import com.example.caesartv.data.local.PlayEventLog;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Tracks what each zone is showing and hands a play event to the log when it stops.
+// Main thread only.
+class PlayEventTracker {
+
+    static final String OUTCOME_COMPLETED = "completed";
+    static final String OUTCOME_ERROR = "error";
+    static final String OUTCOME_INTERRUPTED = "interrupted";
+
+    private static class ZonePlay {
+        final String itemId;
+        final String assetId;
+        final String kind;
+        final long startedAt;
+
+        ZonePlay(String itemId, String assetId, String kind, long startedAt) {
+            this.itemId = itemId;
+            this.assetId = assetId;
+            this.kind = kind;
+            this.startedAt = startedAt;
+        }
+    }
+
+    private final PlayEventLog log;
+    private final Map<String, ZonePlay> open = new HashMap<>();
+
+    PlayEventTracker(PlayEventLog log) {
+        this.log = log;
+    }
+
+    void begin(String zone, String itemId, String assetId, String kind) {
+        // A zone reused before it reported an end was cut short
+        end(zone, OUTCOME_INTERRUPTED);
+        open.put(zone, new ZonePlay(itemId, assetId, kind, System.currentTimeMillis()));
+    }
+
+    void end(String zone, String outcome) {
+        ZonePlay play = open.remove(zone);
+        if (play != null) {
+            log.record(play.itemId, play.assetId, zone, play.kind, play.startedAt, System.currentTimeMillis(), outcome);
+        }
+    }
+
+    // Images and posters have no end of their own: they count as completed when the item changes
+    void endAll() {
+        for (String zone : open.keySet().toArray(new String[0])) {
+            ZonePlay play = open.get(zone);
+            end(zone, "image".equals(play.kind) || "poster".equals(play.kind) ? OUTCOME_COMPLETED : OUTCOME_INTERRUPTED);
+        }
+    }
+
+    void flush() {
+        log.flush();
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.caesartv.presentation.player;
+
+import com.example.caesartv.data.device.DeviceCapabilities;
+import com.example.caesartv.domain.model.MediaItem;
+import com.example.caesartv.domain.model.MediaUrl;
+import com.example.caesartv.domain.model.VideoMetadata;
+import com.example.caesartv.domain.model.ZoneLayout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// A playlist item compiled off the main thread into everything a transition needs: the
+// layout, each zone's typed content and its sources in fallback order, with decodability
+// and connectivity already decided. Playing one is then a walk over the zones with no
+// string matching, probes or I/O. Immutable.
+final class PlaybackEntry {
+
+    enum Layout {
+        FULL,
+        SPLIT,
+        SKIP // Nothing in the item can play here
+    }
+
+    enum ZoneKind {
+        VIDEO,
+        IMAGE,
+        POSTER // Video zone over the decoder budget, shown as a frame of its local file
+    }
+
+    static final class Zone {
+        final String name; // Slot name: Full, Left / Right, Main / Side / Ticker, ...
+        final ZoneLayout.Slot slot;
+        final ZoneKind kind;
+        final String assetId;
+        final String[] sources; // Local file first, then the origin URL; empty when nothing can play
+        final VideoMetadata metadata;
+        final String skipReason; // Why sources is empty, or why a video zone was downgraded
+
+        Zone(ZoneLayout.Slot slot, ZoneKind kind, String assetId, String[] sources, VideoMetadata metadata, String skipReason) {
+            this.name = slot.name;
+            this.slot = slot;
+            this.kind = kind;
+            this.assetId = assetId;
+            this.sources = sources;
+            this.metadata = metadata;
+            this.skipReason = skipReason;
+        }
+
+        @Override
+        public String toString() {
+            return name + " " + kind + " " + Arrays.toString(sources) + (skipReason != null ? " (" + skipReason + ")" : "");
+        }
+    }
+
+    private static final String[] NO_SOURCES = new String[0];
+    static final long IMAGE_DISPLAY_MS = 3000;
+    private static final long DEFAULT_POSTER_MS = IMAGE_DISPLAY_MS; // When the video length is unknown
+
+    final MediaItem media;
+    final Layout layout;
+    final Zone[] zones;
+    final String skipReason;
+
+    private PlaybackEntry(MediaItem media, Layout layout, Zone[] zones, String skipReason) {
+        this.media = media;
+        this.layout = layout;
+        this.zones = zones;
+        this.skipReason = skipReason;
+    }
+
+    // Runs on a background thread
+    static PlaybackEntry compile(MediaItem media, DeviceCapabilities capabilities, boolean online) {
+        if ("SINGLE".equals(media.getMediaType())) {
+            String local = isLocalFile(media) ? media.getLocalFilePath() : null;
+            String remote = media.getRemoteUrl() != null ? media.getRemoteUrl() : (local == null ? media.getUrl() : null);
+            Zone zone = videoZone(ZoneLayout.FULL, media.getId(), local, remote, media.getVideoMetadata(), capabilities, online);
+            if (zone.sources.length == 0) {
+                return skip(media, zone.skipReason);
+            }
+            return new PlaybackEntry(media, Layout.FULL, new Zone[]{zone}, null);
+        }
+        if ("MULTIPLE".equals(media.getMediaType())) {
+            List<MediaUrl> urls = media.getMultipleUrl();
+            if (urls == null || urls.size() < 2) {
+                return skip(media, "MULTIPLE media requires at least 2 URLs, found: " + (urls == null ? 0 : urls.size()));
+            }
+            ZoneLayout.Slot[] slots = ZoneLayout.forCount(urls.size());
+            DecoderBudget budget = new DecoderBudget(capabilities);
+            Zone[] zones = new Zone[slots.length];
+            // Slots come largest first, so the main zones claim decoders before the small ones
+            for (int i = 0; i < zones.length; i++) {
+                MediaUrl url = urls.get(i);
+                if ("video".equals(url.getUrlType())) {
+                    zones[i] = videoZone(slots[i], url.getId(), url.getLocalFilePath(), url.getUrl(),
+                            url.getVideoMetadata(), capabilities, online);
+                    if (zones[i].sources.length > 0) {
+                        String overBudget = budget.reserve(url.getVideoMetadata());
+                        if (overBudget != null) {
+                            zones[i] = posterZone(zones[i], url.getLocalFilePath(), overBudget);
+                        }
+                    }
+                } else {
+                    String path = url.getLocalFilePath() != null ? url.getLocalFilePath() : url.getUrl();
+                    zones[i] = new Zone(slots[i], ZoneKind.IMAGE, url.getId(),
+                            path != null ? new String[]{path} : NO_SOURCES, null, path == null ? "no image path" : null);
+                }
+            }
+            return new PlaybackEntry(media, Layout.SPLIT, zones, null);
+        }
+        return skip(media, "Unknown media type: " + media.getMediaType());
+    }
+
+    private static Zone videoZone(ZoneLayout.Slot slot, String assetId, String local, String remote, VideoMetadata metadata,
+                                  DeviceCapabilities capabilities, boolean online) {
+        if (!isDecodable(metadata, capabilities)) {
+            return new Zone(slot, ZoneKind.VIDEO, assetId, NO_SOURCES, metadata, "decoder cannot play " + metadata);
+        }
+        List<String> sources = new ArrayList<>(2);
+        if (local != null) {
+            sources.add(local);
+        }
+        if (online && remote != null && !remote.equals(local)) {
+            sources.add(remote);
+        }
+        String skipReason = sources.isEmpty() ? (online ? "no video source" : "no local file and offline") : null;
+        return new Zone(slot, ZoneKind.VIDEO, assetId, sources.toArray(new String[0]), metadata, skipReason);
+    }
+
+    // A frame of the local file stands in for the video; a zone that could only stream gets nothing
+    private static Zone posterZone(Zone video, String local, String overBudget) {
+        boolean hasLocal = local != null && local.startsWith("/");
+        return new Zone(video.slot, ZoneKind.POSTER, video.assetId, hasLocal ? new String[]{local} : NO_SOURCES,
+                video.metadata, (hasLocal ? "poster, " : "") + "over decoder budget: " + overBudget);
+    }
+
+    // The repository points the URL at the local file when it existed at load time
+    private static boolean isLocalFile(MediaItem media) {
+        String localFilePath = media.getLocalFilePath();
+        return localFilePath != null && localFilePath.startsWith("/") && localFilePath.equals(media.getUrl());
+    }
+
+    // Routing from the metadata extracted at ingest. Files not inspected yet, and codecs
+    // outside the probed set, are tried; decoder errors still fall through the source chain.
+    private static boolean isDecodable(VideoMetadata metadata, DeviceCapabilities capabilities) {
+        if (metadata == null) {
+            return true;
+        }
+        String mime = DeviceCapabilities.mimeForCodec(metadata.getCodec());
+        if (!DeviceCapabilities.isProbed(mime)) {
+            return true;
+        }
+        return capabilities.canDecode(mime, metadata.getWidth(), metadata.getHeight(), metadata.getFrameRate());
+    }
+
+    private static PlaybackEntry skip(MediaItem media, String reason) {
+        return new PlaybackEntry(media, Layout.SKIP, new Zone[0], reason);
+    }
+
+    // How long a poster zone holds before it counts as completed
+    static long posterDurationMs(Zone zone) {
+        return zone.metadata != null && zone.metadata.getDurationMs() > 0 ? zone.metadata.getDurationMs() : DEFAULT_POSTER_MS;
+    }
+
+    // How long the slowest zone takes to play out. Video zones not inspected yet count as the
+    // item's scheduled duration.
+    long playOutMs() {
+        long longest = 0;
+        for (Zone zone : zones) {
+            long zoneMs;
+            if (zone.kind == ZoneKind.IMAGE) {
+                zoneMs = IMAGE_DISPLAY_MS;
+            } else if (zone.kind == ZoneKind.POSTER) {
+                zoneMs = posterDurationMs(zone);
+            } else {
+                zoneMs = zone.metadata != null && zone.metadata.getDurationMs() > 0
+                        ? zone.metadata.getDurationMs() : media.getDuration() * 1000L;
+            }
+            longest = Math.max(longest, zoneMs);
+        }
+        return longest;
+    }
+
+    // The layout template the zones fill, in zone order
+    ZoneLayout.Slot[] slots() {
+        ZoneLayout.Slot[] slots = new ZoneLayout.Slot[zones.length];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = zones[i].slot;
+        }
+        return slots;
+    }
+
+    // Zones whose end the item waits for: every video and poster zone, with images holding
+    // on screen until then. A layout of images alone ends once each image has had its time.
+    List<String> endingZones() {
+        List<String> ending = new ArrayList<>(zones.length);
+        for (Zone zone : zones) {
+            if (zone.kind != ZoneKind.IMAGE) {
+                ending.add(zone.name);
+            }
+        }
+        if (ending.isEmpty()) {
+            for (Zone zone : zones) {
+                ending.add(zone.name);
+            }
+        }
+        return ending;
+    }
+
+    // Source the Full zone starts from, for queueing and pre-buffering; null unless FULL
+    String fullSource() {
+        return layout == Layout.FULL ? zones[0].sources[0] : null;
+    }
+
+    @Override
+    public String toString() {
+        return media.getTitle() + " " + layout + (skipReason != null ? " (" + skipReason + ")" : " " + Arrays.toString(zones));
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.caesartv.presentation.player;
+
+import android.os.Handler;
+
+import androidx.media3.common.PlaybackParameters;
+import androidx.media3.common.Player;
+import androidx.media3.exoplayer.ExoPlayer;
+
+import com.example.caesartv.CustomLogger;
+import com.example.caesartv.data.sync.SyncGroup;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Puts the video zones of an item on one timeline, and in a sync group the same item on
+// every screen of the group: the item starts at a time on the group clock, picked far
+// enough ahead for every zone to prepare, and from then on each player is steered onto
+// (now - start) by nudging its speed a few percent, or by a seek when it is far off.
+// In a group the leader announces the start and followers adopt it; a follower that hears
+// nothing, or is not synced to the leader yet, runs the item on its own clock. Main thread only.
+class PlaybackSync {
+
+    private static final String TAG = "PlaybackSync";
+    static final long TICK_MS = 100;
+    static final long START_DELAY_US = 400_000; // Zones of one screen
+    private static final long GROUP_START_DELAY_US = 1_500_000; // Covers the announcement's trip and a cold prepare
+    private static final long FOLLOWER_WAIT_US = 3_000_000;
+    static final long DEADBAND_MS = 8; // Half a frame at 60fps
+    private static final long SEEK_THRESHOLD_MS = 500;
+    private static final long CORRECTION_WINDOW_MS = 2000; // An error is worked off over about this long
+    private static final float MAX_NUDGE = 0.05f;
+
+    private static class Tracked {
+        final ExoPlayer player;
+        float speed = 1f;
+        int samples;
+        long absErrorTotalMs;
+        long maxAbsErrorMs;
+        int seeks;
+
+        Tracked(ExoPlayer player) {
+            this.player = player;
+        }
+    }
+
+    private final SyncGroup group;
+    private final Handler handler;
+    private final Map<String, Tracked> tracked = new HashMap<>(); // zone -> player on the timeline
+    private String itemId;
+    private long startUs; // On the group clock; Long.MIN_VALUE while a follower waits for the leader
+    private long waitUntilUs;
+    private boolean onGroupClock; // Whether startUs was taken while synced to the leader
+    private final Runnable tick = this::tick;
+
+    PlaybackSync(SyncGroup group, Handler handler) {
+        this.group = group;
+        this.handler = handler;
+    }
+
+    // Needed for split items with more than one video, and for everything in a sync group
+    boolean wanted(PlaybackEntry entry) {
+        if (group.isActive()) {
+            return true;
+        }
+        int videos = 0;
+        for (PlaybackEntry.Zone zone : entry.zones) {
+            if (zone.kind == PlaybackEntry.ZoneKind.VIDEO && zone.sources.length > 0) {
+                videos++;
+            }
+        }
+        return videos > 1;
+    }
+
+    // A cold start: players are held until the scheduled start
+    void begin(String itemId) {
+        end();
+        this.itemId = itemId;
+        onGroupClock = group.isSynced();
+        long nowUs = group.nowUs();
+        if (onGroupClock && !group.isLeader()) {
+            startUs = Long.MIN_VALUE;
+            waitUntilUs = nowUs + FOLLOWER_WAIT_US;
+            adoptAnnouncement();
+        } else {
+            startUs = nowUs + (group.isActive() ? GROUP_START_DELAY_US : START_DELAY_US);
+            group.announceStart(itemId, startUs, true);
+        }
+        handler.post(tick);
+    }
+
+    // The item is already playing, e.g. after a playlist advance: its timeline is taken from
+    // the player unless the leader says otherwise
+    void adopt(String itemId, long positionMs) {
+        end();
+        this.itemId = itemId;
+        onGroupClock = group.isSynced();
+        startUs = group.nowUs() - positionMs * 1000;
+        if (onGroupClock && !group.isLeader()) {
+            adoptAnnouncement();
+        } else {
+            group.announceStart(itemId, startUs, true);
+        }
+        handler.post(tick);
+    }
+
+    void track(String zone, ExoPlayer player) {
+        if (itemId == null) {
+            return;
+        }
+        tracked.put(zone, new Tracked(player));
+        if (startUs == Long.MIN_VALUE || group.nowUs() < startUs) {
+            player.setPlayWhenReady(false); // Prepares and buffers, starts on the tick
+        }
+    }
+
+    void untrack(String zone) {
+        Tracked play = tracked.remove(zone);
+        if (play == null) {
+            return;
+        }
+        if (play.speed != 1f) {
+            play.player.setPlaybackParameters(PlaybackParameters.DEFAULT);
+        }
+        // Drift metric: how far this zone was from the shared timeline while it played
+        CustomLogger.d(TAG, zone + " on " + itemId + ": drift average "
+                + (play.samples > 0 ? play.absErrorTotalMs / play.samples : 0) + "ms, max " + play.maxAbsErrorMs
+                + "ms over " + play.samples + " samples, " + play.seeks + " seeks"
+                + (onGroupClock ? String.format(Locale.US, ", clock offset error <= %.1fms", group.offsetErrorBoundUs() / 1000.0) : ""));
+    }
+
+    void end() {
+        handler.removeCallbacks(tick);
+        for (String zone : tracked.keySet().toArray(new String[0])) {
+            untrack(zone);
+        }
+        if (itemId != null) {
+            group.finishPlay(itemId); // A loop back to the item is a new play with a new start
+        }
+        itemId = null;
+    }
+
+    private void adoptAnnouncement() {
+        Long announced = group.announcedStartUs(itemId);
+        if (announced != null && announced != startUs) {
+            CustomLogger.d(TAG, startUs == Long.MIN_VALUE
+                    ? "Following leader's start of " + itemId + " at " + announced + "us"
+                    : "Leader moved start of " + itemId + " by " + ((announced - startUs) / 1000) + "ms");
+            startUs = announced;
+        }
+    }
+
+    private void tick() {
+        if (itemId == null) {
+            return;
+        }
+        if (onGroupClock != group.isSynced()) {
+            rebase();
+        }
+        long nowUs = group.nowUs();
+        if (startUs == Long.MIN_VALUE || (onGroupClock && !group.isLeader())) {
+            // The leader may announce, or re-announce after its own rebase, at any time
+            adoptAnnouncement();
+            if (startUs == Long.MIN_VALUE && nowUs >= waitUntilUs) {
+                CustomLogger.w(TAG, "No start announced for " + itemId + ", starting it on this screen's own schedule");
+                startUs = nowUs;
+            }
+        }
+        if (startUs != Long.MIN_VALUE) {
+            long targetMs = (nowUs - startUs) / 1000;
+            for (Map.Entry<String, Tracked> entry : tracked.entrySet()) {
+                steer(entry.getKey(), entry.getValue(), targetMs);
+            }
+        }
+        long delayMs = TICK_MS;
+        if (startUs != Long.MIN_VALUE && startUs > nowUs) {
+            delayMs = Math.max(1, Math.min(TICK_MS, (startUs - nowUs) / 1000)); // Land on the start itself
+        }
+        handler.postDelayed(tick, delayMs);
+    }
+
+    private void steer(String zone, Tracked play, long targetMs) {
+        ExoPlayer player = play.player;
+        int state = player.getPlaybackState();
+        if (state == Player.STATE_IDLE || state == Player.STATE_ENDED) {
+            return;
+        }
+        if (targetMs < 0) {
+            player.setPlayWhenReady(false);
+            return;
+        }
+        if (!player.getPlayWhenReady()) {
+            // Late zones join where the timeline is instead of starting from the top
+            if (targetMs > SEEK_THRESHOLD_MS) {
+                player.seekTo(targetMs);
+                play.seeks++;
+            }
+            player.setPlayWhenReady(true);
+            return;
+        }
+        if (state != Player.STATE_READY) {
+            return; // Buffering; the position says nothing about drift
+        }
+        long errorMs = player.getCurrentPosition() - targetMs;
+        long absErrorMs = Math.abs(errorMs);
+        play.samples++;
+        play.absErrorTotalMs += absErrorMs;
+        play.maxAbsErrorMs = Math.max(play.maxAbsErrorMs, absErrorMs);
+        if (absErrorMs > SEEK_THRESHOLD_MS) {
+            CustomLogger.d(TAG, zone + " is " + errorMs + "ms off the timeline, seeking");
+            player.seekTo(targetMs);
+            play.seeks++;
+            setSpeed(play, 1f);
+            return;
+        }
+        float speed = 1f;
+        if (absErrorMs > DEADBAND_MS) {
+            // Ahead plays slower, behind plays faster
+            speed = 1f - Math.max(-MAX_NUDGE, Math.min(MAX_NUDGE, errorMs / (float) CORRECTION_WINDOW_MS));
+        }
+        setSpeed(play, speed);
+    }
+
+    private static void setSpeed(Tracked play, float speed) {
+        if (Math.abs(play.speed - speed) < 0.001f) {
+            return;
+        }
+        play.speed = speed;
+        play.player.setPlaybackParameters(new PlaybackParameters(speed));
+    }
+
+    // The clock switched between local and group time mid-item: keep the zones where they are
+    private void rebase() {
+        onGroupClock = group.isSynced();
+        long nowUs = group.nowUs();
+        boolean following = onGroupClock && !group.isLeader();
+        boolean playing = false;
+        for (Tracked play : tracked.values()) {
+            if (play.player.getPlaybackState() == Player.STATE_READY && play.player.getPlayWhenReady()) {
+                startUs = nowUs - play.player.getCurrentPosition() * 1000;
+                playing = true;
+                break;
+            }
+        }
+        if (!playing) {
+            // Nothing started yet, so the schedule is simply taken again on the new clock
+            startUs = following ? Long.MIN_VALUE : nowUs + START_DELAY_US;
+            waitUntilUs = nowUs + FOLLOWER_WAIT_US;
+        }
+        if (!following) {
+            group.announceStart(itemId, startUs, false);
+        }
+        CustomLogger.d(TAG, "Timeline of " + itemId + " moved to the " + (onGroupClock ? "group" : "local") + " clock");
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.caesartv.presentation.player;
+
+import android.content.Context;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import androidx.annotation.OptIn;
+import androidx.media3.common.Player;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.DefaultLoadControl;
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.upstream.BandwidthMeter;
+import androidx.media3.exoplayer.upstream.DefaultBandwidthMeter;
+
+import com.example.caesartv.CustomLogger;
+import com.example.caesartv.data.device.BufferProfiles.BufferProfile;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Creates ExoPlayers on demand instead of one per zone up front. All players share one
+// bandwidth meter and one playback thread; the media cache is already process-wide.
+// Stopped players are parked for reuse and each is released once it has been idle for a while.
+// Buffer sizes are fixed when a player is built, so a parked player is only reused for the
+// same buffer profile. Players handed out count against the decoder cap until they are
+// recycled; acquire refuses past it. Main thread only.
+@OptIn(markerClass = UnstableApi.class)
+class PlayerPool {
+
+    private static final String TAG = "PlayerPool";
+    static final long IDLE_RELEASE_MS = 60000;
+    private static final int MAX_IDLE_PLAYERS = 2;
+
+    private final Context context;
+    private final int maxDecoders;
+    private final BandwidthMeter bandwidthMeter;
+    private final HandlerThread playbackThread;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<ExoPlayer> players = new ArrayList<>(); // Every live player, in use or idle
+    private final List<ExoPlayer> idle = new ArrayList<>();
+    private final Map<ExoPlayer, BufferProfile> profiles = new HashMap<>();
+    private final Map<ExoPlayer, Long> idleSince = new HashMap<>(); // Uptime at which each parked player was recycled
+    private final Runnable idleReleaser = this::releaseIdle;
+    private boolean releaserPosted;
+
+    PlayerPool(Context context, int maxDecoders) {
+        this.context = context.getApplicationContext();
+        this.maxDecoders = maxDecoders;
+        this.bandwidthMeter = DefaultBandwidthMeter.getSingletonInstance(this.context);
+        this.playbackThread = new HandlerThread("PlayerPool:Playback", Process.THREAD_PRIORITY_AUDIO);
+        playbackThread.start();
+    }
+
+    // Null when every decoder is taken by a player in use
+    ExoPlayer acquire(BufferProfile profile) {
+        if (!hasDecoderBudget()) {
+            CustomLogger.w(TAG, "Refusing player for " + profile.name + ": " + inUse() + "/" + maxDecoders + " decoders in use");
+            return null;
+        }
+        for (int i = idle.size() - 1; i >= 0; i--) {
+            ExoPlayer player = idle.get(i);
+            if (profile.equals(profiles.get(player))) {
+                idle.remove(i);
+                idleSince.remove(player);
+                CustomLogger.d(TAG, "Reusing idle player for " + profile.name + ", " + players.size() + " live");
+                return player;
+            }
+        }
+        if (idle.size() >= MAX_IDLE_PLAYERS) {
+            release(idle.remove(0)); // Parked for other scenarios; bounds the pool when profiles alternate
+        }
+        ExoPlayer player = new ExoPlayer.Builder(context)
+                .setBandwidthMeter(bandwidthMeter)
+                .setLoadControl(buildLoadControl(profile))
+                .setPlaybackLooper(playbackThread.getLooper())
+                .build();
+        players.add(player);
+        profiles.put(player, profile);
+        logMemory("created player for " + profile);
+        return player;
+    }
+
+    BufferProfile profileOf(ExoPlayer player) {
+        return profiles.get(player);
+    }
+
+    private static DefaultLoadControl buildLoadControl(BufferProfile profile) {
+        return new DefaultLoadControl.Builder()
+                .setBufferDurationsMs(profile.minBufferMs, profile.maxBufferMs,
+                        profile.bufferForPlaybackMs, profile.bufferForPlaybackAfterRebufferMs)
+                .setTargetBufferBytes(profile.targetBufferBytes)
+                .setPrioritizeTimeOverSizeThresholds(profile.prioritizeTimeOverSize)
+                .build();
+    }
+
+    // The caller removes its own listeners and detaches the player from its view first
+    void recycle(ExoPlayer player) {
+        if (player == null || !players.contains(player) || idle.contains(player)) {
+            return;
+        }
+        player.stop();
+        player.clearMediaItems();
+        idle.add(player);
+        idleSince.put(player, SystemClock.uptimeMillis());
+        // A releaser already posted is due for an older player and reschedules for the rest
+        if (!releaserPosted) {
+            scheduleRelease(IDLE_RELEASE_MS);
+        }
+    }
+
+    private void scheduleRelease(long delayMs) {
+        releaserPosted = true;
+        mainHandler.postDelayed(idleReleaser, delayMs);
+    }
+
+    // Players past IDLE hold a codec (or are about to)
+    int activeDecoders() {
+        int count = 0;
+        for (ExoPlayer player : players) {
+            if (player.getPlaybackState() != Player.STATE_IDLE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Parked players are stopped and hold no codec; a player in use may be prepared at any time
+    int inUse() {
+        return players.size() - idle.size();
+    }
+
+    boolean hasDecoderBudget() {
+        return inUse() < maxDecoders;
+    }
+
+    // Releases only the players parked for IDLE_RELEASE_MS, then waits for the next one to get there
+    private void releaseIdle() {
+        releaserPosted = false;
+        long now = SystemClock.uptimeMillis();
+        long nextDueMs = Long.MAX_VALUE;
+        int released = 0;
+        for (int i = idle.size() - 1; i >= 0; i--) {
+            ExoPlayer player = idle.get(i);
+            long dueMs = idleSince.get(player) + IDLE_RELEASE_MS;
+            if (dueMs <= now) {
+                idle.remove(i);
+                release(player);
+                released++;
+            } else {
+                nextDueMs = Math.min(nextDueMs, dueMs);
+            }
+        }
+        if (nextDueMs != Long.MAX_VALUE) {
+            scheduleRelease(nextDueMs - now);
+        }
+        if (released > 0) {
+            logMemory("released " + released + " idle players");
+        }
+    }
+
+    void releaseAll() {
+        mainHandler.removeCallbacks(idleReleaser);
+        releaserPosted = false;
+        for (ExoPlayer player : players) {
+            player.release();
+        }
+        players.clear();
+        idle.clear();
+        idleSince.clear();
+        profiles.clear();
+        playbackThread.quitSafely();
+        CustomLogger.d(TAG, "All players released");
+    }
+
+    private void release(ExoPlayer player) {
+        player.release();
+        players.remove(player);
+        profiles.remove(player);
+        idleSince.remove(player);
+    }
+
+    private List<String> liveProfileNames() {
+        List<String> names = new ArrayList<>();
+        for (ExoPlayer player : players) {
+            BufferProfile profile = profiles.get(player);
+            names.add(profile != null ? profile.name : "?");
+        }
+        return names;
+    }
+
+    // Memory report per player configuration: heap figures after each change in live players
+    private void logMemory(String event) {
+        Runtime runtime = Runtime.getRuntime();
+        long javaHeapKb = (runtime.totalMemory() - runtime.freeMemory()) / 1024;
+        long nativeHeapKb = Debug.getNativeHeapAllocatedSize() / 1024;
+        CustomLogger.d(TAG, "Memory after " + event + ": " + players.size() + " live players (" + idle.size() + " idle, "
+                + activeDecoders() + " decoding, " + inUse() + "/" + maxDecoders + " in use), Java heap " + javaHeapKb + "KB, native heap " + nativeHeapKb + "KB"
+                + ", profiles " + liveProfileNames());
+    }
+}
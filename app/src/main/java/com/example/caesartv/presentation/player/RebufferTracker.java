@@ -0,0 +1,96 @@
+package com.example.caesartv.presentation.player;
+
+import android.os.SystemClock;
+
+import com.example.caesartv.CustomLogger;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Counts mid-play rebuffers per zone and totals them per buffer profile, so the rebuffer
+// cost of a profile can be read next to the memory PlayerPool reports for it. Buffering
+// before the first READY is startup, not a rebuffer. Main thread only.
+class RebufferTracker {
+
+    private static final String TAG = "RebufferTracker";
+
+    private static class ZonePlay {
+        final String profile;
+        final long startedAt = SystemClock.elapsedRealtime();
+        boolean started;
+        long stallStartedAt;
+        int rebuffers;
+        long stalledMs;
+
+        ZonePlay(String profile) {
+            this.profile = profile;
+        }
+    }
+
+    private static class ProfileTotals {
+        int plays;
+        int rebuffers;
+        long stalledMs;
+        long playedMs;
+    }
+
+    private final Map<String, ZonePlay> open = new HashMap<>();
+    private final Map<String, ProfileTotals> totals = new HashMap<>();
+
+    void begin(String zone, String profile) {
+        end(zone);
+        open.put(zone, new ZonePlay(profile));
+    }
+
+    void onBuffering(String zone) {
+        ZonePlay play = open.get(zone);
+        if (play != null && play.started && play.stallStartedAt == 0) {
+            play.stallStartedAt = SystemClock.elapsedRealtime();
+            play.rebuffers++;
+        }
+    }
+
+    void onReady(String zone) {
+        ZonePlay play = open.get(zone);
+        if (play == null) {
+            return;
+        }
+        play.started = true;
+        onStallEnd(play);
+    }
+
+    void end(String zone) {
+        ZonePlay play = open.remove(zone);
+        if (play == null) {
+            return;
+        }
+        onStallEnd(play);
+        ProfileTotals profileTotals = totals.get(play.profile);
+        if (profileTotals == null) {
+            profileTotals = new ProfileTotals();
+            totals.put(play.profile, profileTotals);
+        }
+        profileTotals.plays++;
+        profileTotals.rebuffers += play.rebuffers;
+        profileTotals.stalledMs += play.stalledMs;
+        profileTotals.playedMs += SystemClock.elapsedRealtime() - play.startedAt;
+        CustomLogger.d(TAG, zone + " with " + play.profile + ": " + play.rebuffers + " rebuffers, " + play.stalledMs
+                + "ms stalled; profile totals " + profileTotals.rebuffers + " rebuffers over " + profileTotals.plays + " plays, "
+                + profileTotals.stalledMs + "ms stalled in " + (profileTotals.playedMs / 1000) + "s ("
+                + String.format(Locale.US, "%.2f", profileTotals.playedMs > 0 ? 100.0 * profileTotals.stalledMs / profileTotals.playedMs : 0.0) + "%)");
+    }
+
+    void endAll() {
+        for (String zone : open.keySet().toArray(new String[0])) {
+            end(zone);
+        }
+    }
+
+    private static void onStallEnd(ZonePlay play) {
+        if (play.stallStartedAt != 0) {
+            play.stalledMs += SystemClock.elapsedRealtime() - play.stallStartedAt;
+            play.stallStartedAt = 0;
+        }
+    }
+}
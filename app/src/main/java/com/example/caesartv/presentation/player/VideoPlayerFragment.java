@@ -1,22 +1,18 @@
 package com.example.caesartv.presentation.player;
 
-import android.content.Context;
 import android.graphics.drawable.Drawable;
-import android.media.MediaCodecInfo;
-import android.media.MediaCodecList;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
-import android.widget.LinearLayout;
 import android.widget.ProgressBar;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -28,6 +24,8 @@ import androidx.media3.common.MediaItem;
 import androidx.media3.common.Player;
 import androidx.media3.common.util.UnstableApi;
 import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.source.DefaultMediaSourceFactory;
+import androidx.media3.exoplayer.source.MediaSource;
 import androidx.media3.ui.PlayerView;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.DataSource;
@@ -36,10 +34,22 @@ import com.bumptech.glide.request.RequestListener;
 import com.bumptech.glide.request.target.Target;
 import com.example.caesartv.CustomLogger;
 import com.example.caesartv.R;
-import com.example.caesartv.domain.model.MediaUrl;
+import com.example.caesartv.data.cache.ImagePreloader;
+import com.example.caesartv.data.cache.MediaCache;
+import com.example.caesartv.data.device.BufferProfiles;
+import com.example.caesartv.data.device.BufferProfiles.BufferProfile;
+import com.example.caesartv.data.device.DeviceCapabilities;
+import com.example.caesartv.data.local.PlayEventLog;
+import com.example.caesartv.data.remote.BandwidthBudget;
+import com.example.caesartv.data.sync.SyncGroup;
+import com.example.caesartv.domain.model.ZoneLayout;
 import com.example.caesartv.presentation.main.MainActivity;
 import java.io.File;
-import java.util.List;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 
 public class VideoPlayerFragment extends Fragment {
@@ -47,22 +57,46 @@ public class VideoPlayerFragment extends Fragment {
     private static final String TAG = "VideoPlayerFragment";
     private VideoPlayerViewModel viewModel;
     private ExoPlayer playerFull;
-    private ExoPlayer playerLeft;
-    private ExoPlayer playerRight;
+    private final Map<String, ExoPlayer> zonePlayers = new HashMap<>(); // Players of the MULTIPLE zones by slot name
+    private ExoPlayer playerStandby; // Buffers the upcoming SINGLE item while the current one plays
+    private PlayerPool playerPool;
+    private BufferProfiles bufferProfiles;
+    private final RebufferTracker rebufferTracker = new RebufferTracker();
+    private PlaybackSync playbackSync;
+    private final Map<ExoPlayer, Player.Listener> playerListeners = new HashMap<>();
+    private String standbyItemId;
+    private String standbyPath;
+    private boolean runActive; // playerFull is playing a SINGLE item and can queue the next one
+    private PlaybackEntry runNextEntry; // Entry queued after the current one in playerFull
     private PlayerView playerViewFull;
-    private PlayerView playerViewLeft;
-    private PlayerView playerViewRight;
-    private ImageView imageViewLeft;
-    private ImageView imageViewRight;
-    private LinearLayout splitScreenContainer;
+    private ZoneContainer zoneContainer;
     private ProgressBar loadingSpinner;
     private String currentMediaId;
-    private boolean isRetryingMedia; // Track if retrying to allow same media ID
+    private PlaybackEntry shownEntry;
+    private final Map<String, PlaybackEntry.Zone> activeZones = new HashMap<>(); // view name -> zone on screen
+    private final Map<String, Integer> zoneSourceIndex = new HashMap<>(); // view name -> source being played
     private Consumer<Void> onVideoReadyCallback;
     private boolean isFirstPlayback = true;
     private Handler mainHandler;
-    private int multipleMediaCompletionCount = 0;
+    private final Set<String> pendingZones = new HashSet<>(); // Zones the MULTIPLE item on screen still waits for
     private boolean isHandlingMultipleMedia = false;
+    private final Map<String, String> remoteItemIds = new HashMap<>(); // view name -> item streamed through the cache
+    private static final long BUFFER_SAMPLE_INTERVAL_MS = 1000;
+    private static final long MULTIPLE_TIMEOUT_MARGIN_MS = 10000; // Startup, buffering and the sync hold on top of the content
+    private final Object itemCallbacks = new Object(); // Token of callbacks that belong to the item on screen
+    private static boolean firstMediaLogged;
+    private PlayEventTracker playEventTracker;
+    private long transitionStartedAt; // elapsedRealtime of the STATE_ENDED that advanced the playlist, 0 when idle
+    private boolean transitionPrebuffered;
+    private int transitionCount;
+    private long transitionGapTotalMs;
+    private final Runnable bufferSampler = new Runnable() {
+        @Override
+        public void run() {
+            sampleBufferHealth();
+            mainHandler.postDelayed(this, BUFFER_SAMPLE_INTERVAL_MS);
+        }
+    };
 
     public static VideoPlayerFragment newInstance(Consumer<Void> onVideoReadyCallback) {
         VideoPlayerFragment fragment = new VideoPlayerFragment();
@@ -75,11 +109,7 @@ public class VideoPlayerFragment extends Fragment {
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_video_player, container, false);
         playerViewFull = view.findViewById(R.id.video_view_full);
-        playerViewLeft = view.findViewById(R.id.video_view_left);
-        playerViewRight = view.findViewById(R.id.video_view_right);
-        imageViewLeft = view.findViewById(R.id.image_view_left);
-        imageViewRight = view.findViewById(R.id.image_view_right);
-        splitScreenContainer = view.findViewById(R.id.split_screen_container);
+        zoneContainer = view.findViewById(R.id.zone_container);
         loadingSpinner = view.findViewById(R.id.loading_spinner);
         loadingSpinner.setVisibility(View.GONE);
         CustomLogger.d(TAG, "View initialized");
@@ -90,42 +120,118 @@ public class VideoPlayerFragment extends Fragment {
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
+        playEventTracker = new PlayEventTracker(PlayEventLog.getInstance(requireContext()));
+        playbackSync = new PlaybackSync(SyncGroup.getInstance(requireContext()), mainHandler);
         initializePlayers();
         initializeViewModel();
+        mainHandler.post(bufferSampler);
+    }
+
+    // Lets background downloads back off while a remote stream is running low on buffer
+    private void sampleBufferHealth() {
+        BandwidthBudget budget = BandwidthBudget.getInstance();
+        reportBuffer(budget, playerFull, "Full");
+        for (Map.Entry<String, ExoPlayer> zone : zonePlayers.entrySet()) {
+            reportBuffer(budget, zone.getValue(), zone.getKey());
+        }
     }
 
+    private void reportBuffer(BandwidthBudget budget, ExoPlayer player, String viewName) {
+        boolean isRemote = player != null && remoteItemIds.containsKey(viewName)
+                && player.getPlaybackState() != Player.STATE_IDLE && player.getPlaybackState() != Player.STATE_ENDED;
+        budget.reportPlayerBuffer(viewName, isRemote, isRemote ? player.getTotalBufferedDuration() : 0);
+    }
+
+    // Players are created by the pool the first time a zone plays video
     @OptIn(markerClass = UnstableApi.class)
     private void initializePlayers() {
-        playerFull = new ExoPlayer.Builder(requireContext()).build();
-        playerViewFull.setPlayer(playerFull);
+        DeviceCapabilities capabilities = DeviceCapabilities.get(requireContext());
+        bufferProfiles = BufferProfiles.get(requireContext());
+        // Same limit the entries' zones are compiled against, so no granted zone is refused a player
+        playerPool = new PlayerPool(requireContext(), DecoderBudget.maxDecodes(capabilities));
         playerViewFull.setControllerAutoShow(false);
-        playerFull.addListener(createPlayerListener("Full"));
+        playerViewFull.setKeepContentOnPlayerReset(true); // Hold the last frame instead of flashing black between items
+    }
 
-        playerLeft = new ExoPlayer.Builder(requireContext()).build();
-        playerViewLeft.setPlayer(playerLeft);
-        playerViewLeft.setControllerAutoShow(false);
-        playerLeft.addListener(createPlayerListener("Left"));
+    // A zone player built for another scenario is swapped, since buffer sizes are fixed per player.
+    // Null when the pool has no decoder left for the zone.
+    private ExoPlayer obtainPlayer(String viewName, BufferProfile profile) {
+        ExoPlayer player = playerFor(viewName);
+        if (player != null && !profile.equals(playerPool.profileOf(player))) {
+            CustomLogger.d(TAG, viewName + " switching buffer profile to " + profile);
+            releaseZone(viewName);
+            player = null;
+        }
+        if (player == null) {
+            player = acquirePlayer(viewName, profile);
+            if (player == null) {
+                CustomLogger.w(TAG, "No decoder left for " + viewName);
+                return null;
+            }
+            setZonePlayer(viewName, player);
+            playerViewFor(viewName).setPlayer(player);
+        }
+        return player;
+    }
 
-        playerRight = new ExoPlayer.Builder(requireContext()).build();
-        playerViewRight.setPlayer(playerRight);
-        playerViewRight.setControllerAutoShow(false);
-        playerRight.addListener(createPlayerListener("Right"));
+    private ExoPlayer acquirePlayer(String viewName, BufferProfile profile) {
+        ExoPlayer player = playerPool.acquire(profile);
+        if (player == null) {
+            return null;
+        }
+        Player.Listener listener = createPlayerListener(viewName, player);
+        player.addListener(listener);
+        playerListeners.put(player, listener);
+        // A run of SINGLE items ends with STATE_ENDED so the ViewModel decides what follows it
+        player.setRepeatMode(Player.REPEAT_MODE_OFF);
+        return player;
     }
 
-    private Player.Listener createPlayerListener(String playerName) {
+    private void recyclePlayer(ExoPlayer player) {
+        Player.Listener listener = playerListeners.remove(player);
+        if (listener != null) {
+            player.removeListener(listener);
+        }
+        if (playerPool != null) {
+            playerPool.recycle(player);
+        }
+    }
+
+    private BufferProfile profileFor(String viewName, String path) {
+        return bufferProfiles.profileFor(!path.startsWith("/"), !"Full".equals(viewName));
+    }
+
+    // Detaches a zone's player and parks it in the pool
+    private void releaseZone(String viewName) {
+        ExoPlayer player = playerFor(viewName);
+        if (player == null) {
+            return;
+        }
+        playerViewFor(viewName).setPlayer(null);
+        setZonePlayer(viewName, null);
+        recyclePlayer(player);
+        CustomLogger.d(TAG, viewName + " player returned to pool");
+    }
+
+    private Player.Listener createPlayerListener(String playerName, ExoPlayer owner) {
         return new Player.Listener() {
             @RequiresApi(api = Build.VERSION_CODES.N)
             @Override
             public void onPlaybackStateChanged(int state) {
+                if (owner != playerFor(playerName)) {
+                    return; // Standby player buffering in the background
+                }
                 switch (state) {
                     case Player.STATE_BUFFERING:
                         CustomLogger.d(TAG, playerName + ": Buffering");
+                        rebufferTracker.onBuffering(playerName);
                         if (!isFirstPlayback) {
                             loadingSpinner.setVisibility(View.VISIBLE);
                         }
                         break;
                     case Player.STATE_READY:
                         CustomLogger.d(TAG, playerName + ": Ready to play");
+                        rebufferTracker.onReady(playerName);
                         loadingSpinner.setVisibility(View.GONE);
                         if (isFirstPlayback) {
                             isFirstPlayback = false;
@@ -139,58 +245,97 @@ public class VideoPlayerFragment extends Fragment {
                         break;
                     case Player.STATE_ENDED:
                         CustomLogger.d(TAG, playerName + ": Playback ended");
+                        playEventTracker.end(playerName, PlayEventTracker.OUTCOME_COMPLETED);
+                        rebufferTracker.end(playerName);
+                        playbackSync.untrack(playerName);
+                        String remoteItemId = remoteItemIds.remove(playerName);
+                        if (remoteItemId != null) {
+                            MediaCache.logStats(remoteItemId, "remote playback");
+                        }
                         loadingSpinner.setVisibility(View.GONE);
                         if (isHandlingMultipleMedia) {
-                            multipleMediaCompletionCount++;
-                            CustomLogger.d(TAG, playerName + ": Completion count = " + multipleMediaCompletionCount);
-                            if (multipleMediaCompletionCount >= 2 || !hasMultipleVideos()) {
-                                isHandlingMultipleMedia = false;
-                                viewModel.handleVideoEnd();
-                            }
+                            completeZone(playerName);
                         } else {
+                            transitionStartedAt = SystemClock.elapsedRealtime();
                             viewModel.handleVideoEnd();
                         }
                         break;
                 }
             }
 
+            @Override
+            public void onMediaItemTransition(@Nullable MediaItem mediaItem, int reason) {
+                if (owner == playerFull && mediaItem != null && reason == Player.MEDIA_ITEM_TRANSITION_REASON_AUTO) {
+                    onRunAdvanced(mediaItem);
+                }
+            }
+
+            @Override
+            public void onRenderedFirstFrame() {
+                if (owner == playerFor(playerName)) {
+                    logTransitionGap();
+                }
+            }
+
             @Override
             public void onPlayerError(@NonNull androidx.media3.common.PlaybackException error) {
+                if (owner == playerStandby) {
+                    CustomLogger.w(TAG, "Standby player failed to pre-buffer " + standbyItemId + ": " + error.getMessage());
+                    discardStandby();
+                    return;
+                }
+                if (owner != playerFor(playerName)) {
+                    return;
+                }
                 CustomLogger.e(TAG, playerName + ": ExoPlayer error: " + error.getMessage() + ", Error code: " + error.errorCode, error);
                 if (error.getCause() != null) {
                     CustomLogger.d(TAG, playerName + ": Error cause: " + error.getCause().getMessage());
                 }
                 loadingSpinner.setVisibility(View.GONE);
-                if (error.errorCode == androidx.media3.exoplayer.ExoPlaybackException.ERROR_CODE_DECODER_INIT_FAILED ||
-                        error.errorCode == androidx.media3.exoplayer.ExoPlaybackException.ERROR_CODE_DECODING_FAILED) {
-                    CustomLogger.w(TAG, playerName + ": Decoder error detected, attempting remote playback");
-                    isRetryingMedia = true; // Allow retry with same media ID
-                    viewModel.retryCurrentMedia();
+                playEventTracker.end(playerName, PlayEventTracker.OUTCOME_ERROR);
+                rebufferTracker.end(playerName);
+                playbackSync.untrack(playerName);
+                if (playNextSource(playerName)) {
+                    return;
+                }
+                if (isHandlingMultipleMedia) {
+                    completeZone(playerName);
                 } else {
-                    if (isHandlingMultipleMedia) {
-                        multipleMediaCompletionCount++;
-                        CustomLogger.d(TAG, playerName + ": Completion count = " + multipleMediaCompletionCount);
-                        if (multipleMediaCompletionCount >= 2 || !hasMultipleVideos()) {
-                            isHandlingMultipleMedia = false;
-                            viewModel.handleVideoEnd();
-                        }
-                    } else {
-                        viewModel.handleVideoEnd();
-                    }
+                    viewModel.handleVideoEnd();
                 }
             }
         };
     }
 
-    private boolean hasMultipleVideos() {
-        com.example.caesartv.domain.model.MediaItem media = viewModel.getCurrentMedia().getValue();
-        if (media == null || !"MULTIPLE".equals(media.getMediaType())) {
-            return false;
+    private ExoPlayer playerFor(String viewName) {
+        return "Full".equals(viewName) ? playerFull : zonePlayers.get(viewName);
+    }
+
+    private PlayerView playerViewFor(String viewName) {
+        return "Full".equals(viewName) ? playerViewFull : zoneContainer.cell(viewName).playerView;
+    }
+
+    private void setZonePlayer(String viewName, ExoPlayer player) {
+        if ("Full".equals(viewName)) {
+            playerFull = player;
+        } else if (player != null) {
+            zonePlayers.put(viewName, player);
+        } else {
+            zonePlayers.remove(viewName);
         }
-        List<MediaUrl> multipleUrls = media.getMultipleUrl();
-        return multipleUrls != null && multipleUrls.size() >= 2 &&
-                "video".equals(multipleUrls.get(0).getUrlType()) &&
-                "video".equals(multipleUrls.get(1).getUrlType());
+    }
+
+    // Transition metric: STATE_ENDED of the previous item to the first rendered frame of the next
+    private void logTransitionGap() {
+        if (transitionStartedAt == 0) {
+            return;
+        }
+        long gapMs = SystemClock.elapsedRealtime() - transitionStartedAt;
+        transitionStartedAt = 0;
+        transitionCount++;
+        transitionGapTotalMs += gapMs;
+        CustomLogger.d(TAG, "Transition gap: " + gapMs + "ms (" + (transitionPrebuffered ? "pre-buffered" : "cold prepare")
+                + "), average " + (transitionGapTotalMs / transitionCount) + "ms over " + transitionCount + " transitions");
     }
 
     private void initializeViewModel() {
@@ -200,8 +345,8 @@ public class VideoPlayerFragment extends Fragment {
         );
         viewModel = new ViewModelProvider(this, factory).get(VideoPlayerViewModel.class);
 
-        viewModel.getCurrentMedia().observe(getViewLifecycleOwner(), media -> {
-            if (media == null) {
+        viewModel.getCurrentMedia().observe(getViewLifecycleOwner(), entry -> {
+            if (entry == null) {
                 CustomLogger.w(TAG, "No media to play, closing app");
                 // Ensure players are stopped and released before closing
                 stopAllPlayers();
@@ -212,386 +357,392 @@ public class VideoPlayerFragment extends Fragment {
                 }
                 return;
             }
-            if (media.getId().equals(currentMediaId) && !isRetryingMedia) {
-                CustomLogger.d(TAG, "Ignoring duplicate media: " + media.getTitle());
+            // Redelivery of the entry already on screen; the playlist looping back onto the same
+            // item is a freshly compiled entry and plays again
+            if (entry == shownEntry) {
+                CustomLogger.d(TAG, "Ignoring duplicate media: " + entry.media.getTitle());
                 return;
             }
-            currentMediaId = media.getId();
-            isRetryingMedia = false; // Reset retry flag after processing
-            CustomLogger.d(TAG, "Processing media: " + media.getTitle() + ", Type: " + media.getMediaType());
-
+            long startNanos = SystemClock.elapsedRealtimeNanos();
+            shownEntry = entry;
+            currentMediaId = entry.media.getId();
             resetUI();
-
-            if ("SINGLE".equals(media.getMediaType())) {
-                CustomLogger.d(TAG, "Playing SINGLE media: " + media.getTitle());
-                handleSingleMedia(media);
-            } else if ("MULTIPLE".equals(media.getMediaType())) {
-                CustomLogger.d(TAG, "Playing MULTIPLE media: " + media.getTitle());
-                handleMultipleMedia(media);
-            } else {
-                CustomLogger.d(TAG, "Unknown media type: " + media.getMediaType());
-                viewModel.handleVideoEnd();
+            if (entry.layout != PlaybackEntry.Layout.SKIP && playbackSync.wanted(entry)) {
+                playbackSync.begin(entry.media.getId()); // Zones started below are held for the shared start
+            }
+            switch (entry.layout) {
+                case FULL:
+                    playFull(entry.zones[0]);
+                    break;
+                case SPLIT:
+                    playSplit(entry);
+                    break;
+                default:
+                    CustomLogger.w(TAG, "Skipping " + entry.media.getTitle() + ": " + entry.skipReason);
+                    viewModel.handleVideoEnd();
+                    break;
             }
+            // Benchmark: main-thread cost of a transition, now that routing is compiled ahead
+            CustomLogger.d(TAG, "Transition to " + entry.media.getTitle() + " (" + entry.layout + "): main-thread work "
+                    + ((SystemClock.elapsedRealtimeNanos() - startNanos) / 1000) + "us");
         });
+
+        viewModel.getUpcomingMedia().observe(getViewLifecycleOwner(), this::onUpcomingMedia);
+    }
+
+    // Consecutive SINGLE items play as one media3 playlist on playerFull: the next item is
+    // appended while the current one plays and ExoPlayer buffers across the boundary itself.
+    // Anything else goes to the standby player.
+    @OptIn(markerClass = UnstableApi.class)
+    private void onUpcomingMedia(PlaybackEntry upcoming) {
+        if (runActive && playerFull != null) {
+            int nextIndex = playerFull.getCurrentMediaItemIndex() + 1;
+            boolean queued = playerFull.getMediaItemCount() > nextIndex;
+            if (queued && upcoming != null && runNextEntry != null && upcoming.media.getId().equals(runNextEntry.media.getId())) {
+                return;
+            }
+            if (queued) {
+                playerFull.removeMediaItems(nextIndex, playerFull.getMediaItemCount());
+            }
+            runNextEntry = null;
+            String path = upcoming != null ? upcoming.fullSource() : null;
+            if (path != null && profileFor("Full", path).equals(playerPool.profileOf(playerFull))) {
+                playerFull.addMediaSource(buildSource(path, upcoming.media.getId()));
+                runNextEntry = upcoming;
+                discardStandby();
+                CustomLogger.d(TAG, "Queued next SINGLE item in Full playlist: " + upcoming.media.getTitle());
+                return;
+            }
+        }
+        prepareStandby(upcoming);
+    }
+
+    private void onRunAdvanced(MediaItem mediaItem) {
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        PlaybackEntry entry = runNextEntry;
+        runNextEntry = null;
+        if (entry == null || !entry.media.getId().equals(mediaItem.mediaId)) {
+            CustomLogger.w(TAG, "Full playlist advanced to an item that was not queued: " + mediaItem.mediaId);
+            return;
+        }
+        playEventTracker.end("Full", PlayEventTracker.OUTCOME_COMPLETED);
+        String remoteItemId = remoteItemIds.remove("Full");
+        if (remoteItemId != null) {
+            MediaCache.logStats(remoteItemId, "remote playback");
+        }
+        com.example.caesartv.domain.model.MediaItem media = entry.media;
+        if (mediaItem.localConfiguration != null && !"file".equals(mediaItem.localConfiguration.uri.getScheme())) {
+            remoteItemIds.put("Full", media.getId());
+        }
+        shownEntry = entry;
+        currentMediaId = media.getId();
+        activeZones.put("Full", entry.zones[0]);
+        zoneSourceIndex.put("Full", 0);
+        playEventTracker.begin("Full", currentMediaId, media.getId(), "video");
+        rebufferTracker.begin("Full", playerPool.profileOf(playerFull).name);
+        if (playbackSync.wanted(entry)) {
+            playbackSync.adopt(media.getId(), playerFull.getCurrentPosition());
+            playbackSync.track("Full", playerFull);
+        } else {
+            playbackSync.end();
+        }
+        playerFull.removeMediaItems(0, playerFull.getCurrentMediaItemIndex()); // Drop played items
+        viewModel.onRunAdvanced(media);
+        CustomLogger.d(TAG, "Playlist transition to " + media.getTitle() + ": callback " + playerFull.getCurrentPosition()
+                + "ms into the item, main-thread work " + ((SystemClock.elapsedRealtimeNanos() - startNanos) / 1000) + "us");
+    }
+
+    // Sets up the next SINGLE item on a standby player so the swap after STATE_ENDED skips
+    // source creation and initial buffering. Skipped when the decoder budget is in use.
+    @OptIn(markerClass = UnstableApi.class)
+    private void prepareStandby(PlaybackEntry upcoming) {
+        if (playerPool == null) {
+            return;
+        }
+        String path = upcoming != null ? upcoming.fullSource() : null;
+        if (path == null) {
+            discardStandby();
+            return;
+        }
+        if (playerStandby != null && path.equals(standbyPath) && upcoming.media.getId().equals(standbyItemId)) {
+            return;
+        }
+        discardStandby();
+        if (!playerPool.hasDecoderBudget()) {
+            CustomLogger.d(TAG, "Decoder budget in use, not pre-buffering " + upcoming.media.getTitle());
+            return;
+        }
+        playerStandby = acquirePlayer("Full", profileFor("Full", path)); // Shares the Full view's listener role until swapped in
+        if (playerStandby == null) {
+            return;
+        }
+        playerStandby.setMediaSource(buildSource(path, upcoming.media.getId()));
+        playerStandby.setPlayWhenReady(false);
+        playerStandby.prepare();
+        standbyItemId = upcoming.media.getId();
+        standbyPath = path;
+        CustomLogger.d(TAG, "Pre-buffering next item on standby player: " + upcoming.media.getTitle() + ", Path: " + path);
+    }
+
+    private void discardStandby() {
+        if (playerStandby != null) {
+            recyclePlayer(playerStandby);
+            playerStandby = null;
+        }
+        standbyItemId = null;
+        standbyPath = null;
+    }
+
+    // Promotes the standby player to the Full view if it already holds this item
+    private boolean swapInStandby(String path, String itemId) {
+        if (playerStandby == null || !path.equals(standbyPath) || !itemId.equals(standbyItemId)
+                || playerStandby.getPlaybackState() == Player.STATE_IDLE) {
+            return false;
+        }
+        ExoPlayer previous = playerFull;
+        playerFull = playerStandby;
+        playerStandby = null;
+        standbyItemId = null;
+        standbyPath = null;
+        playerViewFull.setPlayer(playerFull);
+        if (previous != null) {
+            recyclePlayer(previous);
+        }
+        playerFull.play();
+        return true;
     }
 
     private void resetUI() {
         playerViewFull.setVisibility(View.GONE);
-        splitScreenContainer.setVisibility(View.GONE);
-        playerViewLeft.setVisibility(View.GONE);
-        playerViewRight.setVisibility(View.GONE);
-        imageViewLeft.setVisibility(View.GONE);
-        imageViewRight.setVisibility(View.GONE);
+        zoneContainer.setVisibility(View.GONE);
+        for (ZoneContainer.Cell cell : zoneContainer.cells()) {
+            cell.playerView.setVisibility(View.GONE);
+            cell.imageView.setVisibility(View.GONE);
+        }
         loadingSpinner.setVisibility(View.GONE);
+        playEventTracker.endAll();
+        rebufferTracker.endAll();
+        playbackSync.end();
         stopAllPlayers();
         // Clear Glide images
-        Glide.with(this).clear(imageViewLeft);
-        Glide.with(this).clear(imageViewRight);
-        // Reset completion tracking
-        multipleMediaCompletionCount = 0;
+        for (ZoneContainer.Cell cell : zoneContainer.cells()) {
+            Glide.with(this).clear(cell.imageView);
+        }
+        // Reset completion tracking; completions and the timeout of the previous item are dropped
+        mainHandler.removeCallbacksAndMessages(itemCallbacks);
+        pendingZones.clear();
         isHandlingMultipleMedia = false;
+        runActive = false;
+        runNextEntry = null;
+        activeZones.clear();
+        zoneSourceIndex.clear();
         CustomLogger.d(TAG, "UI reset");
     }
 
-    private void handleSingleMedia(com.example.caesartv.domain.model.MediaItem media) {
+    private void playFull(PlaybackEntry.Zone zone) {
         playerViewFull.setVisibility(View.VISIBLE);
-        String localFilePath = media.getLocalFilePath() != null ? media.getLocalFilePath() : media.getUrl();
-        CustomLogger.d(TAG, "Playing SINGLE media: " + media.getTitle() + ", Path: " + localFilePath);
-
-        File file = new File(localFilePath);
-        CustomLogger.d(TAG, "File check: Path=" + localFilePath + ", Exists=" + file.exists() + ", CanRead=" + file.canRead() + ", Size=" + (file.exists() ? file.length() : 0));
-
-        if (localFilePath != null && file.exists() && file.canRead()) {
-            if (!supports4KDecoding() && isLikely4KVideo(localFilePath)) {
-                CustomLogger.w(TAG, "Device does not support 4K for SINGLE media, attempting remote playback");
-                attemptRemotePlayback(media, playerFull, playerViewFull, "Full");
-            } else {
-                try {
-                    playVideoInView(playerFull, playerViewFull, localFilePath, "Full");
-                } catch (Exception e) {
-                    CustomLogger.e(TAG, "Failed to play local SINGLE media: " + media.getTitle(), e);
-                    attemptRemotePlayback(media, playerFull, playerViewFull, "Full");
-                }
-            }
-        } else if (isNetworkAvailable() && media.getUrl() != null) {
-            CustomLogger.d(TAG, "Playing remote SINGLE media: " + media.getUrl());
-            attemptRemotePlayback(media, playerFull, playerViewFull, "Full");
-        } else {
-            CustomLogger.d(TAG, "Invalid or missing video file for SINGLE media: " + localFilePath);
+        CustomLogger.d(TAG, "Playing SINGLE media: " + zone + ", Metadata: " + zone.metadata);
+        if (!playSource(zone, 0)) {
             viewModel.handleVideoEnd();
         }
     }
 
-    private void handleMultipleMedia(com.example.caesartv.domain.model.MediaItem media) {
-        splitScreenContainer.setVisibility(View.VISIBLE);
-        List<MediaUrl> multipleUrls = media.getMultipleUrl();
-        if (multipleUrls == null || multipleUrls.size() < 2) {
-            CustomLogger.d(TAG,"MULTIPLE media requires at least 2 URLs, found: " + (multipleUrls == null ? 0 : multipleUrls.size()));
-            viewModel.handleVideoEnd();
-            return;
-        }
+    private void playSplit(PlaybackEntry entry) {
+        releaseZone("Full");
+        discardStandby(); // The decoder budget of the entry was computed for its zones alone
+        ZoneLayout.Slot[] slots = entry.slots();
+        zoneContainer.apply(slots);
+        zoneContainer.setVisibility(View.VISIBLE);
+        CustomLogger.d(TAG, "Playing MULTIPLE media in " + slots.length + " zones: " + Arrays.toString(entry.zones));
 
         // Reset completion tracking
-        multipleMediaCompletionCount = 0;
+        pendingZones.clear();
+        pendingZones.addAll(entry.endingZones());
         isHandlingMultipleMedia = true;
 
-        boolean supports4K = supports4KDecoding();
-
-        MediaUrl leftUrl = multipleUrls.get(0);
-        String leftPath = leftUrl.getLocalFilePath() != null ? leftUrl.getLocalFilePath() : leftUrl.getUrl();
-        if ("video".equals(leftUrl.getUrlType())) {
-            if (leftPath != null) {
-                File leftFile = new File(leftPath);
-                CustomLogger.d(TAG, "Left video check: Path=" + leftPath + ", Exists=" + leftFile.exists() + ", CanRead=" + leftFile.canRead() + ", Size=" + (leftFile.exists() ? leftFile.length() : 0));
-                if (leftFile.exists() && leftFile.canRead()) {
-                    if (!supports4K && isLikely4KVideo(leftPath)) {
-                        CustomLogger.w(TAG, "Device does not support 4K for Left video, attempting remote playback");
-                        attemptRemotePlayback(leftUrl, playerLeft, playerViewLeft, "Left");
-                    } else {
-                        try {
-                            CustomLogger.d(TAG, "Playing local Left video: " + leftPath);
-                            playVideoInView(playerLeft, playerViewLeft, leftPath, "Left");
-                        } catch (Exception e) {
-                            CustomLogger.e(TAG, "Failed to play local Left video: " + leftPath, e);
-                            attemptRemotePlayback(leftUrl, playerLeft, playerViewLeft, "Left");
-                        }
-                    }
-                } else if (isNetworkAvailable() && leftUrl.getUrl() != null) {
-                    CustomLogger.d(TAG, "Playing remote Left video: " + leftUrl.getUrl());
-                    attemptRemotePlayback(leftUrl, playerLeft, playerViewLeft, "Left");
-                } else {
-                    CustomLogger.d(TAG, "Invalid or missing video file for Left: " + leftPath);
-                    mainHandler.post(() -> {
-                        if (isHandlingMultipleMedia) {
-                            multipleMediaCompletionCount++;
-                            CustomLogger.d(TAG, "Left: Completion count = " + multipleMediaCompletionCount);
-                            if (multipleMediaCompletionCount >= 2 || !hasMultipleVideos()) {
-                                isHandlingMultipleMedia = false;
-                                viewModel.handleVideoEnd();
-                            }
-                        }
-                    });
-                }
-            } else {
-                CustomLogger.w(TAG, "No valid video path for Left");
-                mainHandler.post(() -> {
-                    if (isHandlingMultipleMedia) {
-                        multipleMediaCompletionCount++;
-                        CustomLogger.d(TAG, "Left: Completion count = " + multipleMediaCompletionCount);
-                        if (multipleMediaCompletionCount >= 2 || !hasMultipleVideos()) {
-                            isHandlingMultipleMedia = false;
-                            viewModel.handleVideoEnd();
-                            CustomLogger.d(TAG, "Left: Completion count = " + multipleMediaCompletionCount);
-                        }
-                    }
-                });
-            }
-        } else if ("image".equals(leftUrl.getUrlType())) {
-            loadImageInView(imageViewLeft, leftPath, "Left");
-            CustomLogger.d(TAG, "Left: Image loaded");
-        }
-
-        MediaUrl rightUrl = multipleUrls.get(1);
-        String rightPath = rightUrl.getLocalFilePath() != null ? rightUrl.getLocalFilePath() : rightUrl.getUrl();
-        if ("video".equals(rightUrl.getUrlType())) {
-            if (rightPath != null) {
-                File rightFile = new File(rightPath);
-                CustomLogger.d(TAG, "Right video check: Path=" + rightPath + ", Exists=" + rightFile.exists() + ", CanRead=" + rightFile.canRead() + ", Size=" + (rightFile.exists() ? rightFile.length() : 0));
-                if (rightFile.exists() && rightFile.canRead()) {
-                    if (!supports4K && isLikely4KVideo(rightPath)) {
-                        CustomLogger.w(TAG, "Device does not support 4K for Right video, attempting remote playback");
-                        attemptRemotePlayback(rightUrl, playerRight, playerViewRight, "Right");
-                    } else {
-                        try {
-                            CustomLogger.d(TAG, "Playing local Right video: " + rightPath);
-                            playVideoInView(playerRight, playerViewRight, rightPath, "Right");
-                        } catch (Exception e) {
-                            CustomLogger.e(TAG, "Failed to play local Right video: " + rightPath, e);
-                            attemptRemotePlayback(rightUrl, playerRight, playerViewRight, "Right");
-                        }
-                    }
-                } else if (isNetworkAvailable() && rightUrl.getUrl() != null) {
-                    CustomLogger.d(TAG, "Playing remote Right video: " + rightUrl.getUrl());
-                    attemptRemotePlayback(rightUrl, playerRight, playerViewRight, "Right");
-                } else {
-                    CustomLogger.d(TAG, "Invalid or missing video file for Right: " + rightPath);
-                    mainHandler.post(() -> {
-                        if (isHandlingMultipleMedia) {
-                            multipleMediaCompletionCount++;
-                            CustomLogger.d(TAG, "Right: Completion count = " + multipleMediaCompletionCount);
-                            if (multipleMediaCompletionCount >= 2 || !hasMultipleVideos()) {
-                                isHandlingMultipleMedia = false;
-                                viewModel.handleVideoEnd();
-                                CustomLogger.d(TAG, "Right: Completion count = " + multipleMediaCompletionCount);
-                            }
-                        }
-                    });
-                }
-            } else {
-                CustomLogger.w(TAG, "No valid video path for Right");
-                mainHandler.post(() -> {
-                    if (isHandlingMultipleMedia) {
-                        multipleMediaCompletionCount++;
-                        CustomLogger.d(TAG, "Right: Completion count = " + multipleMediaCompletionCount);
-                        if (multipleMediaCompletionCount >= 2 || !hasMultipleVideos()) {
-                            isHandlingMultipleMedia = false;
-                            viewModel.handleVideoEnd();
-                        }
-                    }
-                });
+        for (PlaybackEntry.Zone zone : entry.zones) {
+            String source = zone.sources.length > 0 ? zone.sources[0] : null;
+            if (zone.kind == PlaybackEntry.ZoneKind.IMAGE) {
+                loadImageInView(zone, source, "image", PlaybackEntry.IMAGE_DISPLAY_MS);
+                CustomLogger.d(TAG, zone.name + ": Image loaded");
+            } else if (zone.kind == PlaybackEntry.ZoneKind.POSTER && source != null) {
+                loadImageInView(zone, source, "poster", PlaybackEntry.posterDurationMs(zone));
+            } else if (zone.kind == PlaybackEntry.ZoneKind.POSTER || !playSource(zone, 0)) {
+                completeZone(zone.name);
             }
-        } else if ("image".equals(rightUrl.getUrlType())) {
-            CustomLogger.d(TAG, "Right: Image loaded");
-            loadImageInView(imageViewRight, rightPath, "Right");
         }
 
         viewModel.setStartTime(System.currentTimeMillis());
 
-        // Add timeout to prevent indefinite stall
-        mainHandler.postDelayed(() -> {
-            if (isHandlingMultipleMedia && multipleMediaCompletionCount < 2) {
-                CustomLogger.w(TAG, "Timeout reached for multiple media, forcing completion");
+        // Forces completion when a zone never reports; only after the slowest zone could have finished
+        long timeoutMs = entry.playOutMs() + MULTIPLE_TIMEOUT_MARGIN_MS;
+        postForItem(() -> {
+            if (isHandlingMultipleMedia && !pendingZones.isEmpty()) {
+                CustomLogger.w(TAG, "Timeout of " + timeoutMs + "ms reached for multiple media, forcing completion of " + pendingZones);
                 isHandlingMultipleMedia = false;
-                multipleMediaCompletionCount = 2;
+                pendingZones.clear();
                 viewModel.handleVideoEnd();
             }
-        }, 10000); // 10-second timeout
+        }, timeoutMs);
     }
 
-    private void attemptRemotePlayback(com.example.caesartv.domain.model.MediaItem media, ExoPlayer player, PlayerView playerView, String viewName) {
-        if (media.getUrl() == null) {
-            CustomLogger.d(TAG, "No remote URL available for media: " + media.getTitle() + " in " + viewName);
-            viewModel.handleVideoEnd();
-            return;
+    // Plays a video zone from the given point in its fallback chain; false once the chain is used up
+    private boolean playSource(PlaybackEntry.Zone zone, int index) {
+        activeZones.put(zone.name, zone);
+        String reason = zone.skipReason != null ? zone.skipReason : "all sources failed";
+        for (int i = index; i < zone.sources.length; i++) {
+            zoneSourceIndex.put(zone.name, i);
+            try {
+                if (playVideoInView(playerViewFor(zone.name), zone.sources[i], zone.assetId, zone.name)) {
+                    return true;
+                }
+                // The next source would need a decoder just the same
+                reason = "no decoder left";
+                break;
+            } catch (Exception e) {
+                CustomLogger.e(TAG, "Failed to play " + zone.name + " from " + zone.sources[i], e);
+            }
         }
-        CustomLogger.d(TAG, "Attempting remote playback in " + viewName + ": " + media.getUrl());
-        try {
-            playVideoInView(player, playerView, media.getUrl(), viewName);
-        } catch (Exception e) {
-            CustomLogger.e(TAG, "Failed to play remote media in " + viewName + ": " + media.getTitle(), e);
-            viewModel.handleVideoEnd();
+        CustomLogger.w(TAG, "Nothing left to play in " + zone.name + ": " + reason);
+        return false;
+    }
+
+    // After a player error: the local copy failed, so the zone moves on to the origin URL
+    private boolean playNextSource(String viewName) {
+        PlaybackEntry.Zone zone = activeZones.get(viewName);
+        Integer index = zoneSourceIndex.get(viewName);
+        if (zone == null || index == null || index + 1 >= zone.sources.length) {
+            return false;
         }
+        CustomLogger.w(TAG, viewName + ": Falling back to " + zone.sources[index + 1]);
+        runActive = false; // The failed item's queue is dropped with it
+        runNextEntry = null;
+        return playSource(zone, index + 1);
     }
 
-    private void attemptRemotePlayback(MediaUrl mediaUrl, ExoPlayer player, PlayerView playerView, String viewName) {
-        if (mediaUrl.getUrl() == null) {
-            CustomLogger.d(TAG, "No remote URL available for media URL in " + viewName);
-            if (isHandlingMultipleMedia) {
-                mainHandler.post(() -> {
-                    multipleMediaCompletionCount++;
-                    CustomLogger.d(TAG, viewName + ": Completion count = " + multipleMediaCompletionCount);
-                    if (multipleMediaCompletionCount >= 2 || !hasMultipleVideos()) {
-                        isHandlingMultipleMedia = false;
-                        viewModel.handleVideoEnd();
-                    }
-                });
-            } else {
-                CustomLogger.d(TAG, "No remote URL available for media URL in " + viewName);
-                viewModel.handleVideoEnd();
+    private ImageView imageViewFor(String viewName) {
+        return zoneContainer.cell(viewName).imageView;
+    }
+
+    // A zone of the MULTIPLE item on screen has ended, or had nothing to play. Image zones in a
+    // layout with video hold until the last video or poster zone ends the item.
+    private void completeZone(String viewName) {
+        completeZone(viewName, 0);
+    }
+
+    private void completeZone(String viewName, long delayMs) {
+        postForItem(() -> {
+            if (!isHandlingMultipleMedia || !pendingZones.remove(viewName)) {
+                return;
             }
-            return;
-        }
-        CustomLogger.d(TAG, "Attempting remote playback in " + viewName + ": " + mediaUrl.getUrl());
-        try {
-            playVideoInView(player, playerView, mediaUrl.getUrl(), viewName);
-        } catch (Exception e) {
-            CustomLogger.e(TAG, "Failed to play remote media URL in " + viewName + ": " + mediaUrl.getUrl(), e);
-            if (isHandlingMultipleMedia) {
-                mainHandler.post(() -> {
-                    multipleMediaCompletionCount++;
-                    CustomLogger.d(TAG, viewName + ": Completion count = " + multipleMediaCompletionCount);
-                    if (multipleMediaCompletionCount >= 2 || !hasMultipleVideos()) {
-                        isHandlingMultipleMedia = false;
-                        viewModel.handleVideoEnd();
-                    }
-                });
-            } else {
-                CustomLogger.d(TAG, "No remote URL available for media URL in " + viewName);
+            CustomLogger.d(TAG, viewName + ": Completed, waiting for " + pendingZones);
+            if (pendingZones.isEmpty()) {
+                isHandlingMultipleMedia = false;
+                transitionStartedAt = SystemClock.elapsedRealtime();
                 viewModel.handleVideoEnd();
             }
-        }
+        }, delayMs);
     }
 
-    private void playVideoInView(ExoPlayer player, PlayerView playerView, String path, String viewName) {
-        playerView.setVisibility(View.VISIBLE);
+    // Dropped by resetUI, so a late completion or timeout cannot end the next item
+    private void postForItem(Runnable action, long delayMs) {
+        mainHandler.postAtTime(action, itemCallbacks, SystemClock.uptimeMillis() + delayMs);
+    }
+
+    // False when the pool refused a player; the zone is left as it was
+    @OptIn(markerClass = UnstableApi.class)
+    private boolean playVideoInView(PlayerView playerView, String path, String itemId, String viewName) {
         CustomLogger.d(TAG, "Playing video in " + viewName + ": " + path);
-        Uri uri = path.startsWith("/") ? Uri.fromFile(new File(path)) : Uri.parse(path);
-        MediaItem mediaItem = MediaItem.fromUri(uri);
-        player.stop();
-        player.clearMediaItems();
-        player.setMediaItem(mediaItem);
-        player.prepare();
-        player.play();
+        transitionPrebuffered = "Full".equals(viewName) && swapInStandby(path, itemId);
+        if (transitionPrebuffered) {
+            CustomLogger.d(TAG, viewName + ": Swapped in pre-buffered player");
+        } else {
+            if (!playerPool.hasDecoderBudget()) {
+                discardStandby(); // Visible zones come before pre-buffering
+            }
+            ExoPlayer player = obtainPlayer(viewName, profileFor(viewName, path));
+            if (player == null) {
+                return false;
+            }
+            player.stop();
+            player.clearMediaItems();
+            player.setMediaSource(buildSource(path, itemId));
+            player.prepare();
+            player.play();
+        }
+        playerView.setVisibility(View.VISIBLE);
+        if (path.startsWith("/")) {
+            remoteItemIds.remove(viewName);
+        } else {
+            remoteItemIds.put(viewName, itemId);
+        }
+        playbackSync.track(viewName, playerFor(viewName));
+        runActive = "Full".equals(viewName);
+        playEventTracker.begin(viewName, currentMediaId, itemId, "video");
+        rebufferTracker.begin(viewName, playerPool.profileOf(playerFor(viewName)).name);
+        logTimeToFirstMedia();
+        return true;
     }
 
-    private void loadImageInView(ImageView imageView, String url, String viewName) {
+    // The media id carries the item id so playlist transitions can be matched back to the queue
+    @OptIn(markerClass = UnstableApi.class)
+    private MediaSource buildSource(String path, String itemId) {
+        boolean isLocal = path.startsWith("/");
+        Uri uri = isLocal ? Uri.fromFile(new File(path)) : Uri.parse(path);
+        MediaItem mediaItem = new MediaItem.Builder().setUri(uri).setMediaId(itemId).build();
+        if (isLocal) {
+            return new DefaultMediaSourceFactory(requireContext()).createMediaSource(mediaItem);
+        }
+        // Remote playback streams through the shared cache so the bytes are kept for the downloader
+        return new DefaultMediaSourceFactory(
+                MediaCache.playbackDataSourceFactory(requireContext(), itemId)).createMediaSource(mediaItem);
+    }
+
+    // Startup metric: compare cold starts from the playlist snapshot against the Room path
+    private static void logTimeToFirstMedia() {
+        if (firstMediaLogged || Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            return;
+        }
+        firstMediaLogged = true;
+        CustomLogger.d(TAG, "Time to first media item: " + (SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime()) + "ms since process start");
+    }
+
+    // Posters load a frame of a local video file, which Glide decodes like an image
+    private void loadImageInView(PlaybackEntry.Zone zone, String url, String kind, long displayMs) {
+        String viewName = zone.name;
+        ImageView imageView = imageViewFor(viewName);
         imageView.setVisibility(View.VISIBLE);
-        CustomLogger.d(TAG, "Loading image in " + viewName + ": " + url);
+        CustomLogger.d(TAG, "Loading " + kind + " in " + viewName + ": " + url);
+        transitionStartedAt = 0; // Gap is only measured into video frames
+        playEventTracker.begin(viewName, currentMediaId, zone.assetId, kind);
         try {
+            // Cached images load as files with the slot options used when they were pre-decoded
+            Object model = url != null && url.startsWith("/") ? new File(url) : url;
             Glide.with(this)
-                    .load(url)
+                    .load(model)
+                    .apply(ImagePreloader.zoneOptions(requireContext(), zone.slot))
                     .error(R.drawable.ic_error)
                     .listener(new RequestListener<Drawable>() {
                         @Override
                         public boolean onLoadFailed(@Nullable GlideException e, Object model, Target<Drawable> target, boolean isFirstResource) {
                             CustomLogger.e(TAG, "Failed to load image in " + viewName + ": " + url, e);
-                            mainHandler.post(() -> {
-                                if (isHandlingMultipleMedia) {
-                                    multipleMediaCompletionCount++;
-                                    CustomLogger.d(TAG, viewName + ": Completion count = " + multipleMediaCompletionCount);
-                                    if (multipleMediaCompletionCount >= 2 || !hasMultipleVideos()) {
-                                        isHandlingMultipleMedia = false;
-                                        viewModel.handleVideoEnd();
-                                    }
-                                } else {
-                                    viewModel.handleVideoEnd();
-                                }
-                            });
+                            postForItem(() -> playEventTracker.end(viewName, PlayEventTracker.OUTCOME_ERROR), 0);
+                            completeZone(viewName);
                             return false;
                         }
 
                         @Override
                         public boolean onResourceReady(Drawable resource, Object model, Target<Drawable> target, DataSource dataSource, boolean isFirstResource) {
                             CustomLogger.d(TAG, "Image loaded in " + viewName + ": " + url);
-                            mainHandler.postDelayed(() -> {
-                                CustomLogger.d(TAG, "Image display completed in " + viewName);
-                                if (isHandlingMultipleMedia) {
-                                    multipleMediaCompletionCount++;
-                                    CustomLogger.d(TAG, viewName + ": Completion count = " + multipleMediaCompletionCount);
-                                    if (multipleMediaCompletionCount >= 2 || !hasMultipleVideos()) {
-                                        isHandlingMultipleMedia = false;
-                                        viewModel.handleVideoEnd();
-                                    }
-                                } else {
-                                    CustomLogger.d(TAG, "Image display completed in " + viewName);
-                                    viewModel.handleVideoEnd();
-                                }
-                            }, 3000);
+                            completeZone(viewName, displayMs);
                             return false;
                         }
                     })
                     .into(imageView);
         } catch (Exception e) {
             CustomLogger.e(TAG, "Failed to load image in " + viewName + ": " + url, e);
-            mainHandler.post(() -> {
-                if (isHandlingMultipleMedia) {
-                    multipleMediaCompletionCount++;
-                    CustomLogger.d(TAG, viewName + ": Completion count = " + multipleMediaCompletionCount);
-                    if (multipleMediaCompletionCount >= 2 || !hasMultipleVideos()) {
-                        isHandlingMultipleMedia = false;
-                        viewModel.handleVideoEnd();
-                    }
-                } else {
-                    CustomLogger.d(TAG, "Image display completed in " + viewName);
-                    viewModel.handleVideoEnd();
-                }
-            });
-        }
-    }
-
-    private boolean isNetworkAvailable() {
-        ConnectivityManager cm = (ConnectivityManager) requireContext().getSystemService(Context.CONNECTIVITY_SERVICE);
-        NetworkInfo networkInfo = cm.getActiveNetworkInfo();
-        CustomLogger.d(TAG, "Network check: Available=" + (networkInfo != null && networkInfo.isConnected()));
-        return networkInfo != null && networkInfo.isConnected();
-    }
-
-    private boolean supports4KDecoding() {
-        MediaCodecList codecList = new MediaCodecList(MediaCodecList.ALL_CODECS);
-        for (MediaCodecInfo codecInfo : codecList.getCodecInfos()) {
-            if (codecInfo.isEncoder()) continue;
-            for (String type : codecInfo.getSupportedTypes()) {
-                if (type.equals("video/avc")) {
-                    MediaCodecInfo.CodecCapabilities caps = codecInfo.getCapabilitiesForType(type);
-                    if (caps.getVideoCapabilities().areSizeAndRateSupported(3840, 2160, 30)) {
-                        CustomLogger.d(TAG, "Device supports 4K H.264 decoding");
-                        return true;
-                    }
-                }
-            }
-        }
-        CustomLogger.d(TAG, "Device does not support 4K H.264 decoding");
-        return false;
-    }
-
-    private boolean isLikely4KVideo(String path) {
-        if (path == null) {
-            CustomLogger.d(TAG, "Video path is null, assuming not 4K");
-            return false;
+            completeZone(viewName);
         }
-        if (path.startsWith("http")) {
-            CustomLogger.d(TAG, "Remote URL detected, assuming 4K: " + path);
-            return true; // Assume remote URLs are 4K to force remote playback
-        }
-        File file = new File(path);
-        if (file.exists()) {
-            long size = file.length();
-            boolean isLarge = size > 50 * 1024 * 1024; // 50MB threshold
-            CustomLogger.d(TAG, "Video size check: Path=" + path + ", Size=" + size + ", Likely 4K=" + isLarge);
-            return isLarge;
-        }
-        CustomLogger.d(TAG, "Video file does not exist: " + path);
-        return false;
     }
 
     @Override
@@ -607,17 +758,16 @@ public class VideoPlayerFragment extends Fragment {
     }
 
     private void pauseAllPlayers() {
+        if (playbackSync != null) {
+            playbackSync.end(); // Otherwise the next tick would start the players again
+        }
         if (playerFull != null) {
             playerFull.pause();
             CustomLogger.d(TAG, "Full player paused");
         }
-        if (playerLeft != null) {
-            playerLeft.pause();
-            CustomLogger.d(TAG, "Left player paused");
-        }
-        if (playerRight != null) {
-            playerRight.pause();
-            CustomLogger.d(TAG, "Right player paused");
+        for (Map.Entry<String, ExoPlayer> zone : zonePlayers.entrySet()) {
+            zone.getValue().pause();
+            CustomLogger.d(TAG, zone.getKey() + " player paused");
         }
     }
 
@@ -627,44 +777,39 @@ public class VideoPlayerFragment extends Fragment {
             playerFull.clearMediaItems();
             CustomLogger.d(TAG, "Full player stopped");
         }
-        if (playerLeft != null) {
-            playerLeft.stop();
-            playerLeft.clearMediaItems();
-            CustomLogger.d(TAG, "Left player stopped");
-        }
-        if (playerRight != null) {
-            playerRight.stop();
-            playerRight.clearMediaItems();
-            CustomLogger.d(TAG, "Right player stopped");
+        // Zone players go back to the pool, so SINGLE-only playlists do not hold them
+        for (String viewName : zonePlayers.keySet().toArray(new String[0])) {
+            releaseZone(viewName);
         }
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        playEventTracker.endAll();
+        rebufferTracker.endAll();
+        playbackSync.end();
+        playEventTracker.flush();
         stopAllPlayers();
         releaseAllPlayers();
         loadingSpinner.setVisibility(View.GONE);
         mainHandler.removeCallbacksAndMessages(null);
+        BandwidthBudget.getInstance().clearPlayers();
         CustomLogger.d(TAG, "View destroyed");
     }
 
     private void releaseAllPlayers() {
-        if (playerFull != null) {
-            playerFull.release();
-            playerFull = null;
-            CustomLogger.d(TAG, "Full player released");
-        }
-        if (playerLeft != null) {
-            playerLeft.release();
-            playerLeft = null;
-            CustomLogger.d(TAG, "Left player released");
-        }
-        if (playerRight != null) {
-            playerRight.release();
-            playerRight = null;
-            CustomLogger.d(TAG, "Right player released");
+        if (playerPool != null) {
+            playerPool.releaseAll();
+            playerPool = null;
         }
+        playerFull = null;
+        zonePlayers.clear();
+        playerStandby = null;
+        standbyItemId = null;
+        standbyPath = null;
+        playerListeners.clear();
+        CustomLogger.d(TAG, "Players released");
     }
 
     @Override
@@ -3,21 +3,23 @@ package com.example.caesartv.presentation.player;
 import android.content.Context;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
+import android.os.Debug;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModel;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.example.caesartv.CustomLogger;
+import com.example.caesartv.data.device.DeviceCapabilities;
 import com.example.caesartv.domain.model.MediaItem;
+import com.example.caesartv.domain.repository.PlaylistCursor;
 import com.example.caesartv.domain.usecase.GetCachedMediaUseCase;
 
-import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -25,27 +27,41 @@ import java.util.concurrent.TimeUnit;
 public class VideoPlayerViewModel extends ViewModel {
 
     private static final String TAG = "VideoPlayerViewModel";
+    private static final long MIN_LOOP_MS = 1000; // A full pass faster than this means nothing was playable
     private final GetCachedMediaUseCase getCachedMediaUseCase;
     private final Context context;
-    private final MutableLiveData<MediaItem> currentMedia = new MutableLiveData<>();
-    private List<MediaItem> mediaList = new ArrayList<>();
-    private int currentMediaIndex = 0;
+    private final MutableLiveData<PlaybackEntry> currentMedia = new MutableLiveData<>();
+    private final MutableLiveData<PlaybackEntry> upcomingMedia = new MutableLiveData<>(); // Look-ahead for pre-buffering
+    private MediaItem playingMedia; // Main thread only
     private long startTime;
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Cursor state is confined to the executor: paging reads Room
+    private PlaylistCursor cursor;
+    private MediaItem lastIssued;
+    private MediaItem upcoming;
+    private MediaItem passStart; // First item read after the cursor wrapped, until it is on screen
+    private int loopCount;
+    private long loopStartedAt;
+    private final LiveData<Integer> playlistCount;
+    private final Observer<Integer> playlistObserver = this::onPlaylistChanged;
 
     public VideoPlayerViewModel(GetCachedMediaUseCase getCachedMediaUseCase, Context context) {
         this.getCachedMediaUseCase = getCachedMediaUseCase;
         this.context = context.getApplicationContext();
         loadCachedMedia();
+        // Later syncs reach the player through Room instead of an activity restart
+        playlistCount = getCachedMediaUseCase.observeCount();
+        playlistCount.observeForever(playlistObserver);
     }
 
     public void loadCachedMedia() {
         executor.execute(() -> {
             try {
-                mediaList = getCachedMediaUseCase.execute();
-                CustomLogger.d(TAG, "Initialized with " + mediaList.size() + " cached media items");
-                mainHandler.post(this::playNextVideo);
+                cursor = getCachedMediaUseCase.openCursor();
+                loopStartedAt = SystemClock.elapsedRealtime();
+                CustomLogger.d(TAG, "Initialized playlist cursor: " + cursor.getClass().getSimpleName());
+                issueNext();
             } catch (Exception e) {
                 CustomLogger.e(TAG, "Error loading cached media: " + e.getMessage(), e);
                 mainHandler.post(() -> currentMedia.setValue(null)); // Close app immediately on error
@@ -53,65 +69,165 @@ public class VideoPlayerViewModel extends ViewModel {
         });
     }
 
-    public void playNextVideo() {
-        if (mediaList.isEmpty()) {
-            CustomLogger.w(TAG, "No media items to play, closing app immediately");
+    // Re-pages from Room after the last item handed out, so edits and new content take
+    // effect from the next item without interrupting the one on screen
+    private void onPlaylistChanged(Integer count) {
+        if (count == null) {
+            return;
+        }
+        executor.execute(() -> {
+            if (cursor == null) {
+                return; // Startup load has not run yet and will read the current rows
+            }
+            boolean nothingIssued = lastIssued == null;
+            cursor = getCachedMediaUseCase.openCursorAfter(lastIssued);
+            upcoming = null;
+            CustomLogger.d(TAG, "Playlist changed, " + count + " active items, repositioned after " + (nothingIssued ? "start" : lastIssued.getId()));
+            if (nothingIssued && count > 0) {
+                issueNext();
+            } else {
+                peekUpcoming();
+            }
+        });
+    }
+
+    // Runs on the executor
+    private void issueNext() {
+        MediaItem next = upcoming != null ? upcoming : nextItem();
+        upcoming = null;
+        if (!beginPass(next)) {
+            next = null;
+        }
+        if (next != null) {
+            lastIssued = next;
+        }
+        PlaybackEntry entry = next != null ? compile(next) : null;
+        mainHandler.post(() -> show(entry));
+        if (next != null) {
+            peekUpcoming();
+        }
+    }
+
+    // Runs on the executor. Reads one item ahead so the player can prepare it while the
+    // current one is still on screen.
+    private void peekUpcoming() {
+        if (upcoming == null && cursor != null) {
+            upcoming = nextItem();
+        }
+        PlaybackEntry peeked = upcoming != null ? compile(upcoming) : null;
+        mainHandler.post(() -> upcomingMedia.setValue(peeked));
+    }
+
+    // Runs on the executor. The playlist loops in place: past the last item the cursor is
+    // reopened on Room from the start, which also picks up a newer playlist applied since
+    // the previous pass. Null only when nothing is stored.
+    private MediaItem nextItem() {
+        if (cursor == null) {
+            return null;
+        }
+        MediaItem next = cursor.next();
+        if (next != null || lastIssued == null) {
+            return next;
+        }
+        cursor = getCachedMediaUseCase.openCursorAfter(null);
+        passStart = cursor.next();
+        return passStart;
+    }
+
+    // Runs on the executor, when an item reaches the screen. A pass is timed from its first
+    // item on screen to the next pass's, so the look-ahead may wrap while a one-item playlist
+    // is still playing. False when the pass just finished was too fast to have played anything.
+    private boolean beginPass(MediaItem item) {
+        if (item == null || item != passStart) {
+            return true;
+        }
+        passStart = null;
+        long now = SystemClock.elapsedRealtime();
+        long loopMs = now - loopStartedAt;
+        loopStartedAt = now;
+        if (loopMs < MIN_LOOP_MS) {
+            CustomLogger.w(TAG, "Playlist pass finished in " + loopMs + "ms, nothing playable");
+            return false;
+        }
+        loopCount++;
+        Runtime runtime = Runtime.getRuntime();
+        // Soak metric: heap figures at each wrap should stay flat over many loops
+        CustomLogger.d(TAG, "Playlist wrapped, loop " + loopCount + " took " + loopMs + "ms, Java heap "
+                + ((runtime.totalMemory() - runtime.freeMemory()) / 1024) + "KB, native heap " + (Debug.getNativeHeapAllocatedSize() / 1024) + "KB");
+        return true;
+    }
+
+    // Runs on the executor: every decision a transition needs is made here, not on the main thread
+    private PlaybackEntry compile(MediaItem media) {
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        PlaybackEntry entry = PlaybackEntry.compile(media, DeviceCapabilities.get(context), isNetworkAvailable());
+        CustomLogger.d(TAG, "Compiled " + entry + " in " + ((SystemClock.elapsedRealtimeNanos() - startNanos) / 1000) + "us");
+        return entry;
+    }
+
+    private void show(PlaybackEntry entry) {
+        if (entry == null) {
+            CustomLogger.d(TAG, playingMedia == null ? "No media items to play, closing app immediately" : "No playable media items left, closing app immediately");
+            playingMedia = null;
             currentMedia.setValue(null); // Close app immediately
             return;
         }
-        boolean isOffline = !isNetworkAvailable();
-        CustomLogger.d(TAG, "Playing video, isOffline: " + isOffline + ", currentMediaIndex: " + currentMediaIndex + ", mediaList size: " + mediaList.size());
+        CustomLogger.d(TAG, "Playing media: " + entry.media.getTitle() + ", " + entry.layout);
+        playingMedia = entry.media;
+        currentMedia.setValue(entry);
+    }
 
-        if (currentMediaIndex >= mediaList.size()) {
-            CustomLogger.d(TAG, "All media items played, closing app immediately");
-            currentMedia.setValue(null);
+    public void playNextVideo() {
+        if (executor.isShutdown()) {
             return;
         }
+        executor.execute(this::issueNext);
+    }
 
-        MediaItem media = mediaList.get(currentMediaIndex);
-        CustomLogger.d(TAG, "Playing media: " + media.getTitle() + ", index: " + currentMediaIndex + ", localPath: " + (media.getLocalFilePath() != null ? media.getLocalFilePath() : media.getUrl()) + ", exists: " + (media.getLocalFilePath() != null && new File(media.getLocalFilePath()).exists()));
-        currentMedia.setValue(media);
-        currentMediaIndex++;
+    // Main thread: playerFull moved on to the queued SINGLE item by itself, so only the
+    // position advances here and nothing is re-posted to currentMedia
+    public void onRunAdvanced(MediaItem media) {
+        playingMedia = media;
+        if (executor.isShutdown()) {
+            return;
+        }
+        executor.execute(() -> {
+            if (upcoming == null || !upcoming.getId().equals(media.getId())) {
+                cursor = getCachedMediaUseCase.openCursorAfter(media); // Queue was stale after a playlist change
+            } else {
+                beginPass(upcoming); // Already on screen, so a fast pass only shows in the log
+            }
+            upcoming = null;
+            lastIssued = media;
+            peekUpcoming();
+        });
     }
 
     public Throwable handleVideoEnd() {
-        if (mediaList.isEmpty()) {
-            CustomLogger.w(TAG, "No media to handle, closing app immediately");
-            mainHandler.post(() -> currentMedia.setValue(null)); // Close app immediately
-            return null;
-        }
-        if (currentMediaIndex == 0) {
+        if (playingMedia == null) {
             CustomLogger.d(TAG, "No video played yet, skipping video end handling");
             playNextVideo();
             return null;
         }
-        MediaItem media = mediaList.get(currentMediaIndex - 1);
-        CustomLogger.d(TAG, "Video ended: " + media.getTitle() + ", index: " + (currentMediaIndex - 1));
+        CustomLogger.d(TAG, "Video ended: " + playingMedia.getTitle());
         playNextVideo();
         return null;
     }
 
-    public void retryCurrentMedia() {
-        if (mediaList.isEmpty() || currentMediaIndex == 0) {
-            CustomLogger.w(TAG, "No media to retry, closing app immediately");
-            mainHandler.post(() -> currentMedia.setValue(null)); // Close app immediately
-            return;
-        }
-        MediaItem media = mediaList.get(currentMediaIndex - 1);
-        CustomLogger.d(TAG, "Retrying media: " + media.getTitle() + ", index: " + (currentMediaIndex - 1));
-        mainHandler.post(() -> currentMedia.setValue(media));
-    }
-
     private boolean isNetworkAvailable() {
         ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
         NetworkInfo networkInfo = cm.getActiveNetworkInfo();
         return networkInfo != null && networkInfo.isConnected();
     }
 
-    public LiveData<MediaItem> getCurrentMedia() {
+    public LiveData<PlaybackEntry> getCurrentMedia() {
         return currentMedia;
     }
 
+    public LiveData<PlaybackEntry> getUpcomingMedia() {
+        return upcomingMedia;
+    }
+
     public long getStartTime() {
         return startTime;
     }
@@ -124,6 +240,7 @@ public class VideoPlayerViewModel extends ViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
+        playlistCount.removeObserver(playlistObserver);
         if (!executor.isShutdown()) {
             executor.shutdownNow();
             try {
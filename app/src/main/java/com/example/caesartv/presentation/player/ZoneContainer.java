@@ -0,0 +1,111 @@
+package com.example.caesartv.presentation.player;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+
+import androidx.media3.ui.PlayerView;
+
+import com.example.caesartv.domain.model.ZoneLayout;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Lays out one cell per zone of a ZoneLayout template, each a PlayerView with an ImageView
+// over it. Cells are created the first time a slot name is shown and reused after that, so
+// switching between items with the same template inflates nothing. Main thread only.
+public class ZoneContainer extends ViewGroup {
+
+    static final class Cell {
+        final FrameLayout frame;
+        final PlayerView playerView;
+        final ImageView imageView;
+        ZoneLayout.Slot slot;
+
+        Cell(Context context) {
+            frame = new FrameLayout(context);
+            playerView = new PlayerView(context);
+            playerView.setControllerAutoShow(false);
+            playerView.setVisibility(View.GONE);
+            imageView = new ImageView(context);
+            imageView.setScaleType(ImageView.ScaleType.CENTER_CROP);
+            imageView.setVisibility(View.GONE);
+            frame.addView(playerView, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+            frame.addView(imageView, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+            frame.setTag(this);
+        }
+    }
+
+    private final Map<String, Cell> cells = new LinkedHashMap<>();
+
+    public ZoneContainer(Context context) {
+        super(context);
+    }
+
+    public ZoneContainer(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    // Shows a cell for each slot; cells of slots not in the template are hidden
+    void apply(ZoneLayout.Slot[] slots) {
+        for (Cell cell : cells.values()) {
+            cell.slot = null;
+            cell.frame.setVisibility(View.GONE);
+        }
+        for (ZoneLayout.Slot slot : slots) {
+            Cell cell = cells.get(slot.name);
+            if (cell == null) {
+                cell = new Cell(getContext());
+                cells.put(slot.name, cell);
+                addView(cell.frame);
+            }
+            cell.slot = slot;
+            cell.frame.setVisibility(View.VISIBLE);
+        }
+        requestLayout();
+    }
+
+    Cell cell(String name) {
+        return cells.get(name);
+    }
+
+    Collection<Cell> cells() {
+        return cells.values();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        int height = MeasureSpec.getSize(heightMeasureSpec);
+        setMeasuredDimension(width, height);
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            ZoneLayout.Slot slot = ((Cell) child.getTag()).slot;
+            if (child.getVisibility() == View.GONE || slot == null) {
+                continue;
+            }
+            child.measure(
+                    MeasureSpec.makeMeasureSpec(slot.widthOn(width), MeasureSpec.EXACTLY),
+                    MeasureSpec.makeMeasureSpec(slot.heightOn(height), MeasureSpec.EXACTLY));
+        }
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        int width = r - l;
+        int height = b - t;
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            ZoneLayout.Slot slot = ((Cell) child.getTag()).slot;
+            if (child.getVisibility() == View.GONE || slot == null) {
+                continue;
+            }
+            child.layout(ZoneLayout.edge(slot.left, width), ZoneLayout.edge(slot.top, height),
+                    ZoneLayout.edge(slot.right, width), ZoneLayout.edge(slot.bottom, height));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.caesartv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.ArchTaskExecutor;
+import androidx.arch.core.executor.TaskExecutor;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.work.Configuration;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+import androidx.work.testing.SynchronousExecutor;
+import androidx.work.testing.WorkManagerTestInitHelper;
+
+import com.example.caesartv.data.local.AppDatabase;
+import com.example.caesartv.data.local.MediaEntity;
+import com.example.caesartv.data.local.PendingCatalogStore;
+import com.example.caesartv.domain.model.MediaItem;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+@RunWith(RobolectricTestRunner.class)
+public class MediaSyncWorkerTest {
+
+    private Context context;
+    private PendingCatalogStore store;
+
+    @Before
+    public void setUp() {
+        // The synchronous executor runs the worker on the test thread, which Robolectric
+        // makes the main thread; Room refuses that, so it is told otherwise
+        ArchTaskExecutor.getInstance().setDelegate(new TaskExecutor() {
+            @Override
+            public void executeOnDiskIO(@NonNull Runnable runnable) {
+                runnable.run();
+            }
+
+            @Override
+            public void postToMainThread(@NonNull Runnable runnable) {
+                runnable.run();
+            }
+
+            @Override
+            public boolean isMainThread() {
+                return false;
+            }
+        });
+        context = ApplicationProvider.getApplicationContext();
+        Configuration configuration = new Configuration.Builder()
+                .setMinimumLoggingLevel(Log.DEBUG)
+                .setExecutor(new SynchronousExecutor())
+                .build();
+        WorkManagerTestInitHelper.initializeTestWorkManager(context, configuration);
+        store = new PendingCatalogStore(context);
+    }
+
+    @After
+    public void tearDown() {
+        ArchTaskExecutor.getInstance().setDelegate(null);
+    }
+
+    @Test
+    public void syncAppliesPendingCatalogAndClearsIt() throws Exception {
+        // No URL, so nothing is downloaded and the item is stored as is
+        store.save(Collections.singletonList(item("m1", 0)));
+
+        WorkInfo info = runSync();
+
+        assertEquals(WorkInfo.State.SUCCEEDED, info.getState());
+        assertFalse(store.hasPending());
+        List<MediaEntity> stored = AppDatabase.getDatabase(context).mediaDao().getAllMediaEntities();
+        assertEquals(1, stored.size());
+        assertEquals("m1", stored.get(0).id);
+    }
+
+    @Test
+    public void syncWithoutPendingCatalogSucceeds() throws Exception {
+        assertEquals(WorkInfo.State.SUCCEEDED, runSync().getState());
+    }
+
+    @Test
+    public void catalogSavedDuringSyncIsNotCleared() throws Exception {
+        store.save(Collections.singletonList(item("old", 0)));
+        PendingCatalogStore.Pending syncing = store.load();
+        assertNotNull(syncing);
+
+        List<MediaItem> newer = new ArrayList<>();
+        newer.add(item("new-1", 0));
+        newer.add(item("new-2", 1));
+        new PendingCatalogStore(context).save(newer); // As the repository does when the server pushes again
+
+        assertFalse(store.clearIfUnchanged(syncing));
+        PendingCatalogStore.Pending kept = store.load();
+        assertNotNull(kept);
+        assertEquals(2, kept.mediaItems.size());
+        assertTrue(store.clearIfUnchanged(kept));
+        assertFalse(store.hasPending());
+    }
+
+    private WorkInfo runSync() throws Exception {
+        UUID id = MediaSyncWorker.enqueue(context);
+        WorkManagerTestInitHelper.getTestDriver(context).setAllConstraintsMet(id);
+        return WorkManager.getInstance(context).getWorkInfoById(id).get();
+    }
+
+    private static MediaItem item(String id, int order) {
+        return new MediaItem(id, id, null, "SINGLE", "", new ArrayList<>(), null, 10, order, true, null, null);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.caesartv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.ArchTaskExecutor;
+import androidx.arch.core.executor.TaskExecutor;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.work.ListenableWorker;
+import androidx.work.testing.TestWorkerBuilder;
+
+import com.example.caesartv.data.local.AppDatabase;
+import com.example.caesartv.data.local.MediaDao;
+import com.example.caesartv.data.local.PlayEventEntity;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+// Uploads against a server on the loopback interface. Without an endpoint from the dashboard
+// nothing is sent and nothing is lost; rows only go once the server has accepted them.
+@RunWith(RobolectricTestRunner.class)
+public class PlayEventUploadWorkerTest {
+
+    private static final int EVENTS = 1200; // Three batches
+
+    private Context context;
+    private MediaDao mediaDao;
+    private HttpServer server;
+    private final List<JSONObject> received = new CopyOnWriteArrayList<>();
+    private volatile int status = 200;
+
+    @Before
+    public void setUp() throws IOException {
+        // The worker runs on the test thread, which Robolectric makes the main thread
+        ArchTaskExecutor.getInstance().setDelegate(new TaskExecutor() {
+            @Override
+            public void executeOnDiskIO(@NonNull Runnable runnable) {
+                runnable.run();
+            }
+
+            @Override
+            public void postToMainThread(@NonNull Runnable runnable) {
+                runnable.run();
+            }
+
+            @Override
+            public boolean isMainThread() {
+                return false;
+            }
+        });
+        context = ApplicationProvider.getApplicationContext();
+        mediaDao = AppDatabase.getDatabase(context).mediaDao();
+        mediaDao.deletePlayEventsUpTo(Long.MAX_VALUE);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/events", exchange -> {
+            int code = status;
+            try (InputStream body = exchange.getRequestBody()) {
+                if (code == 200) {
+                    if (!"gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+                        code = 415;
+                    } else {
+                        received.add(new JSONObject(new String(readAll(new GZIPInputStream(body)), StandardCharsets.UTF_8)));
+                    }
+                }
+            } catch (Exception e) {
+                code = 400;
+            }
+            exchange.sendResponseHeaders(code, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        PlayEventUploadWorker.setUploadUrl(context, "");
+        ArchTaskExecutor.getInstance().setDelegate(null);
+    }
+
+    @Test
+    public void noEndpoint_keepsEventsAndSendsNothing() {
+        record(EVENTS);
+
+        assertEquals(ListenableWorker.Result.success(), runWorker());
+        assertEquals(EVENTS, storedEvents());
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void configuredEndpoint_uploadsCompressedBatchesThenDeletes() throws Exception {
+        record(EVENTS);
+        PlayEventUploadWorker.setUploadUrl(context, " " + endpoint() + " ");
+
+        assertEquals(ListenableWorker.Result.success(), runWorker());
+        assertEquals(0, storedEvents());
+        assertEquals(3, received.size());
+        int uploaded = 0;
+        for (JSONObject batch : received) {
+            uploaded += batch.getJSONArray("events").length();
+        }
+        assertEquals(EVENTS, uploaded);
+        assertEquals("item-0", received.get(0).getJSONArray("events").getJSONObject(0).getString("itemId"));
+    }
+
+    @Test
+    public void rejectedUpload_keepsEventsForTheRetry() {
+        record(EVENTS);
+        PlayEventUploadWorker.setUploadUrl(context, endpoint());
+        status = 404;
+
+        assertEquals(ListenableWorker.Result.retry(), runWorker());
+        assertEquals(EVENTS, storedEvents());
+    }
+
+    @Test
+    public void clearedEndpoint_turnsUploadsOffAgain() {
+        record(EVENTS);
+        PlayEventUploadWorker.setUploadUrl(context, endpoint());
+        PlayEventUploadWorker.setUploadUrl(context, "");
+
+        assertEquals(ListenableWorker.Result.success(), runWorker());
+        assertEquals(EVENTS, storedEvents());
+        assertTrue(received.isEmpty());
+    }
+
+    private ListenableWorker.Result runWorker() {
+        return TestWorkerBuilder.from(context, PlayEventUploadWorker.class, Executors.newSingleThreadExecutor())
+                .build()
+                .doWork();
+    }
+
+    private String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/events";
+    }
+
+    // Recent enough that the daily compaction keeps them
+    private void record(int count) {
+        long now = System.currentTimeMillis();
+        List<PlayEventEntity> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new PlayEventEntity("item-" + i, "asset-" + i, i % 2 == 0 ? "Main" : "Side", "video",
+                    now - 15_000, now, "completed"));
+        }
+        mediaDao.insertPlayEvents(events);
+    }
+
+    private int storedEvents() {
+        return mediaDao.getPlayEventBatch(Integer.MAX_VALUE).size();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            out.write(chunk, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.caesartv.data.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.net.ConnectivityManager;
+import android.util.DisplayMetrics;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.bumptech.glide.Glide;
+import com.example.caesartv.domain.model.ZoneLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// A split-screen image cached while online must still render with the network gone: the
+// player's request is served from the resource decoded at download time for its zone, at
+// that zone's size whatever the layout.
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class ImagePreloaderTest {
+
+    private Context context;
+    private File imagesDir;
+    private final ExecutorService background = Executors.newSingleThreadExecutor(); // Glide futures refuse the main thread
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        imagesDir = new File(context.getFilesDir(), "images");
+        imagesDir.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        background.shutdownNow();
+        Glide.tearDown();
+    }
+
+    @Test
+    public void preloadedSplitScreenImage_loadsOfflineAtZoneSize() throws Exception {
+        assertPreloadedAtSlotSize("split-left.png", ZoneLayout.forCount(2)[0]);
+    }
+
+    @Test
+    public void preloadedTickerImage_loadsOfflineAtTickerSize() throws Exception {
+        assertPreloadedAtSlotSize("ticker.png", ZoneLayout.forCount(3)[2]);
+    }
+
+    @Test
+    public void preloadedGridImage_loadsOfflineAtCellSize() throws Exception {
+        assertPreloadedAtSlotSize("grid-cell.png", ZoneLayout.forCount(4)[3]);
+    }
+
+    @Test
+    public void imageNotPreloaded_missesTheCache() throws Exception {
+        File image = writeImage("split-right.png", 1280, 720);
+
+        goOffline();
+        assertNotInCache(image, ZoneLayout.forCount(2)[1]);
+    }
+
+    // Pre-decoded for one zone, the image is not in the cache at another zone's size
+    @Test
+    public void imagePreloadedForAnotherZone_missesTheCache() throws Exception {
+        File image = writeImage("side.png", 1920, 1080);
+        ZoneLayout.Slot[] lBar = ZoneLayout.forCount(3);
+        background.submit(() -> ImagePreloader.preload(context, image, lBar[1])).get(30, TimeUnit.SECONDS);
+
+        goOffline();
+        assertNotInCache(image, lBar[2]);
+    }
+
+    private void assertPreloadedAtSlotSize(String name, ZoneLayout.Slot slot) throws Exception {
+        File image = writeImage(name, 1920, 1080);
+        background.submit(() -> ImagePreloader.preload(context, image, slot)).get(30, TimeUnit.SECONDS);
+
+        goOffline();
+        Drawable drawable = loadFromCache(image, slot);
+
+        assertTrue(drawable instanceof BitmapDrawable);
+        Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        assertEquals(slot.toString(), Math.max(1, slot.widthOn(metrics.widthPixels)), bitmap.getWidth());
+        assertEquals(slot.toString(), Math.max(1, slot.heightOn(metrics.heightPixels)), bitmap.getHeight());
+    }
+
+    private void assertNotInCache(File image, ZoneLayout.Slot slot) throws Exception {
+        try {
+            loadFromCache(image, slot);
+            fail("Image was served without having been pre-decoded for " + slot);
+        } catch (ExecutionException expected) {
+            // Glide refuses to decode the source when restricted to its caches
+        }
+    }
+
+    // Same options as the player, restricted to the disk cache so the source file is not decoded again
+    private Drawable loadFromCache(File image, ZoneLayout.Slot slot) throws Exception {
+        return background.submit(() -> Glide.with(context)
+                .load(image)
+                .apply(ImagePreloader.zoneOptions(context, slot))
+                .skipMemoryCache(true)
+                .onlyRetrieveFromCache(true)
+                .submit()
+                .get()).get(30, TimeUnit.SECONDS);
+    }
+
+    private void goOffline() {
+        ConnectivityManager connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        shadowOf(connectivityManager).setActiveNetworkInfo(null);
+    }
+
+    private File writeImage(String name, int width, int height) throws IOException {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        new Canvas(bitmap).drawColor(Color.rgb(200, 40, 40));
+        File file = new File(imagesDir, name);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.caesartv.data.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// MP4 boxes for tests: one 1280x720 AVC track, 10 seconds at 25fps. Only the fields the box
+// walker reads are filled in, the rest is zero.
+public final class Mp4Fixtures {
+
+    public static final int WIDTH = 1280;
+    public static final int HEIGHT = 720;
+    public static final long DURATION_MS = 10_000;
+    public static final int MDAT_BYTES = 4096;
+    private static final int TIMESCALE = 12800;
+    private static final int SAMPLES = 250;
+    private static final int SAMPLE_DELTA = 512; // 250 samples at 25fps: 10 seconds
+
+    private Mp4Fixtures() {
+    }
+
+    // A complete faststart file: ftyp, moov, then mdat
+    public static byte[] file() {
+        return concat(ftyp(), moov(), mdat(MDAT_BYTES));
+    }
+
+    public static byte[] ftyp() {
+        return box("ftyp", fourcc("isom"), u32(0x200), fourcc("isom"), fourcc("avc1"));
+    }
+
+    public static byte[] moov() {
+        byte[] mvhd = box("mvhd", u32(0), u32(0), u32(0), u32(1000), u32((int) DURATION_MS), new byte[80]);
+        byte[] tkhd = box("tkhd", u32(0), new byte[20], new byte[52], u32(WIDTH << 16), u32(HEIGHT << 16));
+        byte[] mdhd = box("mdhd", u32(0), u32(0), u32(0), u32(TIMESCALE), u32(SAMPLES * SAMPLE_DELTA), u32(0));
+        byte[] hdlr = box("hdlr", u32(0), u32(0), fourcc("vide"), new byte[12], new byte[1]);
+        byte[] stsd = box("stsd", u32(0), u32(1), u32(86), fourcc("avc1"), new byte[78]);
+        byte[] stts = box("stts", u32(0), u32(1), u32(SAMPLES), u32(SAMPLE_DELTA));
+        byte[] stbl = box("stbl", stsd, stts);
+        byte[] minf = box("minf", stbl);
+        byte[] mdia = box("mdia", mdhd, hdlr, minf);
+        byte[] trak = box("trak", tkhd, mdia);
+        return box("moov", mvhd, trak);
+    }
+
+    public static byte[] mdat(int payloadBytes) {
+        return box("mdat", new byte[payloadBytes]);
+    }
+
+    public static byte[] largeMdat(int payloadBytes) {
+        ByteBuffer buffer = ByteBuffer.allocate(16 + payloadBytes);
+        buffer.putInt(1).put(fourcc("mdat")).putLong(16L + payloadBytes);
+        return buffer.array();
+    }
+
+    private static byte[] box(String type, byte[]... parts) {
+        byte[] payload = concat(parts);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + payload.length);
+        buffer.putInt(8 + payload.length).put(fourcc(type)).put(payload);
+        return buffer.array();
+    }
+
+    private static byte[] u32(int value) {
+        return ByteBuffer.allocate(4).putInt(value).array();
+    }
+
+    public static byte[] fourcc(String type) {
+        return type.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part, 0, part.length);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.caesartv.data.cache;
+
+import static com.example.caesartv.data.cache.Mp4Fixtures.DURATION_MS;
+import static com.example.caesartv.data.cache.Mp4Fixtures.HEIGHT;
+import static com.example.caesartv.data.cache.Mp4Fixtures.MDAT_BYTES;
+import static com.example.caesartv.data.cache.Mp4Fixtures.WIDTH;
+import static com.example.caesartv.data.cache.Mp4Fixtures.concat;
+import static com.example.caesartv.data.cache.Mp4Fixtures.fourcc;
+import static com.example.caesartv.data.cache.Mp4Fixtures.ftyp;
+import static com.example.caesartv.data.cache.Mp4Fixtures.largeMdat;
+import static com.example.caesartv.data.cache.Mp4Fixtures.mdat;
+import static com.example.caesartv.data.cache.Mp4Fixtures.moov;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.caesartv.data.device.DeviceCapabilities;
+import com.example.caesartv.domain.model.VideoMetadata;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+// Box-walker verdicts on small MP4 fixtures from Mp4Fixtures: a well-formed file with one AVC
+// track, and the damaged or unusual layouts a download or an encoder can leave behind
+public class Mp4InspectorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void wellFormedFile_isValidWithTrackMetadata() throws IOException {
+        File file = write(concat(ftyp(), moov(), mdat(MDAT_BYTES)));
+
+        Mp4Inspector.Result result = Mp4Inspector.inspect(file);
+
+        assertEquals(result.toString(), Mp4Inspector.Status.VALID, result.status);
+        VideoMetadata metadata = result.metadata;
+        assertNotNull(metadata);
+        assertEquals(WIDTH, metadata.getWidth());
+        assertEquals(HEIGHT, metadata.getHeight());
+        assertEquals(DeviceCapabilities.MIME_AVC, metadata.getCodec());
+        assertEquals(25f, metadata.getFrameRate(), 0.01f);
+        assertEquals(DURATION_MS, metadata.getDurationMs());
+        assertEquals(file.length() * 8 * 1000 / DURATION_MS, metadata.getBitrate());
+    }
+
+    @Test
+    public void truncatedBox_isInvalid() throws IOException {
+        byte[] whole = concat(ftyp(), moov(), mdat(MDAT_BYTES));
+        File file = write(Arrays.copyOf(whole, whole.length - MDAT_BYTES / 2)); // An interrupted download
+
+        Mp4Inspector.Result result = Mp4Inspector.inspect(file);
+
+        assertEquals(Mp4Inspector.Status.INVALID, result.status);
+        assertTrue(result.reason, result.reason.startsWith("box mdat"));
+        assertTrue(result.reason, result.reason.contains("needs " + (MDAT_BYTES + 8) + " bytes"));
+    }
+
+    @Test
+    public void truncatedLargeBoxHeader_isInvalid() throws IOException {
+        byte[] largeHeader = largeMdat(MDAT_BYTES);
+        File file = write(concat(ftyp(), moov(), Arrays.copyOf(largeHeader, 12))); // Cut inside the 64-bit size
+
+        Mp4Inspector.Result result = Mp4Inspector.inspect(file);
+
+        assertEquals(Mp4Inspector.Status.INVALID, result.status);
+        assertTrue(result.reason, result.reason.startsWith("truncated large box header"));
+    }
+
+    @Test
+    public void largeSizeBox_isWalked() throws IOException {
+        File file = write(concat(ftyp(), moov(), largeMdat(MDAT_BYTES)));
+
+        Mp4Inspector.Result result = Mp4Inspector.inspect(file);
+
+        assertEquals(result.toString(), Mp4Inspector.Status.VALID, result.status);
+        assertEquals(DURATION_MS, result.metadata.getDurationMs());
+    }
+
+    @Test
+    public void largeSizeBoxBeforeMoov_isWalked() throws IOException {
+        // mdat first, as non-faststart encoders write it; moov is only found past the 64-bit box
+        File file = write(concat(ftyp(), largeMdat(MDAT_BYTES), moov()));
+
+        assertEquals(Mp4Inspector.Status.VALID, Mp4Inspector.inspect(file).status);
+    }
+
+    @Test
+    public void missingMoov_isInvalid() throws IOException {
+        File file = write(concat(ftyp(), mdat(MDAT_BYTES)));
+
+        Mp4Inspector.Result result = Mp4Inspector.inspect(file);
+
+        assertEquals(Mp4Inspector.Status.INVALID, result.status);
+        assertEquals("no moov", result.reason);
+        assertNull(result.metadata);
+    }
+
+    @Test
+    public void zeroSizeBox_runsToEndOfFile() throws IOException {
+        byte[] mdat = mdat(MDAT_BYTES);
+        ByteBuffer.wrap(mdat).putInt(0, 0); // Size 0: the last box extends to the end of the file
+        File file = write(concat(ftyp(), moov(), mdat));
+
+        Mp4Inspector.Result result = Mp4Inspector.inspect(file);
+
+        assertEquals(result.toString(), Mp4Inspector.Status.VALID, result.status);
+        assertEquals(file.length() * 8 * 1000 / DURATION_MS, result.metadata.getBitrate());
+    }
+
+    @Test
+    public void zeroSizeBoxBeforeMoov_hidesIt() throws IOException {
+        byte[] mdat = mdat(MDAT_BYTES);
+        ByteBuffer.wrap(mdat).putInt(0, 0); // Swallows the moov behind it
+        File file = write(concat(ftyp(), mdat, moov()));
+
+        Mp4Inspector.Result result = Mp4Inspector.inspect(file);
+
+        assertEquals(Mp4Inspector.Status.INVALID, result.status);
+        assertEquals("no moov", result.reason);
+    }
+
+    @Test
+    public void boxSmallerThanItsHeader_isInvalid() throws IOException {
+        byte[] mdat = mdat(MDAT_BYTES);
+        ByteBuffer.wrap(mdat).putInt(0, 4);
+        File file = write(concat(ftyp(), moov(), mdat));
+
+        Mp4Inspector.Result result = Mp4Inspector.inspect(file);
+
+        assertEquals(Mp4Inspector.Status.INVALID, result.status);
+        assertEquals("box mdat with size 4 at " + (ftyp().length + moov().length), result.reason);
+    }
+
+    @Test
+    public void nonIsoFile_isUnsupported() throws IOException {
+        File file = write("RIFF\0\0\0\0WEBPVP8 ".getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(Mp4Inspector.Status.UNSUPPORTED, Mp4Inspector.inspect(file).status);
+    }
+
+    // Header reads only: inspection time must not follow the size of mdat
+    @Test
+    public void inspectionCost_isIndependentOfMdatSize() throws IOException {
+        File small = write(concat(ftyp(), moov(), mdat(MDAT_BYTES)));
+        File large = sparseFile(512L * 1024 * 1024);
+        assertEquals(Mp4Inspector.Status.VALID, Mp4Inspector.inspect(large).status);
+
+        long smallNs = medianNs(small);
+        long largeNs = medianNs(large);
+        System.out.println(String.format(Locale.US,
+                "Mp4Inspector, median of 21: %.3fms for a %dKB file, %.3fms for a %dMB file",
+                smallNs / 1e6, small.length() / 1024, largeNs / 1e6, large.length() / (1024 * 1024)));
+    }
+
+    private static long medianNs(File file) {
+        long[] samples = new long[21];
+        for (int i = 0; i < samples.length; i++) {
+            long startedAt = System.nanoTime();
+            Mp4Inspector.inspect(file);
+            samples[i] = System.nanoTime() - startedAt;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+
+    // ftyp and moov as written, then a 64-bit mdat header whose payload is left as a hole
+    private File sparseFile(long mdatBytes) throws IOException {
+        File file = folder.newFile();
+        byte[] head = concat(ftyp(), moov());
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.write(head);
+            raf.writeInt(1);
+            raf.write(fourcc("mdat"));
+            raf.writeLong(16 + mdatBytes);
+            raf.setLength(head.length + 16 + mdatBytes);
+        }
+        return file;
+    }
+
+    private File write(byte[] bytes) throws IOException {
+        File file = folder.newFile();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+        }
+        return file;
+    }
+}
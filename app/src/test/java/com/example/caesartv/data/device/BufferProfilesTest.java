@@ -0,0 +1,109 @@
+package com.example.caesartv.data.device;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.ActivityManager;
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.caesartv.data.device.BufferProfiles.BufferProfile;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowActivityManager;
+
+// Scenario and device class pick the buffers; dashboard overrides are persisted, and a key
+// for the device class wins over the bare scenario
+@RunWith(RobolectricTestRunner.class)
+public class BufferProfilesTest {
+
+    private Context context;
+    private ShadowActivityManager activityManager;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        activityManager = shadowOf((ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE));
+        BufferProfiles.setOverrides(context, null);
+    }
+
+    @After
+    public void tearDown() {
+        BufferProfiles.setOverrides(context, null);
+    }
+
+    @Test
+    public void remoteStreams_getMoreBufferThanLocalFiles() {
+        BufferProfiles profiles = highRamBox();
+        for (boolean split : new boolean[]{false, true}) {
+            BufferProfile local = profiles.profileFor(false, split);
+            BufferProfile remote = profiles.profileFor(true, split);
+            assertTrue(local + " vs " + remote, local.maxBufferMs < remote.maxBufferMs);
+        }
+    }
+
+    @Test
+    public void splitScreen_getsLessThanOneZone() {
+        BufferProfiles profiles = highRamBox();
+        assertTrue(profiles.profileFor(true, true).targetBufferBytes < profiles.profileFor(true, false).targetBufferBytes);
+        assertTrue(profiles.profileFor(false, true).maxBufferMs < profiles.profileFor(false, false).maxBufferMs);
+    }
+
+    @Test
+    public void lowRamBox_capsRemoteBuffers() {
+        BufferProfile high = highRamBox().profileFor(true, false);
+        activityManager.setIsLowRamDevice(true);
+        BufferProfile low = new BufferProfiles(context).profileFor(true, false);
+
+        assertEquals("remote_single/low_ram", low.name);
+        assertTrue(low.maxBufferMs < high.maxBufferMs);
+        assertTrue(low.targetBufferBytes < high.targetBufferBytes);
+    }
+
+    @Test
+    public void smallMemoryClass_countsAsLowRam() {
+        activityManager.setIsLowRamDevice(false);
+        activityManager.setMemoryClass(128);
+
+        assertEquals("remote_split/low_ram", new BufferProfiles(context).profileFor(true, true).name);
+    }
+
+    @Test
+    public void deviceClassOverride_winsOverTheScenario() throws JSONException {
+        BufferProfiles.setOverrides(context, new JSONObject()
+                .put("remote_single", new JSONObject().put("maxBufferMs", 90_000).put("minBufferMs", 20_000))
+                .put("high_ram/remote_single", new JSONObject().put("maxBufferMs", 150_000)));
+
+        BufferProfile profile = highRamBox().profileFor(true, false); // Read back from the stored overrides
+
+        assertEquals(150_000, profile.maxBufferMs);
+        assertEquals(20_000, profile.minBufferMs);
+    }
+
+    @Test
+    public void inconsistentOverride_isClampedToWhatTheLoadControlAccepts() throws JSONException {
+        BufferProfiles.setOverrides(context, new JSONObject()
+                .put("local_single", new JSONObject().put("minBufferMs", 60_000).put("maxBufferMs", 4_000)
+                        .put("bufferForPlaybackMs", 10_000)));
+
+        BufferProfile profile = highRamBox().profileFor(false, false);
+
+        assertEquals(4_000, profile.maxBufferMs);
+        assertEquals(4_000, profile.minBufferMs);
+        assertEquals(4_000, profile.bufferForPlaybackMs);
+    }
+
+    private BufferProfiles highRamBox() {
+        activityManager.setIsLowRamDevice(false);
+        activityManager.setMemoryClass(256);
+        return new BufferProfiles(context);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.caesartv.data.device;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+// The stored profile is reused while the firmware and the probe are unchanged. The stored
+// profile below is one no probe here would produce, so getting it back means nothing was probed.
+@RunWith(RobolectricTestRunner.class)
+public class DeviceCapabilitiesTest {
+
+    private Context context;
+    private SharedPreferences prefs;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        prefs = context.getSharedPreferences("device_capabilities", Context.MODE_PRIVATE);
+        prefs.edit().clear().commit();
+    }
+
+    @Test
+    public void storedProfile_isReusedOnTheSameFirmware() throws JSONException {
+        store(Build.FINGERPRINT, DeviceCapabilities.PROFILE_VERSION);
+
+        DeviceCapabilities capabilities = DeviceCapabilities.load(context);
+
+        assertEquals(3840, capabilities.getMaxWidth(DeviceCapabilities.MIME_HEVC));
+        assertEquals(60, capabilities.getMaxFrameRate(DeviceCapabilities.MIME_HEVC));
+        assertEquals(7, capabilities.getMaxInstances(DeviceCapabilities.MIME_HEVC));
+        assertTrue(capabilities.supportsTunneling(DeviceCapabilities.MIME_HEVC));
+        assertTrue(capabilities.canDecode(DeviceCapabilities.MIME_HEVC, 2160, 3840, 50f)); // Portrait
+        assertFalse(capabilities.canDecode(DeviceCapabilities.MIME_HEVC, 3840, 2160, 120f));
+    }
+
+    @Test
+    public void firmwareUpdate_probesAgain() throws JSONException {
+        store("vendor/old-firmware", DeviceCapabilities.PROFILE_VERSION);
+
+        DeviceCapabilities capabilities = DeviceCapabilities.load(context);
+
+        assertEquals("Kept the profile of the old firmware", 0, capabilities.getMaxInstances(DeviceCapabilities.MIME_HEVC));
+        assertEquals(Build.FINGERPRINT, prefs.getString("fingerprint", null));
+    }
+
+    @Test
+    public void olderProbe_isRedone() throws JSONException {
+        store(Build.FINGERPRINT, DeviceCapabilities.PROFILE_VERSION - 1);
+
+        DeviceCapabilities capabilities = DeviceCapabilities.load(context);
+
+        assertEquals(0, capabilities.getMaxInstances(DeviceCapabilities.MIME_HEVC));
+        assertEquals(DeviceCapabilities.PROFILE_VERSION, prefs.getInt("version", 0));
+    }
+
+    @Test
+    public void profileSentToTheServer_readsBackTheSame() throws JSONException {
+        store(Build.FINGERPRINT, DeviceCapabilities.PROFILE_VERSION);
+        DeviceCapabilities capabilities = DeviceCapabilities.load(context);
+
+        DeviceCapabilities copy = DeviceCapabilities.fromJson(capabilities.toJson());
+
+        assertEquals(capabilities.toString(), copy.toString());
+    }
+
+    @Test
+    public void serverCodecNames_mapToDecoderTypes() {
+        assertEquals(DeviceCapabilities.MIME_AVC, DeviceCapabilities.mimeForCodec("avc1.640028"));
+        assertEquals(DeviceCapabilities.MIME_HEVC, DeviceCapabilities.mimeForCodec("hvc1"));
+        assertEquals(DeviceCapabilities.MIME_VP9, DeviceCapabilities.mimeForCodec("vp09.00.10.08"));
+        assertEquals(DeviceCapabilities.MIME_AV1, DeviceCapabilities.mimeForCodec("av01.0.08M.08"));
+        assertNull(DeviceCapabilities.mimeForCodec("mpeg2"));
+    }
+
+    private void store(String fingerprint, int version) throws JSONException {
+        JSONObject hevc = new JSONObject().put("width", 3840).put("height", 2160).put("fps", 60)
+                .put("instances", 7).put("tunneling", true);
+        prefs.edit()
+                .putString("fingerprint", fingerprint)
+                .putInt("version", version)
+                .putString("profile", new JSONObject().put(DeviceCapabilities.MIME_HEVC, hevc).toString())
+                .commit();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.caesartv.data.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// A day of a busy four-zone rotation recorded from the main thread. Room refuses queries on
+// the main thread here, so every row that arrives was written by the log's own thread.
+// Prints the per-call cost; asserts it stays far inside a frame and that nothing is lost.
+@RunWith(RobolectricTestRunner.class)
+public class PlayEventLogLoadTest {
+
+    private static final int EVENTS = 20_000; // Four zones turning over every 15s for most of a day
+    private static final long MAX_MEDIAN_NS = 20_000;
+    private static final long MAX_P99_NS = 1_000_000;
+    private static final long WRITE_TIMEOUT_MS = 30_000;
+
+    private Context context;
+    private SupportSQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        // The open helper is not behind Room's main thread check, so the test can count rows
+        db = AppDatabase.getDatabase(context).getOpenHelper().getWritableDatabase();
+        db.execSQL("DELETE FROM play_event");
+    }
+
+    @Test
+    public void recordFromMainThread_neverWaitsOnTheDatabase() throws InterruptedException {
+        PlayEventLog log = PlayEventLog.getInstance(context);
+        long[] callNs = new long[EVENTS];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < EVENTS; i++) {
+            long startedAt = System.nanoTime();
+            log.record("item-" + i / 4, "asset-" + i, "Zone" + i % 4, i % 4 == 3 ? "image" : "video",
+                    now - 15_000, now, "completed");
+            callNs[i] = System.nanoTime() - startedAt;
+        }
+        log.flush();
+
+        long deadline = System.currentTimeMillis() + WRITE_TIMEOUT_MS;
+        int stored;
+        while ((stored = count()) < EVENTS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        Arrays.sort(callNs);
+        long median = callNs[EVENTS / 2];
+        long p99 = callNs[EVENTS * 99 / 100];
+        System.out.println(String.format(Locale.US, "record() over %d events: median %.2fus, p99 %.2fus, max %.2fms",
+                EVENTS, median / 1e3, p99 / 1e3, callNs[EVENTS - 1] / 1e6));
+        assertEquals("Events lost between the buffer and the table", EVENTS, stored);
+        assertTrue("record() median " + median + "ns", median < MAX_MEDIAN_NS);
+        assertTrue("record() p99 " + p99 + "ns", p99 < MAX_P99_NS);
+    }
+
+    private int count() {
+        try (Cursor cursor = db.query("SELECT COUNT(*) FROM play_event")) {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        }
+    }
+}
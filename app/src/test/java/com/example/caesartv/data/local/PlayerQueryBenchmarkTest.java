@@ -0,0 +1,133 @@
+package com.example.caesartv.data.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// The player's playlist query over 10k rows: lean projection with the indexes from
+// migration 8->9, against the same query with those indexes dropped and against the full
+// entity relation it replaced. Prints medians; asserts the query plans use the indexes.
+@RunWith(RobolectricTestRunner.class)
+public class PlayerQueryBenchmarkTest {
+
+    private static final String DATABASE_NAME = "player-query-benchmark.db";
+    private static final int ITEMS = 10_000;
+    private static final int ROUNDS = 7;
+    private static final String PLAYER_QUERY = "SELECT id, title, mediaType, url, localFilePath, duration, displayOrder, "
+            + "videoWidth, videoHeight, videoCodec, videoFrameRate, videoBitrate, videoDurationMs "
+            + "FROM media WHERE isActive = 1 ORDER BY displayOrder, id";
+    private static final String URL_QUERY = "SELECT * FROM media_url WHERE mediaId IN ('item-00000', 'item-00005')";
+
+    private Context context;
+    private AppDatabase database;
+    private MediaDao mediaDao;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE_NAME);
+        database = Room.databaseBuilder(context, AppDatabase.class, DATABASE_NAME).allowMainThreadQueries().build();
+        mediaDao = database.mediaDao();
+        List<MediaEntity> media = new ArrayList<>();
+        List<MediaUrlEntity> urls = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            String id = String.format(Locale.US, "item-%05d", i);
+            boolean multiple = i % 5 == 0;
+            // Every tenth item inactive, and display order not matching insertion order
+            media.add(new MediaEntity(id, "Title " + i, "A description long enough to cost something to read " + i,
+                    multiple ? "MULTIPLE" : "SINGLE", "https://example.com/" + id + ".mp4", "/data/videos/" + id + ".mp4",
+                    "https://example.com/" + id + ".jpg", 10, (i * 7919) % ITEMS, i % 10 != 0,
+                    "2026-01-01T00:00:00Z", "2026-01-01T00:00:00Z"));
+            if (multiple) {
+                urls.add(new MediaUrlEntity("video", "https://example.com/" + id + "-a.mp4", id + "-a", id, null));
+                urls.add(new MediaUrlEntity("image", "https://example.com/" + id + "-b.jpg", id + "-b", id, null));
+            }
+        }
+        mediaDao.insertAll(media);
+        mediaDao.insertUrls(urls);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void playerQuery_usesIndexesFromMigration() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        assertTrue(plan(db, PLAYER_QUERY).contains("index_media_isActive_displayOrder"));
+        assertTrue(plan(db, URL_QUERY).contains("index_media_url_mediaId"));
+
+        dropIndexes(db);
+        assertFalse(plan(db, URL_QUERY).contains("index_media_url_mediaId"));
+
+        AppDatabase.MIGRATION_8_9.migrate(db);
+        assertTrue(plan(db, PLAYER_QUERY).contains("index_media_isActive_displayOrder"));
+        assertTrue(plan(db, URL_QUERY).contains("index_media_url_mediaId"));
+    }
+
+    @Test
+    public void playerQuery_10kRows() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        int active = ITEMS - ITEMS / 10;
+        assertEquals(active, mediaDao.getPlayerMedia().size()); // Warm up
+
+        long indexedNs = medianNs(() -> assertEquals(active, mediaDao.getPlayerMedia().size()));
+        long fullEntitiesNs = medianNs(() -> assertEquals(active, mediaDao.getAllMedia().size()));
+        dropIndexes(db);
+        long unindexedNs = medianNs(() -> assertEquals(active, mediaDao.getPlayerMedia().size()));
+        AppDatabase.MIGRATION_8_9.migrate(db);
+        long migratedNs = medianNs(() -> assertEquals(active, mediaDao.getPlayerMedia().size()));
+
+        System.out.println(String.format(Locale.US,
+                "Playlist query over %d rows, median of %d: lean+indexed %.1fms, full entities %.1fms, "
+                        + "lean without indexes %.1fms, lean after migration 8->9 %.1fms",
+                ITEMS, ROUNDS, indexedNs / 1e6, fullEntitiesNs / 1e6, unindexedNs / 1e6, migratedNs / 1e6));
+    }
+
+    private static void dropIndexes(SupportSQLiteDatabase db) {
+        db.execSQL("DROP INDEX IF EXISTS index_media_url_mediaId");
+        db.execSQL("DROP INDEX IF EXISTS index_media_isActive_displayOrder");
+    }
+
+    private static String plan(SupportSQLiteDatabase db, String sql) {
+        StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = db.query("EXPLAIN QUERY PLAN " + sql)) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(detail)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+
+    private static long medianNs(Runnable query) {
+        long[] samples = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long startedAt = System.nanoTime();
+            query.run();
+            samples[i] = System.nanoTime() - startedAt;
+        }
+        Arrays.sort(samples);
+        return samples[ROUNDS / 2];
+    }
+}
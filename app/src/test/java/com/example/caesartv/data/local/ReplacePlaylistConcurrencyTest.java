@@ -0,0 +1,133 @@
+package com.example.caesartv.data.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// A writer flips the stored playlist between two catalogs while readers query it. The
+// catalogs overlap by half, so a diff removes, adds and rewrites rows with their URLs; a
+// reader must always see every row of exactly one catalog.
+@RunWith(RobolectricTestRunner.class)
+public class ReplacePlaylistConcurrencyTest {
+
+    private static final String DATABASE_NAME = "replace-playlist-concurrency.db";
+    private static final int ITEMS = 100;
+    private static final int URLS_PER_ITEM = 2;
+    private static final int REPLACEMENTS = 200;
+    private static final int READERS = 3;
+
+    private Context context;
+    private AppDatabase database;
+    private MediaDao mediaDao;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE_NAME);
+        // A file database so readers get their own WAL connections, as on the device
+        database = Room.databaseBuilder(context, AppDatabase.class, DATABASE_NAME).build();
+        mediaDao = database.mediaDao();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void readersNeverSeeHalfAppliedDiff() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(READERS + 1);
+        try {
+            threads.submit(() -> replace("A")).get(30, TimeUnit.SECONDS);
+
+            AtomicBoolean writing = new AtomicBoolean(true);
+            AtomicInteger reads = new AtomicInteger();
+            CountDownLatch readersStarted = new CountDownLatch(READERS);
+            List<Future<?>> readers = new ArrayList<>();
+            for (int i = 0; i < READERS; i++) {
+                readers.add(threads.submit(() -> {
+                    readersStarted.countDown();
+                    while (writing.get()) {
+                        assertConsistent(mediaDao.getAllMedia());
+                        reads.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            Future<?> writer = threads.submit(() -> {
+                try {
+                    readersStarted.await();
+                    for (int i = 0; i < REPLACEMENTS; i++) {
+                        replace(i % 2 == 0 ? "B" : "A");
+                    }
+                } finally {
+                    writing.set(false);
+                }
+                return null;
+            });
+
+            writer.get(2, TimeUnit.MINUTES);
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS); // Rethrows a reader's assertion failure
+            }
+            System.out.println(reads.get() + " consistent reads during " + REPLACEMENTS + " playlist replacements");
+            assertTrue("Readers did not overlap the writer", reads.get() > READERS);
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    // Catalog A holds items 0..99 and B items 50..149; titles and URLs carry the catalog name
+    private PlaylistDiff replace(String catalog) {
+        int first = "A".equals(catalog) ? 0 : ITEMS / 2;
+        List<MediaEntity> media = new ArrayList<>();
+        List<MediaUrlEntity> urls = new ArrayList<>();
+        for (int i = first; i < first + ITEMS; i++) {
+            String id = String.format(Locale.US, "item-%03d", i);
+            media.add(new MediaEntity(id, catalog, null, "MULTIPLE", "https://example.com/" + catalog + "/" + id,
+                    null, null, 10, i, true, null, null));
+            for (int j = 0; j < URLS_PER_ITEM; j++) {
+                urls.add(new MediaUrlEntity("video", "https://example.com/" + catalog + "/" + id + "/" + j,
+                        id + "-" + j, id, null));
+            }
+        }
+        return mediaDao.replacePlaylist(media, urls);
+    }
+
+    private static void assertConsistent(List<MediaWithUrls> rows) {
+        assertEquals("Item count of a half-applied diff", ITEMS, rows.size());
+        String catalog = rows.get(0).media.title;
+        int first = "A".equals(catalog) ? 0 : ITEMS / 2;
+        for (MediaWithUrls row : rows) {
+            assertEquals("Rows from two catalogs in one read", catalog, row.media.title);
+            int index = Integer.parseInt(row.media.id.substring("item-".length()));
+            assertTrue("Item " + row.media.id + " is not in catalog " + catalog, index >= first && index < first + ITEMS);
+            assertEquals("URL rows of " + row.media.id, URLS_PER_ITEM, row.urls.size());
+            for (MediaUrlEntity url : row.urls) {
+                assertTrue("URL of the other catalog on " + row.media.id, url.url.contains("/" + catalog + "/"));
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.caesartv.data.peer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.caesartv.data.cache.ContentHash;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Two peers in one JVM on the loopback interface: A announces what it caches and serves it,
+// B discovers A and fetches by content hash like a screen that would otherwise download.
+@RunWith(RobolectricTestRunner.class)
+public class PeerCacheLoopbackTest {
+
+    private static final long DISCOVERY_TIMEOUT_MS = 5000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Map<String, File> servedByA = new ConcurrentHashMap<>();
+    private InetAddress group;
+    private int discoveryPort;
+    private NetworkInterface loopback;
+    private PeerCacheServer serverA;
+    private PeerDiscovery discoveryA;
+    private PeerDiscovery discoveryB;
+
+    @Before
+    public void setUp() throws IOException {
+        group = InetAddress.getByName(PeerDiscovery.DEFAULT_GROUP);
+        discoveryPort = 40000 + new Random().nextInt(10000); // Away from a real peer cache on this host
+        loopback = NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress());
+        if (loopback != null && !loopback.supportsMulticast()) {
+            loopback = null;
+        }
+        serverA = new PeerCacheServer(servedByA::get);
+        discoveryB = new PeerDiscovery("peer-b", group, discoveryPort, loopback);
+        discoveryB.start(0, Collections::emptySet);
+    }
+
+    @After
+    public void tearDown() {
+        discoveryB.stop();
+        if (discoveryA != null) {
+            discoveryA.stop();
+        }
+        serverA.stop();
+    }
+
+    @Test
+    public void peerServesCachedFileByHash() throws Exception {
+        File original = writeRandom("a/video.mp4", 300 * 1024);
+        String hash = ContentHash.ofFile(original);
+        servedByA.put(hash, original);
+        startPeerA();
+
+        File target = new File(folder.newFolder("b"), "video.mp4");
+        assertTrue(PeerCache.fetchFrom(awaitPeersWith(hash), hash, target, original.length()));
+        assertArrayEquals(Files.readAllBytes(original.toPath()), Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void copyNotMatchingItsHashIsRejected() throws Exception {
+        File original = writeRandom("a/video.mp4", 300 * 1024);
+        String hash = ContentHash.ofFile(original);
+        // Corrupted on A's disk after it was indexed; same size, so only the hash tells
+        try (RandomAccessFile corrupt = new RandomAccessFile(original, "rw")) {
+            corrupt.seek(1000);
+            corrupt.write(corrupt.read() ^ 0xFF);
+        }
+        servedByA.put(hash, original);
+        startPeerA();
+
+        File target = new File(folder.newFolder("b"), "video.mp4");
+        assertFalse(PeerCache.fetchFrom(awaitPeersWith(hash), hash, target, original.length()));
+        assertFalse("Rejected copy must not be left for the player", target.exists());
+    }
+
+    @Test
+    public void unknownHashIsNotServed() throws Exception {
+        File original = writeRandom("a/video.mp4", 64 * 1024);
+        String hash = ContentHash.ofFile(original);
+        servedByA.put(hash, original);
+        startPeerA();
+        List<InetSocketAddress> peers = awaitPeersWith(hash);
+        servedByA.clear(); // Evicted on A between its announcement and B's request
+
+        File target = new File(folder.newFolder("b"), "video.mp4");
+        assertFalse(PeerCache.fetchFrom(peers, hash, target, original.length()));
+        assertFalse(target.exists());
+    }
+
+    // A announces on start, so it starts once its files are in place
+    private void startPeerA() throws IOException {
+        int serverPort = serverA.start(null, 0); // Announcements may arrive from a non-loopback source address
+        discoveryA = new PeerDiscovery("peer-a", group, discoveryPort, loopback);
+        discoveryA.start(serverPort, servedByA::keySet);
+    }
+
+    private List<InetSocketAddress> awaitPeersWith(String hash) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + DISCOVERY_TIMEOUT_MS;
+        List<InetSocketAddress> peers = discoveryB.peersWith(hash);
+        while (peers.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            peers = discoveryB.peersWith(hash);
+        }
+        assertFalse("Peer B never heard A announce " + hash, peers.isEmpty());
+        return peers;
+    }
+
+    private File writeRandom(String name, int size) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        file.getParentFile().mkdirs();
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+        }
+        return file;
+    }
+}
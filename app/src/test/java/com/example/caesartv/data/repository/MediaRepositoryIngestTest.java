@@ -0,0 +1,168 @@
+package com.example.caesartv.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.caesartv.data.cache.Mp4Fixtures;
+import com.example.caesartv.data.device.DeviceCapabilities;
+import com.example.caesartv.data.local.AppDatabase;
+import com.example.caesartv.data.local.MediaDao;
+import com.example.caesartv.data.local.MediaEntity;
+import com.example.caesartv.data.local.MediaUrlEntity;
+import com.example.caesartv.data.local.VideoColumns;
+import com.example.caesartv.data.remote.WebSocketDataSource;
+import com.example.caesartv.domain.model.MediaItem;
+import com.example.caesartv.domain.model.MediaUrl;
+import com.example.caesartv.domain.model.VideoMetadata;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Video metadata is read once, when a file is committed to the cache or on the first sync
+// after the columns were added, and comes back from Room with the playlist. Files are MP4
+// fixtures served from the loopback interface.
+@RunWith(RobolectricTestRunner.class)
+public class MediaRepositoryIngestTest {
+
+    private Context context;
+    private AppDatabase database;
+    private MediaDao mediaDao;
+    private MediaRepositoryImpl repository;
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).allowMainThreadQueries().build();
+        mediaDao = database.mediaDao();
+        repository = new MediaRepositoryImpl(new WebSocketDataSource(context), mediaDao, context,
+                Executors.newSingleThreadExecutor());
+        byte[] mp4 = Mp4Fixtures.file();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            exchange.getResponseHeaders().set("Content-Type", "video/mp4");
+            exchange.sendResponseHeaders(200, mp4.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(mp4);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        database.close();
+    }
+
+    @Test
+    public void committedVideos_storeWhatTheFileHolds() {
+        MediaUrl zone = new MediaUrl("video", url("zone.mp4"), "zone");
+        List<MediaItem> catalog = Arrays.asList(
+                item("single", "SINGLE", url("single.mp4"), new ArrayList<>(), 0),
+                item("multiple", "MULTIPLE", null, new ArrayList<>(Collections.singletonList(zone)), 1));
+
+        assertTrue(repository.syncCatalog(catalog, progress()));
+
+        assertEquals("Both files downloaded", 2, requests.get());
+        for (MediaEntity row : mediaDao.getAllMediaEntities()) {
+            if (row.id.equals("single")) {
+                assertFixture(row.video);
+            }
+        }
+        List<MediaUrlEntity> urls = mediaDao.getAllUrlEntities();
+        assertEquals(1, urls.size());
+        assertFixture(urls.get(0).video);
+
+        // Routing reads it from the playlist, without opening the files
+        for (MediaItem item : repository.getCachedMedia()) {
+            VideoMetadata metadata = item.getId().equals("single") ? item.getVideoMetadata()
+                    : item.getMultipleUrl().get(0).getVideoMetadata();
+            assertNotNull(item.getId(), metadata);
+            assertEquals(Mp4Fixtures.WIDTH, metadata.getWidth());
+            assertEquals(DeviceCapabilities.MIME_AVC, metadata.getCodec());
+        }
+    }
+
+    // Cached by an older build: inspected on the next sync, then never opened for metadata again
+    @Test
+    public void videoCachedBeforeTheColumns_isInspectedOnce() throws IOException {
+        File cached = new File(new File(context.getFilesDir(), "videos"), "single.mp4");
+        cached.getParentFile().mkdirs();
+        try (FileOutputStream out = new FileOutputStream(cached)) {
+            out.write(Mp4Fixtures.file());
+        }
+        List<MediaItem> catalog = Collections.singletonList(item("single", "SINGLE", url("single.mp4"), new ArrayList<>(), 0));
+
+        assertTrue(repository.syncCatalog(catalog, progress()));
+        assertEquals("Downloaded a file already in the cache", 0, requests.get());
+        assertFixture(mediaDao.getAllMediaEntities().get(0).video);
+
+        // Headers wiped at the same size and mtime: another read would find no video track
+        long lastModified = cached.lastModified();
+        try (FileOutputStream out = new FileOutputStream(cached)) {
+            out.write(new byte[Mp4Fixtures.file().length]);
+        }
+        assertTrue(cached.setLastModified(lastModified));
+
+        assertTrue(repository.syncCatalog(catalog, progress()));
+        assertFixture(mediaDao.getAllMediaEntities().get(0).video);
+    }
+
+    private static void assertFixture(VideoColumns columns) {
+        assertNotNull(columns);
+        assertEquals(Mp4Fixtures.WIDTH, columns.videoWidth);
+        assertEquals(Mp4Fixtures.HEIGHT, columns.videoHeight);
+        assertEquals(DeviceCapabilities.MIME_AVC, columns.videoCodec);
+        assertEquals(25f, columns.videoFrameRate, 0.01f);
+        assertEquals(Mp4Fixtures.DURATION_MS, columns.videoDurationMs);
+        assertTrue(columns.videoBitrate > 0);
+    }
+
+    private String url(String name) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/" + name;
+    }
+
+    private static MediaItem item(String id, String type, String url, List<MediaUrl> urls, int order) {
+        return new MediaItem(id, id, null, type, url, urls, null, 10, order, true, null, null);
+    }
+
+    private static MediaRepositoryImpl.SyncProgress progress() {
+        return new MediaRepositoryImpl.SyncProgress() {
+            @Override
+            public boolean isStopped() {
+                return false;
+            }
+
+            @Override
+            public void onProgress(int completedItems, int totalItems) {
+            }
+        };
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.caesartv.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.caesartv.data.cache.ContentHash;
+import com.example.caesartv.data.local.AppDatabase;
+import com.example.caesartv.data.local.CachedFileEntity;
+import com.example.caesartv.data.local.MediaDao;
+import com.example.caesartv.data.local.MediaEntity;
+import com.example.caesartv.data.local.MediaUrlEntity;
+import com.example.caesartv.data.remote.WebSocketDataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// 500 cached files whose mtime moved, so every one is re-hashed; a few were corrupted in
+// place at the same size. Media rows and the URL rows of MULTIPLE items are interleaved,
+// the order verifyCachedFiles queues them in. A second pass over the unchanged files must
+// re-inspect none of them, and results must not undo rows the sync rewrote meanwhile.
+@RunWith(RobolectricTestRunner.class)
+public class MediaRepositoryVerificationTest {
+
+    private static final int PAIRS = 125; // A SINGLE item and a MULTIPLE item with two URLs: 4 files
+    private static final int FILE_SIZE = 64 * 1024;
+    private static final int CORRUPT_EVERY = 7;
+
+    private Context context;
+    private AppDatabase database;
+    private MediaDao mediaDao;
+    private File cacheDir;
+    private final Set<String> corruptPaths = new HashSet<>();
+    private final Random random = new Random(42);
+    private int fileCount;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).allowMainThreadQueries().build();
+        mediaDao = database.mediaDao();
+        cacheDir = new File(context.getCacheDir(), "verification-fixture");
+        cacheDir.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        File[] files = cacheDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        cacheDir.delete();
+    }
+
+    @Test
+    public void verifyCachedFiles_clearsExactlyTheCorruptRows() throws Exception {
+        seedFixture();
+
+        verify();
+
+        int cleared = 0;
+        for (MediaEntity row : mediaDao.getAllMediaEntities()) {
+            cleared += assertRow(row.id, expectedPath(row.id), row.localFilePath);
+        }
+        for (MediaUrlEntity row : mediaDao.getAllUrlEntities()) {
+            cleared += assertRow(row.id, expectedPath(row.id), row.localFilePath);
+        }
+        assertEquals(corruptPaths.size(), cleared);
+
+        // The intact files are re-fingerprinted at their new mtime and skipped next time
+        for (CachedFileEntity fingerprint : mediaDao.getAllCachedFiles()) {
+            if (!corruptPaths.contains(fingerprint.path)) {
+                assertTrue(fingerprint.isValid);
+                assertEquals(new File(fingerprint.path).lastModified(), fingerprint.lastModified);
+            }
+        }
+    }
+
+    @Test
+    public void secondPass_reinspectsNothing() throws Exception {
+        seedFixture();
+        long firstPassMs = verify();
+        Map<String, Long> verifiedAt = verifiedAtByPath();
+        assertEquals(fileCount, verifiedAt.size());
+
+        Thread.sleep(5); // A file inspected again would get a later verifiedAt
+        long secondPassMs = verify();
+
+        assertEquals("Files inspected again", verifiedAt, verifiedAtByPath());
+        assertTrue("Second pass took " + secondPassMs + "ms, the first " + firstPassMs + "ms",
+                secondPassMs < firstPassMs);
+    }
+
+    // The sync replaces the playlist while the files are hashed: the results are for the rows
+    // as they were read, and must neither bring back an old path nor revert other columns
+    @Test
+    public void verificationResults_leaveRowsTheSyncRewrote() throws Exception {
+        List<CachedFileEntity> fingerprints = new ArrayList<>();
+        MediaEntity kept = mediaRow("kept", "SINGLE", 0, fingerprints);
+        MediaEntity rewritten = mediaRow("rewritten", "MULTIPLE", 1, fingerprints);
+        MediaUrlEntity url = new MediaUrlEntity("video", "https://example.com/u.mp4", "u", rewritten.id,
+                writeFixture("u", fingerprints));
+        mediaDao.insertAll(Arrays.asList(kept, rewritten));
+        mediaDao.insertUrls(Collections.singletonList(url));
+        List<MediaEntity> readMedia = mediaDao.getAllMediaEntities();
+        List<MediaUrlEntity> readUrls = mediaDao.getAllUrlEntities();
+
+        MediaEntity synced = mediaRow("rewritten", "MULTIPLE", 1, fingerprints);
+        synced.title = "Rewritten by the sync";
+        synced.localFilePath = writeFixture("rewritten-v2", fingerprints);
+        MediaUrlEntity syncedUrl = new MediaUrlEntity("video", "https://example.com/u2.mp4", "u", synced.id,
+                writeFixture("u-v2", fingerprints));
+        mediaDao.replacePlaylist(Arrays.asList(kept, synced), Collections.singletonList(syncedUrl));
+
+        int cleared = mediaDao.applyVerificationResults(readMedia, readUrls, Collections.emptyList());
+
+        assertEquals("Only the row still on its checked path is cleared", 1, cleared);
+        for (MediaEntity row : mediaDao.getAllMediaEntities()) {
+            if (row.id.equals("kept")) {
+                assertNull(row.localFilePath);
+            } else {
+                assertEquals(synced.localFilePath, row.localFilePath);
+                assertEquals("Rewritten by the sync", row.title);
+            }
+        }
+        List<MediaUrlEntity> urls = mediaDao.getAllUrlEntities();
+        assertEquals(1, urls.size());
+        assertEquals(syncedUrl.localFilePath, urls.get(0).localFilePath);
+        assertEquals("https://example.com/u2.mp4", urls.get(0).url);
+    }
+
+    private void seedFixture() throws IOException {
+        List<MediaEntity> media = new ArrayList<>();
+        List<MediaUrlEntity> urls = new ArrayList<>();
+        List<CachedFileEntity> fingerprints = new ArrayList<>();
+        int order = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            media.add(mediaRow("single-" + i, "SINGLE", order++, fingerprints));
+            MediaEntity multiple = mediaRow("multiple-" + i, "MULTIPLE", order++, fingerprints);
+            media.add(multiple);
+            urls.add(new MediaUrlEntity("video", "https://example.com/" + i + "-a.mp4", "url-" + i + "-a",
+                    multiple.id, writeFixture("url-" + i + "-a", fingerprints)));
+            urls.add(new MediaUrlEntity("image", "https://example.com/" + i + "-b.jpg", "url-" + i + "-b",
+                    multiple.id, writeFixture("url-" + i + "-b", fingerprints)));
+        }
+        mediaDao.insertAll(media);
+        mediaDao.insertUrls(urls);
+        mediaDao.upsertCachedFiles(fingerprints);
+        assertEquals(500, fileCount);
+    }
+
+    // One verifyCachedFiles run to completion; returns how long it took
+    private long verify() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        MediaRepositoryImpl repository = new MediaRepositoryImpl(new WebSocketDataSource(context), mediaDao, context, executor);
+        long startedAt = System.nanoTime();
+        repository.verifyCachedFiles();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+    }
+
+    private Map<String, Long> verifiedAtByPath() {
+        Map<String, Long> verifiedAt = new HashMap<>();
+        for (CachedFileEntity fingerprint : mediaDao.getAllCachedFiles()) {
+            verifiedAt.put(fingerprint.path, fingerprint.verifiedAt);
+        }
+        return verifiedAt;
+    }
+
+    private int assertRow(String id, String path, String actual) {
+        if (corruptPaths.contains(path)) {
+            assertNull("Corrupt file kept on " + id, actual);
+            return 1;
+        }
+        assertNotNull("Intact file cleared on " + id, actual);
+        assertEquals(path, actual);
+        return 0;
+    }
+
+    private String expectedPath(String id) {
+        return new File(cacheDir, id).getAbsolutePath();
+    }
+
+    private MediaEntity mediaRow(String id, String type, int order, List<CachedFileEntity> fingerprints) throws IOException {
+        return new MediaEntity(id, id, null, type, "https://example.com/" + id + ".mp4",
+                writeFixture(id, fingerprints), null, 10, order, true, null, null);
+    }
+
+    // Writes the file, records the fingerprint it had when downloaded, then moves its mtime
+    // and corrupts every CORRUPT_EVERY-th one without changing its size
+    private String writeFixture(String name, List<CachedFileEntity> fingerprints) throws IOException {
+        File file = new File(cacheDir, name);
+        byte[] bytes = new byte[FILE_SIZE];
+        random.nextBytes(bytes);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+        }
+        long downloadedAt = file.lastModified() - 60_000;
+        fingerprints.add(new CachedFileEntity(file.getAbsolutePath(), name, ContentHash.ofFile(file), null,
+                file.length(), downloadedAt, downloadedAt, true));
+        if (fileCount++ % CORRUPT_EVERY == 0) {
+            try (RandomAccessFile corrupt = new RandomAccessFile(file, "rw")) {
+                corrupt.seek(FILE_SIZE / 2);
+                corrupt.write(~bytes[FILE_SIZE / 2]);
+            }
+            corruptPaths.add(file.getAbsolutePath());
+        }
+        return file.getAbsolutePath();
+    }
+}
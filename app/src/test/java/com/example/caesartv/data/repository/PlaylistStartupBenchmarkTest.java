@@ -0,0 +1,129 @@
+package com.example.caesartv.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.caesartv.data.local.AppDatabase;
+import com.example.caesartv.data.local.MediaEntity;
+import com.example.caesartv.data.local.MediaUrlEntity;
+import com.example.caesartv.data.local.PlaylistSnapshot;
+import com.example.caesartv.data.remote.WebSocketDataSource;
+import com.example.caesartv.domain.model.MediaItem;
+import com.example.caesartv.domain.repository.PlaylistCursor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Cold start, time to first setMediaItem: a fresh database and repository, then the first
+// playlist item turned into the player's MediaItem. The snapshot path never opens Room;
+// the Room path opens the database and runs the first keyset page.
+@RunWith(RobolectricTestRunner.class)
+public class PlaylistStartupBenchmarkTest {
+
+    private static final String DATABASE_NAME = "startup-benchmark.db";
+    private static final int ITEMS = 500; // The largest playlist a snapshot is written for
+    private static final int ROUNDS = 15;
+
+    private Context context;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @Before
+    public void setUp() throws Exception {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE_NAME);
+        AppDatabase database = openDatabase();
+        List<MediaEntity> media = new ArrayList<>();
+        List<MediaUrlEntity> urls = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            String id = String.format(Locale.US, "media-%04d", i);
+            boolean multiple = i % 5 == 0;
+            media.add(new MediaEntity(id, "Title " + i, "Description " + i, multiple ? "MULTIPLE" : "SINGLE",
+                    "https://example.com/" + id + ".mp4", "/data/videos/" + id + ".mp4", null, 10, i, true,
+                    "2026-01-01", "2026-01-01"));
+            if (multiple) {
+                urls.add(new MediaUrlEntity("video", "https://example.com/" + id + "-a.mp4", id + "-a", id, null));
+                urls.add(new MediaUrlEntity("image", "https://example.com/" + id + "-b.jpg", id + "-b", id, null));
+            }
+        }
+        database.mediaDao().insertAll(media);
+        database.mediaDao().insertUrls(urls);
+        new PlaylistSnapshot(context).save(repository(database).getCachedMedia());
+        database.close();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        new PlaylistSnapshot(context).clear();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void timeToFirstMediaItem_snapshotVersusRoom() {
+        long[] snapshotNs = new long[ROUNDS];
+        long[] roomNs = new long[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            // Alternated so neither path always runs with warmer caches
+            if (round % 2 == 0) {
+                snapshotNs[round] = firstMediaItemNs(true);
+                roomNs[round] = firstMediaItemNs(false);
+            } else {
+                roomNs[round] = firstMediaItemNs(false);
+                snapshotNs[round] = firstMediaItemNs(true);
+            }
+        }
+        long snapshotMedian = median(snapshotNs);
+        long roomMedian = median(roomNs);
+        System.out.println(String.format(Locale.US,
+                "Time to first setMediaItem over %d items, median of %d cold starts: snapshot %.2fms, Room %.2fms",
+                ITEMS, ROUNDS, snapshotMedian / 1e6, roomMedian / 1e6));
+        assertTrue(snapshotMedian > 0 && roomMedian > 0);
+    }
+
+    private long firstMediaItemNs(boolean fromSnapshot) {
+        WebSocketDataSource webSocketDataSource = new WebSocketDataSource(context);
+        long startedAt = System.nanoTime();
+        AppDatabase database = openDatabase(); // Room opens lazily, on the first query
+        MediaRepositoryImpl repository = new MediaRepositoryImpl(webSocketDataSource, database.mediaDao(), context, executor);
+        PlaylistCursor cursor = fromSnapshot ? repository.openSnapshotCursor() : repository.openPlaylistCursor(null);
+        assertNotNull(cursor);
+        MediaItem first = cursor.next();
+        androidx.media3.common.MediaItem playerItem = androidx.media3.common.MediaItem.fromUri(Uri.parse(first.getUrl()));
+        long elapsedNs = System.nanoTime() - startedAt;
+        database.close();
+        assertEquals("media-0000", first.getId());
+        assertNotNull(playerItem.localConfiguration);
+        return elapsedNs;
+    }
+
+    private AppDatabase openDatabase() {
+        return Room.databaseBuilder(context, AppDatabase.class, DATABASE_NAME).allowMainThreadQueries().build();
+    }
+
+    private MediaRepositoryImpl repository(AppDatabase database) {
+        return new MediaRepositoryImpl(new WebSocketDataSource(context), database.mediaDao(), context, executor);
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.caesartv.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.caesartv.data.local.AppDatabase;
+import com.example.caesartv.data.local.MediaEntity;
+import com.example.caesartv.data.remote.WebSocketDataSource;
+import com.example.caesartv.domain.model.MediaItem;
+import com.example.caesartv.domain.repository.PlaylistCursor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Walking a large catalog through the cursor must keep heap flat: only the look-ahead window
+// is live, however far the walk has got. Loading the same catalog as a list is the contrast.
+@RunWith(RobolectricTestRunner.class)
+public class RoomPlaylistCursorHeapTest {
+
+    private static final String DATABASE_NAME = "cursor-heap.db";
+    private static final int ITEMS = 20_000;
+    private static final int TITLE_LENGTH = 2048; // About 2 KB per item on the heap
+    private static final int SAMPLE_EVERY = 2_000;
+    private static final long MAX_GROWTH_BYTES = 8L * 1024 * 1024; // Slack for log lines queued for upload
+
+    private Context context;
+    private AppDatabase database;
+    private MediaRepositoryImpl repository;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE_NAME);
+        database = Room.databaseBuilder(context, AppDatabase.class, DATABASE_NAME).allowMainThreadQueries().build();
+        char[] padding = new char[TITLE_LENGTH];
+        Arrays.fill(padding, 'x');
+        String title = new String(padding);
+        List<MediaEntity> batch = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            String id = String.format(Locale.US, "item-%05d", i);
+            batch.add(new MediaEntity(id, title + i, null, "SINGLE", "https://example.com/" + id + ".mp4",
+                    null, null, 10, i, true, null, null));
+            if (batch.size() == 1_000) {
+                database.mediaDao().insertAll(batch);
+                batch.clear();
+            }
+        }
+        repository = new MediaRepositoryImpl(new WebSocketDataSource(context), database.mediaDao(), context, executor);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        database.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void walkingLargeCatalog_keepsHeapConstant() {
+        PlaylistCursor cursor = repository.openPlaylistCursor(null);
+        long baseline = usedHeapAfterGc();
+        long peak = baseline;
+        int walked = 0;
+        while (cursor.next() != null) {
+            walked++;
+            if (walked % SAMPLE_EVERY == 0) {
+                peak = Math.max(peak, usedHeapAfterGc());
+            }
+        }
+        assertEquals(ITEMS, walked);
+
+        List<MediaItem> all = repository.getCachedMedia();
+        long fullList = usedHeapAfterGc() - baseline;
+        assertEquals(ITEMS, all.size());
+
+        System.out.println(String.format(Locale.US,
+                "Walked %d items: peak retained heap +%.1fMB over the start; the catalog as a list retains +%.1fMB",
+                ITEMS, (peak - baseline) / 1048576.0, fullList / 1048576.0));
+        assertTrue("Heap grew with the walk: +" + (peak - baseline) + " bytes", peak - baseline < MAX_GROWTH_BYTES);
+        assertTrue("Catalog too small to tell the two apart", fullList > 3 * MAX_GROWTH_BYTES);
+        assertNotNull(all.get(ITEMS - 1)); // Keeps the list reachable until it was measured
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.caesartv.data.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
+
+// A leader and two followers in one JVM on the loopback interface, each on its own clock:
+// offset by seconds and running fast or slow. Followers must agree with the leader's clock,
+// and a follower looping a one-item playlist must take each start of the item for its own pass.
+// A follower that missed the start datagram catches up from the leader's repeats.
+@RunWith(RobolectricTestRunner.class)
+public class SyncLinkLoopbackTest {
+
+    private static final long TIMEOUT_MS = 5000;
+    private static final long TOLERANCE_US = 5_000; // Loopback round trips are well under a millisecond
+    private static final String ITEM = "only-item";
+    private static final long REPEAT_WAIT_MS = 2500; // Two repeat intervals and change
+
+    private InetAddress multicastGroup;
+    private int port;
+    private String groupName;
+    private NetworkInterface loopback;
+
+    private final List<SyncLink> links = new ArrayList<>();
+    private SyncLink leader;
+    private SyncLink fastFollower;
+    private SyncLink slowFollower;
+
+    // A box clock: its own zero and a crystal that is off by some parts per million
+    private static final class SkewedClock implements SyncLink.Clock {
+        private final long baseNanos = System.nanoTime();
+        private final long offsetUs;
+        private final double rate;
+
+        SkewedClock(long offsetUs, double driftPpm) {
+            this.offsetUs = offsetUs;
+            this.rate = 1 + driftPpm / 1_000_000;
+        }
+
+        @Override
+        public long nowUs() {
+            return offsetUs + (long) ((System.nanoTime() - baseNanos) / 1000 * rate);
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        multicastGroup = InetAddress.getByName(SyncLink.DEFAULT_GROUP);
+        Random random = new Random();
+        port = 40000 + random.nextInt(10000); // Away from a real sync group on this host
+        groupName = "test-" + random.nextInt(1_000_000);
+        loopback = NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress());
+        if (loopback != null && !loopback.supportsMulticast()) {
+            loopback = null;
+        }
+        leader = start(new SyncLink("leader", groupName, true, multicastGroup, port, loopback,
+                new SkewedClock(1_000_000_000L, 0)));
+        fastFollower = start(new SyncLink("fast", groupName, false, multicastGroup, port, loopback,
+                new SkewedClock(1_003_700_000L, 150)));
+        slowFollower = start(new SyncLink("slow", groupName, false, multicastGroup, port, loopback,
+                new SkewedClock(987_400_000L, -200)));
+    }
+
+    @After
+    public void tearDown() {
+        for (SyncLink link : links) {
+            link.stop();
+        }
+    }
+
+    @Test
+    public void followersAgreeWithLeaderClock() throws Exception {
+        await("followers synced", () -> fastFollower.isSynced() && slowFollower.isSynced());
+        // Let the estimators see a few exchanges, then sample while the clocks drift apart
+        Thread.sleep(2500);
+        for (int i = 0; i < 20; i++) {
+            for (SyncLink follower : new SyncLink[]{fastFollower, slowFollower}) {
+                long leaderUs = leader.groupTimeUs();
+                long followerUs = follower.groupTimeUs();
+                long errorUs = Math.abs(followerUs - leaderUs);
+                assertTrue("Follower off the group clock by " + errorUs + "us", errorUs < TOLERANCE_US);
+                assertTrue("Error bound of " + follower.offsetErrorBoundUs() + "us",
+                        follower.offsetErrorBoundUs() < TOLERANCE_US);
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    @Test
+    public void announcedStartIsOneInstantOnEveryScreen() throws Exception {
+        await("followers synced", () -> fastFollower.isSynced() && slowFollower.isSynced());
+        long startUs = leader.groupTimeUs() + 1_500_000;
+        leader.announceStart(ITEM, startUs, true);
+
+        await("announcement heard", () -> fastFollower.announcedStartUs(ITEM) != null
+                && slowFollower.announcedStartUs(ITEM) != null);
+        assertEquals(startUs, (long) fastFollower.announcedStartUs(ITEM));
+        assertEquals(startUs, (long) slowFollower.announcedStartUs(ITEM));
+        long leaderWaitUs = startUs - leader.groupTimeUs();
+        long fastWaitUs = startUs - fastFollower.groupTimeUs();
+        long slowWaitUs = startUs - slowFollower.groupTimeUs();
+        assertTrue("Screens disagree on the time to start", Math.abs(fastWaitUs - leaderWaitUs) < TOLERANCE_US
+                && Math.abs(slowWaitUs - leaderWaitUs) < TOLERANCE_US);
+    }
+
+    // The follower loops back onto the item before the leader has announced its next pass
+    @Test
+    public void followerAhead_doesNotAdoptThePreviousPass() throws Exception {
+        long firstUs = leader.groupTimeUs() + 1_500_000;
+        leader.announceStart(ITEM, firstUs, true);
+        await("first pass heard", () -> fastFollower.announcedStartUs(ITEM) != null);
+        assertEquals(firstUs, (long) fastFollower.announcedStartUs(ITEM));
+        fastFollower.finishPlay(ITEM);
+
+        assertNull("Took the start of the pass already played", fastFollower.announcedStartUs(ITEM));
+
+        long secondUs = firstUs + 4_000_000;
+        leader.announceStart(ITEM, secondUs, true);
+        await("second pass heard", () -> fastFollower.announcedStartUs(ITEM) != null);
+        assertEquals(secondUs, (long) fastFollower.announcedStartUs(ITEM));
+    }
+
+    // The leader's next pass is announced while the follower is still playing the current one
+    @Test
+    public void leaderAhead_nextPassWaitsForTheFollowersLoop() throws Exception {
+        long firstUs = leader.groupTimeUs() + 1_500_000;
+        leader.announceStart(ITEM, firstUs, true);
+        await("first pass heard", () -> slowFollower.announcedStartUs(ITEM) != null);
+
+        long secondUs = firstUs + 4_000_000;
+        leader.announceStart(ITEM, secondUs, true);
+        awaitDelivery();
+        assertEquals("Jumped to the next pass mid-play", firstUs, (long) slowFollower.announcedStartUs(ITEM));
+
+        slowFollower.finishPlay(ITEM);
+        assertEquals(secondUs, (long) slowFollower.announcedStartUs(ITEM));
+    }
+
+    // A rebase on the leader moves the start of the play in progress
+    @Test
+    public void reannouncedPlay_replacesItsStart() throws Exception {
+        long firstUs = leader.groupTimeUs() + 1_500_000;
+        leader.announceStart(ITEM, firstUs, true);
+        await("start heard", () -> fastFollower.announcedStartUs(ITEM) != null);
+
+        long movedUs = firstUs + 120_000;
+        leader.announceStart(ITEM, movedUs, false);
+        await("moved start heard", () -> Long.valueOf(movedUs).equals(fastFollower.announcedStartUs(ITEM)));
+    }
+
+    // Played on the follower's own clock, e.g. before it had synced: what it heard meanwhile is stale next time
+    @Test
+    public void playNotFollowed_rulesOutWhatWasHeard() throws Exception {
+        long firstUs = leader.groupTimeUs() + 1_500_000;
+        leader.announceStart(ITEM, firstUs, true);
+        awaitDelivery();
+
+        slowFollower.finishPlay(ITEM);
+        assertNull(slowFollower.announcedStartUs(ITEM));
+        assertEquals("Only the screen that played on its own rules it out", firstUs, (long) fastFollower.announcedStartUs(ITEM));
+    }
+
+    // Joining after the announcement went out is the same as losing its datagram
+    @Test
+    public void lostAnnouncement_isRecoveredFromTheRepeat() throws Exception {
+        long startUs = leader.groupTimeUs() + 1_500_000;
+        leader.announceStart(ITEM, startUs, true);
+        awaitDelivery();
+
+        SyncLink late = start(new SyncLink("late", groupName, false, multicastGroup, port, loopback,
+                new SkewedClock(1_010_000_000L, 80)));
+        await("repeat heard", () -> late.announcedStartUs(ITEM) != null);
+        assertEquals(startUs, (long) late.announcedStartUs(ITEM));
+    }
+
+    @Test
+    public void finishedPlay_isNoLongerRepeated() throws Exception {
+        leader.announceStart(ITEM, leader.groupTimeUs() + 1_500_000, true);
+        leader.finishPlay(ITEM);
+        awaitDelivery(); // The announcement itself is gone before the late follower joins
+
+        SyncLink late = start(new SyncLink("late", groupName, false, multicastGroup, port, loopback,
+                new SkewedClock(1_010_000_000L, 80)));
+        Thread.sleep(REPEAT_WAIT_MS);
+        assertNull("Repeated a play the leader had finished", late.announcedStartUs(ITEM));
+    }
+
+    // For checks that must not ask a follower first, since asking ties it to what it has heard
+    private static void awaitDelivery() throws InterruptedException {
+        Thread.sleep(300); // Loopback delivery takes well under a millisecond
+    }
+
+    private SyncLink start(SyncLink link) throws IOException {
+        link.start();
+        links.add(link);
+        return link;
+    }
+
+    private static void await(String what, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            assertTrue("Timed out waiting for " + what, System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.caesartv.presentation.main;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.caesartv.domain.model.MediaItem;
+import com.example.caesartv.domain.repository.MediaRepository;
+import com.example.caesartv.domain.repository.PlaylistCursor;
+import com.example.caesartv.domain.usecase.FetchMediaUseCase;
+import com.example.caesartv.domain.usecase.GetCachedMediaUseCase;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// MainActivity starts the player whenever getHasCachedMedia() emits true, so it must emit
+// on the false -> true edge only, not on every invalidation of the media table
+@RunWith(RobolectricTestRunner.class)
+public class MainViewmodelTest {
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private final MutableLiveData<Integer> activeMediaCount = new MutableLiveData<>();
+    private MainViewmodel viewModel;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        MediaRepository repository = new FakeMediaRepository();
+        // Shut down, so the startup check reports no media synchronously and no socket is opened
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        viewModel = new MainViewmodel(new FetchMediaUseCase(repository), new GetCachedMediaUseCase(repository),
+                context, executor);
+    }
+
+    @Test
+    public void hasCachedMedia_emitsOnlyWhenAvailabilityFlips() {
+        List<Boolean> emitted = new ArrayList<>();
+        viewModel.getHasCachedMedia().observeForever(emitted::add);
+
+        // Room re-runs the count after every write to media, changed or not
+        for (int count : new int[]{0, 3, 3, 5, 7, 7, 0, 0, 2, 4}) {
+            activeMediaCount.setValue(count);
+        }
+
+        assertEquals(Arrays.asList(false, true, false, true), emitted);
+    }
+
+    @Test
+    public void hasCachedMedia_playerStartsOncePerArrival() {
+        int[] starts = {0};
+        viewModel.getHasCachedMedia().observeForever(available -> {
+            if (Boolean.TRUE.equals(available)) {
+                starts[0]++; // What MainActivity's observer does with startVideoPlayer
+            }
+        });
+
+        for (int i = 1; i <= 50; i++) {
+            activeMediaCount.setValue(i); // A sync landing item by item
+        }
+
+        assertEquals(1, starts[0]);
+    }
+
+    private class FakeMediaRepository implements MediaRepository {
+        @Override
+        public void fetchMedia(OnMediaFetchedListener listener, Runnable onBlocked, Runnable onError) {
+        }
+
+        @Override
+        public List<MediaItem> getCachedMedia() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean hasPlaylistSnapshot() {
+            return false;
+        }
+
+        @Override
+        public PlaylistCursor openSnapshotCursor() {
+            return null;
+        }
+
+        @Override
+        public PlaylistCursor openPlaylistCursor(MediaItem after) {
+            return () -> null;
+        }
+
+        @Override
+        public LiveData<Integer> observeCachedMediaCount() {
+            return activeMediaCount;
+        }
+
+        @Override
+        public void disconnectWebSocket() {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public int countCachedMedia() {
+            return 0;
+        }
+    }
+}
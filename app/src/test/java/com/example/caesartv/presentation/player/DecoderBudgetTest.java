@@ -0,0 +1,89 @@
+package com.example.caesartv.presentation.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.caesartv.data.device.BufferProfiles;
+import com.example.caesartv.data.device.BufferProfiles.BufferProfile;
+import com.example.caesartv.data.device.DeviceCapabilities;
+import com.example.caesartv.domain.model.VideoMetadata;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+// Zones are compiled against DecoderBudget and played from PlayerPool; both take their limit
+// from DecoderBudget.maxDecodes, so every zone the budget grants gets a player
+@RunWith(RobolectricTestRunner.class)
+public class DecoderBudgetTest {
+
+    // Small enough that throughput never decides, only the instance limits
+    private static final VideoMetadata AVC_480P = new VideoMetadata(854, 480, DeviceCapabilities.MIME_AVC, 30f, 1_000_000, 10_000);
+    private static final VideoMetadata HEVC_480P = new VideoMetadata(854, 480, DeviceCapabilities.MIME_HEVC, 30f, 1_000_000, 10_000);
+
+    @Test
+    public void maxDecodes_instanceLimitLowersTheCap() throws JSONException {
+        assertEquals(2, DecoderBudget.maxDecodes(box(2, 0)));
+        assertEquals(1, DecoderBudget.maxDecodes(box(1, 0)));
+    }
+
+    @Test
+    public void maxDecodes_genericInstanceCountIsCapped() throws JSONException {
+        assertEquals(4, DecoderBudget.maxDecodes(box(32, 0)));
+        assertEquals(4, DecoderBudget.maxDecodes(box(0, 0))); // Not reported
+    }
+
+    @Test
+    public void maxDecodes_takesTheMostPermissiveProbedCodec() throws JSONException {
+        DeviceCapabilities capabilities = box(2, 4);
+        assertEquals(2, DecoderBudget.maxDecodes(capabilities, DeviceCapabilities.MIME_AVC));
+        assertEquals(4, DecoderBudget.maxDecodes(capabilities));
+    }
+
+    @Test
+    public void poolHasAPlayerForEveryGrantedZone() throws JSONException {
+        assertGrantedZonesGetPlayers(box(2, 0), AVC_480P, 2);
+        assertGrantedZonesGetPlayers(box(3, 0), AVC_480P, 3);
+        assertGrantedZonesGetPlayers(box(16, 0), AVC_480P, 4);
+        assertGrantedZonesGetPlayers(box(2, 4), HEVC_480P, 4);
+    }
+
+    private static void assertGrantedZonesGetPlayers(DeviceCapabilities capabilities, VideoMetadata zone, int expected) {
+        Context context = ApplicationProvider.getApplicationContext();
+        BufferProfile profile = BufferProfiles.get(context).profileFor(false, true);
+        DecoderBudget budget = new DecoderBudget(capabilities);
+        PlayerPool pool = new PlayerPool(context, DecoderBudget.maxDecodes(capabilities));
+        try {
+            int granted = 0;
+            while (budget.reserve(zone) == null) {
+                granted++;
+                assertNotNull("No player for granted zone " + granted + " on " + capabilities, pool.acquire(profile));
+            }
+            assertEquals(capabilities.toString(), expected, granted);
+            assertNull("Pool larger than the budget on " + capabilities, pool.acquire(profile));
+        } finally {
+            pool.releaseAll();
+        }
+    }
+
+    // A 1080p60 box; HEVC is only probed when it reports instances
+    private static DeviceCapabilities box(int avcInstances, int hevcInstances) throws JSONException {
+        JSONObject codecs = new JSONObject().put(DeviceCapabilities.MIME_AVC, codec(avcInstances));
+        if (hevcInstances > 0) {
+            codecs.put(DeviceCapabilities.MIME_HEVC, codec(hevcInstances));
+        }
+        return DeviceCapabilities.fromJson(new JSONObject().put("displayHeight", 1080).put("codecs", codecs));
+    }
+
+    private static JSONObject codec(int instances) throws JSONException {
+        return new JSONObject().put("width", 1920).put("height", 1080).put("fps", 60)
+                .put("instances", instances).put("tunneling", false);
+    }
+}
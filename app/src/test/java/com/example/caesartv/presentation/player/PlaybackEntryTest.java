@@ -0,0 +1,115 @@
+package com.example.caesartv.presentation.player;
+
+import static org.junit.Assert.assertEquals;
+
+import com.example.caesartv.data.device.DeviceCapabilities;
+import com.example.caesartv.domain.model.MediaItem;
+import com.example.caesartv.domain.model.MediaUrl;
+import com.example.caesartv.domain.model.VideoMetadata;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.List;
+
+// How long a MULTIPLE item stays on screen. It ends when its ending zones have all ended,
+// and the timeout in VideoPlayerFragment is playOutMs plus a margin, so that must cover the
+// slowest zone: a long poster or video, not just the default image time.
+@RunWith(RobolectricTestRunner.class)
+public class PlaybackEntryTest {
+
+    private static final int ITEM_DURATION_S = 20;
+
+    @Test
+    public void posterOverDecoderBudget_holdsForItsVideoLength() throws JSONException {
+        // One decoder instance: the second video becomes a poster of its local file
+        PlaybackEntry entry = compile(1,
+                video("a", new VideoMetadata(1280, 720, DeviceCapabilities.MIME_AVC, 30f, 2_000_000, 30_000)),
+                video("b", new VideoMetadata(1280, 720, DeviceCapabilities.MIME_AVC, 30f, 2_000_000, 45_000)));
+
+        assertEquals(PlaybackEntry.ZoneKind.POSTER, entry.zones[1].kind);
+        assertEquals(45_000, entry.playOutMs());
+    }
+
+    @Test
+    public void longestVideo_decides() throws JSONException {
+        PlaybackEntry entry = compile(4,
+                video("a", new VideoMetadata(1280, 720, DeviceCapabilities.MIME_AVC, 30f, 2_000_000, 62_000)),
+                image("b"));
+
+        assertEquals(62_000, entry.playOutMs());
+    }
+
+    @Test
+    public void videoNotInspected_countsAsTheItemDuration() throws JSONException {
+        PlaybackEntry entry = compile(4, video("a", null), image("b"));
+
+        assertEquals(ITEM_DURATION_S * 1000L, entry.playOutMs());
+    }
+
+    @Test
+    public void imagesOnly_holdForTheImageTime() throws JSONException {
+        PlaybackEntry entry = compile(4, image("a"), image("b"), image("c"));
+
+        assertEquals(PlaybackEntry.IMAGE_DISPLAY_MS, entry.playOutMs());
+    }
+
+    // An image next to videos used to end the item after its 3 seconds, cutting the videos short
+    @Test
+    public void mixedLayout_waitsForEveryVideo() throws JSONException {
+        PlaybackEntry entry = compile(4,
+                video("a", new VideoMetadata(1280, 720, DeviceCapabilities.MIME_AVC, 30f, 2_000_000, 30_000)),
+                video("b", new VideoMetadata(1280, 720, DeviceCapabilities.MIME_AVC, 30f, 2_000_000, 45_000)),
+                image("c"));
+
+        assertEquals(Arrays.asList("Main", "Side"), entry.endingZones());
+        assertEquals(45_000, entry.playOutMs());
+    }
+
+    @Test
+    public void mixedLayout_posterOverBudgetStillEndsTheItem() throws JSONException {
+        PlaybackEntry entry = compile(1,
+                video("a", new VideoMetadata(1280, 720, DeviceCapabilities.MIME_AVC, 30f, 2_000_000, 30_000)),
+                image("b"),
+                video("c", new VideoMetadata(1280, 720, DeviceCapabilities.MIME_AVC, 30f, 2_000_000, 45_000)));
+
+        assertEquals(PlaybackEntry.ZoneKind.POSTER, entry.zones[2].kind);
+        assertEquals(Arrays.asList("Main", "Ticker"), entry.endingZones());
+    }
+
+    @Test
+    public void imagesOnly_endWhenEveryImageHasHadItsTime() throws JSONException {
+        PlaybackEntry entry = compile(4, image("a"), image("b"), image("c"), image("d"));
+
+        assertEquals(Arrays.asList("TopLeft", "TopRight", "BottomLeft", "BottomRight"), entry.endingZones());
+    }
+
+    private static PlaybackEntry compile(int instances, MediaUrl... urls) throws JSONException {
+        List<MediaUrl> zones = Arrays.asList(urls);
+        MediaItem media = new MediaItem("item", "Item", null, "MULTIPLE", "https://example.com/item",
+                zones, null, ITEM_DURATION_S, 0, true, null, null);
+        PlaybackEntry entry = PlaybackEntry.compile(media, box(instances), false);
+        assertEquals(PlaybackEntry.Layout.SPLIT, entry.layout);
+        return entry;
+    }
+
+    private static MediaUrl video(String id, VideoMetadata metadata) {
+        return new MediaUrl("video", "https://example.com/" + id + ".mp4", id, "/data/videos/" + id + ".mp4",
+                null, 0, null, metadata);
+    }
+
+    private static MediaUrl image(String id) {
+        return new MediaUrl("image", "https://example.com/" + id + ".jpg", id, "/data/images/" + id + ".jpg");
+    }
+
+    private static DeviceCapabilities box(int avcInstances) throws JSONException {
+        JSONObject avc = new JSONObject().put("width", 1920).put("height", 1080).put("fps", 60)
+                .put("instances", avcInstances).put("tunneling", false);
+        return DeviceCapabilities.fromJson(new JSONObject().put("displayHeight", 1080)
+                .put("codecs", new JSONObject().put(DeviceCapabilities.MIME_AVC, avc)));
+    }
+}
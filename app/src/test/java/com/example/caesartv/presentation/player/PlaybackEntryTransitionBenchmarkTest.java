@@ -0,0 +1,193 @@
+package com.example.caesartv.presentation.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.caesartv.data.device.DeviceCapabilities;
+import com.example.caesartv.domain.model.MediaItem;
+import com.example.caesartv.domain.model.MediaUrl;
+import com.example.caesartv.domain.model.VideoMetadata;
+import com.example.caesartv.domain.model.ZoneLayout;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Main-thread time per transition over a compiled playlist: the walk playFull and playSplit
+// do over an entry before touching views. Compared with the file checks and type string
+// matching the fragment used to repeat on every transition, against real files.
+@RunWith(RobolectricTestRunner.class)
+public class PlaybackEntryTransitionBenchmarkTest {
+
+    private static final int ITEMS = 500;
+    private static final int ROUNDS = 21;
+    private static final long MAX_WALK_NS = 50_000; // Far above an array walk, far below one stat on a TV's flash
+    private static final VideoMetadata HD = new VideoMetadata(1920, 1080, DeviceCapabilities.MIME_AVC, 30f, 6_000_000, 15_000);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<MediaItem> playlist = new ArrayList<>();
+    private DeviceCapabilities capabilities;
+
+    @Before
+    public void setUp() throws IOException, JSONException {
+        capabilities = box();
+        for (int i = 0; i < ITEMS; i++) {
+            String id = String.format(Locale.US, "media-%04d", i);
+            if (i % 4 == 0) {
+                // A MULTIPLE item for every three SINGLE ones, cycling through the templates
+                List<MediaUrl> urls = new ArrayList<>();
+                int zones = 2 + (i / 4) % 3;
+                for (int z = 0; z < zones; z++) {
+                    String zoneId = id + "-" + z;
+                    urls.add(z % 2 == 0
+                            ? new MediaUrl("video", "https://example.com/" + zoneId + ".mp4", zoneId,
+                            file(zoneId + ".mp4"), null, 0, null, HD)
+                            : new MediaUrl("image", "https://example.com/" + zoneId + ".jpg", zoneId, file(zoneId + ".jpg")));
+                }
+                playlist.add(new MediaItem(id, "Title " + i, null, "MULTIPLE", "https://example.com/" + id,
+                        urls, null, 15, i, true, null, null));
+            } else {
+                String local = file(id + ".mp4");
+                MediaItem item = new MediaItem(id, "Title " + i, null, "SINGLE", local,
+                        new ArrayList<>(), null, 15, i, true, null, null);
+                item.setLocalFilePath(local);
+                item.setVideoMetadata(HD);
+                playlist.add(item);
+            }
+        }
+    }
+
+    @Test
+    public void compiledWalk_beatsPerTransitionFileChecks() {
+        long compileStartedAt = System.nanoTime();
+        PlaybackEntry[] entries = new PlaybackEntry[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            entries[i] = PlaybackEntry.compile(playlist.get(i), capabilities, true);
+            assertTrue(entries[i].toString(), entries[i].layout != PlaybackEntry.Layout.SKIP);
+        }
+        long compileNs = System.nanoTime() - compileStartedAt;
+
+        long[] walkNs = new long[ROUNDS];
+        long[] legacyNs = new long[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            // Alternated so neither side always runs with warmer caches
+            if (round % 2 == 0) {
+                walkNs[round] = perTransition(() -> walkAll(entries));
+                legacyNs[round] = perTransition(this::legacyChecksAll);
+            } else {
+                legacyNs[round] = perTransition(this::legacyChecksAll);
+                walkNs[round] = perTransition(() -> walkAll(entries));
+            }
+        }
+        long walkMedian = median(walkNs);
+        long legacyMedian = median(legacyNs);
+        System.out.println(String.format(Locale.US,
+                "Per transition over %d items, median of %d passes: compiled walk %.2fus, legacy checks %.2fus;"
+                        + " compiled once off the main thread in %.2fms",
+                ITEMS, ROUNDS, walkMedian / 1e3, legacyMedian / 1e3, compileNs / 1e6));
+        assertTrue("Compiled walk took " + walkMedian + "ns per transition", walkMedian < MAX_WALK_NS);
+        assertTrue("Compiled walk " + walkMedian + "ns not faster than the file checks " + legacyMedian + "ns",
+                walkMedian < legacyMedian);
+    }
+
+    private interface Pass {
+        int run();
+    }
+
+    private static long perTransition(Pass pass) {
+        long startedAt = System.nanoTime();
+        int zones = pass.run();
+        long elapsedNs = System.nanoTime() - startedAt;
+        assertTrue(zones > 0);
+        return elapsedNs / ITEMS;
+    }
+
+    // What playFull and playSplit read from an entry before handing sources to views
+    private static int walkAll(PlaybackEntry[] entries) {
+        int zones = 0;
+        for (PlaybackEntry entry : entries) {
+            if (entry.layout == PlaybackEntry.Layout.FULL) {
+                assertNotNull(entry.fullSource());
+                zones++;
+                continue;
+            }
+            ZoneLayout.Slot[] slots = entry.slots();
+            List<String> ending = entry.endingZones();
+            long timeoutMs = entry.playOutMs();
+            for (PlaybackEntry.Zone zone : entry.zones) {
+                String source = zone.sources.length > 0 ? zone.sources[0] : null;
+                long displayMs = zone.kind == PlaybackEntry.ZoneKind.POSTER ? PlaybackEntry.posterDurationMs(zone)
+                        : PlaybackEntry.IMAGE_DISPLAY_MS;
+                if (source != null && displayMs > 0) {
+                    zones++;
+                }
+            }
+            assertEquals(entry.zones.length, slots.length);
+            assertTrue(!ending.isEmpty() && timeoutMs > 0);
+        }
+        return zones;
+    }
+
+    // The old per-transition path: type strings matched and every local file checked
+    private int legacyChecksAll() {
+        int zones = 0;
+        for (MediaItem item : playlist) {
+            if ("SINGLE".equals(item.getMediaType())) {
+                if (readable(item.getLocalFilePath())) {
+                    zones++;
+                }
+            } else if ("MULTIPLE".equals(item.getMediaType())) {
+                for (MediaUrl url : item.getMultipleUrl()) {
+                    if (("video".equals(url.getUrlType()) || "image".equals(url.getUrlType()))
+                            && readable(url.getLocalFilePath())) {
+                        zones++;
+                    }
+                }
+            }
+        }
+        return zones;
+    }
+
+    private static boolean readable(String path) {
+        File file = new File(path);
+        return file.exists() && file.canRead() && file.length() > 0;
+    }
+
+    private String file(String name) throws IOException {
+        File file = folder.newFile(name);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[1024]);
+        }
+        return file.getAbsolutePath();
+    }
+
+    private static long median(long[] samples) {
+        long[] sorted = Arrays.copyOf(samples, samples.length);
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    // A 1080p60 box with room for every video zone in the templates
+    private static DeviceCapabilities box() throws JSONException {
+        JSONObject avc = new JSONObject().put("width", 1920).put("height", 1080).put("fps", 60)
+                .put("instances", 4).put("tunneling", false);
+        return DeviceCapabilities.fromJson(new JSONObject().put("displayHeight", 1080)
+                .put("codecs", new JSONObject().put(DeviceCapabilities.MIME_AVC, avc)));
+    }
+}
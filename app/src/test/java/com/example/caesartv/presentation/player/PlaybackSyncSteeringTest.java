@@ -0,0 +1,172 @@
+package com.example.caesartv.presentation.player;
+
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.media3.common.PlaybackParameters;
+import androidx.media3.common.Player;
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.caesartv.data.sync.SyncGroup;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+
+// Zones whose media clocks run fast or slow against the screen's clock, and that start off
+// the timeline, are steered by speed alone until each is within DEADBAND_MS and stays there.
+// The players are stand-ins whose position advances with the looper's clock at their own rate.
+@RunWith(RobolectricTestRunner.class)
+public class PlaybackSyncSteeringTest {
+
+    private static final String ITEM = "item";
+    private static final Duration CONVERGE_WITHIN = Duration.ofSeconds(20);
+    private static final Duration HOLD_FOR = Duration.ofSeconds(30);
+
+    private PlaybackSync sync;
+    private long startUs;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        sync = new PlaybackSync(SyncGroup.getInstance(context), new Handler(Looper.getMainLooper()));
+        startUs = SystemClock.elapsedRealtimeNanos() / 1000 + PlaybackSync.START_DELAY_US;
+        sync.begin(ITEM);
+    }
+
+    @After
+    public void tearDown() {
+        sync.end();
+    }
+
+    @Test
+    public void fastAndSlowClocks_convergeIntoTheDeadband() {
+        FakePlayer aheadAndFast = track("Main", 300, 150);
+        FakePlayer behindAndSlow = track("Side", -400, -250);
+        FakePlayer onTimeButFast = track("Ticker", 0, 500);
+
+        runFor(CONVERGE_WITHIN);
+        long maxErrorMs = 0;
+        for (long elapsed = 0; elapsed < HOLD_FOR.toMillis(); elapsed += PlaybackSync.TICK_MS) {
+            runFor(Duration.ofMillis(PlaybackSync.TICK_MS));
+            for (FakePlayer player : new FakePlayer[]{aheadAndFast, behindAndSlow, onTimeButFast}) {
+                maxErrorMs = Math.max(maxErrorMs, Math.abs(player.errorMs()));
+            }
+        }
+        // One tick of drift past the deadband before the nudge takes hold
+        assertTrue("Drifted " + maxErrorMs + "ms off the timeline", maxErrorMs <= PlaybackSync.DEADBAND_MS + 1);
+        assertTrue(aheadAndFast.seeks + behindAndSlow.seeks + onTimeButFast.seeks == 0);
+    }
+
+    @Test
+    public void farOffZone_seeksThenHoldsTheDeadband() {
+        FakePlayer farAhead = track("Main", 1200, 100);
+
+        runFor(CONVERGE_WITHIN);
+        for (long elapsed = 0; elapsed < HOLD_FOR.toMillis(); elapsed += PlaybackSync.TICK_MS) {
+            runFor(Duration.ofMillis(PlaybackSync.TICK_MS));
+            assertTrue("Off the timeline by " + farAhead.errorMs() + "ms",
+                    Math.abs(farAhead.errorMs()) <= PlaybackSync.DEADBAND_MS + 1);
+        }
+        assertTrue("Never sought back onto the timeline", farAhead.seeks > 0);
+    }
+
+    private FakePlayer track(String zone, long startOffsetMs, double driftPpm) {
+        FakePlayer player = new FakePlayer(startOffsetMs, driftPpm);
+        sync.track(zone, player.asExoPlayer());
+        return player;
+    }
+
+    private static void runFor(Duration duration) {
+        shadowOf(Looper.getMainLooper()).idleFor(duration);
+    }
+
+    private long targetMs() {
+        return (SystemClock.elapsedRealtimeNanos() / 1000 - startUs) / 1000;
+    }
+
+    // Position advances with elapsed time, scaled by the playback speed and the clock drift.
+    // It starts startOffsetMs off the timeline, as a zone that rendered its first frame late or early.
+    private final class FakePlayer {
+        private final long startOffsetMs;
+        private final double rate;
+        private boolean playWhenReady = true;
+        private boolean started;
+        private double positionMs;
+        private float speed = 1f;
+        private long updatedAtMs;
+        int seeks;
+
+        FakePlayer(long startOffsetMs, double driftPpm) {
+            this.startOffsetMs = startOffsetMs;
+            this.rate = 1 + driftPpm / 1_000_000;
+        }
+
+        long errorMs() {
+            advance();
+            return position() - targetMs();
+        }
+
+        // A zone that starts behind shows its first frame, position 0, until it gets there
+        private long position() {
+            return Math.max(0, (long) positionMs);
+        }
+
+        private void advance() {
+            long nowMs = SystemClock.elapsedRealtime();
+            if (playWhenReady && started) {
+                positionMs += (nowMs - updatedAtMs) * speed * rate;
+            }
+            updatedAtMs = nowMs;
+        }
+
+        ExoPlayer asExoPlayer() {
+            return (ExoPlayer) Proxy.newProxyInstance(ExoPlayer.class.getClassLoader(), new Class<?>[]{ExoPlayer.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getPlaybackState":
+                                return Player.STATE_READY;
+                            case "getPlayWhenReady":
+                                return playWhenReady;
+                            case "setPlayWhenReady":
+                                advance();
+                                playWhenReady = (Boolean) args[0];
+                                if (playWhenReady && !started) {
+                                    started = true;
+                                    positionMs = targetMs() + startOffsetMs;
+                                }
+                                return null;
+                            case "getCurrentPosition":
+                                advance();
+                                return position();
+                            case "seekTo":
+                                advance();
+                                positionMs = (Long) args[args.length - 1];
+                                seeks++;
+                                return null;
+                            case "setPlaybackParameters":
+                                advance();
+                                speed = ((PlaybackParameters) args[0]).speed;
+                                return null;
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "equals":
+                                return proxy == args[0];
+                            default:
+                                return null;
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.caesartv.presentation.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.os.Looper;
+
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.caesartv.data.device.BufferProfiles;
+import com.example.caesartv.data.device.BufferProfiles.BufferProfile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.Duration;
+
+// The pool hands out at most maxDecoders players at a time; parked players do not count,
+// and each is released once it has itself been parked for IDLE_RELEASE_MS
+@RunWith(RobolectricTestRunner.class)
+public class PlayerPoolTest {
+
+    private static final int MAX_DECODERS = 2;
+
+    private PlayerPool pool;
+    private BufferProfile fullLocal;
+    private BufferProfile splitRemote;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        BufferProfiles profiles = BufferProfiles.get(context);
+        fullLocal = profiles.profileFor(false, false);
+        splitRemote = profiles.profileFor(true, true);
+        pool = new PlayerPool(context, MAX_DECODERS);
+    }
+
+    @After
+    public void tearDown() {
+        pool.releaseAll();
+    }
+
+    @Test
+    public void acquire_refusesPastTheCap() {
+        assertNotNull(pool.acquire(fullLocal));
+        assertNotNull(pool.acquire(splitRemote));
+        assertFalse(pool.hasDecoderBudget());
+
+        assertNull(pool.acquire(fullLocal));
+        assertNull(pool.acquire(splitRemote));
+        assertEquals(MAX_DECODERS, pool.inUse());
+    }
+
+    @Test
+    public void recycledPlayer_freesItsDecoder() {
+        ExoPlayer first = pool.acquire(fullLocal);
+        pool.acquire(fullLocal);
+        assertNull(pool.acquire(fullLocal));
+
+        pool.recycle(first);
+        assertTrue(pool.hasDecoderBudget());
+        assertSame(first, pool.acquire(fullLocal)); // Reused from the parked players
+        assertNull(pool.acquire(fullLocal));
+    }
+
+    @Test
+    public void parkedPlayersOfOtherProfiles_doNotBlockAcquire() {
+        ExoPlayer first = pool.acquire(splitRemote);
+        ExoPlayer second = pool.acquire(splitRemote);
+        pool.recycle(first);
+        pool.recycle(second);
+        assertEquals(0, pool.inUse());
+
+        assertNotNull(pool.acquire(fullLocal));
+        assertNotNull(pool.acquire(fullLocal));
+        assertNull(pool.acquire(fullLocal));
+    }
+
+    @Test
+    public void idleRelease_onlyTakesPlayersParkedLongEnough() {
+        ExoPlayer early = pool.acquire(fullLocal);
+        ExoPlayer late = pool.acquire(fullLocal);
+        pool.recycle(early);
+        idleFor(PlayerPool.IDLE_RELEASE_MS * 2 / 3);
+        pool.recycle(late); // Must not push back the release of the earlier one
+
+        idleFor(PlayerPool.IDLE_RELEASE_MS / 2);
+        assertSame("Released a player parked for less than the idle time", late, pool.acquire(fullLocal));
+        assertNotSame("Kept a player parked past the idle time", early, pool.acquire(fullLocal));
+    }
+
+    @Test
+    public void idleRelease_reachesEveryParkedPlayerInTurn() {
+        ExoPlayer early = pool.acquire(fullLocal);
+        ExoPlayer late = pool.acquire(fullLocal);
+        pool.recycle(early);
+        idleFor(PlayerPool.IDLE_RELEASE_MS / 2);
+        pool.recycle(late);
+
+        idleFor(PlayerPool.IDLE_RELEASE_MS);
+        ExoPlayer first = pool.acquire(fullLocal);
+        ExoPlayer second = pool.acquire(fullLocal);
+        assertNotSame(early, first);
+        assertNotSame(late, first);
+        assertNotSame(early, second);
+        assertNotSame(late, second);
+    }
+
+    private static void idleFor(long ms) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(ms));
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.caesartv.presentation.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.os.Looper;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.caesartv.domain.model.MediaItem;
+import com.example.caesartv.domain.repository.MediaRepository;
+import com.example.caesartv.domain.repository.PlaylistCursor;
+import com.example.caesartv.domain.usecase.GetCachedMediaUseCase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// A one-item playlist loops in place: the look-ahead wraps while the item is still on screen,
+// and that must neither read as a pass with nothing playable nor leave the player without a
+// next item. A pass with nothing on screen for any time still stops the loop.
+@RunWith(RobolectricTestRunner.class)
+public class VideoPlayerViewModelLoopTest {
+
+    private static final int LOOPS = 1000;
+    private static final Duration ITEM_DURATION = Duration.ofSeconds(10);
+
+    private final AtomicInteger cursorsOpened = new AtomicInteger();
+    private final List<PlaybackEntry> shown = new ArrayList<>();
+    private final List<PlaybackEntry> peeked = new ArrayList<>();
+    private VideoPlayerViewModel viewModel;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        viewModel = new VideoPlayerViewModel(new GetCachedMediaUseCase(new OneItemRepository()), context);
+        viewModel.getCurrentMedia().observeForever(shown::add);
+        viewModel.getUpcomingMedia().observeForever(peeked::add);
+    }
+
+    @After
+    public void tearDown() {
+        viewModel.onCleared();
+    }
+
+    @Test
+    public void oneItemPlaylist_loops1000Times() {
+        awaitEmissions(1);
+        for (int i = 1; i <= LOOPS; i++) {
+            shadowOf(Looper.getMainLooper()).idleFor(ITEM_DURATION); // The item plays to its end
+            viewModel.handleVideoEnd();
+            awaitEmissions(i + 1);
+        }
+
+        assertEquals(LOOPS + 1, shown.size());
+        for (PlaybackEntry entry : shown) {
+            assertNotNull("Loop stopped as if nothing was playable", entry);
+            assertEquals("only", entry.media.getId());
+        }
+        for (PlaybackEntry entry : peeked) {
+            assertNotNull("No look-ahead for the pre-buffer", entry);
+        }
+        // The startup cursor, then one per pass, wrapped by the look-ahead
+        assertEquals(LOOPS + 2, cursorsOpened.get());
+    }
+
+    @Test
+    public void passWithNothingOnScreen_stopsTheLoop() {
+        awaitEmissions(1);
+        shadowOf(Looper.getMainLooper()).idleFor(ITEM_DURATION);
+        viewModel.handleVideoEnd();
+        awaitEmissions(2);
+        assertNotNull(shown.get(1));
+
+        viewModel.handleVideoEnd(); // Failed as soon as it was shown
+        awaitEmissions(3);
+        assertNull(shown.get(2));
+    }
+
+    // The executor posts each entry to the main looper, which runs only when the test idles it.
+    // Every item shown is followed by its look-ahead.
+    private void awaitEmissions(int count) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (shown.size() < count || peeked.size() < shownNonNull()) {
+            assertTrue("Timed out waiting for entry " + count, System.nanoTime() < deadline);
+            shadowOf(Looper.getMainLooper()).idle();
+            Thread.yield();
+        }
+    }
+
+    private int shownNonNull() {
+        int count = 0;
+        for (PlaybackEntry entry : shown) {
+            if (entry != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private class OneItemRepository implements MediaRepository {
+        private final MediaItem item = new MediaItem("only", "Only item", null, "SINGLE",
+                "https://example.com/only.mp4", new ArrayList<>(), null,
+                (int) ITEM_DURATION.getSeconds(), 0, true, null, null);
+
+        @Override
+        public void fetchMedia(OnMediaFetchedListener listener, Runnable onBlocked, Runnable onError) {
+        }
+
+        @Override
+        public List<MediaItem> getCachedMedia() {
+            return Collections.singletonList(item);
+        }
+
+        @Override
+        public boolean hasPlaylistSnapshot() {
+            return false;
+        }
+
+        @Override
+        public PlaylistCursor openSnapshotCursor() {
+            return null;
+        }
+
+        // A fresh copy per cursor, as Room pages new rows
+        @Override
+        public PlaylistCursor openPlaylistCursor(MediaItem after) {
+            cursorsOpened.incrementAndGet();
+            Iterator<MediaItem> items = after == null
+                    ? Collections.singletonList(copy()).iterator()
+                    : Collections.<MediaItem>emptyIterator();
+            return () -> items.hasNext() ? items.next() : null;
+        }
+
+        private MediaItem copy() {
+            return new MediaItem(item.getId(), item.getTitle(), null, item.getMediaType(), item.getUrl(),
+                    new ArrayList<>(), null, item.getDuration(), 0, true, null, null);
+        }
+
+        @Override
+        public LiveData<Integer> observeCachedMediaCount() {
+            return new MutableLiveData<>();
+        }
+
+        @Override
+        public void disconnectWebSocket() {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public int countCachedMedia() {
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.caesartv.presentation.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.os.Looper;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.caesartv.domain.model.MediaItem;
+import com.example.caesartv.domain.repository.MediaRepository;
+import com.example.caesartv.domain.repository.PlaylistCursor;
+import com.example.caesartv.domain.usecase.GetCachedMediaUseCase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+// The look-ahead the fragment pre-buffers and queues: always the item after the one on
+// screen, moved on by playlist transitions the player made by itself without re-posting
+// the current item, and re-read when the playlist changes underneath it
+@RunWith(RobolectricTestRunner.class)
+public class VideoPlayerViewModelTest {
+
+    private static final long TIMEOUT_MS = 5000;
+
+    private final MutableLiveData<Integer> activeMediaCount = new MutableLiveData<>();
+    private final List<MediaItem> playlist = new CopyOnWriteArrayList<>();
+    private final List<String> shown = new ArrayList<>();
+    private VideoPlayerViewModel viewModel;
+
+    @Before
+    public void setUp() {
+        playlist.addAll(Arrays.asList(item("a"), item("b"), item("c"), item("d")));
+        Context context = ApplicationProvider.getApplicationContext();
+        viewModel = new VideoPlayerViewModel(new GetCachedMediaUseCase(new FakeMediaRepository()), context);
+        viewModel.getCurrentMedia().observeForever(entry -> shown.add(entry != null ? entry.media.getId() : null));
+        awaitUpcoming("b");
+    }
+
+    @After
+    public void tearDown() {
+        viewModel.onCleared();
+    }
+
+    @Test
+    public void upcoming_isAlwaysTheItemAfterTheOneOnScreen() {
+        assertEquals(Arrays.asList("a"), shown);
+
+        viewModel.handleVideoEnd();
+        awaitUpcoming("c");
+        assertEquals(Arrays.asList("a", "b"), shown);
+
+        viewModel.handleVideoEnd();
+        awaitUpcoming("d");
+        // A full pass must take longer than MIN_LOOP_MS, or the playlist counts as unplayable
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofSeconds(2));
+        viewModel.handleVideoEnd();
+        awaitUpcoming("a"); // Wraps while d is still on screen
+        assertEquals(Arrays.asList("a", "b", "c", "d"), shown);
+
+        viewModel.handleVideoEnd();
+        awaitUpcoming("b");
+        assertEquals(Arrays.asList("a", "b", "c", "d", "a"), shown);
+    }
+
+    // The player moved onto the queued item itself: nothing is posted to currentMedia
+    @Test
+    public void runAdvanced_movesTheLookAheadOnly() {
+        viewModel.onRunAdvanced(playlist.get(1));
+        awaitUpcoming("c");
+
+        viewModel.onRunAdvanced(playlist.get(2));
+        awaitUpcoming("d");
+        assertEquals(Arrays.asList("a"), shown);
+
+        viewModel.handleVideoEnd(); // The run ended; the next item comes through currentMedia
+        awaitUpcoming("a");
+        assertEquals(Arrays.asList("a", "d"), shown);
+    }
+
+    // The queued item went stale, so the cursor is reopened after the item that actually played
+    @Test
+    public void runAdvancedPastTheLookAhead_repositionsAfterWhatPlayed() {
+        viewModel.onRunAdvanced(playlist.get(2));
+        awaitUpcoming("d");
+
+        viewModel.handleVideoEnd();
+        awaitUpcoming("a");
+        assertEquals(Arrays.asList("a", "d"), shown);
+    }
+
+    @Test
+    public void playlistChange_replacesTheLookAhead() {
+        playlist.add(1, item("new"));
+        activeMediaCount.setValue(playlist.size());
+        awaitUpcoming("new");
+        assertEquals("Interrupted the item on screen", Arrays.asList("a"), shown);
+
+        viewModel.handleVideoEnd();
+        awaitUpcoming("b");
+        assertEquals(Arrays.asList("a", "new"), shown);
+    }
+
+    // The view model reads on its executor and posts back to the main looper
+    private void awaitUpcoming(String id) {
+        await("upcoming " + id, () -> {
+            PlaybackEntry upcoming = viewModel.getUpcomingMedia().getValue();
+            return upcoming != null && upcoming.media.getId().equals(id);
+        });
+        assertNotNull(viewModel.getCurrentMedia().getValue());
+    }
+
+    private static void await(String what, BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (true) {
+            shadowOf(Looper.getMainLooper()).idle();
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            assertTrue("Timed out waiting for " + what, System.currentTimeMillis() < deadline);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private static MediaItem item(String id) {
+        return new MediaItem(id, id, null, "SINGLE", "https://example.com/" + id + ".mp4",
+                new ArrayList<>(), null, 10, 0, true, null, null);
+    }
+
+    private class FakeMediaRepository implements MediaRepository {
+        @Override
+        public void fetchMedia(OnMediaFetchedListener listener, Runnable onBlocked, Runnable onError) {
+        }
+
+        @Override
+        public List<MediaItem> getCachedMedia() {
+            return new ArrayList<>(playlist);
+        }
+
+        @Override
+        public boolean hasPlaylistSnapshot() {
+            return false;
+        }
+
+        @Override
+        public PlaylistCursor openSnapshotCursor() {
+            return null;
+        }
+
+        // Positioned by id, as the Room cursor is
+        @Override
+        public PlaylistCursor openPlaylistCursor(MediaItem after) {
+            List<MediaItem> items = new ArrayList<>(playlist);
+            int start = 0;
+            if (after != null) {
+                for (int i = 0; i < items.size(); i++) {
+                    if (items.get(i).getId().equals(after.getId())) {
+                        start = i + 1;
+                    }
+                }
+            }
+            int[] position = {start};
+            return () -> position[0] < items.size() ? items.get(position[0]++) : null;
+        }
+
+        @Override
+        public LiveData<Integer> observeCachedMediaCount() {
+            return activeMediaCount;
+        }
+
+        @Override
+        public void disconnectWebSocket() {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public int countCachedMedia() {
+            return playlist.size();
+        }
+    }
+}